@@ -31,6 +31,7 @@ public interface Command extends Callable<Integer>
         STORE_INFO,
         MEMORY_RECOMMENDATION,
         IMPORT,
+        DEFRAGMENT,
         STORE_COPY,
         SET_DEFAULT_ADMIN,
         SET_INITIAL_PASSWORD,
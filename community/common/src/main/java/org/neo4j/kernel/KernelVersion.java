@@ -42,11 +42,15 @@ public enum KernelVersion
     // has no command version of their own it relies on a bump of the parser set version to distinguish between versions unfortunately.
     // Also introduces token index and relationship property index features.
     V4_3_D4( (byte) 3 ),
-    V4_4( (byte) 4 ); // 4.4. Introduces RANGE, POINT and TEXT index types.
+    V4_4( (byte) 4 ), // 4.4. Introduces RANGE, POINT and TEXT index types.
+    // 4.4.29. The 4.4 format with compressed command entries in the transaction log. Databases are never upgraded to it, only the transactions
+    // of databases that opt in to compressed commands are written in it, see GraphDatabaseInternalSettings.tx_log_compression.
+    V4_4_29( (byte) 5 );
 
     public static final KernelVersion LATEST = V4_4;
     public static final KernelVersion VERSION_IN_WHICH_TOKEN_INDEXES_ARE_INTRODUCED = V4_3_D4;
     public static final KernelVersion VERSION_RANGE_POINT_TEXT_INDEX_TYPES_ARE_INTRODUCED = V4_4;
+    public static final KernelVersion VERSION_IN_WHICH_COMPRESSED_COMMANDS_ARE_INTRODUCED = V4_4_29;
     private static final ImmutableByteObjectMap<KernelVersion> versionMap =
             ByteObjectMaps.immutable.from( List.of( values() ), KernelVersion::version, v -> v );
 
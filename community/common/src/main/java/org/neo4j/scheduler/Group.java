@@ -35,6 +35,8 @@ public enum Group
     PAGE_CACHE_EVICTION( "PageCacheEviction" ),
     /* Page cache background eviction. */
     PAGE_CACHE_PRE_FETCHER( "PageCachePreFetcher", ExecutorServiceFactory.cachedWithDiscard(), 4 ),
+    /* Concurrent reads and writes of the asynchronous page swapper. */
+    PAGE_CACHE_IO( "PageCacheIO" ),
     /** Watch out for, and report, external manipulation of store files. */
     FILE_WATCHER( "FileWatcher", ExecutorServiceFactory.unschedulable() ),
     /** Monitor and report system-wide pauses, in case they lead to service interruption. */
@@ -64,6 +66,8 @@ public enum Group
     INDEX_POPULATION_WORK( "IndexPopulationWork", ExecutorServiceFactory.cached() ),
     /** Background index sampling */
     INDEX_SAMPLING( "IndexSampling" ),
+    /** Background building of the bloom filters of unique indexes. */
+    INDEX_BLOOM_FILTER( "IndexBloomFilter" ),
     /** Background index update applier, for eventually consistent indexes. */
     INDEX_UPDATING( "IndexUpdating", ExecutorServiceFactory.singleThread() ), // Single-threaded to serialise updates with opening/closing/flushing of indexes.
     /** Thread pool for anyone who want some help doing file IO in parallel. */
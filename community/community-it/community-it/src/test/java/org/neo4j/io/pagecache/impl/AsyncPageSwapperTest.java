@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.neo4j.internal.helpers.NamedThreadFactory;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+
+/**
+ * Runs the page swapper tests against the asynchronous swapper, with a queue depth that makes most vectored reads and writes of the tests
+ * be split into slices of different sizes.
+ */
+public class AsyncPageSwapperTest extends SingleFilePageSwapperTest
+{
+    private static final int QUEUE_DEPTH = 3;
+
+    private ExecutorService ioExecutor;
+
+    @BeforeEach
+    void startIoExecutor()
+    {
+        ioExecutor = Executors.newCachedThreadPool( new NamedThreadFactory( "AsyncPageSwapperTest" ) );
+    }
+
+    @AfterEach
+    void stopIoExecutor()
+    {
+        ioExecutor.shutdown();
+    }
+
+    @Override
+    protected PageSwapperFactory swapperFactory( FileSystemAbstraction fileSystem )
+    {
+        return new AsyncPageSwapperFactory( fileSystem, new DefaultPageCacheTracer(), ioExecutor, QUEUE_DEPTH );
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.eclipse.collections.api.factory.Sets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.context.CursorContext;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.scheduler.JobSchedulerFactory;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
+import org.neo4j.test.utils.TestDirectory;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.context.CursorContext.NULL;
+
+@TestDirectoryExtension
+class MuninnReadAheadTest
+{
+    private static final int FILE_PAGES = 200;
+
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private FileSystemAbstraction fs;
+    private JobScheduler jobScheduler;
+    private final LifeSupport life = new LifeSupport();
+    private final DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+    private Path file;
+
+    @BeforeEach
+    void start() throws IOException
+    {
+        jobScheduler = JobSchedulerFactory.createScheduler();
+        life.add( jobScheduler );
+        life.start();
+        file = directory.file( "store" );
+        try ( PageCache pageCache = startPageCache( PageCacheTracer.NULL, 0 );
+              PagedFile pagedFile = pageCache.map( file, PageCache.PAGE_SIZE, DEFAULT_DATABASE_NAME, Sets.immutable.of( StandardOpenOption.CREATE ) );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+        {
+            for ( int i = 0; i < FILE_PAGES; i++ )
+            {
+                cursor.next( i );
+                cursor.putLong( i );
+            }
+        }
+    }
+
+    @AfterEach
+    void stop()
+    {
+        life.shutdown();
+    }
+
+    @Test
+    void readAheadMustLoadConsecutivePagesWithSingleRead() throws IOException
+    {
+        try ( PageCache pageCache = startPageCache( tracer, 0 );
+              MuninnPagedFile pagedFile = map( pageCache ) )
+        {
+            assertThat( readAhead( pagedFile, 10, 32 ) ).isEqualTo( 32 );
+            assertThat( tracer.readAheads() ).isEqualTo( 1 );
+            assertThat( tracer.readAheadPages() ).isEqualTo( 32 );
+            assertThat( tracer.faults() ).isEqualTo( 32 );
+            assertThat( tracer.bytesRead() ).isEqualTo( 32L * PageCache.PAGE_SIZE );
+
+            long faultsBefore = tracer.faults();
+            for ( int i = 10; i < 42; i++ )
+            {
+                assertThat( readPage( pagedFile, i ) ).isEqualTo( i );
+            }
+            assertThat( tracer.faults() ).isEqualTo( faultsBefore );
+        }
+    }
+
+    @Test
+    void readAheadMustStopAtPagesInMemory() throws IOException
+    {
+        try ( PageCache pageCache = startPageCache( tracer, 0 );
+              MuninnPagedFile pagedFile = map( pageCache ) )
+        {
+            assertThat( readPage( pagedFile, 7 ) ).isEqualTo( 7 );
+
+            assertThat( readAhead( pagedFile, 0, 32 ) ).isEqualTo( 7 );
+            assertThat( readAhead( pagedFile, 7, 32 ) ).isZero();
+            assertThat( readAhead( pagedFile, 8, 32 ) ).isEqualTo( 32 );
+            assertThat( tracer.readAheadPages() ).isEqualTo( 39 );
+        }
+    }
+
+    @Test
+    void readAheadMustNotReadBeyondEndOfFile() throws IOException
+    {
+        try ( PageCache pageCache = startPageCache( tracer, 0 );
+              MuninnPagedFile pagedFile = map( pageCache ) )
+        {
+            assertThat( readAhead( pagedFile, FILE_PAGES - 4, 32 ) ).isEqualTo( 4 );
+            assertThat( readAhead( pagedFile, FILE_PAGES, 32 ) ).isZero();
+            assertThat( readPage( pagedFile, FILE_PAGES - 1 ) ).isEqualTo( FILE_PAGES - 1 );
+        }
+    }
+
+    @Test
+    void scanningCursorMustBeReadAheadOfOnceItLooksLikeScan() throws IOException
+    {
+        try ( PageCache pageCache = startPageCache( tracer, 4 );
+              MuninnPagedFile pagedFile = map( pageCache );
+              PageCursorTracer cursorTracer = tracer.createPageCursorTracer( "scan" );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, new CursorContext( cursorTracer ) ) )
+        {
+            for ( int i = 0; i < FILE_PAGES; i++ )
+            {
+                assertThat( cursor.next() ).isTrue();
+                assertThat( cursor.getLong() ).isEqualTo( i );
+                // Slow down the scan, to give the pre-fetcher a chance to get ahead of it.
+                LockSupport.parkNanos( MILLISECONDS.toNanos( 1 ) );
+            }
+            assertThat( cursorTracer.faults() ).isLessThan( FILE_PAGES );
+            assertThat( tracer.readAheadPages() ).isPositive();
+        }
+    }
+
+    @Test
+    void scanningCursorMustNotBeReadAheadOfWithoutThreshold() throws IOException
+    {
+        try ( PageCache pageCache = startPageCache( tracer, 0 );
+              MuninnPagedFile pagedFile = map( pageCache );
+              PageCursorTracer cursorTracer = tracer.createPageCursorTracer( "scan" );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, new CursorContext( cursorTracer ) ) )
+        {
+            for ( int i = 0; i < FILE_PAGES; i++ )
+            {
+                assertThat( cursor.next() ).isTrue();
+            }
+            assertThat( cursorTracer.faults() ).isEqualTo( FILE_PAGES );
+            assertThat( tracer.readAheads() ).isZero();
+        }
+    }
+
+    private int readAhead( MuninnPagedFile pagedFile, long startFilePageId, int maxPages ) throws IOException
+    {
+        try ( PageCursorTracer cursorTracer = tracer.createPageCursorTracer( "readAhead" ) )
+        {
+            return pagedFile.readAhead( startFilePageId, maxPages, cursorTracer );
+        }
+    }
+
+    private long readPage( PagedFile pagedFile, long pageId ) throws IOException
+    {
+        try ( PageCursorTracer cursorTracer = tracer.createPageCursorTracer( "read" );
+              PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK, new CursorContext( cursorTracer ) ) )
+        {
+            assertThat( cursor.next() ).isTrue();
+            return cursor.getLong();
+        }
+    }
+
+    private MuninnPagedFile map( PageCache pageCache ) throws IOException
+    {
+        return (MuninnPagedFile) pageCache.map( file, PageCache.PAGE_SIZE, DEFAULT_DATABASE_NAME );
+    }
+
+    private PageCache startPageCache( PageCacheTracer tracer, int readAheadThreshold )
+    {
+        MuninnPageCache.Configuration configuration = MuninnPageCache.config( FILE_PAGES * 2 )
+                .pageCacheTracer( tracer )
+                .readAheadThreshold( readAheadThreshold );
+        return new MuninnPageCache( new SingleFilePageSwapperFactory( fs, tracer ), jobScheduler, configuration );
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.eclipse.collections.api.factory.Sets;
+import org.eclipse.collections.api.list.primitive.MutableLongList;
+import org.eclipse.collections.impl.factory.primitive.LongLists;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.context.CursorContext;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.scheduler.JobSchedulerFactory;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
+import org.neo4j.test.utils.TestDirectory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.context.CursorContext.NULL;
+
+@TestDirectoryExtension
+class ScanResistantEvictionPolicyTest
+{
+    private static final int FILE_PAGES = 1_000;
+    private static final int CACHE_PAGES = 100;
+    private static final long[] HOT_PAGES = {517, 42, 903, 268, 771, 130, 655, 384};
+
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private FileSystemAbstraction fs;
+    private JobScheduler jobScheduler;
+    private final LifeSupport life = new LifeSupport();
+    private Path file;
+
+    @BeforeEach
+    void start() throws IOException
+    {
+        jobScheduler = JobSchedulerFactory.createScheduler();
+        life.add( jobScheduler );
+        life.start();
+        file = directory.file( "store" );
+        try ( PageCache pageCache = startPageCache( EvictionPolicy.CLOCK, PageCacheTracer.NULL, FILE_PAGES );
+              PagedFile pagedFile = pageCache.map( file, PageCache.PAGE_SIZE, DEFAULT_DATABASE_NAME, Sets.immutable.of( StandardOpenOption.CREATE ) );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+        {
+            for ( int i = 0; i < FILE_PAGES; i++ )
+            {
+                cursor.next( i );
+                cursor.putLong( i );
+            }
+        }
+    }
+
+    @AfterEach
+    void stop()
+    {
+        life.shutdown();
+    }
+
+    @Test
+    void sequentialFaultsMustOnlyBeAdmittedOnProbation() throws IOException
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( PageCache pageCache = startPageCache( EvictionPolicy.SCAN_RESISTANT, tracer, FILE_PAGES );
+              PagedFile pagedFile = pageCache.map( file, PageCache.PAGE_SIZE, DEFAULT_DATABASE_NAME ) )
+        {
+            scan( pagedFile, tracer, 10 );
+            // The first page of the scan is not known to be part of a scan when it is faulted in.
+            assertThat( tracer.probationaryFaults() ).isEqualTo( 9 );
+            assertThat( tracer.promotions() ).isZero();
+
+            read( pagedFile, tracer, 5 );
+            assertThat( tracer.promotions() ).isEqualTo( 1 );
+
+            read( pagedFile, tracer, 5 );
+            assertThat( tracer.promotions() ).isEqualTo( 1 );
+        }
+    }
+
+    @Test
+    void pinningTheSamePageAgainMustPromoteIt() throws IOException
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( PageCache pageCache = startPageCache( EvictionPolicy.SCAN_RESISTANT, tracer, FILE_PAGES );
+              PagedFile pagedFile = pageCache.map( file, PageCache.PAGE_SIZE, DEFAULT_DATABASE_NAME );
+              PageCursorTracer cursorTracer = tracer.createPageCursorTracer( "repin" );
+              PageCursor cursor = pagedFile.io( FILE_PAGES - 3, PF_SHARED_READ_LOCK, new CursorContext( cursorTracer ) ) )
+        {
+            for ( int i = 0; i < 3; i++ )
+            {
+                assertThat( cursor.next() ).isTrue();
+            }
+            assertThat( tracer.probationaryFaults() ).isEqualTo( 2 );
+            assertThat( tracer.promotions() ).isZero();
+
+            // Running off the end of the file unpins the last page, so this pins it again.
+            assertThat( cursor.next() ).isFalse();
+            assertThat( cursor.next( FILE_PAGES - 1 ) ).isTrue();
+            assertThat( tracer.promotions() ).isEqualTo( 1 );
+        }
+    }
+
+    @Test
+    void probationaryVictimThatWasNotEvictedMustBeOfferedAgain() throws IOException
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = startPageCache( EvictionPolicy.SCAN_RESISTANT, tracer, CACHE_PAGES );
+              PagedFile pagedFile = pageCache.map( file, PageCache.PAGE_SIZE, DEFAULT_DATABASE_NAME ) )
+        {
+            scan( pagedFile, tracer, 10 );
+            EvictionPolicy evictionPolicy = pageCache.evictionPolicy;
+
+            long victim = evictionPolicy.probationaryVictim();
+            assertThat( victim ).isNotEqualTo( EvictionPolicy.NO_VICTIM );
+            evictionPolicy.victimNotEvicted( victim );
+
+            MutableLongList victims = LongLists.mutable.empty();
+            long pageRef;
+            while ( (pageRef = evictionPolicy.probationaryVictim()) != EvictionPolicy.NO_VICTIM )
+            {
+                victims.add( pageRef );
+            }
+            assertThat( victims.size() ).isEqualTo( 9 );
+            assertThat( victims.contains( victim ) ).isTrue();
+        }
+    }
+
+    @Test
+    void scanMustNotEvictPagesOfRandomAccesses() throws IOException
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( PageCache pageCache = startPageCache( EvictionPolicy.SCAN_RESISTANT, tracer, CACHE_PAGES );
+              PagedFile pagedFile = pageCache.map( file, PageCache.PAGE_SIZE, DEFAULT_DATABASE_NAME ) )
+        {
+            warmUpHotPages( pagedFile, tracer );
+
+            scan( pagedFile, tracer, FILE_PAGES );
+
+            long faultsBefore = tracer.faults();
+            readHotPages( pagedFile, tracer );
+            assertThat( tracer.faults() - faultsBefore ).isZero();
+        }
+    }
+
+    @Test
+    void scanEvictsPagesOfRandomAccessesWithClockPolicy() throws IOException
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( PageCache pageCache = startPageCache( EvictionPolicy.CLOCK, tracer, CACHE_PAGES );
+              PagedFile pagedFile = pageCache.map( file, PageCache.PAGE_SIZE, DEFAULT_DATABASE_NAME ) )
+        {
+            warmUpHotPages( pagedFile, tracer );
+
+            scan( pagedFile, tracer, FILE_PAGES );
+
+            long faultsBefore = tracer.faults();
+            readHotPages( pagedFile, tracer );
+            assertThat( tracer.faults() - faultsBefore ).isPositive();
+            assertThat( tracer.probationaryFaults() ).isZero();
+        }
+    }
+
+    private void warmUpHotPages( PagedFile pagedFile, PageCacheTracer tracer ) throws IOException
+    {
+        for ( int i = 0; i < 4; i++ )
+        {
+            readHotPages( pagedFile, tracer );
+        }
+    }
+
+    private void readHotPages( PagedFile pagedFile, PageCacheTracer tracer ) throws IOException
+    {
+        for ( long pageId : HOT_PAGES )
+        {
+            read( pagedFile, tracer, pageId );
+        }
+    }
+
+    private static void read( PagedFile pagedFile, PageCacheTracer tracer, long pageId ) throws IOException
+    {
+        try ( PageCursorTracer cursorTracer = tracer.createPageCursorTracer( "read" );
+              PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK, new CursorContext( cursorTracer ) ) )
+        {
+            assertThat( cursor.next() ).isTrue();
+        }
+    }
+
+    private static void scan( PagedFile pagedFile, PageCacheTracer tracer, int pages ) throws IOException
+    {
+        try ( PageCursorTracer cursorTracer = tracer.createPageCursorTracer( "scan" );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, new CursorContext( cursorTracer ) ) )
+        {
+            for ( int i = 0; i < pages; i++ )
+            {
+                assertThat( cursor.next() ).isTrue();
+            }
+        }
+    }
+
+    private MuninnPageCache startPageCache( EvictionPolicy.Factory evictionPolicy, PageCacheTracer tracer, int maxPages )
+    {
+        MuninnPageCache.Configuration configuration = MuninnPageCache.config( maxPages )
+                .pageCacheTracer( tracer )
+                .evictionPolicy( evictionPolicy );
+        return new MuninnPageCache( new SingleFilePageSwapperFactory( fs, tracer ), jobScheduler, configuration );
+    }
+}
@@ -137,4 +137,50 @@ class DefaultPageFileTracerTest
         assertEquals( 33, swapperTracer.bytesWritten() );
         assertEquals( 0, swapperTracer.evictionExceptions() );
     }
+
+    @Test
+    void pageCursorEventReportBytesOfEachPageFaultToFileTracer()
+    {
+        var cursorTracer = pageCacheTracer.createPageCursorTracer( "pageCursorEventReportBytesOfEachPageFaultToFileTracer" );
+        for ( int i = 0; i < 3; i++ )
+        {
+            PinEvent pinEvent = cursorTracer.beginPin( false, i, swapper );
+            PageFaultEvent pageFaultEvent = pinEvent.beginPageFault( i, swapper );
+            pageFaultEvent.addBytesRead( 100 );
+            pageFaultEvent.done();
+            pinEvent.done();
+        }
+
+        assertEquals( 3, swapperTracer.faults() );
+        assertEquals( 300, swapperTracer.bytesRead() );
+    }
+
+    @Test
+    void fileTracerMustCountResidentPagesAndHitRatio()
+    {
+        var cursorTracer = pageCacheTracer.createPageCursorTracer( "fileTracerMustCountResidentPagesAndHitRatio" );
+        for ( int i = 0; i < 4; i++ )
+        {
+            PinEvent pinEvent = cursorTracer.beginPin( false, i, swapper );
+            pinEvent.beginPageFault( i, swapper ).done();
+            pinEvent.done();
+        }
+        PinEvent hitEvent = cursorTracer.beginPin( false, 1, swapper );
+        hitEvent.hit();
+        hitEvent.done();
+
+        PinEvent pinEvent = cursorTracer.beginPin( false, 5, swapper );
+        PageFaultEvent pageFaultEvent = pinEvent.beginPageFault( 5, swapper );
+        try ( EvictionEvent evictionEvent = pageFaultEvent.beginEviction( 2 ) )
+        {
+            evictionEvent.setSwapper( swapper );
+        }
+        pageFaultEvent.done();
+        pinEvent.done();
+
+        assertEquals( 5, swapperTracer.faults() );
+        assertEquals( 1, swapperTracer.evictions() );
+        assertEquals( 4, swapperTracer.residentPages() );
+        assertEquals( 1 / 6.0, swapperTracer.hitRatio(), 0.0001 );
+    }
 }
@@ -127,6 +127,30 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.evictionExceptions();
     }
 
+    @Override
+    public long probationaryFaults()
+    {
+        return delegate.probationaryFaults();
+    }
+
+    @Override
+    public long promotions()
+    {
+        return delegate.promotions();
+    }
+
+    @Override
+    public long readAheads()
+    {
+        return delegate.readAheads();
+    }
+
+    @Override
+    public long readAheadPages()
+    {
+        return delegate.readAheadPages();
+    }
+
     @Override
     public double hitRatio()
     {
@@ -217,6 +241,30 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         delegate.evictionExceptions( evictionExceptions );
     }
 
+    @Override
+    public void probationaryFaults( long probationaryFaults )
+    {
+        delegate.probationaryFaults( probationaryFaults );
+    }
+
+    @Override
+    public void promotions( long promotions )
+    {
+        delegate.promotions( promotions );
+    }
+
+    @Override
+    public void readAheads( long readAheads )
+    {
+        delegate.readAheads( readAheads );
+    }
+
+    @Override
+    public void readAheadPages( long readAheadPages )
+    {
+        delegate.readAheadPages( readAheadPages );
+    }
+
     @Override
     public void bytesWritten( long bytesWritten )
     {
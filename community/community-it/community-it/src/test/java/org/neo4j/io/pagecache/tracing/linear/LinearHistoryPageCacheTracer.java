@@ -175,6 +175,30 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long probationaryFaults()
+    {
+        return 0;
+    }
+
+    @Override
+    public long promotions()
+    {
+        return 0;
+    }
+
+    @Override
+    public long readAheads()
+    {
+        return 0;
+    }
+
+    @Override
+    public long readAheadPages()
+    {
+        return 0;
+    }
+
     @Override
     public double hitRatio()
     {
@@ -257,6 +281,26 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
     {
     }
 
+    @Override
+    public void probationaryFaults( long probationaryFaults )
+    {
+    }
+
+    @Override
+    public void promotions( long promotions )
+    {
+    }
+
+    @Override
+    public void readAheads( long readAheads )
+    {
+    }
+
+    @Override
+    public void readAheadPages( long readAheadPages )
+    {
+    }
+
     @Override
     public void bytesWritten( long bytesWritten )
     {
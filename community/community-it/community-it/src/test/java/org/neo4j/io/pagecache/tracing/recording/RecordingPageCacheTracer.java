@@ -193,6 +193,30 @@ public class RecordingPageCacheTracer extends RecordingTracer implements PageCac
         return 0;
     }
 
+    @Override
+    public long probationaryFaults()
+    {
+        return 0;
+    }
+
+    @Override
+    public long promotions()
+    {
+        return 0;
+    }
+
+    @Override
+    public long readAheads()
+    {
+        return 0;
+    }
+
+    @Override
+    public long readAheadPages()
+    {
+        return 0;
+    }
+
     @Override
     public double hitRatio()
     {
@@ -278,6 +302,26 @@ public class RecordingPageCacheTracer extends RecordingTracer implements PageCac
     {
     }
 
+    @Override
+    public void probationaryFaults( long probationaryFaults )
+    {
+    }
+
+    @Override
+    public void promotions( long promotions )
+    {
+    }
+
+    @Override
+    public void readAheads( long readAheads )
+    {
+    }
+
+    @Override
+    public void readAheadPages( long readAheadPages )
+    {
+    }
+
     @Override
     public void bytesWritten( long bytesWritten )
     {
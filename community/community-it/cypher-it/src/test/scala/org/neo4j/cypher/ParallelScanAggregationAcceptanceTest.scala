@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher
+
+import org.neo4j.configuration.GraphDatabaseInternalSettings
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ParallelScanAggregationPipe.BATCH_SIZE
+import org.neo4j.graphdb.config.Setting
+
+import scala.collection.JavaConverters.mapAsScalaMapConverter
+
+class ParallelScanAggregationAcceptanceTest extends ExecutionEngineFunSuite {
+
+  private val WORKERS = 4
+
+  // Enough nodes for every worker to read at least one batch
+  private val NODES = WORKERS * BATCH_SIZE + 17
+
+  override def databaseConfig(): Map[Setting[_], Object] = super.databaseConfig() ++ Map(
+    GraphDatabaseInternalSettings.cypher_interpreted_parallel_scan_aggregation_workers -> Integer.valueOf(WORKERS)
+  )
+
+  test("should aggregate all nodes") {
+    createNodes()
+
+    val result = execute("CYPHER runtime=interpreted MATCH (n) RETURN count(*) AS c, count(n.p) AS cp, sum(n.p) AS s, min(n.p) AS mn, max(n.p) AS mx")
+
+    result.toList should equal(List(Map("c" -> (NODES + 100), "cp" -> NODES, "s" -> sumUpTo(NODES), "mn" -> 1, "mx" -> NODES)))
+  }
+
+  test("should aggregate nodes with label") {
+    createNodes()
+
+    val result = execute("CYPHER runtime=interpreted MATCH (n:L) RETURN count(*) AS c, sum(n.p) AS s, max(n.p) AS mx")
+
+    result.toList should equal(List(Map("c" -> NODES, "s" -> sumUpTo(NODES), "mx" -> NODES)))
+  }
+
+  test("should aggregate filtered nodes with label") {
+    createNodes()
+
+    val result = execute("CYPHER runtime=interpreted MATCH (n:L) WHERE n.p > 100 RETURN count(*) AS c, sum(n.p) AS s, min(n.p) AS mn")
+
+    result.toList should equal(List(Map("c" -> (NODES - 100), "s" -> (sumUpTo(NODES) - sumUpTo(100)), "mn" -> 101)))
+  }
+
+  test("should aggregate nodes without any of them matching") {
+    createNodes()
+
+    val result = execute("CYPHER runtime=interpreted MATCH (n:L) WHERE n.p < 0 RETURN count(*) AS c, sum(n.p) AS s, min(n.p) AS mn")
+
+    result.toList should equal(List(Map("c" -> 0, "s" -> 0, "mn" -> null)))
+  }
+
+  test("should aggregate an unknown label") {
+    createNodes()
+
+    val result = execute("CYPHER runtime=interpreted MATCH (n:Unknown) RETURN count(*) AS c")
+
+    result.toList should equal(List(Map("c" -> 0)))
+  }
+
+  test("should see nodes created in the same transaction") {
+    createNodes()
+
+    val row = graph.withTx(tx => {
+      tx.execute("CREATE (:L {p: -1})").close()
+      tx.execute("CYPHER runtime=interpreted MATCH (n:L) RETURN count(*) AS c, min(n.p) AS mn").next().asScala.toMap
+    })
+
+    row should equal(Map("c" -> (NODES + 1), "mn" -> -1))
+  }
+
+  private def createNodes(): Unit = {
+    execute(s"UNWIND range(1, $NODES) AS i CREATE (:L {p: i})")
+    execute("UNWIND range(1, 100) AS i CREATE ()")
+  }
+
+  private def sumUpTo(n: Long): Long = n * (n + 1) / 2
+}
@@ -400,6 +400,58 @@ class TransactionBoundQueryContextTest extends CypherFunSuite {
     tx.close()
   }
 
+  test("degree lookups should follow the node cursor from node to node") {
+    // GIVEN
+    val (a, b) = createDegreeGraph()
+
+    val tx = graph.beginTransaction(Type.EXPLICIT, AnonymousContext.read())
+    val transactionalContext = TransactionalContextWrapper(createTransactionContext(graph, tx))
+    val context = new TransactionBoundQueryContext(transactionalContext, new ResourceManager)(indexSearchMonitor)
+    val link = tx.kernelTransaction().tokenRead().relationshipType("LINK")
+    val other = tx.kernelTransaction().tokenRead().relationshipType("OTHER")
+    val nodeCursor = context.nodeCursor()
+
+    // THEN
+    context.nodeGetOutgoingDegree(a.getId, nodeCursor) should equal(3)
+    context.nodeGetOutgoingDegree(a.getId, link, nodeCursor) should equal(2)
+    context.nodeGetIncomingDegree(a.getId, link, nodeCursor) should equal(1)
+    context.nodeGetTotalDegree(a.getId, other, nodeCursor) should equal(1)
+    context.nodeGetTotalDegreeWithMax(2, a.getId, nodeCursor) should equal(2)
+    context.nodeGetOutgoingDegree(b.getId, link, nodeCursor) should equal(1)
+    context.nodeGetIncomingDegree(b.getId, nodeCursor) should equal(0)
+    context.nodeGetOutgoingDegree(a.getId, link, nodeCursor) should equal(2)
+    context.nodeGetOutgoingDegree(a.getId + 1000, nodeCursor) should equal(0)
+    context.nodeGetOutgoingDegree(b.getId, nodeCursor) should equal(1)
+
+    nodeCursor.close()
+    transactionalContext.close()
+    tx.close()
+  }
+
+  test("degree lookups on the same node should see relationships created in between") {
+    // GIVEN
+    val (a, _) = createDegreeGraph()
+
+    val tx = graph.beginTransaction(Type.EXPLICIT, AnonymousContext.writeToken())
+    val transactionalContext = TransactionalContextWrapper(createTransactionContext(graph, tx))
+    val context = new TransactionBoundQueryContext(transactionalContext, new ResourceManager)(indexSearchMonitor)
+    val link = tx.kernelTransaction().tokenRead().relationshipType("LINK")
+    val nodeCursor = context.nodeCursor()
+    context.nodeGetOutgoingDegree(a.getId, link, nodeCursor) should equal(2)
+
+    // WHEN
+    tx.getNodeById(a.getId).createRelationshipTo(tx.createNode(), RelationshipType.withName("LINK"))
+
+    // THEN
+    context.nodeGetOutgoingDegree(a.getId, link, nodeCursor) should equal(3)
+    context.nodeGetOutgoingDegree(a.getId, link, nodeCursor) should equal(3)
+    context.nodeGetTotalDegree(a.getId, nodeCursor) should equal(5)
+
+    nodeCursor.close()
+    transactionalContext.close()
+    tx.close()
+  }
+
   private def startGraph(config:(Setting[_], Object)) = {
     val configs = Map[Setting[_], Object](config)
     managementService = new TestDatabaseManagementServiceBuilder().impermanent().setConfig(configs.asJava).build()
@@ -430,6 +482,32 @@ class TransactionBoundQueryContextTest extends CypherFunSuite {
     }
   }
 
+  /**
+   * Creates a node `a` with two outgoing and one incoming LINK and one outgoing OTHER relationship, and a node `b` with one outgoing LINK.
+   */
+  private def createDegreeGraph(): (Node, Node) = {
+    val link = RelationshipType.withName("LINK")
+    val other = RelationshipType.withName("OTHER")
+    val tx = graph.beginTransaction(Type.EXPLICIT, AnonymousContext.writeToken())
+    try {
+      val a = tx.createNode()
+      val b = tx.createNode()
+      val x = tx.createNode()
+      val y = tx.createNode()
+
+      a.createRelationshipTo(x, link)
+      a.createRelationshipTo(y, link)
+      y.createRelationshipTo(a, link)
+      a.createRelationshipTo(x, other)
+      b.createRelationshipTo(x, link)
+      tx.commit()
+      (a, b)
+    }
+    finally {
+      tx.close()
+    }
+  }
+
   private def tokenReadSession(tx: InternalTransaction): TokenReadSession = {
     val index = tx.kernelTransaction().schemaRead.indexForSchemaNonTransactional(SchemaDescriptors.forAnyEntityTokens(EntityType.NODE)).next()
     tx.kernelTransaction().dataRead().tokenReadSession(index)
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.pipes
+
+import org.neo4j.cypher.GraphDatabaseFunSuite
+import org.neo4j.cypher.internal.runtime.QueryContext
+import org.neo4j.cypher.internal.runtime.QueryTransactionalContext
+import org.neo4j.cypher.internal.runtime.interpreted.DelegatingQueryContext
+import org.neo4j.cypher.internal.runtime.interpreted.DelegatingQueryTransactionalContext
+import org.neo4j.cypher.internal.runtime.interpreted.QueryStateHelper.queryStateFrom
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Count
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.CountStar
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Expression
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Literal
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Max
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Min
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Property
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Sum
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Variable
+import org.neo4j.cypher.internal.runtime.interpreted.commands.predicates.GreaterThan
+import org.neo4j.cypher.internal.runtime.interpreted.commands.values.TokenType.PropertyKey
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.AggregationPipe.AggregatingCol
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ParallelScanAggregationPipe.AllNodes
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ParallelScanAggregationPipe.BATCH_SIZE
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.aggregation.NonGroupingAggTable
+import org.neo4j.exceptions.CypherTypeException
+import org.neo4j.internal.kernel.api.CursorFactory
+import org.neo4j.kernel.api.Kernel
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.Values.NO_VALUE
+import org.neo4j.values.storable.Values.longValue
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+import scala.collection.mutable.ArrayBuffer
+
+class ParallelScanAggregationPipeTest extends GraphDatabaseFunSuite {
+
+  private val WORKERS = 4
+
+  private val p = Property(Variable("n"), PropertyKey("p"))
+
+  private val aggregations = Array(
+    AggregatingCol("countStar", CountStar()),
+    AggregatingCol("count", Count(p)),
+    AggregatingCol("sum", Sum(p)),
+    AggregatingCol("min", Min(p)),
+    AggregatingCol("max", Max(p)))
+
+  private var executor: ExecutorService = _
+
+  override protected def initTest(): Unit = {
+    super.initTest()
+    executor = Executors.newFixedThreadPool(WORKERS)
+  }
+
+  override protected def stopTest(): Unit = {
+    try {
+      executor.shutdownNow()
+    } finally {
+      super.stopTest()
+    }
+  }
+
+  test("should aggregate over nodes split between workers like the serial aggregation") {
+    // Only the nodes of the first batch have values, so the workers of the other batches see nothing but nulls
+    createNodesWithValues(3 * BATCH_SIZE + 17)(i => if (i < 100) Some(i % 13 - 5) else None)
+
+    val (parallel, workerContexts) = aggregateInParallel()
+
+    parallel should equal(aggregateSerially())
+    parallel should equal(Map(
+      "countStar" -> longValue(3 * BATCH_SIZE + 17),
+      "count" -> longValue(100),
+      "sum" -> longValue((0 until 100).map(_ % 13 - 5).sum),
+      "min" -> longValue(-5),
+      "max" -> longValue(7)))
+    workerContexts should have size WORKERS
+    all(workerContexts.map(_.closed)) shouldBe true
+  }
+
+  test("should aggregate over filtered nodes split between workers like the serial aggregation") {
+    createNodesWithValues(2 * BATCH_SIZE + 1)(i => if (i % 3 == 0) Some(i % 100) else None)
+    val predicate = GreaterThan(p, Literal(longValue(90)))
+
+    val (parallel, _) = aggregateInParallel(Some(predicate))
+
+    parallel should equal(aggregateSerially(Some(predicate)))
+    parallel("min") should equal(longValue(91))
+    parallel("max") should equal(longValue(99))
+  }
+
+  test("should aggregate nodes without values like the serial aggregation") {
+    createNodesWithValues(BATCH_SIZE + 1)(_ => None)
+
+    val (parallel, _) = aggregateInParallel()
+
+    parallel should equal(aggregateSerially())
+    parallel should equal(Map(
+      "countStar" -> longValue(BATCH_SIZE + 1),
+      "count" -> longValue(0),
+      "sum" -> longValue(0),
+      "min" -> NO_VALUE,
+      "max" -> NO_VALUE))
+  }
+
+  test("should aggregate over no nodes like the serial aggregation") {
+    val (parallel, workerContexts) = aggregateInParallel()
+
+    parallel should equal(aggregateSerially())
+    parallel should equal(Map(
+      "countStar" -> longValue(0),
+      "count" -> longValue(0),
+      "sum" -> longValue(0),
+      "min" -> NO_VALUE,
+      "max" -> NO_VALUE))
+    workerContexts should have size WORKERS
+  }
+
+  test("should close the contexts of all workers when a worker fails") {
+    createNodesWithValues(3 * BATCH_SIZE)(i => Some(i))
+    graph.withTx(tx => tx.createNode().setProperty("p", "not a number"))
+
+    graph.withTx { tx =>
+      val state = queryStateFrom(graph, tx, threadSafeCursors = threadSafeCursors)
+      val query = new WorkerTrackingQueryContext(state.query)
+      try {
+        a[CypherTypeException] should be thrownBy parallelPipe(None).createResults(state.withQueryContext(query)).toList
+
+        query.workerContexts should have size WORKERS
+        all(query.workerContexts.map(_.closed)) shouldBe true
+        // The transaction of the query is still usable once the workers have failed
+        val countPipe = EagerAggregationPipe(AllNodesScanPipe("n")(), NonGroupingAggTable.Factory(Array(AggregatingCol("c", CountStar()))))()
+        countPipe.createResults(state).toList.map(_.getByName("c")) should equal(List(longValue(3 * BATCH_SIZE + 1)))
+      } finally {
+        state.close()
+        state.query.transactionalContext.close()
+      }
+    }
+  }
+
+  private def createNodesWithValues(count: Int)(value: Int => Option[Int]): Unit = graph.withTx { tx =>
+    (0 until count).foreach { i =>
+      val node = tx.createNode()
+      value(i).foreach(node.setProperty("p", _))
+    }
+  }
+
+  private def aggregateInParallel(predicate: Option[Expression] = None): (Map[String, AnyValue], Seq[TrackingTransactionalContext]) =
+    graph.withTx { tx =>
+      val state = queryStateFrom(graph, tx, threadSafeCursors = threadSafeCursors)
+      val query = new WorkerTrackingQueryContext(state.query)
+      try {
+        (aggregate(parallelPipe(predicate), state.withQueryContext(query)), query.workerContexts)
+      } finally {
+        state.close()
+        state.query.transactionalContext.close()
+      }
+    }
+
+  private def aggregateSerially(predicate: Option[Expression] = None): Map[String, AnyValue] =
+    graph.withTx { tx =>
+      val state = queryStateFrom(graph, tx)
+      try {
+        aggregate(serialPipe(predicate), state)
+      } finally {
+        state.close()
+        state.query.transactionalContext.close()
+      }
+    }
+
+  private def aggregate(pipe: Pipe, state: QueryState): Map[String, AnyValue] = {
+    val rows = pipe.createResults(state).toList
+    rows should have size 1
+    aggregations.map(aggregation => aggregation.key -> rows.head.getByName(aggregation.key)).toMap
+  }
+
+  private def parallelPipe(predicate: Option[Expression]): Pipe =
+    ParallelScanAggregationPipe(scanPipe(predicate), AllNodes, "n", predicate, aggregations,
+      ParallelScanAggregationPipe.combiningAggregations(aggregations).get, WORKERS, executor)()
+
+  private def serialPipe(predicate: Option[Expression]): Pipe =
+    EagerAggregationPipe(scanPipe(predicate), NonGroupingAggTable.Factory(aggregations))()
+
+  // The cursors that the runtime gives queries with a parallel operator
+  private def threadSafeCursors: CursorFactory = graph.getDependencyResolver.resolveDependency(classOf[Kernel]).cursors()
+
+  private def scanPipe(predicate: Option[Expression]): Pipe =
+    predicate.foldLeft[Pipe](AllNodesScanPipe("n")())((source, filter) => FilterPipe(source, filter)())
+
+  /**
+   * Keeps the transactional contexts of the parallel query contexts it creates, to check that the workers close them.
+   */
+  private class WorkerTrackingQueryContext(inner: QueryContext) extends DelegatingQueryContext(inner) {
+    val workerContexts = new ArrayBuffer[TrackingTransactionalContext]
+
+    override def createParallelQueryContext(): QueryContext = {
+      val worker = inner.createParallelQueryContext()
+      val workerContext = new TrackingTransactionalContext(worker.transactionalContext)
+      workerContexts += workerContext
+      new DelegatingQueryContext(worker) {
+        override def transactionalContext: QueryTransactionalContext = workerContext
+      }
+    }
+  }
+
+  private class TrackingTransactionalContext(inner: QueryTransactionalContext) extends DelegatingQueryTransactionalContext(inner) {
+    @volatile var closed = false
+
+    override def close(): Unit = {
+      closed = true
+      super.close()
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.importer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.ResourceLock;
+import org.junit.jupiter.api.parallel.Resources;
+import picocli.CommandLine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.neo4j.cli.CommandFailedException;
+import org.neo4j.cli.ExecutionContext;
+import org.neo4j.dbms.api.DatabaseManagementService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.database.Database;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.kernel.internal.locker.FileLockException;
+import org.neo4j.storageengine.api.StoreId;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.Neo4jLayoutExtension;
+import org.neo4j.test.extension.SuppressOutputExtension;
+import org.neo4j.test.utils.TestDirectory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.graphdb.Label.label;
+import static org.neo4j.graphdb.RelationshipType.withName;
+
+@Neo4jLayoutExtension
+@ExtendWith( SuppressOutputExtension.class )
+@ResourceLock( Resources.SYSTEM_OUT )
+class DefragmentCommandTest
+{
+    private static final int NODE_COUNT = 200;
+
+    @Inject
+    private TestDirectory testDirectory;
+    private DatabaseManagementService managementService;
+
+    @AfterEach
+    void tearDown()
+    {
+        shutdown();
+    }
+
+    @Test
+    void shouldKeepDataAndGiveDatabaseNewStoreId()
+    {
+        // given
+        createData();
+        List<String> dataBefore = data();
+        StoreId storeIdBefore = storeId();
+        shutdown();
+
+        // when
+        runDefragment();
+
+        // then
+        assertThat( data() ).isEqualTo( dataBefore );
+        StoreId storeIdAfter = storeId();
+        assertThat( storeIdAfter.getStoreVersion() ).isEqualTo( storeIdBefore.getStoreVersion() );
+        assertThat( storeIdAfter.getRandomId() ).isNotEqualTo( storeIdBefore.getRandomId() );
+
+        // and the database can be written to with its new transaction log
+        try ( Transaction tx = database().beginTx() )
+        {
+            tx.createNode( label( "Label" ) ).setProperty( "id", NODE_COUNT );
+            tx.commit();
+        }
+    }
+
+    @Test
+    void shouldNotDefragmentDatabaseInUse()
+    {
+        createData();
+
+        assertThatThrownBy( this::runDefragment )
+                .isInstanceOf( CommandFailedException.class )
+                .hasCauseInstanceOf( FileLockException.class );
+    }
+
+    @Test
+    void shouldNotUseTempPathInsideDatabaseDirectory()
+    {
+        createData();
+        var databaseDirectory = database().databaseLayout().databaseDirectory();
+        shutdown();
+
+        assertThatThrownBy( () -> runDefragment( "--temp-path=" + databaseDirectory.resolve( "defragment" ) ) )
+                .isInstanceOf( CommandFailedException.class )
+                .hasMessageContaining( "must be outside of the database directory" );
+    }
+
+    private void createData()
+    {
+        try ( Transaction tx = database().beginTx() )
+        {
+            List<Node> nodes = new ArrayList<>();
+            for ( int i = 0; i < NODE_COUNT; i++ )
+            {
+                Node node = tx.createNode( label( "Label" ) );
+                node.setProperty( "id", i );
+                node.setProperty( "description", "node " + i + " ".repeat( 100 ) + i );
+                node.setProperty( "scores", new long[]{i, i * 2L, i * 3L, Long.MAX_VALUE - i} );
+                nodes.add( node );
+            }
+            // Every node gets relationships to a few others, and the first node to all of them, which makes it dense
+            for ( int i = 0; i < NODE_COUNT; i++ )
+            {
+                for ( int j = 1; j <= 3; j++ )
+                {
+                    nodes.get( i ).createRelationshipTo( nodes.get( (i * 7 + j) % NODE_COUNT ), withName( "KNOWS" ) ).setProperty( "weight", i * j );
+                }
+                nodes.get( 0 ).createRelationshipTo( nodes.get( i ), withName( i % 2 == 0 ? "LIKES" : "FOLLOWS" ) ).setProperty( "since", i );
+            }
+            tx.commit();
+        }
+    }
+
+    private List<String> data()
+    {
+        List<String> data = new ArrayList<>();
+        try ( Transaction tx = database().beginTx() )
+        {
+            for ( Node node : tx.getAllNodes() )
+            {
+                List<String> labels = new ArrayList<>();
+                node.getLabels().forEach( label -> labels.add( label.name() ) );
+                data.add( node.getId() + " " + labels + " " + properties( node.getAllProperties() ) );
+                for ( Relationship relationship : node.getRelationships() )
+                {
+                    data.add( node.getId() + ": " + relationship.getStartNodeId() + "-" + relationship.getType().name() + "->" +
+                            relationship.getEndNodeId() + " " + properties( relationship.getAllProperties() ) );
+                }
+            }
+            tx.commit();
+        }
+        data.sort( String::compareTo );
+        return data;
+    }
+
+    private static String properties( Map<String,Object> properties )
+    {
+        Map<String,String> sorted = new TreeMap<>();
+        properties.forEach( ( key, value ) -> sorted.put( key, value instanceof long[] ? Arrays.toString( (long[]) value ) : value.toString() ) );
+        return sorted.toString();
+    }
+
+    private StoreId storeId()
+    {
+        return database().getDependencyResolver().resolveDependency( Database.class ).getStoreId();
+    }
+
+    private GraphDatabaseAPI database()
+    {
+        if ( managementService == null )
+        {
+            managementService = new TestDatabaseManagementServiceBuilder( testDirectory.homePath() ).build();
+        }
+        return (GraphDatabaseAPI) managementService.database( DEFAULT_DATABASE_NAME );
+    }
+
+    private void shutdown()
+    {
+        if ( managementService != null )
+        {
+            managementService.shutdown();
+            managementService = null;
+        }
+    }
+
+    private void runDefragment( String... arguments )
+    {
+        var homeDir = testDirectory.homePath();
+        var command = new DefragmentCommand( new ExecutionContext( homeDir, homeDir.resolve( "conf" ), System.out, System.err,
+                testDirectory.getFileSystem() ) );
+        CommandLine.populateCommand( command, arguments );
+        command.execute();
+    }
+}
@@ -235,6 +235,13 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
                   " for every physical core in the system. If set to -1, no workers will be started and the parallel runtime cannot be used." )
     public static final Setting<Integer> cypher_worker_count = newBuilder( "unsupported.cypher.number_of_workers", INT, 0 ).build();
 
+    @Internal
+    @Description( "Number of threads the interpreted runtime uses for a read-only aggregation without grouping over a scan of all nodes, " +
+                  "or of all nodes with a label, optionally filtered. If set to 0, one thread is used for every available processor. " +
+                  "If set to 1, such aggregations run in the thread of the query, like all other operators." )
+    public static final Setting<Integer> cypher_interpreted_parallel_scan_aggregation_workers =
+            newBuilder( "unsupported.cypher.interpreted.parallel_scan_aggregation_workers", INT, 1 ).addConstraint( min( 0 ) ).build();
+
     public enum CypherOperatorEngine
     {
         DEFAULT, COMPILED, INTERPRETED
@@ -381,6 +388,39 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
     public static final Setting<Integer> index_sampling_parallelism =
             newBuilder( "unsupported.dbms.index_sampling.parallelism", INT, 4 ).addConstraint( min( 0 ) ).build();
 
+    @Internal
+    @Description( "Number of key ranges that native indexes are split into when sampled, instead of being scanned from start to end on a single thread. " +
+            "Key ranges are sampled in random order by up to unsupported.dbms.index_sampling.partition_workers threads, until all of them " +
+            "have been sampled or unsupported.dbms.index_sampling.max_sampled_entries is reached. Zero disables partitioned sampling." )
+    public static final Setting<Integer> index_sampling_partitions =
+            newBuilder( "unsupported.dbms.index_sampling.partitions", INT, 0 ).addConstraint( min( 0 ) ).build();
+
+    @Internal
+    @Description( "Number of threads sampling the key ranges of a native index in parallel when partitioned sampling is enabled, " +
+            "see unsupported.dbms.index_sampling.partitions." )
+    public static final Setting<Integer> index_sampling_partition_workers =
+            newBuilder( "unsupported.dbms.index_sampling.partition_workers", INT, 4 ).addConstraint( min( 1 ) ).build();
+
+    @Internal
+    @Description( "Maximum number of index entries to read when sampling a native index with partitioned sampling, " +
+            "see unsupported.dbms.index_sampling.partitions. When reached, no more key ranges are sampled and the size of the index is " +
+            "extrapolated from the sampled key ranges. Zero means that all key ranges are sampled." )
+    public static final Setting<Long> index_sampling_max_sampled_entries =
+            newBuilder( "unsupported.dbms.index_sampling.max_sampled_entries", LONG, 0L ).addConstraint( min( 0L ) ).build();
+
+    @Internal
+    @Description( "Number of equi-depth buckets in the histogram of numeric values that is built when a single-property native index is sampled " +
+            "by a full scan. The Cypher planner uses these histograms, together with the most common values, to estimate the selectivity of " +
+            "range and equality predicates on skewed data. Zero disables histograms." )
+    public static final Setting<Integer> index_sampling_histogram_buckets =
+            newBuilder( "unsupported.dbms.index_sampling.histogram_buckets", INT, 0 ).addConstraint( range( 0, 64 ) ).build();
+
+    @Internal
+    @Description( "Number of most common values, and their frequencies, kept in the histogram of a sampled native index, " +
+            "see unsupported.dbms.index_sampling.histogram_buckets." )
+    public static final Setting<Integer> index_sampling_histogram_common_values =
+            newBuilder( "unsupported.dbms.index_sampling.histogram_common_values", INT, 16 ).addConstraint( range( 0, 64 ) ).build();
+
     @Internal
     @Description( "Set the maximum number of concurrent index populations across system. " +
             "This also limit the number of threads used to scan store. " +
@@ -683,6 +723,22 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
     public static final Setting<Boolean> strictly_prioritize_id_freelist =
             newBuilder( "unsupported.dbms.strictly_prioritize_id_freelist", BOOL, true ).build();
 
+    @Internal
+    @Description( "Maximum number of consecutive node and relationship ids that a transaction reserves at a time, so that the records " +
+            "it creates end up next to each other in the store and the shared id generator is visited less often. The first id of each " +
+            "transaction is allocated on its own and subsequent reservations double in size up to this maximum. Ids reserved but not used " +
+            "are given back when the transaction closes. Zero disables reservation and allocates every id from the id generator." )
+    public static final Setting<Integer> id_reservation_batch_size =
+            newBuilder( "unsupported.dbms.id_reservation_batch_size", INT, 0 ).addConstraint( range( 0, 1024 ) ).build();
+
+    @Internal
+    @Description( "Keep an in-memory bloom filter over the values of each unique range and b-tree index, which lets exact lookups of values " +
+            "that aren't in the index, like most lookups done by MERGE and unique constraint checks when ingesting new data, skip seeking the index. " +
+            "The filter of an index is built in the background by scanning the index, starting on its first lookup after the index has been opened. " +
+            "Lookups seek the index until the filter is built." )
+    public static final Setting<Boolean> unique_index_bloom_filter =
+            newBuilder( "unsupported.dbms.index.unique_bloom_filter", BOOL, false ).build();
+
     @Internal
     @Description( "Block/buffer size for index population" )
     public static final Setting<Long> index_populator_block_size = newBuilder( "unsupported.dbms.index.populator_block_size", BYTES, mebiBytes( 1 ) )
@@ -694,6 +750,13 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
     @Description( "Merge factory for index population" )
     public static final Setting<Integer> index_populator_merge_factor = newBuilder( "unsupported.dbms.index.populator_merge_factor", INT, 8 ).build();
 
+    @Internal
+    @Description( "Number of key ranges that the scan updates of an index population are split into when merged, each range merged by its own " +
+            "index population worker, see unsupported.dbms.index_population.workers. Zero means one range per index population worker. " +
+            "Populations too small to benefit from it are merged as a single range." )
+    public static final Setting<Integer> index_populator_merge_workers =
+            newBuilder( "unsupported.dbms.index.populator_merge_workers", INT, 0 ).addConstraint( min( 0 ) ).build();
+
     @Internal
     @Description( "Enable/disable logging for the id generator" )
     public static final Setting<Boolean> id_generator_log_enabled = newBuilder( "unsupported.dbms.idgenerator.log.enabled", BOOL, false ).build();
@@ -774,6 +837,12 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
     public static final Setting<Boolean> do_parallel_recovery =
             newBuilder( "unsupported.dbms.recovery.enable_parallelism", BOOL, false ).build();
 
+    @Internal
+    @Description( "The maximum estimated memory of the transactions that parallel recovery keeps in flight. The reading of the transaction log is " +
+            "paused while queueing the next transaction would exceed this limit. A transaction larger than the limit is applied on its own." )
+    public static final Setting<Long> parallel_recovery_max_in_flight_memory =
+            newBuilder( "unsupported.dbms.recovery.parallelism.max_in_flight_memory", BYTES, mebiBytes( 256 ) ).addConstraint( min( 0L ) ).build();
+
     @Description( "Name of storage engine to use when creating new databases (except system database). If null or empty string then a default will be used." +
             "This setting will not be used for loading existing databases, where instead the appropriate storage engine for the specific database " +
             "will be used" )
@@ -822,6 +891,43 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
     public static final Setting<Boolean> dedicated_transaction_appender =
             newBuilder( "unsupported.dbms.tx.logs.dedicated.appender", BOOL, Boolean.FALSE ).build();
 
+    public enum PageCacheEvictionPolicy
+    {
+        CLOCK, SCAN_RESISTANT
+    }
+
+    @Internal
+    @Description( "The policy the page cache uses to pick the pages to evict when it needs free pages. 'CLOCK' evicts the pages that have been " +
+            "used the least recently. 'SCAN_RESISTANT' only admits pages read by sequential scans on probation, and evicts those first, so that " +
+            "large scans do not push the pages of random accesses, like index lookups, out of the page cache." )
+    public static final Setting<PageCacheEvictionPolicy> pagecache_eviction_policy =
+            newBuilder( "unsupported.dbms.memory.pagecache.eviction_policy", ofEnum( PageCacheEvictionPolicy.class ), PageCacheEvictionPolicy.CLOCK )
+                    .build();
+
+    @Internal
+    @Description( "The number of consecutive pages a page cursor must fault in while scanning a store file, before the page cache starts reading " +
+            "ahead of it in the background, with large vectored reads. Cursors that are opened with read-ahead always have the page cache reading ahead " +
+            "of them. Zero disables reading ahead of the other cursors." )
+    public static final Setting<Integer> pagecache_read_ahead_threshold =
+            newBuilder( "unsupported.dbms.memory.pagecache.read_ahead_threshold", INT, 0 ).addConstraint( min( 0 ) ).build();
+
+    public enum PageCacheSwapper
+    {
+        SYNCHRONOUS, ASYNCHRONOUS
+    }
+
+    @Internal
+    @Description( "How the page cache swaps pages in and out of the store files. 'SYNCHRONOUS' does every read and write in the thread that asks for it, " +
+            "with a single vectored system call for consecutive pages. 'ASYNCHRONOUS' splits the vectored reads and writes of flushing and read-ahead " +
+            "into concurrent positional reads and writes, so that the storage device gets to work on many of them at the same time." )
+    public static final Setting<PageCacheSwapper> pagecache_swapper =
+            newBuilder( "unsupported.dbms.memory.pagecache.swapper", ofEnum( PageCacheSwapper.class ), PageCacheSwapper.SYNCHRONOUS ).build();
+
+    @Internal
+    @Description( "The maximum number of reads or writes that the asynchronous page swapper keeps in flight for a single vectored read or write." )
+    public static final Setting<Integer> pagecache_swapper_queue_depth =
+            newBuilder( "unsupported.dbms.memory.pagecache.swapper.queue_depth", INT, 32 ).addConstraint( range( 1, 1024 ) ).build();
+
     @Internal
     @Description( "Enable per page file metrics collection in a default page cache and cursor tracer." )
     public static final Setting<Boolean> per_file_metrics_counters = newBuilder( "unsupported.dbms.page.file.tracer", BOOL, false ).build();
@@ -838,10 +944,50 @@ public class GraphDatabaseInternalSettings implements SettingsDeclaration
     public static final Setting<Boolean> pagecache_warmup_blocking =
             newBuilder( "unsupported.dbms.memory.pagecache.warmup.blocking", BOOL, false ).build();
 
+    @Internal
+    @Description( "Maximum number of pages per second a non-blocking page cache warmup is allowed to load. " +
+            "The warmup competes with the database workload for IO, so this can be used to put a budget on it. Zero means no limit." )
+    public static final Setting<Integer> pagecache_warmup_pages_per_second =
+            newBuilder( "unsupported.dbms.memory.pagecache.warmup.pages_per_second", INT, 0 ).addConstraint( min( 0 ) ).build();
+
     @Internal
     @Description( "Enables sketching of next transaction log file in the background during reverse recovery." )
     public static final Setting<Boolean> pre_sketch_transaction_logs = newBuilder( "unsupported.dbms.tx_log.presketch", BOOL, false ).build();
 
+    public enum TransactionLogCompression
+    {
+        NONE, DEFLATE
+    }
+
+    @Internal
+    @Description( "Compression of the commands of the transactions written to the transaction log. With 'DEFLATE' the commands of each transaction " +
+            "are compressed together when that makes them smaller, which saves transaction log IO on write heavy workloads at the cost of some CPU " +
+            "in the committing thread. Enabling it is an explicit opt-in to a newer transaction log format: transactions are then written with the " +
+            "4.4.29 log entry version, which earlier 4.4 versions of Neo4j cannot read, so they cannot recover or catch up from those logs. " +
+            "Transactions of databases that have not been upgraded to the 4.4 format are written uncompressed." )
+    public static final Setting<TransactionLogCompression> tx_log_compression =
+            newBuilder( "unsupported.dbms.tx_log.compression", ofEnum( TransactionLogCompression.class ), TransactionLogCompression.NONE ).build();
+
+    public enum TransactionLogGroupCommit
+    {
+        FIXED, ADAPTIVE
+    }
+
+    @Internal
+    @Description( "How the transaction log writer groups committing transactions into a single force of the transaction log. 'FIXED' writes and forces " +
+            "whatever transactions are queued as soon as the writer gets to them. 'ADAPTIVE' keeps track of the force latency and the rate at which " +
+            "transactions arrive, and holds a group open for up to 'unsupported.dbms.tx_log.group_commit.max_delay' when more transactions are " +
+            "expected to join it before the force would have completed anyway." )
+    public static final Setting<TransactionLogGroupCommit> tx_log_group_commit =
+            newBuilder( "unsupported.dbms.tx_log.group_commit", ofEnum( TransactionLogGroupCommit.class ), TransactionLogGroupCommit.FIXED ).build();
+
+    @Internal
+    @Description( "The longest time the adaptive group commit holds a group of committing transactions open to wait for more transactions to join it. " +
+            "Zero means that groups are never held open." )
+    public static final Setting<Duration> tx_log_group_commit_max_delay =
+            newBuilder( "unsupported.dbms.tx_log.group_commit.max_delay", DURATION, ofMillis( 2 ) ).addConstraint( range( Duration.ZERO, ofSeconds( 1 ) ) )
+                    .build();
+
     @Internal
     @Description( "Maximum size after which the planner will not attempt to plan the disjunction of predicates on a single variable as a distinct union." +
               "For example, given the following pattern: `()-[e:FOO|BAR|BAZ]->()`, the planner will attempt to plan a union of `e:Foo`, `e:Bar`, and `e:Baz`" +
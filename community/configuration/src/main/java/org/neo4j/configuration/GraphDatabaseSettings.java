@@ -494,8 +494,8 @@ public class GraphDatabaseSettings implements SettingsDeclaration
             newBuilder( "dbms.checkpoint.interval.volume", BYTES, mebiBytes( 250 ) ).addConstraint( min( ByteUnit.kibiBytes( 1 ) ) ).build();
 
     @Description( "Limit the number of IOs the background checkpoint process will consume per second. " +
-            "This setting is advisory, is ignored in Neo4j Community Edition, and is followed to " +
-            "best effort in Enterprise Edition. " +
+            "This setting is advisory, and is followed to best effort. " +
+            "In Neo4j Community Edition the limit is only applied when this setting is explicitly configured. " +
             "An IO is in this case a 8 KiB (mostly sequential) write. Limiting the write IO in " +
             "this way will leave more bandwidth in the IO subsystem to service random-read IOs, " +
             "which is important for the response time of queries when the database cannot fit " +
@@ -504,7 +504,8 @@ public class GraphDatabaseSettings implements SettingsDeclaration
             "A lower number means lower IO pressure, and consequently longer checkpoint times. " +
             "Set this to -1 to disable the IOPS limit and remove the limitation entirely; " +
             "this will let the checkpointer flush data as fast as the hardware will go. "  +
-            "Removing the setting, or commenting it out, will set the default value of 600." )
+            "Removing the setting, or commenting it out, will set the default value of 600 in Neo4j Enterprise Edition, " +
+            "and remove the limitation in Neo4j Community Edition." )
     public static final Setting<Integer> check_point_iops_limit =
             newBuilder( "dbms.checkpoint.iops.limit", INT, 600 ).dynamic().build();
 
@@ -670,15 +671,13 @@ public class GraphDatabaseSettings implements SettingsDeclaration
             newBuilder( "dbms.memory.pagecache.flush.buffer.size_in_pages", INT, 128 ).addConstraint( range( 1, 512 ) ).dynamic().build();
 
     @Description( "The profiling frequency for the page cache. " +
-            "Accurate profiles allow the page cache to do active warmup after a restart, reducing the mean time to performance.\n" +
-            "This feature is available in Neo4j Enterprise Edition." )
+            "Accurate profiles allow the page cache to do active warmup after a restart, reducing the mean time to performance." )
     public static final Setting<Duration> pagecache_warmup_profiling_interval =
             newBuilder( "dbms.memory.pagecache.warmup.profile.interval", DURATION, ofMinutes( 1 ) ).build();
 
     @Description( "Page cache can be configured to perform usage sampling of loaded pages that can be used to construct active load profile. " +
             "According to that profile pages can be reloaded on the restart, replication, etc. " +
-            "This setting allows disabling that behavior.\n" +
-            "This feature is available in Neo4j Enterprise Edition." )
+            "This setting allows disabling that behavior." )
     public static final Setting<Boolean> pagecache_warmup_enabled =
             newBuilder( "dbms.memory.pagecache.warmup.enable", BOOL, true ).build();
 
@@ -82,6 +82,11 @@ class CypherConfiguration private (val config: Config) {
   val operatorFusionOverPipelineLimit: Int = config.get(GraphDatabaseInternalSettings.cypher_pipelined_operator_fusion_over_pipeline_limit).intValue()
   val memoryTrackingController: MemoryTrackingController = new ConfigMemoryTrackingController(config)
   val enableMonitors: Boolean = config.get(GraphDatabaseInternalSettings.cypher_enable_runtime_monitors)
+  val interpretedParallelScanAggregationWorkers: Int =
+    config.get(GraphDatabaseInternalSettings.cypher_interpreted_parallel_scan_aggregation_workers).intValue() match {
+      case 0 => Runtime.getRuntime.availableProcessors()
+      case workers => workers
+    }
   val useJavaCCParser: Boolean = config.get(GraphDatabaseInternalSettings.cypher_parser) != GraphDatabaseInternalSettings.CypherParser.PARBOILED
   val disallowSplittingTop: Boolean = config.get(GraphDatabaseInternalSettings.cypher_splitting_top_behavior) == GraphDatabaseInternalSettings.SplittingTopBehavior.DISALLOW
   val enableExtraSemanticFeatures: Set[String] = config.get(GraphDatabaseInternalSettings.cypher_enable_extra_semantic_features).asScala.toSet
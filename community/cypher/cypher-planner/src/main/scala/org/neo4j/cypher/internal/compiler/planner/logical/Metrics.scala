@@ -52,6 +52,7 @@ import org.neo4j.cypher.internal.util.Cost
 import org.neo4j.cypher.internal.util.CypherException
 import org.neo4j.cypher.internal.util.Selectivity
 import org.neo4j.values.storable.NumberValue
+import org.neo4j.values.virtual.MapValue
 
 object Metrics {
 
@@ -207,11 +208,18 @@ trait MetricsFactory {
                               expressionEvaluator: ExpressionEvaluator): CardinalityModel
   def newCostModel(executionModel: ExecutionModel): CostModel
   def newQueryGraphCardinalityModel(planContext: PlanContext, calculator: SelectivityCalculator): QueryGraphCardinalityModel
-  def newSelectivityCalculator(planContext: PlanContext, planningTextIndexesEnabled: Boolean): SelectivityCalculator =
-    CompositeExpressionSelectivityCalculator(planContext, planningTextIndexesEnabled)
+  def newSelectivityCalculator(planContext: PlanContext, planningTextIndexesEnabled: Boolean, params: MapValue = MapValue.EMPTY): SelectivityCalculator =
+    CompositeExpressionSelectivityCalculator(planContext, planningTextIndexesEnabled, params)
 
-  def newMetrics(planContext: PlanContext, expressionEvaluator: ExpressionEvaluator, executionModel: ExecutionModel, planningTextIndexesEnabled: Boolean): Metrics = {
-    val selectivityCalculator = newSelectivityCalculator(planContext, planningTextIndexesEnabled)
+  /**
+   * @param params the parameters given with the query being planned, used to look up values in index histograms
+   */
+  def newMetrics(planContext: PlanContext,
+                 expressionEvaluator: ExpressionEvaluator,
+                 executionModel: ExecutionModel,
+                 planningTextIndexesEnabled: Boolean,
+                 params: MapValue = MapValue.EMPTY): Metrics = {
+    val selectivityCalculator = newSelectivityCalculator(planContext, planningTextIndexesEnabled, params)
     val queryGraphCardinalityModel = newQueryGraphCardinalityModel(planContext, selectivityCalculator)
     val cardinality = newCardinalityEstimator(queryGraphCardinalityModel, selectivityCalculator, expressionEvaluator)
     Metrics(newCostModel(executionModel), cardinality)
@@ -63,6 +63,7 @@ import org.neo4j.cypher.internal.util.Rewritable.RewritableAny
 import org.neo4j.cypher.internal.util.Rewriter
 import org.neo4j.cypher.internal.util.Selectivity
 import org.neo4j.cypher.internal.util.topDown
+import org.neo4j.values.virtual.MapValue
 
 import scala.annotation.tailrec
 
@@ -84,11 +85,13 @@ import scala.annotation.tailrec
  *
  * @see #selectivityForCompositeIndexPredicates(SelectivitiesForPredicates, SelectivityCombiner)
  */
-case class CompositeExpressionSelectivityCalculator(planContext: PlanContext, planningTextIndexesEnabled: Boolean) extends SelectivityCalculator {
+case class CompositeExpressionSelectivityCalculator(planContext: PlanContext,
+                                                    planningTextIndexesEnabled: Boolean,
+                                                    params: MapValue = MapValue.EMPTY) extends SelectivityCalculator {
 
   private val combiner: SelectivityCombiner = IndependenceCombiner
 
-  private val singleExpressionSelectivityCalculator: ExpressionSelectivityCalculator = ExpressionSelectivityCalculator(planContext.statistics, combiner, planningTextIndexesEnabled)
+  private val singleExpressionSelectivityCalculator: ExpressionSelectivityCalculator = ExpressionSelectivityCalculator(planContext.statistics, combiner, planningTextIndexesEnabled, params)
 
   private val nodeIndexMatchCache = CachedFunction[QueryGraph, SemanticTable, IndexCompatiblePredicatesProviderContext, Set[IndexMatch]] {
     (a, b, c) => findNodeIndexMatches(a, b, c)
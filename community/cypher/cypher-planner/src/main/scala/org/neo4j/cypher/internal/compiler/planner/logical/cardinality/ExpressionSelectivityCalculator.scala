@@ -48,6 +48,7 @@ import org.neo4j.cypher.internal.compiler.planner.logical.plans.PointBoundingBox
 import org.neo4j.cypher.internal.compiler.planner.logical.plans.PointDistanceSeekable
 import org.neo4j.cypher.internal.compiler.planner.logical.plans.PrefixRangeSeekable
 import org.neo4j.cypher.internal.expressions.AssertIsNode
+import org.neo4j.cypher.internal.expressions.AutoExtractedParameter
 import org.neo4j.cypher.internal.expressions.Contains
 import org.neo4j.cypher.internal.expressions.EndsWith
 import org.neo4j.cypher.internal.expressions.Equals
@@ -59,8 +60,13 @@ import org.neo4j.cypher.internal.expressions.HasLabels
 import org.neo4j.cypher.internal.expressions.LabelName
 import org.neo4j.cypher.internal.expressions.LessThan
 import org.neo4j.cypher.internal.expressions.LessThanOrEqual
+import org.neo4j.cypher.internal.expressions.ListLiteral
+import org.neo4j.cypher.internal.expressions.ListOfLiteralWriter
+import org.neo4j.cypher.internal.expressions.Literal
 import org.neo4j.cypher.internal.expressions.Not
+import org.neo4j.cypher.internal.expressions.Null
 import org.neo4j.cypher.internal.expressions.Ors
+import org.neo4j.cypher.internal.expressions.Parameter
 import org.neo4j.cypher.internal.expressions.PartialPredicate
 import org.neo4j.cypher.internal.expressions.Property
 import org.neo4j.cypher.internal.expressions.PropertyKeyName
@@ -69,7 +75,13 @@ import org.neo4j.cypher.internal.expressions.RelTypeName
 import org.neo4j.cypher.internal.expressions.StringLiteral
 import org.neo4j.cypher.internal.expressions.VarLengthBound
 import org.neo4j.cypher.internal.expressions.Variable
+import org.neo4j.cypher.internal.logical.plans.Bound
+import org.neo4j.cypher.internal.logical.plans.ExclusiveBound
+import org.neo4j.cypher.internal.logical.plans.InclusiveBound
+import org.neo4j.cypher.internal.logical.plans.ManySeekableArgs
 import org.neo4j.cypher.internal.logical.plans.PrefixRange
+import org.neo4j.cypher.internal.logical.plans.SeekableArgs
+import org.neo4j.cypher.internal.logical.plans.SingleSeekableArg
 import org.neo4j.cypher.internal.planner.spi.GraphStatistics
 import org.neo4j.cypher.internal.planner.spi.IndexDescriptor
 import org.neo4j.cypher.internal.planner.spi.IndexDescriptor.IndexType
@@ -79,10 +91,18 @@ import org.neo4j.cypher.internal.util.NameId
 import org.neo4j.cypher.internal.util.PropertyKeyId
 import org.neo4j.cypher.internal.util.RelTypeId
 import org.neo4j.cypher.internal.util.Selectivity
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.Value
+import org.neo4j.values.storable.Values
+import org.neo4j.values.virtual.ListValue
+import org.neo4j.values.virtual.MapValue
 
 import scala.language.postfixOps
 
-case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: SelectivityCombiner, planningTextIndexesEnabled: Boolean) {
+case class ExpressionSelectivityCalculator(stats: GraphStatistics,
+                                           combiner: SelectivityCombiner,
+                                           planningTextIndexesEnabled: Boolean,
+                                           params: MapValue = MapValue.EMPTY) {
 
   private val indexTypesPriorityForSubstringSargable: Seq[IndexType] = Seq(
     if (planningTextIndexesEnabled) Some(IndexType.Text) else None,
@@ -109,7 +129,7 @@ case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: Sel
 
     // WHERE x.prop =/IN ...
     case AsPropertySeekable(seekable) =>
-      calculateSelectivityForPropertyEquality(seekable.name, seekable.args.sizeHint, labelInfo, relTypeInfo, seekable.propertyKey)
+      calculateSelectivityForPropertyEquality(seekable.name, seekable.args.sizeHint, planningTimeValues(seekable.args), labelInfo, relTypeInfo, seekable.propertyKey)
 
     // WHERE x.prop STARTS WITH 'prefix'
     case AsStringRangeSeekable(seekable@PrefixRangeSeekable(PrefixRange(StringLiteral(prefix)), _, _, _)) =>
@@ -285,6 +305,7 @@ case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: Sel
 
   private def calculateSelectivityForPropertyEquality(variable: String,
                                                       sizeHint: Option[Int],
+                                                      values: Option[Seq[AnyRef]],
                                                       labelInfo: LabelInfo,
                                                       relTypeInfo: RelTypeInfo,
                                                       propertyKey: PropertyKeyName)
@@ -300,7 +321,7 @@ case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: Sel
           case _ => None
         }
 
-        descriptor.flatMap(indexSelectivityForPropertyEquality(_, size))
+        descriptor.flatMap(d => histogramSelectivityForPropertyEquality(d, values).orElse(indexSelectivityForPropertyEquality(d, size)))
       }
 
       combiner.orTogetherSelectivities(indexSelectivities)
@@ -312,6 +333,52 @@ case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: Sel
   private def indexSelectivityForPropertyEquality(descriptor: IndexDescriptor, size: Int): Option[Selectivity] =
     selectivityForPropertyEquality(stats.indexPropertyIsNotNullSelectivity(descriptor), stats.uniqueValueSelectivity(descriptor), size)
 
+  /**
+   * The selectivity of a property being equal to any of the given, distinct, values, if the index has a histogram telling the frequency of each of them.
+   */
+  private def histogramSelectivityForPropertyEquality(descriptor: IndexDescriptor, values: Option[Seq[AnyRef]]): Option[Selectivity] = for {
+    knownValues <- values
+    if knownValues.nonEmpty
+    propExists <- stats.indexPropertyIsNotNullSelectivity(descriptor)
+    valueSelectivities = knownValues.flatMap(stats.indexValueSelectivity(descriptor, _))
+    if valueSelectivities.size == knownValues.size
+    propEqualsAnyValue <- Selectivity.of(math.min(valueSelectivities.map(_.factor).sum, 1.0))
+    combinedSelectivity <- combiner.andTogetherSelectivities(Seq(propExists, propEqualsAnyValue))
+  } yield combinedSelectivity
+
+  /**
+   * The values compared with, if they are all known at planning time: literals, auto-extracted literals or parameters given with the query.
+   */
+  private def planningTimeValues(args: SeekableArgs): Option[Seq[AnyRef]] = {
+    val values = args match {
+      case SingleSeekableArg(expression) => planningTimeValue(expression).map(Seq(_))
+      case ManySeekableArgs(ListLiteral(expressions)) => sequence(expressions.map(planningTimeValue))
+      case ManySeekableArgs(AutoExtractedParameter(_, _, ListOfLiteralWriter(literals), _)) => sequence(literals.map(planningTimeValue))
+      case ManySeekableArgs(parameter: Parameter) => params.get(parameter.name) match {
+        case list: ListValue => sequence(list.asArray().toSeq.map(storableValue))
+        case _ => None
+      }
+      case _ => None
+    }
+    values.map(_.distinct)
+  }
+
+  private def planningTimeValue(expression: Expression): Option[AnyRef] = expression match {
+    case _: Null => None
+    case literal: Literal => Some(literal.value)
+    case AutoExtractedParameter(_, _, literal: Literal, _) => planningTimeValue(literal)
+    case parameter: Parameter => storableValue(params.get(parameter.name))
+    case _ => None
+  }
+
+  private def storableValue(value: AnyValue): Option[AnyRef] = value match {
+    case Values.NO_VALUE => None
+    case storable: Value => Some(storable.asObject())
+    case _ => None
+  }
+
+  private def sequence(values: Seq[Option[AnyRef]]): Option[Seq[AnyRef]] =
+    if (values.forall(_.isDefined)) Some(values.flatten) else None
 
   private def defaultSelectivityForPropertyEquality(size: Int): Option[Selectivity] =
     selectivityForPropertyEquality(Some(DEFAULT_PROPERTY_SELECTIVITY), Some(DEFAULT_EQUALITY_SELECTIVITY), size)
@@ -339,6 +406,7 @@ case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: Sel
 
     val labels = labelInfo.getOrElse(seekable.ident.name, Set.empty)
     val relTypes = relTypeInfo.get(seekable.ident.name)
+    val knownBounds = numericBounds(seekable)
     val indexRangeSelectivities: Seq[Selectivity] = (labels ++ relTypes).toIndexedSeq.flatMap { name =>
       val ids = name match {
         case labelName: LabelName => (semanticTable.id(labelName), semanticTable.id(seekable.expr.property.propertyKey))
@@ -356,7 +424,9 @@ case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: Sel
             propertyExistsSelectivity <- stats.indexPropertyIsNotNullSelectivity(descriptor)
             propEqValueSelectivity <- stats.uniqueValueSelectivity(descriptor)
           } yield {
-            val pRangeBounded: Selectivity = getPropertyPredicateRangeSelectivity(seekable, propEqValueSelectivity)
+            val pRangeBounded: Selectivity = knownBounds
+              .flatMap { case (lowerBound, upperBound) => stats.indexRangeSelectivity(descriptor, lowerBound, upperBound) }
+              .getOrElse(getPropertyPredicateRangeSelectivity(seekable, propEqValueSelectivity))
             pRangeBounded * propertyExistsSelectivity
           }
 
@@ -367,6 +437,33 @@ case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: Sel
     combiner.orTogetherSelectivities(indexRangeSelectivities).getOrElse(default)
   }
 
+  /**
+   * The bounds of the range, if it has at most one lower and one upper bound and they are numbers known at planning time.
+   */
+  private def numericBounds(seekable: InequalityRangeSeekable): Option[(Option[Bound[AnyRef]], Option[Bound[AnyRef]])] = {
+    val inequalities = seekable.expr.inequalities.toIndexedSeq
+    val lowerBounds: Seq[Bound[AnyRef]] = inequalities.flatMap {
+      case GreaterThan(_, NumericValue(value)) => Some(ExclusiveBound(value))
+      case GreaterThanOrEqual(_, NumericValue(value)) => Some(InclusiveBound(value))
+      case _ => None
+    }
+    val upperBounds: Seq[Bound[AnyRef]] = inequalities.flatMap {
+      case LessThan(_, NumericValue(value)) => Some(ExclusiveBound(value))
+      case LessThanOrEqual(_, NumericValue(value)) => Some(InclusiveBound(value))
+      case _ => None
+    }
+    if (lowerBounds.size + upperBounds.size == inequalities.size && lowerBounds.size <= 1 && upperBounds.size <= 1)
+      Some((lowerBounds.headOption, upperBounds.headOption))
+    else
+      None
+  }
+
+  private object NumericValue {
+    def unapply(expression: Expression): Option[AnyRef] = planningTimeValue(expression).collect {
+      case number: Number => number
+    }
+  }
+
   private def calculateSelectivityForPointDistanceSeekable(seekable: PointDistanceSeekable,
                                                            labelInfo: LabelInfo,
                                                            relTypeInfo: RelTypeInfo)
@@ -33,14 +33,19 @@ import org.neo4j.cypher.internal.planner.spi.InstrumentedGraphStatistics
 import org.neo4j.cypher.internal.planner.spi.MutableGraphStatisticsSnapshot
 import org.neo4j.cypher.internal.planner.spi.PlanContext
 import org.neo4j.cypher.internal.util.Selectivity
+import org.neo4j.values.virtual.MapValue
 
 /**
  * Test that CompositeExpressionSelectivityCalculator returns the same results as ExpressionSelectivityCalculator for single expressions.
  */
 class CompositeExpressionSelectivityCalculatorWithSingleExpressionsTest extends ExpressionSelectivityCalculatorTest {
-  override protected def setUpCalculator(labelInfo: LabelInfo, relTypeInfo: RelTypeInfo, stats: GraphStatistics, planningTextIndexesEnabled: Boolean): Expression => Selectivity = {
+  override protected def setUpCalculator(labelInfo: LabelInfo,
+                                         relTypeInfo: RelTypeInfo,
+                                         stats: GraphStatistics,
+                                         planningTextIndexesEnabled: Boolean,
+                                         params: MapValue): Expression => Selectivity = {
     val semanticTable = setupSemanticTable()
-    val compositeCalculator = CompositeExpressionSelectivityCalculator(mockPlanContext(stats), planningTextIndexesEnabled)
+    val compositeCalculator = CompositeExpressionSelectivityCalculator(mockPlanContext(stats), planningTextIndexesEnabled, params)
     exp: Expression => {
       compositeCalculator(Selections.from(exp), labelInfo, relTypeInfo, semanticTable, IndexCompatiblePredicatesProviderContext.default)
     }
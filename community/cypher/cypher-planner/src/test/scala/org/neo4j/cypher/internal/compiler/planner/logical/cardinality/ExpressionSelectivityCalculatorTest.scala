@@ -46,10 +46,15 @@ import org.neo4j.cypher.internal.expressions.Property
 import org.neo4j.cypher.internal.expressions.RelTypeName
 import org.neo4j.cypher.internal.ir.Predicate
 import org.neo4j.cypher.internal.ir.Selections
+import org.neo4j.cypher.internal.logical.plans.Bound
+import org.neo4j.cypher.internal.logical.plans.ExclusiveBound
+import org.neo4j.cypher.internal.logical.plans.InclusiveBound
 import org.neo4j.cypher.internal.planner.spi.GraphStatistics
 import org.neo4j.cypher.internal.planner.spi.IndexDescriptor
 import org.neo4j.cypher.internal.planner.spi.MinimumGraphStatistics.MIN_NODES_ALL_CARDINALITY
 import org.neo4j.cypher.internal.planner.spi.MinimumGraphStatistics.MIN_NODES_WITH_LABEL_CARDINALITY
+import org.neo4j.cypher.internal.rewriting.rewriters.IfNoParameter
+import org.neo4j.cypher.internal.rewriting.rewriters.literalReplacement
 import org.neo4j.cypher.internal.util.Cardinality
 import org.neo4j.cypher.internal.util.LabelId
 import org.neo4j.cypher.internal.util.ListSizeBucket
@@ -62,6 +67,9 @@ import org.neo4j.cypher.internal.util.symbols.CTAny
 import org.neo4j.cypher.internal.util.symbols.CTInteger
 import org.neo4j.cypher.internal.util.symbols.CTList
 import org.neo4j.cypher.internal.util.test_helpers.CypherFunSuite
+import org.neo4j.values.storable.Values
+import org.neo4j.values.virtual.MapValue
+import org.neo4j.values.virtual.VirtualValues
 
 class ExpressionSelectivityCalculatorTest extends CypherFunSuite with AstConstructionTestSupport {
 
@@ -251,6 +259,58 @@ class ExpressionSelectivityCalculatorTest extends CypherFunSuite with AstConstru
     )
   }
 
+  test("closed (>= && <) range with one label, range in histogram") {
+    val inequality = nPredicate(nAnded(NonEmptyList(
+      greaterThanOrEqual(nProp, literalInt(3)),
+      lessThan(nProp, literalInt(4))
+    )))
+
+    val calculator = setUpCalculator(labelInfo = nIsPersonLabelInfo, stats = statsWithHistogram)
+
+    val inequalityResult = calculator(inequality.expr)
+
+    inequalityResult.factor should equal(personPropIsNotNullSel * 0.7 +- 0.00000001)
+  }
+
+  test("closed (>= && <) range with one label, range not in histogram, same as without histogram") {
+    val inequality = nPredicate(nAnded(NonEmptyList(
+      greaterThanOrEqual(nProp, literalInt(3)),
+      lessThan(nProp, literalInt(5))
+    )))
+
+    val withHistogram = setUpCalculator(labelInfo = nIsPersonLabelInfo, stats = statsWithHistogram)
+    val withoutHistogram = setUpCalculator(labelInfo = nIsPersonLabelInfo)
+
+    withHistogram(inequality.expr) should equal(withoutHistogram(inequality.expr))
+  }
+
+  test("closed (>= && <) range with one label, range in histogram, bounds extracted as parameters by default") {
+    val inequality = nPredicate(nAnded(NonEmptyList(
+      greaterThanOrEqual(nProp, literalInt(3)),
+      lessThan(nProp, literalInt(4))
+    )))
+
+    val calculator = setUpCalculator(labelInfo = nIsPersonLabelInfo, stats = statsWithHistogram)
+
+    val inequalityResult = calculator(extractLiterals(inequality.expr))
+
+    inequalityResult.factor should equal(personPropIsNotNullSel * 0.7 +- 0.00000001)
+  }
+
+  test("closed (>= && <) range with one label, range in histogram, bounds given as parameters") {
+    val inequality = nPredicate(nAnded(NonEmptyList(
+      greaterThanOrEqual(nProp, parameter("lower", CTInteger)),
+      lessThan(nProp, parameter("upper", CTInteger))
+    )))
+
+    val params = VirtualValues.map(Array("lower", "upper"), Array(Values.longValue(3), Values.longValue(4)))
+    val calculator = setUpCalculator(labelInfo = nIsPersonLabelInfo, stats = statsWithHistogram, params = params)
+
+    val inequalityResult = calculator(inequality.expr)
+
+    inequalityResult.factor should equal(personPropIsNotNullSel * 0.7 +- 0.00000001)
+  }
+
   test("three inequalities should be equal to two inequalities, one label") {
     val inequality = nPredicate(nAnded(NonEmptyList(
       greaterThan(nProp, literalInt(3)),
@@ -1198,6 +1258,107 @@ class ExpressionSelectivityCalculatorTest extends CypherFunSuite with AstConstru
     eqResult.factor should equal(inSel)
   }
 
+  test("equality with one label, value in histogram") {
+    val equals = nPredicate(super.equals(nProp, literalInt(3)))
+
+    val calculator = setUpCalculator(labelInfo = nIsPersonLabelInfo, stats = statsWithHistogram)
+
+    val eqResult = calculator(equals.expr)
+
+    eqResult.factor should equal(personPropIsNotNullSel * 0.5 +- 0.00000001)
+  }
+
+  test("equality with one label, same value without histogram") {
+    val equals = nPredicate(super.equals(nProp, literalInt(3)))
+
+    val calculator = setUpCalculator(labelInfo = nIsPersonLabelInfo)
+
+    val eqResult = calculator(equals.expr)
+
+    eqResult.factor should equal(personPropIsNotNullSel * indexPersonUniqueSel +- 0.00000001)
+  }
+
+  test("equality with one label, value not in histogram, same as without histogram") {
+    val equals = nPredicate(super.equals(nProp, literalInt(5)))
+
+    val withHistogram = setUpCalculator(labelInfo = nIsPersonLabelInfo, stats = statsWithHistogram)
+    val withoutHistogram = setUpCalculator(labelInfo = nIsPersonLabelInfo)
+
+    withHistogram(equals.expr) should equal(withoutHistogram(equals.expr))
+  }
+
+  test("equality with one label, size 2, values in histogram") {
+    val equals = nPredicate(in(nProp, listOfInt(3, 4)))
+
+    val calculator = setUpCalculator(labelInfo = nIsPersonLabelInfo, stats = statsWithHistogram)
+
+    val eqResult = calculator(equals.expr)
+
+    eqResult.factor should equal(personPropIsNotNullSel * (0.5 + 0.1) +- 0.00000001)
+  }
+
+  test("equality with one label, size 2, one value not in histogram") {
+    val equals = nPredicate(in(nProp, listOfInt(3, 5)))
+
+    val calculator = setUpCalculator(labelInfo = nIsPersonLabelInfo, stats = statsWithHistogram)
+
+    val eqResult = calculator(equals.expr)
+
+    val equal1Sel = 1.0 / 180.0
+    eqResult.factor should equal(personPropIsNotNullSel * (equal1Sel + equal1Sel - equal1Sel * equal1Sel))
+  }
+
+  test("equality with one label, value in histogram, extracted as parameter by default") {
+    val equals = nPredicate(super.equals(nProp, literalInt(3)))
+
+    val calculator = setUpCalculator(labelInfo = nIsPersonLabelInfo, stats = statsWithHistogram)
+
+    val eqResult = calculator(extractLiterals(equals.expr))
+
+    eqResult.factor should equal(personPropIsNotNullSel * 0.5 +- 0.00000001)
+  }
+
+  test("equality with one label, size 2, values in histogram, extracted as parameter by default") {
+    val equals = nPredicate(in(nProp, listOfInt(3, 4)))
+
+    val calculator = setUpCalculator(labelInfo = nIsPersonLabelInfo, stats = statsWithHistogram)
+
+    val eqResult = calculator(extractLiterals(equals.expr))
+
+    eqResult.factor should equal(personPropIsNotNullSel * (0.5 + 0.1) +- 0.00000001)
+  }
+
+  test("equality with one label, value in histogram, given as parameter") {
+    val equals = nPredicate(super.equals(nProp, parameter("value", CTInteger)))
+
+    val params = VirtualValues.map(Array("value"), Array(Values.longValue(3)))
+    val calculator = setUpCalculator(labelInfo = nIsPersonLabelInfo, stats = statsWithHistogram, params = params)
+
+    val eqResult = calculator(equals.expr)
+
+    eqResult.factor should equal(personPropIsNotNullSel * 0.5 +- 0.00000001)
+  }
+
+  test("equality with one label, size 2, values in histogram, given as parameter") {
+    val equals = nPredicate(in(nProp, parameter("values", CTList(CTInteger))))
+
+    val params = VirtualValues.map(Array("values"), Array(VirtualValues.list(Values.longValue(3), Values.longValue(4))))
+    val calculator = setUpCalculator(labelInfo = nIsPersonLabelInfo, stats = statsWithHistogram, params = params)
+
+    val eqResult = calculator(equals.expr)
+
+    eqResult.factor should equal(personPropIsNotNullSel * (0.5 + 0.1) +- 0.00000001)
+  }
+
+  test("equality with one label, parameter not given, same as without histogram") {
+    val equals = nPredicate(super.equals(nProp, parameter("value", CTInteger)))
+
+    val withHistogram = setUpCalculator(labelInfo = nIsPersonLabelInfo, stats = statsWithHistogram)
+    val withoutHistogram = setUpCalculator(labelInfo = nIsPersonLabelInfo)
+
+    withHistogram(equals.expr) should equal(withoutHistogram(equals.expr))
+  }
+
   test("equality with one label, auto-extracted parameter of size 2") {
     val param = AutoExtractedParameter("PARAM", CTList(CTAny), ListOfLiteralWriter(Seq(literalString("a"), literalString("b"))), Some(2))(pos)
     val equals = nPredicate(in(nProp, param))
@@ -1439,11 +1600,15 @@ class ExpressionSelectivityCalculatorTest extends CypherFunSuite with AstConstru
       .addTypeInfo(literalInt(7), CTInteger)
   }
 
-  protected def setUpCalculator(labelInfo: LabelInfo = Map.empty, relTypeInfo: RelTypeInfo = Map.empty, stats: GraphStatistics = mockStats(), planningTextIndexesEnabled: Boolean = true): Expression => Selectivity = {
+  protected def setUpCalculator(labelInfo: LabelInfo = Map.empty,
+                                relTypeInfo: RelTypeInfo = Map.empty,
+                                stats: GraphStatistics = mockStats(),
+                                planningTextIndexesEnabled: Boolean = true,
+                                params: MapValue = MapValue.EMPTY): Expression => Selectivity = {
     implicit val semanticTable: SemanticTable = setupSemanticTable()
 
     val combiner = IndependenceCombiner
-    val calculator = ExpressionSelectivityCalculator(stats, combiner, planningTextIndexesEnabled)
+    val calculator = ExpressionSelectivityCalculator(stats, combiner, planningTextIndexesEnabled, params)
     exp: Expression => calculator(exp, labelInfo, relTypeInfo)
   }
 
@@ -1506,6 +1671,33 @@ class ExpressionSelectivityCalculatorTest extends CypherFunSuite with AstConstru
     }
   }
 
+  /**
+   * Statistics where the index on :Person has a histogram telling the frequency of the values 3 and 4, and the range [3, 4).
+   */
+  private def statsWithHistogram: GraphStatistics = new mockStats() {
+    override def indexValueSelectivity(index: IndexDescriptor, value: AnyRef): Option[Selectivity] =
+      if (index != indexPersonBtree) None
+      else if (value == Long.box(3L)) Some(Selectivity(0.5))
+      else if (value == Long.box(4L)) Some(Selectivity(0.1))
+      else None
+
+    override def indexRangeSelectivity(index: IndexDescriptor, lowerBound: Option[Bound[AnyRef]], upperBound: Option[Bound[AnyRef]]): Option[Selectivity] =
+      if (index == indexPersonBtree && lowerBound.contains(InclusiveBound(Long.box(3L))) && upperBound.contains(ExclusiveBound(Long.box(4L))))
+        Some(Selectivity(0.7))
+      else
+        None
+  }
+
+  /**
+   * Replaces the literals of the expression with parameters, the way queries without parameters are planned by default.
+   */
+  private def extractLiterals(expr: Expression): Expression = {
+    val (extractParameters, _) = literalReplacement(expr, IfNoParameter)
+    val extracted = expr.endoRewrite(extractParameters)
+    extracted should not equal expr
+    extracted
+  }
+
   private def nPredicate(expr: Expression) = Predicate(Set("n"), expr)
   private def rPredicate(expr: Expression) = Predicate(Set("r"), expr)
 
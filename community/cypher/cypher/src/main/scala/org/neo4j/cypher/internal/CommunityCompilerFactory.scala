@@ -29,11 +29,15 @@ import org.neo4j.cypher.internal.options.CypherRuntimeOption
 import org.neo4j.cypher.internal.options.CypherUpdateStrategy
 import org.neo4j.cypher.internal.options.CypherVersion
 import org.neo4j.cypher.internal.planning.CypherPlanner
+import org.neo4j.cypher.internal.runtime.interpreted.InterpretedParallelExecution
 import org.neo4j.exceptions.SyntaxException
 import org.neo4j.kernel.GraphDatabaseQueryService
+import org.neo4j.kernel.api.Kernel
 import org.neo4j.logging.Log
 import org.neo4j.logging.LogProvider
 import org.neo4j.monitoring
+import org.neo4j.scheduler.Group
+import org.neo4j.scheduler.JobScheduler
 
 /**
  * Factory which creates cypher compilers.
@@ -50,6 +54,18 @@ class CommunityCompilerFactory(graph: GraphDatabaseQueryService,
 
   override def supportsAdministrativeCommands(): Boolean = plannerConfig.planSystemCommands
 
+  // Resolved from the dependencies of the database once, the factory is created when they're all in place
+  private val parallelExecution: Option[InterpretedParallelExecution] =
+    if (runtimeConfig.interpretedParallelScanAggregationWorkers > 1) {
+      val resolver = graph.getDependencyResolver
+      Some(InterpretedParallelExecution(
+        resolver.resolveDependency(classOf[Kernel]).cursors(),
+        resolver.resolveDependency(classOf[JobScheduler]).executor(Group.CYPHER_WORKER),
+        runtimeConfig.interpretedParallelScanAggregationWorkers))
+    } else {
+      None
+    }
+
   override def createCompiler(cypherVersion: CypherVersion,
                               cypherPlanner: CypherPlannerOption,
                               cypherRuntime: CypherRuntimeOption,
@@ -85,7 +101,7 @@ class CommunityCompilerFactory(graph: GraphDatabaseQueryService,
     CypherCurrentCompiler(
       planner,
       runtime,
-      CommunityRuntimeContextManager(log, runtimeConfig),
+      CommunityRuntimeContextManager(log, runtimeConfig, parallelExecution),
       kernelMonitors)
   }
 }
@@ -29,6 +29,9 @@ import org.neo4j.cypher.internal.runtime.InputDataStream
 import org.neo4j.cypher.internal.runtime.ProfileMode
 import org.neo4j.cypher.internal.runtime.QueryContext
 import org.neo4j.cypher.internal.runtime.QueryIndexRegistrator
+import org.neo4j.cypher.internal.runtime.ResourceManager
+import org.neo4j.cypher.internal.runtime.ResourceMonitor
+import org.neo4j.cypher.internal.runtime.ThreadSafeResourceManager
 import org.neo4j.cypher.internal.runtime.expressionVariableAllocation
 import org.neo4j.cypher.internal.runtime.expressionVariableAllocation.Result
 import org.neo4j.cypher.internal.runtime.interpreted.ExecutionResultBuilderFactory
@@ -39,6 +42,7 @@ import org.neo4j.cypher.internal.runtime.interpreted.UpdateCountingQueryContext
 import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.CommunityExpressionConverter
 import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.ExpressionConverters
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.NestedPipeExpressions
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ParallelScanAggregationPipe.ParallelizableScanAggregation
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.PipeTreeBuilder
 import org.neo4j.cypher.internal.runtime.interpreted.profiler.InterpretedProfileInformation
 import org.neo4j.cypher.internal.runtime.interpreted.profiler.Profiler
@@ -46,6 +50,7 @@ import org.neo4j.cypher.internal.runtime.slottedParameters
 import org.neo4j.cypher.internal.util.InternalNotification
 import org.neo4j.cypher.result.RuntimeResult
 import org.neo4j.exceptions.PeriodicCommitInOpenTransactionException
+import org.neo4j.internal.kernel.api.CursorFactory
 import org.neo4j.kernel.impl.query.QuerySubscriber
 import org.neo4j.values.virtual.MapValue
 
@@ -60,7 +65,12 @@ object InterpretedRuntime extends CypherRuntime[RuntimeContext] {
 
     val converters = new ExpressionConverters(CommunityExpressionConverter(context.tokenContext, context.anonymousVariableNameGenerator))
     val queryIndexRegistrator = new QueryIndexRegistrator(context.schemaRead)
-    val pipeMapper = InterpretedPipeMapper(query.readOnly, converters, context.tokenContext, queryIndexRegistrator, context.anonymousVariableNameGenerator)(query.semanticTable)
+    val parallelExecution = context match {
+      case communityContext: CommunityRuntimeContext if query.readOnly => communityContext.parallelExecution
+      case _ => None
+    }
+    val pipeMapper = InterpretedPipeMapper(query.readOnly, converters, context.tokenContext, queryIndexRegistrator, context.anonymousVariableNameGenerator,
+      parallelExecution)(query.semanticTable)
     val pipeTreeBuilder = PipeTreeBuilder(pipeMapper)
     val logicalPlanWithConvertedNestedPlans = NestedPipeExpressions.build(pipeTreeBuilder, withSlottedParameters, availableExpressionVars)
     val pipe = pipeTreeBuilder.build(logicalPlanWithConvertedNestedPlans)
@@ -68,6 +78,10 @@ object InterpretedRuntime extends CypherRuntime[RuntimeContext] {
 
     val startsTransactions = doesStartTransactions(query)
 
+    // A query with a parallel operator reads through thread-safe cursors, which its parallel query contexts share
+    val threadSafeExecutionResources = parallelExecution.filter(_ => hasParallelScanAggregation(query)).map(parallel =>
+      (parallel.cursors, ThreadSafeResourceManagerFactory))
+
     val resultBuilderFactory = InterpretedExecutionResultBuilderFactory(pipe,
       queryIndexRegistrator.result(),
       nExpressionSlots,
@@ -84,7 +98,17 @@ object InterpretedRuntime extends CypherRuntime[RuntimeContext] {
       query.readOnly,
       startsTransactions,
       IndexedSeq.empty,
-      Set.empty)
+      Set.empty,
+      threadSafeExecutionResources)
+  }
+
+  private def hasParallelScanAggregation(query: LogicalQuery): Boolean =
+    query.logicalPlan.folder.treeExists {
+      case ParallelizableScanAggregation(_, _) => true
+    }
+
+  private object ThreadSafeResourceManagerFactory extends ResourceManagerFactory {
+    override def apply(monitor: ResourceMonitor): ResourceManager = new ThreadSafeResourceManager(monitor)
   }
 
   def doesStartTransactions(query: LogicalQuery): Boolean =
@@ -102,7 +126,8 @@ object InterpretedRuntime extends CypherRuntime[RuntimeContext] {
                                  readOnly: Boolean,
                                  startsTransactions: Boolean,
                                  override val metadata: Seq[Argument],
-                                 warnings: Set[InternalNotification]) extends ExecutionPlan {
+                                 warnings: Set[InternalNotification],
+                                 threadSafeResources: Option[(CursorFactory, ResourceManagerFactory)] = None) extends ExecutionPlan {
 
     override def run(queryContext: QueryContext,
                      executionMode: ExecutionMode,
@@ -130,5 +155,7 @@ object InterpretedRuntime extends CypherRuntime[RuntimeContext] {
     }
 
     override def notifications: Set[InternalNotification] = warnings
+
+    override def threadSafeExecutionResources(): Option[(CursorFactory, ResourceManagerFactory)] = threadSafeResources
   }
 }
@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.spi
 
+import org.neo4j.cypher.internal.logical.plans.Bound
 import org.neo4j.cypher.internal.planner.spi.GraphStatistics
 import org.neo4j.cypher.internal.planner.spi.IndexDescriptor
 import org.neo4j.cypher.internal.planner.spi.MinimumGraphStatistics
@@ -31,10 +32,13 @@ import org.neo4j.internal.kernel.api.SchemaRead
 import org.neo4j.internal.kernel.api.TokenRead
 import org.neo4j.internal.kernel.api.exceptions.schema.IndexNotFoundKernelException
 import org.neo4j.internal.schema
+import org.neo4j.kernel.api.index.IndexValueHistogram
 import org.neo4j.kernel.impl.query.TransactionalContext
 import org.neo4j.logging.Log
+import org.neo4j.values.storable.Values
 
 import java.lang.Math.min
+import java.util.OptionalDouble
 
 object TransactionBoundGraphStatistics {
   def apply(transactionalContext: TransactionalContext, log: Log): MinimumGraphStatistics =
@@ -108,6 +112,31 @@ object TransactionBoundGraphStatistics {
           None
       }
 
+    override def indexValueSelectivity(index: IndexDescriptor, value: AnyRef): Option[Selectivity] =
+      histogramSelectivity(index, "indexValueSelectivity") { histogram =>
+        histogram.equalitySelectivity(Values.of(value))
+      }
+
+    override def indexRangeSelectivity(index: IndexDescriptor, lowerBound: Option[Bound[AnyRef]], upperBound: Option[Bound[AnyRef]]): Option[Selectivity] =
+      histogramSelectivity(index, "indexRangeSelectivity") { histogram =>
+        histogram.rangeSelectivity(
+          lowerBound.map(bound => Values.of(bound.endPoint)).orNull, lowerBound.forall(_.isInclusive),
+          upperBound.map(bound => Values.of(bound.endPoint)).orNull, upperBound.forall(_.isInclusive))
+      }
+
+    private def histogramSelectivity(index: IndexDescriptor, statistic: String)(selectivity: IndexValueHistogram => OptionalDouble): Option[Selectivity] =
+      try {
+        maybeKernelIndexDescriptor(index).flatMap { indexDescriptor =>
+          val estimate = selectivity(schemaRead.indexSample(indexDescriptor).histogram())
+          if (estimate.isPresent) Selectivity.of(estimate.getAsDouble) else None
+        }
+      }
+      catch {
+        case e: IndexNotFoundKernelException =>
+          log.debug(s"Index not found for $statistic", e)
+          None
+      }
+
     override def nodesAllCardinality(): Cardinality =
       Cardinality(read.countsForNodeWithoutTxState(TokenRead.ANY_LABEL))
 
@@ -116,6 +116,9 @@ abstract class DelegatingQueryContext(val inner: QueryContext) extends QueryCont
 
   override def transactionalContext: QueryTransactionalContext = inner.transactionalContext
 
+  // Parallel query contexts only read, so there is nothing for a delegating context to count in them
+  override def createParallelQueryContext(): QueryContext = inner.createParallelQueryContext()
+
   override def setLabelsOnNode(node: Long, labelIds: Iterator[Int]): Int =
     singleDbHit(inner.setLabelsOnNode(node, labelIds))
 
@@ -240,6 +240,8 @@ import org.neo4j.cypher.internal.runtime.interpreted.pipes.OptionalPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.OrderedAggregationPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.OrderedDistinctPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.OrderedUnionPipe
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ParallelScanAggregationPipe
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ParallelScanAggregationPipe.ParallelizableScanAggregation
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.PartialSortPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.PartialTop1Pipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.PartialTopNPipe
@@ -312,7 +314,8 @@ case class InterpretedPipeMapper(readOnly: Boolean,
                                  expressionConverters: ExpressionConverters,
                                  tokenContext: ReadTokenContext,
                                  indexRegistrator: QueryIndexRegistrator,
-                                 anonymousVariableNameGenerator: AnonymousVariableNameGenerator)
+                                 anonymousVariableNameGenerator: AnonymousVariableNameGenerator,
+                                 parallelExecution: Option[InterpretedParallelExecution] = None)
                                 (implicit semanticTable: SemanticTable) extends PipeMapper {
 
   private def getBuildExpression(id: Id): internal.expressions.Expression => Expression =
@@ -689,7 +692,8 @@ case class InterpretedPipeMapper(readOnly: Boolean,
             val groupingFunction: (CypherRow, QueryState) => AnyValue = AggregationPipe.computeGroupingFunction(groupingColumns)
             GroupingAggTable.Factory(groupingColumns, groupingFunction, aggregationColumns)
           }
-        EagerAggregationPipe(source, tableFactory)(id = id)
+        parallelScanAggregation(plan, source, aggregationColumns)
+          .getOrElse(EagerAggregationPipe(source, tableFactory)(id = id))
 
       case OrderedAggregation(_, groupingExpressions, aggregatingExpressions, orderToLeverage) =>
         val aggregationColumns = aggregatingExpressions.map {
@@ -993,6 +997,25 @@ case class InterpretedPipeMapper(readOnly: Boolean,
     }
   }
 
+  private def parallelScanAggregation(plan: LogicalPlan, source: Pipe, aggregationColumns: Array[AggregationPipe.AggregatingCol]): Option[Pipe] =
+    (plan, parallelExecution) match {
+      case (ParallelizableScanAggregation(scanPlan, selection), Some(parallel)) if readOnly =>
+        ParallelScanAggregationPipe.combiningAggregations(aggregationColumns).map { combiningAggregations =>
+          val (ident, scan) = scanPlan match {
+            case AllNodesScan(idName, _) => (idName, ParallelScanAggregationPipe.AllNodes)
+            case NodeByLabelScan(idName, label, _, _) => (idName, ParallelScanAggregationPipe.NodesWithLabel(LazyLabel(label)))
+          }
+          val predicate = selection.map { selectionPlan =>
+            val buildExpression = getBuildExpression(selectionPlan.id)
+            val ands = selectionPlan.predicate
+            if (ands.exprs.size == 1) buildExpression(ands.exprs.head) else buildExpression(ands)
+          }
+          ParallelScanAggregationPipe(source, scan, ident, predicate, aggregationColumns, combiningAggregations, parallel.workers,
+            parallel.executor)(id = plan.id)
+        }
+      case _ => None
+    }
+
   private def buildPredicate(id: Id, expr: internal.expressions.Expression): Predicate =
     expressionConverters.toCommandPredicate(id, expr)
       .rewrite(KeyTokenResolver.resolveExpressions(_, tokenContext))
@@ -778,95 +778,97 @@ private[internal] class TransactionBoundReadQueryContext(val transactionalContex
   }
 
   override def nodeGetOutgoingDegreeWithMax(maxDegree: Int, node: Long, nodeCursor: NodeCursor): Int = {
-    reads().singleNode(node, nodeCursor)
-    if (!nodeCursor.next()) 0
+    if (!positionNodeCursorForDegree(node, nodeCursor)) 0
     else {
       Nodes.countWithMax(maxDegree, nodeCursor, org.neo4j.graphdb.Direction.OUTGOING)
     }
   }
 
   override def nodeGetIncomingDegreeWithMax(maxDegree: Int, node: Long, nodeCursor: NodeCursor): Int = {
-    reads().singleNode(node, nodeCursor)
-    if (!nodeCursor.next()) 0
+    if (!positionNodeCursorForDegree(node, nodeCursor)) 0
     else {
       Nodes.countWithMax(maxDegree, nodeCursor, org.neo4j.graphdb.Direction.INCOMING)
     }
   }
 
   override def nodeGetTotalDegreeWithMax(maxDegree: Int, node: Long, nodeCursor: NodeCursor): Int = {
-    reads().singleNode(node, nodeCursor)
-    if (!nodeCursor.next()) 0
+    if (!positionNodeCursorForDegree(node, nodeCursor)) 0
     else {
       Nodes.countWithMax(maxDegree, nodeCursor, org.neo4j.graphdb.Direction.BOTH)
     }
   }
 
   override def nodeGetOutgoingDegree(node: Long, nodeCursor: NodeCursor): Int = {
-    reads().singleNode(node, nodeCursor)
-    if (!nodeCursor.next()) 0
+    if (!positionNodeCursorForDegree(node, nodeCursor)) 0
     else Nodes.countOutgoing(nodeCursor)
   }
 
   override def nodeGetIncomingDegree(node: Long, nodeCursor: NodeCursor): Int = {
-    reads().singleNode(node, nodeCursor)
-    if (!nodeCursor.next()) 0
+    if (!positionNodeCursorForDegree(node, nodeCursor)) 0
     else Nodes.countIncoming(nodeCursor)
   }
 
   override def nodeGetTotalDegree(node: Long, nodeCursor: NodeCursor): Int = {
-    reads().singleNode(node, nodeCursor)
-    if (!nodeCursor.next()) 0
+    if (!positionNodeCursorForDegree(node, nodeCursor)) 0
     else Nodes.countAll(nodeCursor)
   }
 
   override def nodeGetOutgoingDegreeWithMax(maxDegree: Int, node: Long, relationship: Int, nodeCursor: NodeCursor): Int = {
-    reads().singleNode(node, nodeCursor)
-    if (!nodeCursor.next()) 0
+    if (!positionNodeCursorForDegree(node, nodeCursor)) 0
     else {
       Nodes.countWithMax(maxDegree, nodeCursor, relationship, org.neo4j.graphdb.Direction.OUTGOING)
     }
   }
 
   override def nodeGetIncomingDegreeWithMax(maxDegree: Int, node: Long, relationship: Int, nodeCursor: NodeCursor): Int = {
-    reads().singleNode(node, nodeCursor)
-    if (!nodeCursor.next()) 0
+    if (!positionNodeCursorForDegree(node, nodeCursor)) 0
     else {
       Nodes.countWithMax(maxDegree, nodeCursor, relationship, org.neo4j.graphdb.Direction.INCOMING)
     }
   }
 
   override def nodeGetTotalDegreeWithMax(maxDegree: Int, node: Long, relationship: Int, nodeCursor: NodeCursor): Int = {
-    reads().singleNode(node, nodeCursor)
-    if (!nodeCursor.next()) 0
+    if (!positionNodeCursorForDegree(node, nodeCursor)) 0
     else {
       Nodes.countWithMax(maxDegree, nodeCursor, relationship, org.neo4j.graphdb.Direction.BOTH)
     }
   }
 
   override def nodeGetOutgoingDegree(node: Long, relationship: Int, nodeCursor: NodeCursor): Int = {
-    reads().singleNode(node, nodeCursor)
-    if (!nodeCursor.next()) 0
+    if (!positionNodeCursorForDegree(node, nodeCursor)) 0
     else Nodes.countOutgoing(nodeCursor, relationship)
   }
 
   override def nodeGetIncomingDegree(node: Long, relationship: Int, nodeCursor: NodeCursor): Int = {
-    reads().singleNode(node, nodeCursor)
-    if (!nodeCursor.next()) 0
+    if (!positionNodeCursorForDegree(node, nodeCursor)) 0
     else Nodes.countIncoming(nodeCursor, relationship)
   }
 
   override def nodeGetTotalDegree(node: Long, relationship: Int, nodeCursor: NodeCursor): Int = {
-    reads().singleNode(node, nodeCursor)
-    if (!nodeCursor.next()) 0
+    if (!positionNodeCursorForDegree(node, nodeCursor)) 0
     else Nodes.countAll(nodeCursor, relationship)
   }
 
   override def nodeHasCheapDegrees(node: Long, nodeCursor: NodeCursor): Boolean = {
-    reads().singleNode(node, nodeCursor)
-    if (!nodeCursor.next()) false
+    if (!positionNodeCursorForDegree(node, nodeCursor)) false
     else nodeCursor.supportsFastDegreeLookup
   }
 
+  /**
+   * Degree lookups for the same node tend to come in a row, e.g. `size((n)-[:A]->())` followed by `size((n)-[:B]->())`, and since the store
+   * keeps the degrees of the node a cursor is placed at, the cursor is only moved if it isn't at the node already. This is only done when
+   * the transaction hasn't changed anything, since the cursor has made up its mind about transaction state changes of the node when it was placed.
+   */
+  private def positionNodeCursorForDegree(node: Long, nodeCursor: NodeCursor): Boolean = {
+    val read = reads()
+    if (!nodeCursor.isClosed && nodeCursor.nodeReference() == node && !read.transactionStateHasChanges) {
+      true
+    } else {
+      read.singleNode(node, nodeCursor)
+      nodeCursor.next()
+    }
+  }
+
   override def asObject(value: AnyValue): AnyRef = value.map(valueMapper)
 
   override def getTxStateNodePropertyOrNull(nodeId: Long,
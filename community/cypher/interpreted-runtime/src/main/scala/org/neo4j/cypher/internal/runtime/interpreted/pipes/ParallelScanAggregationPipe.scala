@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.pipes
+
+import org.neo4j.cypher.internal
+import org.neo4j.cypher.internal.expressions.functions
+import org.neo4j.cypher.internal.logical.plans.Aggregation
+import org.neo4j.cypher.internal.logical.plans.AllNodesScan
+import org.neo4j.cypher.internal.logical.plans.LogicalPlan
+import org.neo4j.cypher.internal.logical.plans.NestedPlanExpression
+import org.neo4j.cypher.internal.logical.plans.NodeByLabelScan
+import org.neo4j.cypher.internal.logical.plans.Selection
+import org.neo4j.cypher.internal.runtime.ClosingIterator
+import org.neo4j.cypher.internal.runtime.CypherRow
+import org.neo4j.cypher.internal.runtime.QueryContext
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Count
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.CountStar
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Expression
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Max
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Min
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Sum
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Variable
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.AggregationPipe.AggregatingCol
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.LazyLabel.UNKNOWN
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ParallelScanAggregationPipe.NodeScan
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ParallelScanAggregationPipe.PartitionedNodeScan
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.aggregation.NonGroupingAggTable
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.aggregation.SumFunction
+import org.neo4j.cypher.internal.util.attribution.Id
+import org.neo4j.internal.kernel.api.TokenPredicate
+import org.neo4j.internal.kernel.api.exceptions.schema.IndexNotApplicableKernelException
+import org.neo4j.memory.EmptyMemoryTracker
+import org.neo4j.values.storable.Values
+import org.neo4j.values.virtual.VirtualValues
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicBoolean
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Aggregates, without grouping, the nodes of a scan, optionally filtered by a predicate, using several workers.
+ * Each worker reads parts of the scan, using its own parallel query context, and aggregates them into partial results,
+ * which are then combined by the `combiningAggregations` into the result of the aggregation.
+ *
+ * When the scan cannot be split, because the transaction has changes of its own, the query is profiled or the scan is
+ * on the right-hand side of an apply, the rows of `source` are aggregated in the thread of the query instead.
+ *
+ * @param source the scan, and the filter if any, as they are executed when not aggregating in parallel
+ * @param scan the scan that the workers split between them
+ * @param ident the variable of the scanned node
+ * @param predicate the filter on the scanned nodes, if any
+ * @param aggregations the aggregation columns
+ * @param combiningAggregations for each aggregation column, the aggregation combining its partial results, keyed by the same name
+ * @param workers the number of workers
+ * @param executor the executor running the workers
+ */
+case class ParallelScanAggregationPipe(source: Pipe,
+                                       scan: NodeScan,
+                                       ident: String,
+                                       predicate: Option[Expression],
+                                       aggregations: Array[AggregatingCol],
+                                       combiningAggregations: Array[AggregatingCol],
+                                       workers: Int,
+                                       executor: Executor)
+                                      (val id: Id = Id.INVALID_ID)
+  extends AggregationPipe(source) {
+
+  private val tableFactory = NonGroupingAggTable.Factory(aggregations)
+  private val combiningTableFactory = NonGroupingAggTable.Factory(combiningAggregations)
+
+  override protected def computeDecoratedResult(state: QueryState, decoratedState: QueryState): ClosingIterator[CypherRow] =
+    partitionedScan(decoratedState) match {
+      case Some(partitioned) =>
+        decorateResult(ClosingIterator.empty, decoratedState, aggregateInParallel(partitioned, decoratedState))
+      case None =>
+        super.computeDecoratedResult(state, decoratedState)
+    }
+
+  protected def internalCreateResults(input: ClosingIterator[CypherRow], state: QueryState): ClosingIterator[CypherRow] = {
+    val table = tableFactory.table(state, rowFactory, id)
+    table.clear()
+    while (input.hasNext) {
+      table.processRow(input.next())
+    }
+    table.result()
+  }
+
+  private def partitionedScan(state: QueryState): Option[PartitionedNodeScan] =
+    if ((state.decorator eq NullPipeDecorator) && state.initialContext.isEmpty &&
+        !state.query.transactionalContext.dataRead.transactionStateHasChanges) {
+      scan.partition(state, workers)
+    } else {
+      None
+    }
+
+  private def aggregateInParallel(partitioned: PartitionedNodeScan, state: QueryState): ClosingIterator[CypherRow] = {
+    // The parallel query contexts are created and closed in the thread of the query, since they merge into its transaction when closed
+    val workerQueries = new ArrayBuffer[QueryContext](workers)
+    val partialResults =
+      try {
+        while (workerQueries.size < workers) {
+          workerQueries += state.query.createParallelQueryContext()
+        }
+        val failed = new AtomicBoolean()
+        val futures = workerQueries.map(workerQuery =>
+          CompletableFuture.supplyAsync[CypherRow](() => aggregatePart(partitioned, workerQuery, state, failed), executor))
+        awaitAll(futures)
+      } finally {
+        workerQueries.foreach(_.transactionalContext.close())
+      }
+
+    val table = combiningTableFactory.table(state, rowFactory, id)
+    table.clear()
+    partialResults.foreach(table.processRow)
+    table.result()
+  }
+
+  private def aggregatePart(partitioned: PartitionedNodeScan,
+                            workerQuery: QueryContext,
+                            state: QueryState,
+                            failed: AtomicBoolean): CypherRow = {
+    val workerState = state.withParallelQueryContext(workerQuery)
+    try {
+      // These are small, fixed size states which we do not track, like the array of them in NonGroupingAggTable
+      val functions = aggregations.map(_.expression.createAggregationFunction(EmptyMemoryTracker.INSTANCE))
+      val baseRow = workerState.newRowWithArgument(rowFactory)
+      val nodes = partitioned.nodes(workerQuery)
+      try {
+        while (!failed.get() && nodes.next()) {
+          val row = rowFactory.copyWith(baseRow, ident, VirtualValues.node(nodes.nodeReference))
+          if (predicate.forall(_(row, workerState) eq Values.TRUE)) {
+            var i = 0
+            while (i < functions.length) {
+              functions(i)(row, workerState)
+              i += 1
+            }
+          }
+        }
+      } finally {
+        nodes.close()
+      }
+
+      val partialResult = workerState.newRow(rowFactory)
+      var i = 0
+      while (i < functions.length) {
+        val value = functions(i) match {
+          case sum: SumFunction => sum.partialResult(workerState)
+          case function => function.result(workerState)
+        }
+        partialResult.set(aggregations(i).key, value)
+        i += 1
+      }
+      partialResult
+    } catch {
+      case e: Throwable =>
+        // Makes the other workers stop early, since the aggregation fails anyway
+        failed.set(true)
+        throw e
+    } finally {
+      workerState.closeParallelState()
+    }
+  }
+
+  private def awaitAll(futures: Seq[CompletableFuture[CypherRow]]): Seq[CypherRow] = {
+    try {
+      // Completes only once all workers have completed, even if some of them failed
+      CompletableFuture.allOf(futures: _*).join()
+    } catch {
+      case e: CompletionException => throw e.getCause
+    }
+    futures.map(_.join())
+  }
+}
+
+object ParallelScanAggregationPipe {
+
+  /**
+   * The number of nodes a worker reserves at a time of a scan of all nodes.
+   */
+  val BATCH_SIZE: Int = 4096
+
+  /**
+   * A scan of nodes that can be split between workers.
+   */
+  sealed trait NodeScan {
+
+    /**
+     * Prepares the scan to be split between the given number of workers, or returns `None` if it cannot be split.
+     */
+    def partition(state: QueryState, workers: Int): Option[PartitionedNodeScan]
+  }
+
+  /**
+   * The scan of all nodes, which the workers read in batches of [[BATCH_SIZE]] nodes.
+   */
+  case object AllNodes extends NodeScan {
+    override def partition(state: QueryState, workers: Int): Option[PartitionedNodeScan] = {
+      val scan = state.query.transactionalContext.dataRead.allNodesScan()
+      Some(new PartitionedNodeScan {
+        override def nodes(workerQuery: QueryContext): NodeIterator = {
+          val tc = workerQuery.transactionalContext
+          val cursor = tc.cursors.allocateNodeCursor(tc.cursorContext)
+          new NodeIterator {
+            override protected def reserve(): Boolean = scan.reserveBatch(cursor, BATCH_SIZE, tc.cursorContext, tc.securityContext.mode())
+            override protected def nextInReserved(): Boolean = cursor.next()
+            override def nodeReference: Long = cursor.nodeReference()
+            override def close(): Unit = cursor.close()
+          }
+        }
+      })
+    }
+  }
+
+  /**
+   * The scan of all nodes with a label, which the label index splits into one partition per worker, at most.
+   */
+  case class NodesWithLabel(label: LazyLabel) extends NodeScan {
+    override def partition(state: QueryState, workers: Int): Option[PartitionedNodeScan] = {
+      val labelId = label.getId(state.query)
+      if (labelId == UNKNOWN || state.nodeLabelTokenReadSession.isEmpty) {
+        None
+      } else {
+        val tc = state.query.transactionalContext
+        try {
+          val scan = tc.dataRead.nodeLabelScan(state.nodeLabelTokenReadSession.get, workers, tc.cursorContext, new TokenPredicate(labelId))
+          Some(new PartitionedNodeScan {
+            override def nodes(workerQuery: QueryContext): NodeIterator = {
+              val workerTc = workerQuery.transactionalContext
+              val cursor = workerTc.cursors.allocateNodeLabelIndexCursor(workerTc.cursorContext)
+              new NodeIterator {
+                override protected def reserve(): Boolean = scan.reservePartition(cursor, workerTc.cursorContext, workerTc.securityContext.mode())
+                override protected def nextInReserved(): Boolean = cursor.next()
+                override def nodeReference: Long = cursor.nodeReference()
+                override def close(): Unit = cursor.close()
+              }
+            }
+          })
+        } catch {
+          case _: IndexNotApplicableKernelException => None
+        }
+      }
+    }
+  }
+
+  /**
+   * A scan prepared to be split between workers.
+   */
+  trait PartitionedNodeScan {
+
+    /**
+     * The nodes of the scan that the worker reading through the given parallel query context gets. Called by the worker.
+     */
+    def nodes(workerQuery: QueryContext): NodeIterator
+  }
+
+  /**
+   * The nodes a worker gets from a scan, reserving another part of the scan whenever it has read all nodes of the previous one.
+   */
+  abstract class NodeIterator extends AutoCloseable {
+    private var reserved = false
+
+    protected def reserve(): Boolean
+
+    protected def nextInReserved(): Boolean
+
+    def nodeReference: Long
+
+    def next(): Boolean = {
+      var found = reserved && nextInReserved()
+      var exhausted = false
+      while (!found && !exhausted) {
+        if (reserve()) {
+          reserved = true
+          found = nextInReserved()
+        } else {
+          exhausted = true
+        }
+      }
+      found
+    }
+  }
+
+  /**
+   * Matches a read-only aggregation this pipe can execute: an aggregation without grouping, of only aggregation functions whose
+   * results over parts of the input can be combined, over a scan of all nodes or all nodes with a label, optionally filtered.
+   * Neither the filter nor the aggregations may contain nested plans, which the workers cannot execute.
+   * Extracts the scan and the filter.
+   */
+  object ParallelizableScanAggregation {
+    def unapply(plan: LogicalPlan): Option[(LogicalPlan, Option[Selection])] = plan match {
+      case Aggregation(source, groupingExpressions, aggregationExpressions)
+        if groupingExpressions.isEmpty && aggregationExpressions.nonEmpty && aggregationExpressions.values.forall(isCombinable) =>
+        source match {
+          case selection @ Selection(predicate, scan) if isSplittable(scan) && !containsNestedPlan(predicate) => Some((scan, Some(selection)))
+          case scan if isSplittable(scan) => Some((scan, None))
+          case _ => None
+        }
+      case _ => None
+    }
+
+    private def isSplittable(plan: LogicalPlan): Boolean = plan match {
+      case AllNodesScan(_, argumentIds) => argumentIds.isEmpty
+      case NodeByLabelScan(_, _, argumentIds, _) => argumentIds.isEmpty
+      case _ => false
+    }
+
+    private def isCombinable(expression: internal.expressions.Expression): Boolean = expression match {
+      case _: internal.expressions.CountStar => true
+      case f: internal.expressions.FunctionInvocation if !f.distinct && !containsNestedPlan(f) =>
+        f.function match {
+          case functions.Count | functions.Sum | functions.Min | functions.Max => true
+          case _ => false
+        }
+      case _ => false
+    }
+
+    private def containsNestedPlan(expression: internal.expressions.Expression): Boolean =
+      expression.folder.treeExists {
+        case _: NestedPlanExpression | _: NestedPipeExistsExpression | _: NestedPipeCollectExpression => true
+      }
+  }
+
+  /**
+   * For each aggregation column, the aggregation that combines its partial results into its result,
+   * or `None` if there is an aggregation whose partial results cannot be combined.
+   */
+  def combiningAggregations(aggregations: Array[AggregatingCol]): Option[Array[AggregatingCol]] = {
+    val combining = aggregations.map {
+      case AggregatingCol(key, _: CountStar | _: Count | _: Sum) => Some(AggregatingCol(key, Sum(Variable(key))))
+      case AggregatingCol(key, _: Min) => Some(AggregatingCol(key, Min(Variable(key))))
+      case AggregatingCol(key, _: Max) => Some(AggregatingCol(key, Max(Variable(key))))
+      case _ => None
+    }
+    if (combining.forall(_.isDefined)) Some(combining.map(_.get)) else None
+  }
+}
@@ -111,6 +111,26 @@ class QueryState(
     new QueryState(query, resources, params, cursors, queryIndexes, nodeLabelTokenReadSession, relTypeTokenReadSession,
       expressionVariables, subscriber, queryMemoryTracker, memoryTrackerForOperatorProvider, decorator, initialContext, cachedIn, lenientCreateRelationship, prePopulateResults, input)
 
+  /**
+   * A state for a worker of a parallel operator, reading through the given query context. The worker gets its own expression cursors,
+   * expression variables and IN cache, since those are not safe to share between threads. Close it with [[closeParallelState]].
+   */
+  def withParallelQueryContext(parallelQuery: QueryContext): QueryState =
+    new QueryState(parallelQuery, resources, params, parallelQuery.createExpressionCursors(), queryIndexes, nodeLabelTokenReadSession,
+      relTypeTokenReadSession, expressionVariables.clone(), subscriber, queryMemoryTracker, memoryTrackerForOperatorProvider, decorator,
+      initialContext, createDefaultInCache(), lenientCreateRelationship, prePopulateResults, input)
+
+  /**
+   * Closes a state created by [[withParallelQueryContext]], but not its query context, which shares its resources with the query.
+   */
+  def closeParallelState(): Unit = {
+    if (!_closed) {
+      cursors.close()
+      cachedIn.close()
+    }
+    _closed = true
+  }
+
   def withNewTransaction(): QueryState  = {
     val newQuery = query.contextWithNewTransaction()
 
@@ -25,6 +25,7 @@ import org.neo4j.cypher.internal.runtime.interpreted.pipes.QueryState
 import org.neo4j.exceptions.InternalException
 import org.neo4j.memory.HeapEstimator.shallowSizeOfInstance
 import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.Values
 import org.neo4j.values.utils.ValueMath.overflowSafeAdd
 
 class SumFunction(val value: Expression)
@@ -44,6 +45,13 @@ class SumFunction(val value: Expression)
 
   }
 
+  /**
+   * The sum of a part of the input, to be summed up with the sums of the other parts. Null if no value has been summed,
+   * so that a part without values does not make the sum of the other parts mix numbers and durations.
+   */
+  def partialResult(state: QueryState): AnyValue =
+    if (aggregatingType.isEmpty) Values.NO_VALUE else result(state)
+
   override def apply(data: ReadableRow, state: QueryState) {
     val vl = value(data, state)
     actOnNumberOrDuration(vl,
@@ -33,6 +33,7 @@ import org.neo4j.cypher.internal.logical.plans.DirectedRelationshipByIdSeek
 import org.neo4j.cypher.internal.logical.plans.Expand
 import org.neo4j.cypher.internal.logical.plans.ExpandInto
 import org.neo4j.cypher.internal.logical.plans.IndexOrderAscending
+import org.neo4j.cypher.internal.logical.plans.IndexOrderNone
 import org.neo4j.cypher.internal.logical.plans.LogicalPlan
 import org.neo4j.cypher.internal.logical.plans.ManySeekableArgs
 import org.neo4j.cypher.internal.logical.plans.NodeByIdSeek
@@ -53,6 +54,7 @@ import org.neo4j.cypher.internal.runtime.interpreted.pipes.ArgumentPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.CartesianProductPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.DirectedRelationshipByIdSeekPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.DistinctPipe
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.EagerAggregationPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.ExpandAllPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.ExpandIntoPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.LazyLabel
@@ -61,6 +63,7 @@ import org.neo4j.cypher.internal.runtime.interpreted.pipes.NodeByIdSeekPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.NodeByLabelScanPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.NodeHashJoinPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.OptionalExpandIntoPipe
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ParallelScanAggregationPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.Pipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.PipeTreeBuilder
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.ProjectionPipe
@@ -71,8 +74,11 @@ import org.neo4j.cypher.internal.util.AnonymousVariableNameGenerator
 import org.neo4j.cypher.internal.util.RelTypeId
 import org.neo4j.cypher.internal.util.attribution.SequentialIdGen
 import org.neo4j.cypher.internal.util.test_helpers.CypherFunSuite
+import org.neo4j.internal.kernel.api.CursorFactory
 import org.neo4j.values.storable.Values.intValue
 
+import java.util.concurrent.Executor
+
 import scala.collection.mutable
 
 class InterpretedPipeMapperIT extends CypherFunSuite with AstConstructionTestSupport {
@@ -88,6 +94,9 @@ class InterpretedPipeMapperIT extends CypherFunSuite with AstConstructionTestSup
   private val pipeMapper =
     InterpretedPipeMapper(readOnly = true, converters, planContext, mock[QueryIndexRegistrator], new AnonymousVariableNameGenerator())(semanticTable)
 
+  private val parallelPipeMapper =
+    pipeMapper.copy(parallelExecution = Some(InterpretedParallelExecution(mock[CursorFactory], mock[Executor], workers = 4)))(semanticTable)
+
   private def build(logicalPlan: LogicalPlan): Pipe =
     PipeTreeBuilder(pipeMapper).build(logicalPlan)
 
@@ -229,4 +238,33 @@ class InterpretedPipeMapperIT extends CypherFunSuite with AstConstructionTestSup
         Array(DistinctPipe.GroupingCol("n.prop", commands.expressions.Property(commands.expressions.Variable("n"),
           Resolved("prop", token, TokenType.PropertyKey)))))())
   }
+
+  test("Aggregation over a label scan with parallel execution => ParallelScanAggregationPipe") {
+    val labelScan = NodeByLabelScan("n", labelName("Foo"), Set.empty, IndexOrderNone)
+    val aggregation = Aggregation(labelScan, Map.empty, Map("c" -> countStar(), "m" -> max(varFor("n"))))
+
+    val pipe = PipeTreeBuilder(parallelPipeMapper).build(aggregation)
+
+    pipe shouldBe a[ParallelScanAggregationPipe]
+    val parallelPipe = pipe.asInstanceOf[ParallelScanAggregationPipe]
+    parallelPipe.scan should equal(ParallelScanAggregationPipe.NodesWithLabel(LazyLabel("Foo")))
+    parallelPipe.predicate should be(None)
+    parallelPipe.workers should be(4)
+    parallelPipe.aggregations.map(_.key).toSet should equal(Set("c", "m"))
+  }
+
+  test("Aggregation that cannot be combined across workers => EagerAggregationPipe") {
+    val allNodesScan = AllNodesScan("n", Set.empty)
+    val distinctCount = Aggregation(allNodesScan, Map.empty, Map("c" -> distinctFunction("count", varFor("n"))))
+    val grouping = Aggregation(allNodesScan, Map("n" -> varFor("n")), Map("c" -> countStar()))
+
+    PipeTreeBuilder(parallelPipeMapper).build(distinctCount) shouldBe an[EagerAggregationPipe]
+    PipeTreeBuilder(parallelPipeMapper).build(grouping) shouldBe an[EagerAggregationPipe]
+  }
+
+  test("Aggregation over a scan without parallel execution => EagerAggregationPipe") {
+    val aggregation = Aggregation(AllNodesScan("n", Set.empty), Map.empty, Map("c" -> countStar()))
+
+    build(aggregation) shouldBe an[EagerAggregationPipe]
+  }
 }
@@ -31,6 +31,7 @@ import org.neo4j.cypher.internal.runtime.NoInput
 import org.neo4j.cypher.internal.runtime.QueryContext
 import org.neo4j.cypher.internal.runtime.ResourceManager
 import org.neo4j.cypher.internal.runtime.ResourceMonitor
+import org.neo4j.cypher.internal.runtime.ThreadSafeResourceManager
 import org.neo4j.cypher.internal.runtime.interpreted.TransactionBoundQueryContext.IndexSearchMonitor
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.ExternalCSVResource
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.NullPipeDecorator
@@ -95,15 +96,20 @@ object QueryStateHelper extends MockitoSugar {
       initialContext = initialContext,
       input = input)
 
+  /**
+   * @param threadSafeCursors the cursors of the parallel query contexts of the query, which is then also given a thread-safe resource manager
+   */
   def queryStateFrom(db: GraphDatabaseQueryService,
                      tx: InternalTransaction,
                      params: Array[AnyValue] = Array.empty,
-                     subscriber: QuerySubscriber = QuerySubscriber.DO_NOTHING_SUBSCRIBER
+                     subscriber: QuerySubscriber = QuerySubscriber.DO_NOTHING_SUBSCRIBER,
+                     threadSafeCursors: CursorFactory = null
                     ): QueryState = {
     val searchMonitor = new Monitors().newMonitor(classOf[IndexSearchMonitor])
     val contextFactory = Neo4jTransactionalContextFactory.create(db)
-    val transactionalContext = TransactionalContextWrapper(contextFactory.newContext(tx, "X", EMPTY_MAP))
-    val queryContext = new TransactionBoundQueryContext(transactionalContext, new ResourceManager)(searchMonitor)
+    val transactionalContext = TransactionalContextWrapper(contextFactory.newContext(tx, "X", EMPTY_MAP), threadSafeCursors)
+    val resourceManager = if (threadSafeCursors == null) new ResourceManager else new ThreadSafeResourceManager(ResourceMonitor.NOOP)
+    val queryContext = new TransactionBoundQueryContext(transactionalContext, resourceManager)(searchMonitor)
     emptyWith(db = db,
       query = queryContext,
       params = params,
@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.planner.spi
 
+import org.neo4j.cypher.internal.logical.plans.Bound
 import org.neo4j.cypher.internal.util.Cardinality
 import org.neo4j.cypher.internal.util.LabelId
 import org.neo4j.cypher.internal.util.RelTypeId
@@ -64,6 +65,29 @@ trait GraphStatistics {
    * indexPropertyExistsSelectivity(:X, prop) = s => |MATCH (a:X)| * s = |MATCH (a:X) WHERE x.prop IS NOT NULL|
    */
   def indexPropertyIsNotNullSelectivity(index: IndexDescriptor): Option[Selectivity]
+
+  /**
+   * Probability of any node or relationship in the index to have the given property value, as estimated from the value histogram
+   * of the index. Unlike uniqueValueSelectivity, this tells common values apart from rare ones.
+   *
+   * indexValueSelectivity(:X, prop, v) = s => |MATCH (a:X) WHERE has(x.prop)| * s = |MATCH (a:X) WHERE x.prop = v|
+   *
+   * @param value a String, Long, Double or Boolean
+   * @return None if the index has no histogram
+   */
+  def indexValueSelectivity(index: IndexDescriptor, value: AnyRef): Option[Selectivity] = None
+
+  /**
+   * Probability of any node or relationship in the index to have a numeric property value within the given bounds, as estimated from
+   * the value histogram of the index.
+   *
+   * indexRangeSelectivity(:X, prop, > a, < b) = s => |MATCH (a:X) WHERE has(x.prop)| * s = |MATCH (a:X) WHERE a < x.prop < b|
+   *
+   * @param lowerBound a Long or Double lower bound, or None
+   * @param upperBound a Long or Double upper bound, or None
+   * @return None if the index has no histogram of numeric values or a bound isn't a number
+   */
+  def indexRangeSelectivity(index: IndexDescriptor, lowerBound: Option[Bound[AnyRef]], upperBound: Option[Bound[AnyRef]]): Option[Selectivity] = None
 }
 
 class DelegatingGraphStatistics(delegate: GraphStatistics) extends GraphStatistics {
@@ -79,5 +103,11 @@ class DelegatingGraphStatistics(delegate: GraphStatistics) extends GraphStatisti
   override def indexPropertyIsNotNullSelectivity(index: IndexDescriptor): Option[Selectivity] =
     delegate.indexPropertyIsNotNullSelectivity(index)
 
+  override def indexValueSelectivity(index: IndexDescriptor, value: AnyRef): Option[Selectivity] =
+    delegate.indexValueSelectivity(index, value)
+
+  override def indexRangeSelectivity(index: IndexDescriptor, lowerBound: Option[Bound[AnyRef]], upperBound: Option[Bound[AnyRef]]): Option[Selectivity] =
+    delegate.indexRangeSelectivity(index, lowerBound, upperBound)
+
   override def nodesAllCardinality(): Cardinality = delegate.nodesAllCardinality()
 }
@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.planner.spi
 
+import org.neo4j.cypher.internal.logical.plans.Bound
 import org.neo4j.cypher.internal.util.Cardinality
 import org.neo4j.cypher.internal.util.LabelId
 import org.neo4j.cypher.internal.util.RelTypeId
@@ -34,6 +35,8 @@ case object NodesAllCardinality extends StatisticsKey
 case class CardinalityByLabelsAndRelationshipType(lhs: Option[LabelId], relType: Option[RelTypeId], rhs: Option[LabelId]) extends StatisticsKey
 case class IndexSelectivity(index: IndexDescriptor) extends StatisticsKey
 case class IndexPropertyExistsSelectivity(index: IndexDescriptor) extends StatisticsKey
+case class IndexValueSelectivity(index: IndexDescriptor, value: AnyRef) extends StatisticsKey
+case class IndexRangeSelectivity(index: IndexDescriptor, lowerBound: Option[Bound[AnyRef]], upperBound: Option[Bound[AnyRef]]) extends StatisticsKey
 
 class MutableGraphStatisticsSnapshot(val map: mutable.Map[StatisticsKey, Double] = mutable.Map.empty) {
   def freeze: GraphStatisticsSnapshot = GraphStatisticsSnapshot(map.toMap)
@@ -57,6 +60,10 @@ case class GraphStatisticsSnapshot(statsValues: Map[StatisticsKey, Double] = Map
         instrumented.uniqueValueSelectivity(index)
       case IndexPropertyExistsSelectivity(index) =>
         instrumented.indexPropertyIsNotNullSelectivity(index)
+      case IndexValueSelectivity(index, value) =>
+        instrumented.indexValueSelectivity(index, value)
+      case IndexRangeSelectivity(index, lowerBound, upperBound) =>
+        instrumented.indexRangeSelectivity(index, lowerBound, upperBound)
     }
     snapshot.freeze
   }
@@ -99,5 +106,17 @@ case class InstrumentedGraphStatistics(inner: GraphStatistics, snapshot: Mutable
     selectivity
   }
 
+  override def indexValueSelectivity(index: IndexDescriptor, value: AnyRef): Option[Selectivity] = {
+    val selectivity = inner.indexValueSelectivity(index, value)
+    snapshot.map.getOrElseUpdate(IndexValueSelectivity(index, value), selectivity.fold(0.0)(_.factor))
+    selectivity
+  }
+
+  override def indexRangeSelectivity(index: IndexDescriptor, lowerBound: Option[Bound[AnyRef]], upperBound: Option[Bound[AnyRef]]): Option[Selectivity] = {
+    val selectivity = inner.indexRangeSelectivity(index, lowerBound, upperBound)
+    snapshot.map.getOrElseUpdate(IndexRangeSelectivity(index, lowerBound, upperBound), selectivity.fold(0.0)(_.factor))
+    selectivity
+  }
+
   override def nodesAllCardinality(): Cardinality = snapshot.map.getOrElseUpdate(NodesAllCardinality, inner.nodesAllCardinality().amount)
 }
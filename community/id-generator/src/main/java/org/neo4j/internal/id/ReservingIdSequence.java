@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.id;
+
+import org.neo4j.io.pagecache.context.CursorContext;
+
+import static java.lang.Math.min;
+
+/**
+ * {@link IdSequence} w/o any synchronization which hands out ids from consecutive ranges reserved from an {@link IdGenerator},
+ * meant to be used by one transaction at a time. Ids allocated by one transaction will this way be next to each other instead of
+ * interleaved with ids allocated by concurrent transactions and the shared {@link IdGenerator} is visited once per range instead of once per id.
+ * <p>
+ * The first id after {@link #releaseUnused(CursorContext)} is allocated on its own, so that a transaction needing a single id
+ * doesn't reserve more than that. Subsequent ranges start at {@link #INITIAL_RANGE_SIZE} ids and double up to the max range size.
+ * Reserved ids which haven't been handed out are marked as deleted in {@link #releaseUnused(CursorContext)}, which makes them
+ * available for reuse the same way as ids of deleted records.
+ */
+public class ReservingIdSequence implements IdSequence
+{
+    static final int INITIAL_RANGE_SIZE = 4;
+
+    private final IdGenerator idGenerator;
+    private final int maxRangeSize;
+    private int nextRangeSize;
+    private long nextId;
+    private long endId;
+
+    public ReservingIdSequence( IdGenerator idGenerator, int maxRangeSize )
+    {
+        this.idGenerator = idGenerator;
+        this.maxRangeSize = maxRangeSize;
+    }
+
+    @Override
+    public long nextId( CursorContext cursorContext )
+    {
+        if ( nextId < endId )
+        {
+            return nextId++;
+        }
+        if ( nextRangeSize == 0 )
+        {
+            nextRangeSize = min( INITIAL_RANGE_SIZE, maxRangeSize );
+            return idGenerator.nextId( cursorContext );
+        }
+
+        nextId = idGenerator.nextConsecutiveIdRange( nextRangeSize, false, cursorContext );
+        endId = nextId + nextRangeSize;
+        nextRangeSize = min( nextRangeSize * 2, maxRangeSize );
+        return nextId++;
+    }
+
+    /**
+     * Gives back the reserved ids which haven't been handed out to the {@link IdGenerator} and starts over with allocating
+     * the next id on its own.
+     *
+     * @param cursorContext underlying page cursor context.
+     */
+    public void releaseUnused( CursorContext cursorContext )
+    {
+        if ( nextId < endId )
+        {
+            // Marked one by one since a range may span multiple entries in the id generator
+            try ( IdGenerator.Marker marker = idGenerator.marker( cursorContext ) )
+            {
+                for ( long id = nextId; id < endId; id++ )
+                {
+                    marker.markDeleted( id );
+                }
+            }
+        }
+        nextId = 0;
+        endId = 0;
+        nextRangeSize = 0;
+    }
+}
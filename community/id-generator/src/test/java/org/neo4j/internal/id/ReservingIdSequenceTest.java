@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.id;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.internal.id.ReservingIdSequence.INITIAL_RANGE_SIZE;
+import static org.neo4j.io.pagecache.context.CursorContext.NULL;
+
+class ReservingIdSequenceTest
+{
+    private final IdGenerator idGenerator = mock( IdGenerator.class );
+    private final IdGenerator.Marker marker = mock( IdGenerator.Marker.class );
+
+    ReservingIdSequenceTest()
+    {
+        when( idGenerator.marker( any() ) ).thenReturn( marker );
+    }
+
+    @Test
+    void shouldAllocateFirstIdOnItsOwn()
+    {
+        // given
+        ReservingIdSequence sequence = new ReservingIdSequence( idGenerator, 64 );
+        when( idGenerator.nextId( any() ) ).thenReturn( 10L );
+
+        // when
+        long id = sequence.nextId( NULL );
+        sequence.releaseUnused( NULL );
+
+        // then
+        assertEquals( 10L, id );
+        verify( idGenerator, never() ).nextConsecutiveIdRange( anyInt(), anyBoolean(), any() );
+        verify( idGenerator, never() ).marker( any() );
+    }
+
+    @Test
+    void shouldAllocateSubsequentIdsFromGrowingRanges()
+    {
+        // given
+        ReservingIdSequence sequence = new ReservingIdSequence( idGenerator, INITIAL_RANGE_SIZE * 2 );
+        when( idGenerator.nextId( any() ) ).thenReturn( 1L );
+        when( idGenerator.nextConsecutiveIdRange( INITIAL_RANGE_SIZE, false, NULL ) ).thenReturn( 100L );
+        when( idGenerator.nextConsecutiveIdRange( INITIAL_RANGE_SIZE * 2, false, NULL ) ).thenReturn( 200L, 300L );
+
+        // when/then
+        assertEquals( 1L, sequence.nextId( NULL ) );
+        for ( int i = 0; i < INITIAL_RANGE_SIZE; i++ )
+        {
+            assertEquals( 100L + i, sequence.nextId( NULL ) );
+        }
+        for ( int i = 0; i < INITIAL_RANGE_SIZE * 2; i++ )
+        {
+            assertEquals( 200L + i, sequence.nextId( NULL ) );
+        }
+        // the range size is capped
+        assertEquals( 300L, sequence.nextId( NULL ) );
+    }
+
+    @Test
+    void shouldReleaseUnusedIdsAndStartOver()
+    {
+        // given
+        ReservingIdSequence sequence = new ReservingIdSequence( idGenerator, 64 );
+        when( idGenerator.nextId( any() ) ).thenReturn( 1L, 2L );
+        when( idGenerator.nextConsecutiveIdRange( INITIAL_RANGE_SIZE, false, NULL ) ).thenReturn( 100L );
+        sequence.nextId( NULL );
+        sequence.nextId( NULL );
+
+        // when
+        sequence.releaseUnused( NULL );
+
+        // then
+        for ( int i = 1; i < INITIAL_RANGE_SIZE; i++ )
+        {
+            verify( marker ).markDeleted( 100L + i );
+        }
+        verify( marker, never() ).markDeleted( 100L );
+        verify( marker ).close();
+        assertEquals( 2L, sequence.nextId( NULL ) );
+    }
+}
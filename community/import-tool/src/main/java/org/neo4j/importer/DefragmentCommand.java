@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.importer;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+
+import org.neo4j.cli.AbstractCommand;
+import org.neo4j.cli.CommandFailedException;
+import org.neo4j.cli.Converters.DatabaseNameConverter;
+import org.neo4j.cli.ExecutionContext;
+import org.neo4j.commandline.dbms.CannotWriteException;
+import org.neo4j.commandline.dbms.LockChecker;
+import org.neo4j.configuration.Config;
+import org.neo4j.configuration.ConfigUtils;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.internal.batchimport.staging.ExecutionMonitors;
+import org.neo4j.io.layout.Neo4jLayout;
+import org.neo4j.io.layout.recordstorage.RecordDatabaseLayout;
+import org.neo4j.io.pagecache.impl.muninn.StandalonePageCacheFactory;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.database.NormalizedDatabaseName;
+import org.neo4j.kernel.impl.index.schema.IndexImporterFactoryImpl;
+import org.neo4j.kernel.impl.storemigration.RecordStoreDefragmenter;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogInitializer;
+import org.neo4j.kernel.internal.locker.FileLockException;
+import org.neo4j.logging.internal.NullLogService;
+import org.neo4j.memory.EmptyMemoryTracker;
+
+import static java.lang.String.format;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.kernel.impl.scheduler.JobSchedulerFactory.createInitialisedScheduler;
+import static org.neo4j.kernel.recovery.Recovery.isRecoveryRequired;
+
+@Command(
+        name = "defragment",
+        header = "Rewrite the store files of a database so that the records of each node are stored close to each other.",
+        description = "Rewrite the node, relationship, relationship group and property store files of a stopped database so that the " +
+                      "relationships, relationship groups and properties of each node are stored close to each other, in node order. " +
+                      "Node ids are kept, relationship ids are not, so relationship property indexes are re-populated when the database " +
+                      "is started again. The transaction logs can't be applied to the rewritten store files and are therefore replaced, " +
+                      "and the database gets a new store id. Existing backups and cluster members are not compatible with it afterwards. " +
+                      "The database must have been shut down cleanly."
+)
+public class DefragmentCommand extends AbstractCommand
+{
+    /**
+     * Name of the directory, inside the data directory, that the new store files are written to before replacing the existing ones,
+     * unless another directory is given.
+     */
+    static final String DEFRAGMENT_DIRECTORY = "defragment";
+
+    @Option( names = "--database", defaultValue = DEFAULT_DATABASE_NAME, converter = DatabaseNameConverter.class,
+            description = "Name of the database to defragment." )
+    private NormalizedDatabaseName database;
+
+    @Option( names = "--additional-config", paramLabel = "<path>", description = "Configuration file to supply additional configuration in." )
+    private Path additionalConfig;
+
+    @Option( names = "--temp-path", paramLabel = "<path>",
+            description = "Directory to write the new store files to before they replace the existing ones. It must be outside of the database " +
+                          "and transaction logs directories and should be on the same file system as the database. " +
+                          "Defaults to a directory named after the database in the 'defragment' directory of the data directory." )
+    private Path tempPath;
+
+    public DefragmentCommand( ExecutionContext ctx )
+    {
+        super( ctx );
+    }
+
+    @Override
+    public void execute()
+    {
+        Config config = loadNeo4jConfig();
+        Neo4jLayout neo4jLayout = Neo4jLayout.of( config );
+        RecordDatabaseLayout databaseLayout = RecordDatabaseLayout.of( neo4jLayout, database.name() );
+        Path tempDirectory = tempPath != null ? tempPath.toAbsolutePath().normalize()
+                                              : neo4jLayout.dataDirectory().resolve( DEFRAGMENT_DIRECTORY ).resolve( database.name() );
+        if ( !ctx.fs().fileExists( databaseLayout.metadataStore() ) )
+        {
+            throw new CommandFailedException( format( "Database '%s' does not exist.", databaseLayout.getDatabaseName() ) );
+        }
+        var memoryTracker = EmptyMemoryTracker.INSTANCE;
+        try ( Closeable ignored = LockChecker.checkDatabaseLock( databaseLayout );
+              var jobScheduler = createInitialisedScheduler();
+              var pageCache = StandalonePageCacheFactory.createPageCache( ctx.fs(), jobScheduler, PageCacheTracer.NULL ) )
+        {
+            if ( isRecoveryRequired( ctx.fs(), databaseLayout, config, memoryTracker ) )
+            {
+                throw new CommandFailedException( format( "Database '%s' was not shut down cleanly. Start and stop it again before defragmenting it.",
+                        databaseLayout.getDatabaseName() ) );
+            }
+
+            RecordStoreDefragmenter defragmenter = new RecordStoreDefragmenter( ctx.fs(), pageCache, config, NullLogService.getInstance(), jobScheduler,
+                    PageCacheTracer.NULL, memoryTracker );
+            RecordStoreDefragmenter.Result result = defragmenter.defragment( databaseLayout, RecordDatabaseLayout.ofFlat( tempDirectory ),
+                    ExecutionMonitors.defaultVisible(), new IndexImporterFactoryImpl( config ), TransactionLogInitializer.getLogFilesInitializer() );
+
+            ctx.out().printf( "Store pages visited per node, sampled over %d nodes: %.2f before, %.2f after%n", result.after().sampledNodes(),
+                    result.before().pagesPerNode(), result.after().pagesPerNode() );
+            if ( result.droppedRelationshipIndexes() > 0 )
+            {
+                ctx.out().printf( "%d relationship property index(es) will be re-populated when the database is started%n",
+                        result.droppedRelationshipIndexes() );
+            }
+            ctx.out().println( "The transaction logs have been replaced and the database has a new store id. Existing backups of the database " +
+                    "can't be updated incrementally from it anymore." );
+        }
+        catch ( FileLockException e )
+        {
+            throw new CommandFailedException( "The database is in use. Stop database '" + databaseLayout.getDatabaseName() + "' and try again.", e );
+        }
+        catch ( CannotWriteException e )
+        {
+            throw new CommandFailedException( "You do not have permission to defragment the database.", e );
+        }
+        catch ( CommandFailedException e )
+        {
+            throw e;
+        }
+        catch ( Exception e )
+        {
+            throw new CommandFailedException( format( "Failed to defragment database '%s': %s", databaseLayout.getDatabaseName(), e.getMessage() ), e );
+        }
+    }
+
+    private Config loadNeo4jConfig()
+    {
+        Config cfg = Config.newBuilder()
+                           .set( GraphDatabaseSettings.neo4j_home, ctx.homeDir().toAbsolutePath() )
+                           .fromFileNoThrow( ctx.confDir().resolve( Config.DEFAULT_CONFIG_FILE_NAME ) )
+                           .fromFileNoThrow( additionalConfig )
+                           .commandExpansion( allowCommandExpansion )
+                           .build();
+        ConfigUtils.disableAllConnectors( cfg );
+        return cfg;
+    }
+}
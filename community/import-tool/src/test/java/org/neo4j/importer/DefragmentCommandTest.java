@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.ResourceLock;
+import org.junit.jupiter.api.parallel.Resources;
+import picocli.CommandLine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import org.neo4j.cli.CommandFailedException;
+import org.neo4j.cli.ExecutionContext;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.SuppressOutputExtension;
+import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
+import org.neo4j.test.utils.TestDirectory;
+
+import static java.lang.System.lineSeparator;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@TestDirectoryExtension
+@ExtendWith( SuppressOutputExtension.class )
+@ResourceLock( Resources.SYSTEM_OUT )
+class DefragmentCommandTest
+{
+    @Inject
+    private TestDirectory testDir;
+
+    @Test
+    void printUsageHelp()
+    {
+        final var baos = new ByteArrayOutputStream();
+        final var command = new DefragmentCommand( new ExecutionContext( Path.of( "." ), Path.of( "." ) ) );
+        try ( var out = new PrintStream( baos ) )
+        {
+            CommandLine.usage( command, new PrintStream( out ), CommandLine.Help.Ansi.OFF );
+        }
+        assertEquals( "Rewrite the store files of a database so that the records of each node are" + lineSeparator() +
+                        "stored close to each other." + lineSeparator() +
+                        "" + lineSeparator() +
+                        "USAGE" + lineSeparator() +
+                        "" + lineSeparator() +
+                        "defragment [--expand-commands] [--verbose] [--additional-config=<path>]" + lineSeparator() +
+                        "           [--database=<database>] [--temp-path=<path>]" + lineSeparator() +
+                        "" + lineSeparator() +
+                        "DESCRIPTION" + lineSeparator() +
+                        "" + lineSeparator() +
+                        "Rewrite the node, relationship, relationship group and property store files of" + lineSeparator() +
+                        "a stopped database so that the relationships, relationship groups and" + lineSeparator() +
+                        "properties of each node are stored close to each other, in node order. Node ids" + lineSeparator() +
+                        "are kept, relationship ids are not, so relationship property indexes are" + lineSeparator() +
+                        "re-populated when the database is started again. The transaction logs can't be" + lineSeparator() +
+                        "applied to the rewritten store files and are therefore replaced, and the" + lineSeparator() +
+                        "database gets a new store id. Existing backups and cluster members are not" + lineSeparator() +
+                        "compatible with it afterwards. The database must have been shut down cleanly." + lineSeparator() +
+                        "" + lineSeparator() +
+                        "OPTIONS" + lineSeparator() +
+                        "" + lineSeparator() +
+                        "      --verbose            Enable verbose output." + lineSeparator() +
+                        "      --expand-commands    Allow command expansion in config value evaluation." + lineSeparator() +
+                        "      --database=<database>" + lineSeparator() +
+                        "                           Name of the database to defragment." + lineSeparator() +
+                        "                             Default: neo4j" + lineSeparator() +
+                        "      --additional-config=<path>" + lineSeparator() +
+                        "                           Configuration file to supply additional" + lineSeparator() +
+                        "                             configuration in." + lineSeparator() +
+                        "      --temp-path=<path>   Directory to write the new store files to before" + lineSeparator() +
+                        "                             they replace the existing ones. It must be outside" + lineSeparator() +
+                        "                             of the database and transaction logs directories" + lineSeparator() +
+                        "                             and should be on the same file system as the" + lineSeparator() +
+                        "                             database. Defaults to a directory named after the" + lineSeparator() +
+                        "                             database in the 'defragment' directory of the data" + lineSeparator() +
+                        "                             directory.", baos.toString().trim() );
+    }
+
+    @Test
+    void shouldNotAcceptInvalidDatabaseName()
+    {
+        final var command = new DefragmentCommand( context() );
+
+        assertThatThrownBy( () -> CommandLine.populateCommand( command, "--database=-invalid" ) )
+                .isInstanceOf( CommandLine.ParameterException.class )
+                .hasMessageContaining( "Invalid value for option '--database'" );
+    }
+
+    @Test
+    void shouldFailForNonExistingDatabase()
+    {
+        final var command = new DefragmentCommand( context() );
+        CommandLine.populateCommand( command, "--database=foo" );
+
+        assertThatThrownBy( command::execute )
+                .isInstanceOf( CommandFailedException.class )
+                .hasMessage( "Database 'foo' does not exist." );
+    }
+
+    private ExecutionContext context()
+    {
+        return new ExecutionContext( testDir.homePath(), testDir.directory( "conf" ), System.out, System.err, testDir.getFileSystem() );
+    }
+}
@@ -31,10 +31,14 @@ import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
@@ -42,6 +46,7 @@ import java.util.stream.Collectors;
 
 import org.neo4j.dbms.database.readonly.DatabaseReadOnlyChecker;
 import org.neo4j.internal.helpers.Exceptions;
+import org.neo4j.io.IOUtils;
 import org.neo4j.io.pagecache.CursorException;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
@@ -66,6 +71,8 @@ import static org.neo4j.index.internal.gbptree.PageCursorUtil.checkOutOfBounds;
 import static org.neo4j.index.internal.gbptree.PointerChecking.assertNoSuccessor;
 import static org.neo4j.index.internal.gbptree.SeekCursor.DEFAULT_MAX_READ_AHEAD;
 import static org.neo4j.index.internal.gbptree.SeekCursor.LEAF_LEVEL;
+import static org.neo4j.index.internal.gbptree.TreeNode.Type.INTERNAL;
+import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
 import static org.neo4j.internal.helpers.Exceptions.withMessage;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 
@@ -93,6 +100,8 @@ import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
  * <p>
  * A single writer w/ multiple concurrent readers is supported. Assuming usage adheres to this
  * constraint neither writer nor readers are blocking. Readers are virtually garbage-free.
+ * Alternatively multiple {@link #concurrentWriter(CursorContext) concurrent writers} can modify the tree in parallel,
+ * see {@link TreeWriterLatches} for how they are coordinated.
  * <p>
  * An reader of GB+Tree is a {@link SeekCursor} that returns result as it finds them.
  * As the cursor move over keys/values, returned results are considered "behind" it
@@ -384,6 +393,17 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
      */
     private final SingleWriter writer;
 
+    /**
+     * Creates {@link TreeNode} instances for {@link #concurrentWriter(CursorContext) concurrent writers}, because a {@link TreeNode}
+     * keeps scratch state when writing and so can not be shared between writers.
+     */
+    private final Supplier<TreeNode<KEY,VALUE>> treeNodeFactory;
+
+    /**
+     * Coordinates {@link #concurrentWriter(CursorContext) concurrent writers}.
+     */
+    private final TreeWriterLatches writerLatches = new TreeWriterLatches();
+
     /**
      * Tells whether or not there have been made changes (using {@link #writer(CursorContext)}) to this tree
      * since last call to {@link #checkpoint(CursorContext)}. This variable is set when calling {@link #writer(CursorContext)}
@@ -611,6 +631,7 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
             this.freeList = new FreeListIdProvider( pagedFile, rootId );
             OffloadStoreImpl<KEY,VALUE> offloadStore = buildOffload( layout, freeList, pagedFile, pageSize );
             this.bTreeNode = format.create( pageSize, layout, offloadStore );
+            this.treeNodeFactory = () -> format.create( pageSize, layout, offloadStore );
             this.writer = new SingleWriter( new InternalTreeLogic<>( freeList, bTreeNode, layout, monitor ) );
 
             // Create or load state
@@ -1392,6 +1413,55 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
         return unsafeWriter( ratioToKeepInLeftOnSplit, cursorContext );
     }
 
+    /**
+     * Returns a {@link Writer} able to modify the index in parallel with other writers returned from this method, each of them used by
+     * a single thread. Changes that fit in the leaf where their key belongs are made concurrently, latching only that leaf. Changes that
+     * modify the structure of the tree, e.g. splits and merges, are made one at a time. See {@link TreeWriterLatches}.
+     * <p>
+     * Concurrent writers exclude the {@link #writer(CursorContext) single writer}, checkpoints and close, like the single writer does.
+     * After usage the returned writer must be closed, typically by using try-with-resource clause.
+     *
+     * @param cursorContext underlying page cursor context
+     * @return a new {@link Writer}, which must only be used by one thread at a time.
+     * @throws IOException on error accessing the index.
+     */
+    public Writer<KEY,VALUE> concurrentWriter( CursorContext cursorContext ) throws IOException
+    {
+        assertNotReadOnly( "Open concurrent tree writer." );
+        ConcurrentWriter concurrentWriter = new ConcurrentWriter( treeNodeFactory.get() );
+        concurrentWriter.initialize( cursorContext );
+        changesSinceLastCheckpoint = true;
+        return concurrentWriter;
+    }
+
+    /**
+     * Returns a {@link Writer} which builds an empty tree bottom-up from keys given in ascending order, instead of inserting each key
+     * from the root like the {@link #writer(CursorContext) writer} does. Leaves are filled one after the other and internal nodes
+     * are built level by level as leaves and internal nodes below them are completed. Each node is filled until it uses at least
+     * {@code fillFactor} of its space, or until the next entry wouldn't fit, before continuing in a new node.
+     * <p>
+     * Keys must be given in ascending order. A key equal to the previous key is merged with it using the provided {@link ValueMerger},
+     * just like the {@link #writer(CursorContext) writer} does. {@link Writer#remove(Object)} is not supported.
+     * The new nodes become the tree when the returned writer is {@link Writer#close() closed}, and stable on the next
+     * {@link #checkpoint(CursorContext) checkpoint}, like other changes. Like the {@link #writer(CursorContext) writer} the returned
+     * writer excludes other writers and checkpoints until closed.
+     *
+     * @param fillFactor how much of each node to fill before continuing in a new node, 0=one entry per node, 1=completely full.
+     * @param cursorContext underlying page cursor context
+     * @return a {@link Writer} which builds this tree from keys in ascending order. The returned writer must be {@link Writer#close() closed}.
+     * @throws IOException on error accessing the index.
+     * @throws IllegalStateException if this tree isn't empty.
+     */
+    public Writer<KEY,VALUE> bulkLoader( double fillFactor, CursorContext cursorContext ) throws IOException
+    {
+        assertNotReadOnly( "Open tree bulk loader." );
+        Preconditions.checkArgument( fillFactor >= 0 && fillFactor <= 1, "Fill factor must be in range [0,1], was %s", fillFactor );
+        BulkLoader bulkLoader = new BulkLoader( fillFactor );
+        bulkLoader.initialize( cursorContext );
+        changesSinceLastCheckpoint = true;
+        return bulkLoader;
+    }
+
     public Writer<KEY,VALUE> unsafeWriter(  CursorContext cursorContext ) throws IOException
     {
         return unsafeWriter( InternalTreeLogic.DEFAULT_SPLIT_RATIO, cursorContext );
@@ -1724,13 +1794,6 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
             checkOutOfBounds( cursor );
         }
 
-        private void setRoot( long rootPointer )
-        {
-            long rootId = GenerationSafePointerPair.pointer( rootPointer );
-            GBPTree.this.setRoot( rootId, unstableGeneration );
-            treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
-        }
-
         @Override
         public VALUE remove( KEY key )
         {
@@ -1759,26 +1822,10 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
 
         private void handleStructureChanges( CursorContext cursorContext ) throws IOException
         {
-            if ( structurePropagation.hasRightKeyInsert )
-            {
-                // New root
-                long newRootId = freeList.acquireNewId( stableGeneration, unstableGeneration, cursorContext );
-                PageCursorUtil.goTo( cursor, "new root", newRootId );
-
-                bTreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
-                bTreeNode.setChildAt( cursor, structurePropagation.midChild, 0,
-                        stableGeneration, unstableGeneration );
-                bTreeNode.insertKeyAndRightChildAt( cursor, structurePropagation.rightKey, structurePropagation.rightChild, 0, 0,
-                        stableGeneration, unstableGeneration, cursorContext );
-                TreeNode.setKeyCount( cursor, 1 );
-                setRoot( newRootId );
-                monitor.treeGrowth();
-            }
-            else if ( structurePropagation.hasMidChildUpdate )
+            if ( handleRootChanges( cursor, structurePropagation, bTreeNode, stableGeneration, unstableGeneration, cursorContext ) )
             {
-                setRoot( structurePropagation.midChild );
+                treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
             }
-            structurePropagation.clear();
         }
 
         @Override
@@ -1803,6 +1850,615 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
         }
     }
 
+    /**
+     * {@link Writer} returned from {@link #bulkLoader(double, CursorContext)}. Keeps one cursor per level of the tree being built,
+     * at the right-most node of that level. Entries are appended to the right-most leaf and when a node is completed a new right sibling
+     * is started and the splitter between the two is added to the level above, which may complete a node on that level too and so on.
+     * The top level always has a single node, which becomes the new root on {@link #close()}.
+     */
+    private class BulkLoader implements Writer<KEY,VALUE>
+    {
+        private final double fillFactor;
+        private final List<PageCursor> levels = new ArrayList<>();
+        private int[] keyCounts = new int[4];
+        // The last key and value in the right-most leaf, as read back from it, i.e. like the writer would see them
+        private final KEY lastKey = layout.newKey();
+        private final VALUE lastValue = layout.newValue();
+        private final KEY splitter = layout.newKey();
+        private boolean hasLastKey;
+        private boolean lastKeyInTree;
+        private CursorContext cursorContext;
+        // Bulk loader can't live past a checkpoint because of the mutex with checkpoint,
+        // therefore safe to locally cache these generation fields from the volatile generation in the tree
+        private long stableGeneration;
+        private long unstableGeneration;
+        private boolean closed;
+
+        BulkLoader( double fillFactor )
+        {
+            this.fillFactor = fillFactor;
+        }
+
+        void initialize( CursorContext cursorContext ) throws IOException
+        {
+            // Block here until cleaning has completed, if cleaning was required
+            lock.writerAndCleanerLock();
+            boolean success = false;
+            try
+            {
+                assertRecoveryCleanSuccessful();
+                this.cursorContext = cursorContext;
+                stableGeneration = stableGeneration( generation );
+                unstableGeneration = unstableGeneration( generation );
+                try ( PageCursor cursor = openRootCursor( PagedFile.PF_SHARED_WRITE_LOCK, cursorContext ) )
+                {
+                    if ( !TreeNode.isLeaf( cursor ) || TreeNode.keyCount( cursor ) != 0 )
+                    {
+                        throw new IllegalStateException( "Can only bulk load into an empty tree, but " + indexFile + " isn't empty" );
+                    }
+                }
+                success = true;
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                if ( !success )
+                {
+                    closed = true;
+                    lock.writerAndCleanerUnlock();
+                }
+            }
+        }
+
+        @Override
+        public void put( KEY key, VALUE value )
+        {
+            merge( key, value, ValueMergers.overwrite() );
+        }
+
+        @Override
+        public void merge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger )
+        {
+            internalMerge( key, value, valueMerger, true );
+        }
+
+        @Override
+        public void mergeIfExists( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger )
+        {
+            internalMerge( key, value, valueMerger, false );
+        }
+
+        private void internalMerge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger, boolean createIfNotExists )
+        {
+            try
+            {
+                if ( hasLastKey )
+                {
+                    int compare = layout.compare( key, lastKey );
+                    if ( compare < 0 )
+                    {
+                        throw new IllegalArgumentException( format( "Keys must be bulk loaded in ascending order, but %s came after %s", key, lastKey ) );
+                    }
+                    if ( compare == 0 && lastKeyInTree )
+                    {
+                        mergeWithLast( key, value, valueMerger );
+                        return;
+                    }
+                }
+                if ( createIfNotExists )
+                {
+                    append( key, value );
+                }
+            }
+            catch ( IOException e )
+            {
+                appendTreeInformation( e );
+                throw new UncheckedIOException( e );
+            }
+            catch ( Throwable t )
+            {
+                appendTreeInformation( t );
+                throw t;
+            }
+        }
+
+        @Override
+        public VALUE remove( KEY key )
+        {
+            throw new UnsupportedOperationException( "Bulk loader can only add entries, not remove them" );
+        }
+
+        private void mergeWithLast( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger ) throws IOException
+        {
+            ValueMerger.MergeResult mergeResult = valueMerger.merge( lastKey, key, lastValue, value );
+            switch ( mergeResult )
+            {
+            case UNCHANGED:
+                break;
+            case REPLACED:
+            case MERGED:
+                VALUE mergedValue = mergeResult == ValueMerger.MergeResult.REPLACED ? value : lastValue;
+                PageCursor leaf = levels.get( 0 );
+                if ( !bTreeNode.setValueAt( leaf, mergedValue, keyCounts[0] - 1 ) )
+                {
+                    // Value could not be overwritten in a simple way because they differ in size, remove and append it again
+                    removeLast();
+                    append( key, mergedValue );
+                }
+                else
+                {
+                    bTreeNode.valueAt( leaf, lastValue, keyCounts[0] - 1, cursorContext );
+                }
+                break;
+            case REMOVED:
+                removeLast();
+                break;
+            default:
+                throw new UnsupportedOperationException( "Unexpected merge result " + mergeResult );
+            }
+        }
+
+        private void removeLast() throws IOException
+        {
+            PageCursor leaf = levels.get( 0 );
+            int keyCount = keyCounts[0];
+            bTreeNode.removeKeyValueAt( leaf, keyCount - 1, keyCount, stableGeneration, unstableGeneration, cursorContext );
+            TreeNode.setKeyCount( leaf, keyCount - 1 );
+            keyCounts[0] = keyCount - 1;
+            lastKeyInTree = false;
+        }
+
+        private void append( KEY key, VALUE value ) throws IOException
+        {
+            bTreeNode.validateKeyValueSize( key, value );
+            if ( levels.isEmpty() )
+            {
+                newNode( LEAF );
+            }
+
+            PageCursor leaf = levels.get( 0 );
+            int keyCount = keyCounts[0];
+            TreeNode.Overflow overflow = bTreeNode.leafOverflow( leaf, keyCount, key, value );
+            if ( overflow == TreeNode.Overflow.YES || (keyCount > 0 && bTreeNode.reachedFillFactor( leaf, keyCount, LEAF, fillFactor )) )
+            {
+                // Splitter is taken from the last key of the completed leaf and the first key of the new one, like when splitting a leaf
+                layout.minimalSplitter( lastKey, key, splitter );
+                long leftId = leaf.getCurrentPageId();
+                long rightId = newRightSibling( 0, LEAF );
+                addSplitter( 1, splitter, leftId, rightId );
+                keyCount = 0;
+            }
+            else if ( overflow == TreeNode.Overflow.NO_NEED_DEFRAG )
+            {
+                bTreeNode.defragmentLeaf( leaf );
+            }
+
+            bTreeNode.insertKeyValueAt( leaf, key, value, keyCount, keyCount, stableGeneration, unstableGeneration, cursorContext );
+            TreeNode.setKeyCount( leaf, keyCount + 1 );
+            keyCounts[0] = keyCount + 1;
+            bTreeNode.keyValueAt( leaf, lastKey, lastValue, keyCount, cursorContext );
+            hasLastKey = true;
+            lastKeyInTree = true;
+            checkOutOfBounds( leaf );
+        }
+
+        /**
+         * Adds {@code key}, the splitter between {@code leftChild} and its new right sibling {@code rightChild}, to the given level.
+         * If this is the first splitter on this level a new top level is started, with {@code leftChild} as its first child.
+         */
+        private void addSplitter( int level, KEY key, long leftChild, long rightChild ) throws IOException
+        {
+            if ( level == levels.size() )
+            {
+                PageCursor cursor = newNode( INTERNAL );
+                bTreeNode.setChildAt( cursor, leftChild, 0, stableGeneration, unstableGeneration );
+            }
+
+            PageCursor cursor = levels.get( level );
+            int keyCount = keyCounts[level];
+            TreeNode.Overflow overflow = bTreeNode.internalOverflow( cursor, keyCount, key );
+            if ( overflow == TreeNode.Overflow.YES || (keyCount > 0 && bTreeNode.reachedFillFactor( cursor, keyCount, INTERNAL, fillFactor )) )
+            {
+                // The splitter moves up to the level above, separating this node from its new right sibling
+                long leftId = cursor.getCurrentPageId();
+                long rightId = newRightSibling( level, INTERNAL );
+                bTreeNode.setChildAt( cursor, rightChild, 0, stableGeneration, unstableGeneration );
+                addSplitter( level + 1, key, leftId, rightId );
+                return;
+            }
+            else if ( overflow == TreeNode.Overflow.NO_NEED_DEFRAG )
+            {
+                bTreeNode.defragmentInternal( cursor );
+            }
+
+            bTreeNode.insertKeyAndRightChildAt( cursor, key, rightChild, keyCount, keyCount, stableGeneration, unstableGeneration, cursorContext );
+            TreeNode.setKeyCount( cursor, keyCount + 1 );
+            keyCounts[level] = keyCount + 1;
+            checkOutOfBounds( cursor );
+        }
+
+        /**
+         * Starts a new top level, with a single new node.
+         */
+        private PageCursor newNode( TreeNode.Type type ) throws IOException
+        {
+            long id = freeList.acquireNewId( stableGeneration, unstableGeneration, cursorContext );
+            PageCursor cursor = pagedFile.io( 0L /*Ignored*/, PagedFile.PF_SHARED_WRITE_LOCK, cursorContext );
+            levels.add( cursor );
+            PageCursorUtil.goTo( cursor, "bulk loaded node", id );
+            initializeNode( cursor, type );
+            int level = levels.size() - 1;
+            if ( level == keyCounts.length )
+            {
+                keyCounts = Arrays.copyOf( keyCounts, level * 2 );
+            }
+            keyCounts[level] = 0;
+            return cursor;
+        }
+
+        /**
+         * Moves the cursor of the given level to a new right sibling of its current node.
+         */
+        private long newRightSibling( int level, TreeNode.Type type ) throws IOException
+        {
+            PageCursor cursor = levels.get( level );
+            long leftId = cursor.getCurrentPageId();
+            long rightId = freeList.acquireNewId( stableGeneration, unstableGeneration, cursorContext );
+            TreeNode.setRightSibling( cursor, rightId, stableGeneration, unstableGeneration );
+            PageCursorUtil.goTo( cursor, "bulk loaded right sibling", rightId );
+            initializeNode( cursor, type );
+            TreeNode.setLeftSibling( cursor, leftId, stableGeneration, unstableGeneration );
+            keyCounts[level] = 0;
+            return rightId;
+        }
+
+        private void initializeNode( PageCursor cursor, TreeNode.Type type )
+        {
+            if ( type == LEAF )
+            {
+                bTreeNode.initializeLeaf( cursor, stableGeneration, unstableGeneration );
+            }
+            else
+            {
+                bTreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if ( closed )
+            {
+                throw new IllegalStateException( "Tried to close bulk loader of " + GBPTree.this + ", but it is already closed." );
+            }
+            closed = true;
+            try
+            {
+                if ( !levels.isEmpty() )
+                {
+                    // Let the old, empty, root point to the new root, like when a successor is created for it
+                    long newRootId = levels.get( levels.size() - 1 ).getCurrentPageId();
+                    try ( PageCursor cursor = openRootCursor( PagedFile.PF_SHARED_WRITE_LOCK, cursorContext ) )
+                    {
+                        long oldRootId = cursor.getCurrentPageId();
+                        TreeNode.setSuccessor( cursor, newRootId, stableGeneration, unstableGeneration );
+                        setRoot( newRootId, unstableGeneration );
+                        freeList.releaseId( stableGeneration, unstableGeneration, oldRootId, cursorContext );
+                    }
+                }
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                IOUtils.closeAllUnchecked( levels );
+                levels.clear();
+                lock.writerAndCleanerUnlock();
+            }
+        }
+    }
+
+    /**
+     * Handles structure changes that propagated from the root, i.e. a new root from a split of the old root or a successor of the root.
+     * Leaves the cursor at the new root, if there is one.
+     *
+     * @return {@code true} if the root changed, otherwise {@code false}.
+     */
+    private boolean handleRootChanges( PageCursor cursor, StructurePropagation<KEY> structurePropagation, TreeNode<KEY,VALUE> treeNode,
+            long stableGeneration, long unstableGeneration, CursorContext cursorContext ) throws IOException
+    {
+        boolean rootChanged = true;
+        if ( structurePropagation.hasRightKeyInsert )
+        {
+            // New root
+            long newRootId = freeList.acquireNewId( stableGeneration, unstableGeneration, cursorContext );
+            PageCursorUtil.goTo( cursor, "new root", newRootId );
+
+            treeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
+            treeNode.setChildAt( cursor, structurePropagation.midChild, 0,
+                    stableGeneration, unstableGeneration );
+            treeNode.insertKeyAndRightChildAt( cursor, structurePropagation.rightKey, structurePropagation.rightChild, 0, 0,
+                    stableGeneration, unstableGeneration, cursorContext );
+            TreeNode.setKeyCount( cursor, 1 );
+            setRoot( newRootId, unstableGeneration );
+            monitor.treeGrowth();
+        }
+        else if ( structurePropagation.hasMidChildUpdate )
+        {
+            setRoot( GenerationSafePointerPair.pointer( structurePropagation.midChild ), unstableGeneration );
+        }
+        else
+        {
+            rootChanged = false;
+        }
+        structurePropagation.clear();
+        return rootChanged;
+    }
+
+    /**
+     * A {@link Writer} used by one of potentially many threads writing concurrently, see {@link TreeWriterLatches}.
+     * Each change is first tried in the leaf where its key belongs, holding the structure latch shared and the latch of that leaf.
+     * If the change needs structural changes it's instead made like by the {@link SingleWriter}, holding the structure latch exclusively.
+     */
+    private class ConcurrentWriter implements Writer<KEY,VALUE>
+    {
+        private final InternalTreeLogic<KEY,VALUE> treeLogic;
+        private final TreeNode<KEY,VALUE> treeNode;
+        private final StructurePropagation<KEY> structurePropagation;
+        private PageCursor cursor;
+        private CursorContext cursorContext;
+
+        // Writer can't live past a checkpoint because of the mutex with checkpoint,
+        // therefore safe to locally cache these generation fields from the volatile generation in the tree
+        private long stableGeneration;
+        private long unstableGeneration;
+        // Structure version that the path remembered by treeLogic is valid for
+        private long structureVersion = -1;
+        private boolean closed;
+
+        ConcurrentWriter( TreeNode<KEY,VALUE> treeNode )
+        {
+            this.treeNode = treeNode;
+            this.treeLogic = new InternalTreeLogic<>( freeList, treeNode, layout, monitor );
+            this.structurePropagation = new StructurePropagation<>( layout.newKey(), layout.newKey(), layout.newKey() );
+        }
+
+        void initialize( CursorContext cursorContext ) throws IOException
+        {
+            // Block here until cleaning has completed, if cleaning was required
+            lock.sharedWriterAndCleanerLock();
+            boolean success = false;
+            try
+            {
+                assertRecoveryCleanSuccessful();
+                cursor = pagedFile.io( 0L /*Ignored*/, PagedFile.PF_SHARED_WRITE_LOCK, cursorContext );
+                this.cursorContext = cursorContext;
+                stableGeneration = stableGeneration( generation );
+                unstableGeneration = unstableGeneration( generation );
+                success = true;
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                if ( !success )
+                {
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void put( KEY key, VALUE value )
+        {
+            merge( key, value, ValueMergers.overwrite() );
+        }
+
+        @Override
+        public void merge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger )
+        {
+            internalMerge( key, value, valueMerger, true );
+        }
+
+        @Override
+        public void mergeIfExists( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger )
+        {
+            internalMerge( key, value, valueMerger, false );
+        }
+
+        private void internalMerge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger, boolean createIfNotExists )
+        {
+            try
+            {
+                InternalTreeLogic.LeafUpdate update;
+                writerLatches.acquireShared();
+                try
+                {
+                    moveToLeaf( key );
+                    ReentrantLock leafLatch = writerLatches.leafLatch( cursor.getCurrentPageId() );
+                    leafLatch.lock();
+                    try
+                    {
+                        update = treeLogic.tryInsertInLeaf( cursor, key, value, valueMerger, createIfNotExists,
+                                stableGeneration, unstableGeneration, cursorContext );
+                    }
+                    finally
+                    {
+                        leafLatch.unlock();
+                    }
+                }
+                finally
+                {
+                    writerLatches.releaseShared();
+                }
+
+                if ( update == InternalTreeLogic.LeafUpdate.STRUCTURE_CHANGE_NEEDED )
+                {
+                    writerLatches.acquireExclusive();
+                    try
+                    {
+                        moveToRootIfStructureChanged();
+                        treeLogic.insert( cursor, structurePropagation, key, value, valueMerger, createIfNotExists,
+                                stableGeneration, unstableGeneration, cursorContext );
+                        handleRootChanges( cursor, structurePropagation, treeNode, stableGeneration, unstableGeneration, cursorContext );
+                    }
+                    finally
+                    {
+                        writerLatches.releaseExclusive();
+                    }
+                }
+                else if ( update == InternalTreeLogic.LeafUpdate.CHANGED_UNDERFLOW )
+                {
+                    rebalanceIfUnderflow( key );
+                }
+            }
+            catch ( IOException e )
+            {
+                appendTreeInformation( e );
+                throw new UncheckedIOException( e );
+            }
+            catch ( Throwable t )
+            {
+                appendTreeInformation( t );
+                throw t;
+            }
+
+            checkOutOfBounds( cursor );
+        }
+
+        @Override
+        public VALUE remove( KEY key )
+        {
+            VALUE result = layout.newValue();
+            try
+            {
+                InternalTreeLogic.LeafUpdate update;
+                writerLatches.acquireShared();
+                try
+                {
+                    moveToLeaf( key );
+                    ReentrantLock leafLatch = writerLatches.leafLatch( cursor.getCurrentPageId() );
+                    leafLatch.lock();
+                    try
+                    {
+                        update = treeLogic.tryRemoveFromLeaf( cursor, key, result, stableGeneration, unstableGeneration, cursorContext );
+                    }
+                    finally
+                    {
+                        leafLatch.unlock();
+                    }
+                }
+                finally
+                {
+                    writerLatches.releaseShared();
+                }
+
+                if ( update == InternalTreeLogic.LeafUpdate.UNCHANGED )
+                {
+                    result = null;
+                }
+                else if ( update == InternalTreeLogic.LeafUpdate.STRUCTURE_CHANGE_NEEDED )
+                {
+                    writerLatches.acquireExclusive();
+                    try
+                    {
+                        moveToRootIfStructureChanged();
+                        result = treeLogic.remove( cursor, structurePropagation, key, result, stableGeneration, unstableGeneration, cursorContext );
+                        handleRootChanges( cursor, structurePropagation, treeNode, stableGeneration, unstableGeneration, cursorContext );
+                    }
+                    finally
+                    {
+                        writerLatches.releaseExclusive();
+                    }
+                }
+                else if ( update == InternalTreeLogic.LeafUpdate.CHANGED_UNDERFLOW )
+                {
+                    rebalanceIfUnderflow( key );
+                }
+            }
+            catch ( IOException e )
+            {
+                appendTreeInformation( e );
+                throw new UncheckedIOException( e );
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+
+            checkOutOfBounds( cursor );
+            return result;
+        }
+
+        private void moveToLeaf( KEY key ) throws IOException
+        {
+            moveToRootIfStructureChanged();
+            treeLogic.moveToLeaf( cursor, key, stableGeneration, unstableGeneration, cursorContext );
+        }
+
+        /**
+         * Rebalances the leaf where {@code key} belongs, which this writer left underflowing. The leaf is looked up again,
+         * since other writers may have changed it after this writer released its latch.
+         */
+        private void rebalanceIfUnderflow( KEY key ) throws IOException
+        {
+            writerLatches.acquireExclusive();
+            try
+            {
+                moveToRootIfStructureChanged();
+                treeLogic.rebalanceIfUnderflow( cursor, structurePropagation, key, stableGeneration, unstableGeneration, cursorContext );
+                handleRootChanges( cursor, structurePropagation, treeNode, stableGeneration, unstableGeneration, cursorContext );
+            }
+            finally
+            {
+                writerLatches.releaseExclusive();
+            }
+        }
+
+        /**
+         * The path down the tree remembered by {@link #treeLogic} is only valid as long as no writer has changed the structure of the tree,
+         * otherwise start over from the root. Must be called holding the structure latch.
+         */
+        private void moveToRootIfStructureChanged() throws IOException
+        {
+            long currentStructureVersion = writerLatches.structureVersion();
+            if ( currentStructureVersion != structureVersion )
+            {
+                root.goTo( cursor );
+                treeLogic.initialize( cursor );
+                structureVersion = currentStructureVersion;
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            if ( closed )
+            {
+                throw new IllegalStateException( "Tried to close concurrent writer of " + GBPTree.this +
+                        ", but writer is already closed." );
+            }
+            closed = true;
+            if ( cursor != null )
+            {
+                cursor.close();
+                cursor = null;
+            }
+            lock.sharedWriterAndCleanerUnlock();
+        }
+    }
+
     /**
      * Total size limit for key and value.
      * This limit includes storage overhead that is specific to key implementation for example entity id or meta data about type.
@@ -26,10 +26,19 @@ import java.util.concurrent.locks.LockSupport;
 
 import org.neo4j.util.VisibleForTesting;
 
+/**
+ * Lock with two individual parts, writer lock and cleaner lock. The writer and cleaner lock can also be taken together in shared mode
+ * by {@link GBPTree#concurrentWriter(org.neo4j.io.pagecache.context.CursorContext) concurrent writers},
+ * where the last concurrent writer to unlock releases them.
+ * A thread waiting to take any part of the lock exclusively stops new concurrent writers from joining, so that it can not be starved.
+ */
 class GBPTreeLock
 {
     private static final long writerLockBit = 0x00000000_00000001L;
     private static final long cleanerLockBit = 0x00000000_00000002L;
+    private static final long exclusiveWaitingBit = 0x00000000_00000004L;
+    private static final long sharedCountUnit = 0x00000001_00000000L;
+    private static final long sharedCountMask = 0xFFFFFFFF_00000000L;
     @SuppressWarnings( "unused" ) // accessed via VarHandle
     private long state;
     private static final VarHandle STATE;
@@ -85,6 +94,16 @@ class GBPTreeLock
         doUnlock( writerLockBit | cleanerLockBit );
     }
 
+    void sharedWriterAndCleanerLock()
+    {
+        doSharedLock( writerLockBit | cleanerLockBit );
+    }
+
+    void sharedWriterAndCleanerUnlock()
+    {
+        doSharedUnlock( writerLockBit | cleanerLockBit );
+    }
+
     private void doLock( long targetLockBit )
     {
         long currentState;
@@ -93,15 +112,58 @@ class GBPTreeLock
         {
             currentState = (long) STATE.getVolatile( this );
             while ( !canLock( currentState, targetLockBit ) )
+            {
+                // Keep new shared lockers out while waiting
+                if ( (currentState & exclusiveWaitingBit) == 0 )
+                {
+                    STATE.compareAndSet( this, currentState, currentState | exclusiveWaitingBit );
+                }
+                // sleep
+                sleep();
+                currentState = (long) STATE.getVolatile( this );
+            }
+            newState = (currentState | targetLockBit) & ~exclusiveWaitingBit;
+        } while ( !STATE.weakCompareAndSet( this, currentState, newState ) );
+    }
+
+    private void doSharedLock( long targetLockBit )
+    {
+        long currentState;
+        long newState;
+        do
+        {
+            currentState = (long) STATE.getVolatile( this );
+            while ( !canLockShared( currentState, targetLockBit ) )
             {
                 // sleep
                 sleep();
                 currentState = (long) STATE.getVolatile( this );
             }
-            newState = currentState | targetLockBit;
+            newState = (currentState | targetLockBit) + sharedCountUnit;
         } while ( !STATE.weakCompareAndSet( this, currentState, newState ) );
     }
 
+    private void doSharedUnlock( long targetLockBit )
+    {
+        long currentState;
+        long newState;
+        do
+        {
+            currentState = (long) STATE.getVolatile( this );
+            if ( (currentState & sharedCountMask) == 0 || !canUnlock( currentState, targetLockBit ) )
+            {
+                throw new IllegalStateException( "Can not unlock shared lock that is not locked" );
+            }
+            newState = currentState - sharedCountUnit;
+            if ( (newState & sharedCountMask) == 0 )
+            {
+                // Last shared locker releases the lock bits
+                newState &= ~targetLockBit;
+            }
+        }
+        while ( !STATE.weakCompareAndSet( this, currentState, newState ) );
+    }
+
     private void doUnlock( long targetLockBit )
     {
         long currentState;
@@ -123,6 +185,16 @@ class GBPTreeLock
         return (state & targetLockBit) == 0;
     }
 
+    private static boolean canLockShared( long state, long targetLockBit )
+    {
+        if ( (state & exclusiveWaitingBit) != 0 )
+        {
+            return false;
+        }
+        // Either join the current shared lockers, or take the lock bits if they are free
+        return (state & sharedCountMask) != 0 ? canUnlock( state, targetLockBit ) : canLock( state, targetLockBit );
+    }
+
     private static boolean canUnlock( long state, long targetLockBit )
     {
         return (state & targetLockBit) == targetLockBit;
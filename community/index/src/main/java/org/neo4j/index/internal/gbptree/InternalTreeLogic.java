@@ -116,6 +116,30 @@ class InternalTreeLogic<KEY,VALUE>
     private int currentLevel = -1;
     private double ratioToKeepInLeftOnSplit;
 
+    /**
+     * Outcome of trying to change a leaf without changing the structure of the tree.
+     */
+    enum LeafUpdate
+    {
+        /**
+         * Nothing needed to change, e.g. the key to remove didn't exist.
+         */
+        UNCHANGED,
+        /**
+         * The leaf was changed.
+         */
+        CHANGED,
+        /**
+         * The leaf was changed and now underflows, see {@link #rebalanceIfUnderflow(PageCursor, StructurePropagation, Object, long, long,
+         * CursorContext)}.
+         */
+        CHANGED_UNDERFLOW,
+        /**
+         * The change needs structural changes in the tree. Nothing was changed.
+         */
+        STRUCTURE_CHANGE_NEEDED
+    }
+
     /**
      * Keeps information about one level in a path down the tree where the {@link PageCursor} is currently at.
      *
@@ -777,6 +801,176 @@ class InternalTreeLogic<KEY,VALUE>
         return into;
     }
 
+    /**
+     * Moves the cursor to the leaf where {@code key} belongs, without changing anything. Used by concurrent writers, which latch
+     * the leaf before calling {@link #tryInsertInLeaf(PageCursor, Object, Object, ValueMerger, boolean, long, long, CursorContext)}
+     * or {@link #tryRemoveFromLeaf(PageCursor, Object, Object, long, long, CursorContext)}.
+     *
+     * @param cursor {@link PageCursor} pinned to root of tree (if first insert/remove since
+     * {@link #initialize(PageCursor)}) or at where last insert/remove left it.
+     * @param key key to find leaf for.
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @param cursorContext underlying page cursor context.
+     * @throws IOException on cursor failure
+     */
+    void moveToLeaf( PageCursor cursor, KEY key, long stableGeneration, long unstableGeneration, CursorContext cursorContext ) throws IOException
+    {
+        assert cursorIsAtExpectedLocation( cursor );
+        moveToCorrectLeaf( cursor, key, stableGeneration, unstableGeneration, cursorContext );
+    }
+
+    /**
+     * Like {@link #insert(PageCursor, StructurePropagation, Object, Object, ValueMerger, boolean, long, long, CursorContext)}, but only
+     * makes the change if it can be made in the leaf the cursor is at, without creating a successor, splitting or touching the offload store.
+     * Otherwise nothing is changed and {@link LeafUpdate#STRUCTURE_CHANGE_NEEDED} is returned, in which case {@code valueMerger} may already
+     * have been consulted once.
+     *
+     * @param cursor {@link PageCursor} pinned to the leaf where {@code key} belongs, see {@link #moveToLeaf(PageCursor, Object, long, long, CursorContext)}.
+     * @param key key to be inserted
+     * @param value value to be associated with key
+     * @param valueMerger {@link ValueMerger} for deciding what to do with existing keys
+     * @param createIfNotExists create this key if it doesn't exist
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @param cursorContext underlying page cursor context
+     * @return the outcome of the change.
+     * @throws IOException on cursor failure
+     */
+    LeafUpdate tryInsertInLeaf( PageCursor cursor, KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger, boolean createIfNotExists,
+            long stableGeneration, long unstableGeneration, CursorContext cursorContext ) throws IOException
+    {
+        bTreeNode.validateKeyValueSize( key, value );
+        if ( TreeNode.generation( cursor ) != unstableGeneration )
+        {
+            return LeafUpdate.STRUCTURE_CHANGE_NEEDED;
+        }
+
+        int keyCount = TreeNode.keyCount( cursor );
+        int search = search( cursor, LEAF, key, readKey, keyCount, cursorContext );
+        int pos = positionOf( search );
+        if ( isHit( search ) )
+        {
+            if ( bTreeNode.offloadIdAt( cursor, pos, LEAF ) != TreeNode.NO_OFFLOAD_ID )
+            {
+                return LeafUpdate.STRUCTURE_CHANGE_NEEDED;
+            }
+            bTreeNode.valueAt( cursor, readValue, pos, cursorContext );
+            ValueMerger.MergeResult mergeResult = valueMerger.merge( readKey, key, readValue, value );
+            switch ( mergeResult )
+            {
+            case UNCHANGED:
+                return LeafUpdate.UNCHANGED;
+            case REPLACED:
+            case MERGED:
+                // A value of different size can only be written by removing and inserting the entry, which may split or underflow
+                VALUE mergedValue = mergeResult == ValueMerger.MergeResult.REPLACED ? value : readValue;
+                return bTreeNode.setValueAt( cursor, mergedValue, pos ) ? LeafUpdate.CHANGED : LeafUpdate.STRUCTURE_CHANGE_NEEDED;
+            case REMOVED:
+                bTreeNode.removeKeyValueAt( cursor, pos, keyCount, stableGeneration, unstableGeneration, cursorContext );
+                TreeNode.setKeyCount( cursor, keyCount - 1 );
+                return bTreeNode.leafUnderflow( cursor, keyCount - 1 ) ? LeafUpdate.CHANGED_UNDERFLOW : LeafUpdate.CHANGED;
+            default:
+                throw new UnsupportedOperationException( "Unexpected merge result " + mergeResult );
+            }
+        }
+
+        if ( !createIfNotExists )
+        {
+            return LeafUpdate.UNCHANGED;
+        }
+        int inlineKeyValueSizeCap = bTreeNode.inlineKeyValueSizeCap();
+        if ( inlineKeyValueSizeCap != TreeNode.NO_KEY_VALUE_SIZE_CAP && layout.keySize( key ) + layout.valueSize( value ) > inlineKeyValueSizeCap )
+        {
+            // Would be written to offload store
+            return LeafUpdate.STRUCTURE_CHANGE_NEEDED;
+        }
+        Overflow overflow = bTreeNode.leafOverflow( cursor, keyCount, key, value );
+        if ( overflow == YES )
+        {
+            return LeafUpdate.STRUCTURE_CHANGE_NEEDED;
+        }
+        if ( overflow == NO_NEED_DEFRAG )
+        {
+            bTreeNode.defragmentLeaf( cursor );
+        }
+        bTreeNode.insertKeyValueAt( cursor, key, value, pos, keyCount, stableGeneration, unstableGeneration, cursorContext );
+        TreeNode.setKeyCount( cursor, keyCount + 1 );
+        return LeafUpdate.CHANGED;
+    }
+
+    /**
+     * Like {@link #remove(PageCursor, StructurePropagation, Object, Object, long, long, CursorContext)}, but only makes the change
+     * if it can be made in the leaf the cursor is at, without creating a successor or touching the offload store. Otherwise nothing
+     * is changed and {@link LeafUpdate#STRUCTURE_CHANGE_NEEDED} is returned. A leaf that underflows because of the removal is left as
+     * it is and reported as {@link LeafUpdate#CHANGED_UNDERFLOW}.
+     *
+     * @param cursor {@link PageCursor} pinned to the leaf where {@code key} belongs, see {@link #moveToLeaf(PageCursor, Object, long, long, CursorContext)}.
+     * @param key key to be removed
+     * @param into {@code VALUE} instance to write removed value to
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @param cursorContext underlying page cursor context
+     * @return the outcome of the change.
+     * @throws IOException on cursor failure
+     */
+    LeafUpdate tryRemoveFromLeaf( PageCursor cursor, KEY key, VALUE into, long stableGeneration, long unstableGeneration,
+            CursorContext cursorContext ) throws IOException
+    {
+        int keyCount = TreeNode.keyCount( cursor );
+        int search = search( cursor, LEAF, key, readKey, keyCount, cursorContext );
+        if ( !isHit( search ) )
+        {
+            return LeafUpdate.UNCHANGED;
+        }
+        int pos = positionOf( search );
+        if ( TreeNode.generation( cursor ) != unstableGeneration || bTreeNode.offloadIdAt( cursor, pos, LEAF ) != TreeNode.NO_OFFLOAD_ID )
+        {
+            return LeafUpdate.STRUCTURE_CHANGE_NEEDED;
+        }
+
+        keyCount = simplyRemoveFromLeaf( cursor, into, keyCount, pos, stableGeneration, unstableGeneration, cursorContext );
+        return bTreeNode.leafUnderflow( cursor, keyCount ) ? LeafUpdate.CHANGED_UNDERFLOW : LeafUpdate.CHANGED;
+    }
+
+    /**
+     * Rebalances or merges the leaf where {@code key} belongs with its siblings if it underflows. Used to handle leaves that were left
+     * underflowing by {@link LeafUpdate#CHANGED_UNDERFLOW changes} from concurrent writers.
+     * <p>
+     * Structural changes are propagated up the tree like for {@link #remove(PageCursor, StructurePropagation, Object, Object, long, long,
+     * CursorContext)}.
+     *
+     * @param cursor {@link PageCursor} pinned to root of tree (if first insert/remove since
+     * {@link #initialize(PageCursor)}) or at where last insert/remove left it.
+     * @param structurePropagation {@link StructurePropagation} used to report structure changes between tree levels.
+     * @param key key in the leaf to rebalance.
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @param cursorContext underlying page cursor context
+     * @throws IOException on cursor failure
+     */
+    void rebalanceIfUnderflow( PageCursor cursor, StructurePropagation<KEY> structurePropagation, KEY key,
+            long stableGeneration, long unstableGeneration, CursorContext cursorContext ) throws IOException
+    {
+        assert cursorIsAtExpectedLocation( cursor );
+        moveToCorrectLeaf( cursor, key, stableGeneration, unstableGeneration, cursorContext );
+
+        int keyCount = TreeNode.keyCount( cursor );
+        if ( !bTreeNode.leafUnderflow( cursor, keyCount ) )
+        {
+            return;
+        }
+
+        createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD, stableGeneration, unstableGeneration, cursorContext );
+        underflowInLeaf( cursor, structurePropagation, keyCount, stableGeneration, unstableGeneration, cursorContext );
+        handleStructureChanges( cursor, structurePropagation, stableGeneration, unstableGeneration, cursorContext );
+
+        if ( currentLevel <= 0 )
+        {
+            tryShrinkTree( cursor, structurePropagation, stableGeneration, unstableGeneration, cursorContext );
+        }
+    }
+
     private void handleStructureChanges( PageCursor cursor, StructurePropagation<KEY> structurePropagation,
             long stableGeneration, long unstableGeneration, CursorContext cursorContext ) throws IOException
     {
@@ -110,6 +110,18 @@ public interface Layout<KEY, VALUE> extends Comparator<KEY>
      */
     boolean fixedSize();
 
+    /**
+     * Indicate if leaves of a tree with dynamic size keys should store the common prefix of the serialized keys in each leaf
+     * only once, see {@link TreeNodeDynamicSizePrefixed}. Only layouts where keys sharing a serialized prefix are also adjacent
+     * in sort order, e.g. keys serialized as byte-wise comparable values, may return true.
+     * Changing what this method returns changes the format of the tree and so requires a new {@link #majorVersion() version}.
+     * @return true if leaves should be prefix compressed, otherwise false. Ignored for {@link #fixedSize() fixed size} layouts.
+     */
+    default boolean compressKeyPrefixes()
+    {
+        return false;
+    }
+
     /**
      * Find shortest key (best effort) that separate left from right in sort order
      * and initialize into with result.
@@ -361,6 +361,12 @@ abstract class TreeNode<KEY,VALUE>
 
     abstract boolean leafUnderflow( PageCursor cursor, int keyCount );
 
+    /**
+     * Used when {@link GBPTree#bulkLoader(double, CursorContext) bulk loading} to decide when to continue in a new node.
+     * @return true if node with {@code keyCount} keys uses at least {@code fillFactor} of its space, otherwise false.
+     */
+    abstract boolean reachedFillFactor( PageCursor cursor, int keyCount, Type type, double fillFactor );
+
     /**
      * How do we best rebalance left and right leaf?
      * Can we move keys from underflowing left to right so that none of them underflow?
@@ -102,27 +102,37 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     private static final int LEAST_NUMBER_OF_ENTRIES_PER_PAGE = 2;
     private static final int MINIMUM_ENTRY_SIZE_CAP = Long.SIZE;
 
-    private final DynamicSizeOffsetFormat offsetFormat;
+    final DynamicSizeOffsetFormat offsetFormat;
+    private final int headerLength;
     private final int inlineKeyValueSizeCap;
     private final int keyValueSizeCap;
-    private final boolean msbIsOffload;
+    final boolean msbIsOffload;
     private final MutableIntStack deadKeysOffset = new IntArrayStack();
     private final MutableIntStack aliveKeysOffset = new IntArrayStack();
     private final int[] oldOffset;
     private final int[] newOffset;
-    private final int totalSpace;
-    private final int halfSpace;
+    final int totalSpace;
+    final int halfSpace;
     private final KEY tmpKeyLeft;
     private final KEY tmpKeyRight;
-    private final OffloadStore<KEY,VALUE> offloadStore;
+    final OffloadStore<KEY,VALUE> offloadStore;
     private final int maxKeyCount;
 
     TreeNodeDynamicSize( int pageSize, Layout<KEY,VALUE> layout, OffloadStore<KEY,VALUE> offloadStore )
+    {
+        this( pageSize, layout, offloadStore, 0 );
+    }
+
+    /**
+     * @param additionalHeaderLength number of bytes that a sub format reserves in the header, directly after the fields of this format.
+     */
+    TreeNodeDynamicSize( int pageSize, Layout<KEY,VALUE> layout, OffloadStore<KEY,VALUE> offloadStore, int additionalHeaderLength )
     {
         super( pageSize, layout );
 
         this.offsetFormat = selectOffsetFormat( pageSize );
-        this.totalSpace = pageSize - offsetFormat.getHeaderLength();
+        this.headerLength = offsetFormat.getHeaderLength() + additionalHeaderLength;
+        this.totalSpace = pageSize - headerLength;
         this.maxKeyCount = totalSpace / getTotalEntryOverheadMin( offsetFormat );
         this.oldOffset = new int[maxKeyCount];
         this.newOffset = new int[maxKeyCount];
@@ -188,8 +198,8 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         inlineKeyValueSizeCap - How large entries can be inlined?
          */
         msbIsOffload = useOffloadStore( pageSize );
-        inlineKeyValueSizeCap = inlineKeyValueSizeCap( pageSize );
-        keyValueSizeCap = keyValueSizeCapFromPageSize( pageSize );
+        inlineKeyValueSizeCap = inlineKeyValueSizeCap( pageSize, headerLength );
+        keyValueSizeCap = msbIsOffload ? keyValueSizeCapFromPageSize( pageSize ) : Math.min( FIXED_MAX_KEY_VALUE_SIZE_CAP, inlineKeyValueSizeCap );
 
         if ( inlineKeyValueSizeCap < MINIMUM_ENTRY_SIZE_CAP )
         {
@@ -224,9 +234,13 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     @VisibleForTesting
     public static int inlineKeyValueSizeCap( int pageSize )
     {
-        DynamicSizeOffsetFormat offsetFormat = selectOffsetFormat( pageSize );
-        int totalOverhead = getTotalEntryOverheadMax( offsetFormat );
-        int capToFitNumberOfEntriesPerPage = (pageSize - offsetFormat.getHeaderLength()) / LEAST_NUMBER_OF_ENTRIES_PER_PAGE - totalOverhead;
+        return inlineKeyValueSizeCap( pageSize, selectOffsetFormat( pageSize ).getHeaderLength() );
+    }
+
+    private static int inlineKeyValueSizeCap( int pageSize, int headerLength )
+    {
+        int totalOverhead = getTotalEntryOverheadMax( selectOffsetFormat( pageSize ) );
+        int capToFitNumberOfEntriesPerPage = (pageSize - headerLength) / LEAST_NUMBER_OF_ENTRIES_PER_PAGE - totalOverhead;
         return Math.min( FIXED_MAX_KEY_VALUE_SIZE_CAP, capToFitNumberOfEntriesPerPage );
     }
 
@@ -292,11 +306,19 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
                 readUnreliableKeyValueSize( cursor, keySize, valueSize, keyValueSize, pos );
                 return into;
             }
-            layout.readKey( cursor, into, keySize );
+            readKey( cursor, into, keySize, type );
         }
         return into;
     }
 
+    /**
+     * Reads an inlined key of {@code keySize} bytes, as stored in the node, from the current cursor offset.
+     */
+    void readKey( PageCursor cursor, KEY into, int keySize, Type type )
+    {
+        layout.readKey( cursor, into, keySize );
+    }
+
     @Override
     void keyValueAt( PageCursor cursor, KEY intoKey, VALUE intoValue, int pos, CursorContext cursorContext )
     {
@@ -325,7 +347,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
                 readUnreliableKeyValueSize( cursor, keySize, valueSize, keyValueSize, pos );
                 return;
             }
-            layout.readKey( cursor, intoKey, keySize );
+            readKey( cursor, intoKey, keySize, LEAF );
             layout.readValue( cursor, intoValue, valueSize );
         }
     }
@@ -838,6 +860,12 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return availableSpace > halfSpace;
     }
 
+    @Override
+    boolean reachedFillFactor( PageCursor cursor, int keyCount, Type type, double fillFactor )
+    {
+        return totalActiveSpace( cursor, keyCount, type ) >= fillFactor * totalSpace;
+    }
+
     @Override
     int canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
     {
@@ -1145,7 +1173,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return newRightAllocSpace;
     }
 
-    private int getAllocSpace( PageCursor cursor, int keyCount, Type type )
+    int getAllocSpace( PageCursor cursor, int keyCount, Type type )
     {
         int allocOffset = getAllocOffset( cursor );
         int endOfOffsetArray = type == LEAF ? keyPosOffsetLeaf( keyCount ) : keyPosOffsetInternal( keyCount );
@@ -1471,7 +1499,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return offsetFormat.getOffset( cursor, offsetFormat.getBytePosDeadSpace() );
     }
 
-    private void placeCursorAtActualKey( PageCursor cursor, int pos, Type type )
+    void placeCursorAtActualKey( PageCursor cursor, int pos, Type type )
     {
         // Set cursor to correct place in offset array
         int keyPosOffset = keyPosOffset( pos, type );
@@ -1481,10 +1509,10 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int keyOffset = offsetFormat.getOffset( cursor );
 
         // Verify offset is reasonable
-        if ( keyOffset >= pageSize || keyOffset < offsetFormat.getHeaderLength() )
+        if ( keyOffset >= pageSize || keyOffset < headerLength )
         {
             cursor.setCursorException( format( "Tried to read key on offset=%d, headerLength=%d, pageSize=%d, pos=%d",
-                    keyOffset, offsetFormat.getHeaderLength(), pageSize, pos ) );
+                    keyOffset, headerLength, pageSize, pos ) );
             return;
         }
 
@@ -1492,13 +1520,13 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         cursor.setOffset( keyOffset );
     }
 
-    private void readUnreliableKeyValueSize( PageCursor cursor, int keySize, int valueSize, long keyValueSize, int pos )
+    void readUnreliableKeyValueSize( PageCursor cursor, int keySize, int valueSize, long keyValueSize, int pos )
     {
         cursor.setCursorException( format( "Read unreliable key, id=%d, keySize=%d, valueSize=%d, keyValueSizeCap=%d, keyHasTombstone=%b, pos=%d",
                 cursor.getCurrentPageId(), keySize, valueSize, keyValueSizeCap(), extractTombstone( keyValueSize ), pos ) );
     }
 
-    private boolean keyValueSizeTooLarge( int keySize, int valueSize )
+    boolean keyValueSizeTooLarge( int keySize, int valueSize )
     {
         return keySize + valueSize > keyValueSizeCap();
     }
@@ -1515,15 +1543,15 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         }
     }
 
-    private int keyPosOffsetLeaf( int pos )
+    int keyPosOffsetLeaf( int pos )
     {
-        return offsetFormat.getHeaderLength() + pos * bytesKeyOffset();
+        return headerLength + pos * bytesKeyOffset();
     }
 
     private int keyPosOffsetInternal( int pos )
     {
         // header + childPointer + pos * (keyPosOffsetSize + childPointer)
-        return offsetFormat.getHeaderLength() + childSize() + pos * keyChildSize();
+        return headerLength + childSize() + pos * keyChildSize();
     }
 
     private int keyChildSize()
@@ -1536,7 +1564,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return SIZE_PAGE_REFERENCE;
     }
 
-    private int bytesKeyOffset()
+    int bytesKeyOffset()
     {
         return offsetFormat.offsetSize();
     }
@@ -1612,7 +1640,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             }
             else
             {
-                layout.readKey( cursor, readKey, keySize );
+                readKey( cursor, readKey, keySize, type );
                 if ( type == LEAF )
                 {
                     layout.readValue( cursor, readValue, valueSize );
@@ -1731,7 +1759,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     private int totalActiveSpaceRaw( PageCursor cursor, int keyCount, Type type )
     {
         // Offset array
-        int offsetArrayStart = offsetFormat.getHeaderLength();
+        int offsetArrayStart = headerLength;
         int offsetArrayEnd = keyPosOffset( keyCount, type );
         int offsetArraySize = offsetArrayEnd - offsetArrayStart;
 
@@ -1795,7 +1823,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return offsetArray.toString();
     }
 
-    private boolean canInline( int entrySize )
+    boolean canInline( int entrySize )
     {
         return entrySize <= inlineKeyValueSizeCap;
     }
@@ -1803,6 +1831,6 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     @VisibleForTesting
     public int getHeaderLength()
     {
-        return offsetFormat.getHeaderLength();
+        return headerLength;
     }
 }
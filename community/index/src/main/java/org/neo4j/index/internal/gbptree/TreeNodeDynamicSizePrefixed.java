@@ -0,0 +1,669 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.util.Arrays;
+
+import org.neo4j.io.pagecache.ByteArrayPageCursor;
+import org.neo4j.io.pagecache.CursorException;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.context.CursorContext;
+
+import static java.lang.String.format;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.extractKeySize;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.extractOffload;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.extractValueSize;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.getOverhead;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.putKeyValueSize;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.putOffloadId;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.readKeyValueSize;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.readOffloadId;
+import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
+
+/**
+ * A {@link TreeNodeDynamicSize} where each leaf stores the common prefix of its inlined keys once, in the header,
+ * and only the remaining suffix of every key. Keys in a leaf are close to each other in sort order and so often share
+ * a long serialized prefix, e.g. string keys starting with the same tenant id or URL, or composite keys starting with the same values.
+ * Storing that prefix once lets more entries fit in each leaf, which means fewer pages for the tree and fewer pages touched by seeks.
+ * Internal nodes are stored exactly like in {@link TreeNodeDynamicSize}, their keys are already kept short by
+ * {@link Layout#minimalSplitter(Object, Object, Object)}.
+ *
+ * LEAF
+ * [                       HEADER (see TreeNodeDynamicSize)                       ][PREFIXLENGTH][  PREFIX  ]|[KEY_OFFSETS]##########[KEYS_VALUES]
+ *                                                                                  1B            64B
+ *
+ * All inlined keys in a leaf start with the prefix in the header and the key size written for them is the size of the suffix.
+ * Offloaded entries are kept in full in the offload store. The prefix is recalculated whenever a leaf is rewritten as a whole,
+ * i.e. on split, merge and rebalance, and shortened when a key not sharing it is inserted.
+ * <p>
+ * Shortening the prefix grows the other keys in the leaf. A leaf that can't fit that is split, and a key not sharing the prefix
+ * of a leaf then sorts before or after all other keys in it, given the promise of {@link Layout#compressKeyPrefixes()}.
+ * A split can therefore always place it on a side of its own.
+ */
+public class TreeNodeDynamicSizePrefixed<KEY, VALUE> extends TreeNodeDynamicSize<KEY,VALUE>
+{
+    static final byte FORMAT_IDENTIFIER = 4;
+    static final byte FORMAT_VERSION = 0;
+
+    static final int MAX_PREFIX_LENGTH = 64;
+    private static final int PREFIX_HEADER_LENGTH = Byte.BYTES + MAX_PREFIX_LENGTH;
+    private static final int INITIAL_ENTRY_CAPACITY = 64;
+
+    /**
+     * Readers share the {@link TreeNode} instance of a tree, so the buffer used for assembling prefix and suffix
+     * of a key is kept per thread.
+     */
+    private static final ThreadLocal<KeyBuffer> KEY_BUFFERS = ThreadLocal.withInitial( KeyBuffer::new );
+
+    private final int bytePosPrefixLength;
+    private final int bytePosPrefix;
+    private final KEY tmpKeyLeft;
+    private final KEY tmpKeyRight;
+
+    // Below state is used when writing and is not thread safe, like the rest of the writer state in TreeNodeDynamicSize.
+    private final byte[] prefix = new byte[MAX_PREFIX_LENGTH];
+    private final byte[] newEntry;
+    private final PageCursor newEntryCursor;
+    // Entries of one or more leaves with keys in full, used for rewriting leaves as a whole.
+    private byte[] entryData;
+    private int entryDataLength;
+    private int[] entryDataOffset = new int[INITIAL_ENTRY_CAPACITY];
+    private int[] entryKeySize = new int[INITIAL_ENTRY_CAPACITY];
+    private int[] entryValueSize = new int[INITIAL_ENTRY_CAPACITY];
+    private long[] entryOffloadId = new long[INITIAL_ENTRY_CAPACITY];
+    private int entryCount;
+
+    TreeNodeDynamicSizePrefixed( int pageSize, Layout<KEY,VALUE> layout, OffloadStore<KEY,VALUE> offloadStore )
+    {
+        super( pageSize, layout, offloadStore, PREFIX_HEADER_LENGTH );
+        this.bytePosPrefixLength = offsetFormat.getHeaderLength();
+        this.bytePosPrefix = bytePosPrefixLength + Byte.BYTES;
+        this.tmpKeyLeft = layout.newKey();
+        this.tmpKeyRight = layout.newKey();
+        this.newEntry = new byte[inlineKeyValueSizeCap()];
+        this.newEntryCursor = ByteArrayPageCursor.wrap( newEntry );
+        this.entryData = new byte[pageSize * 2];
+    }
+
+    @Override
+    void writeAdditionalHeader( PageCursor cursor )
+    {
+        super.writeAdditionalHeader( cursor );
+        setPrefixLength( cursor, 0 );
+    }
+
+    @Override
+    void readKey( PageCursor cursor, KEY into, int keySize, Type type )
+    {
+        int prefixLength = type == LEAF ? prefixLength( cursor ) : 0;
+        if ( prefixLength == 0 )
+        {
+            layout.readKey( cursor, into, keySize );
+            return;
+        }
+        if ( prefixLength > MAX_PREFIX_LENGTH )
+        {
+            cursor.setCursorException( format( "Read unreliable key prefix length, id=%d, prefixLength=%d, maxPrefixLength=%d",
+                    cursor.getCurrentPageId(), prefixLength, MAX_PREFIX_LENGTH ) );
+            return;
+        }
+
+        int keyOffset = cursor.getOffset();
+        int fullKeySize = prefixLength + keySize;
+        KeyBuffer buffer = KEY_BUFFERS.get();
+        PageCursor keyCursor = buffer.cursor( fullKeySize );
+        cursor.setOffset( bytePosPrefix );
+        cursor.getBytes( buffer.bytes, 0, prefixLength );
+        cursor.setOffset( keyOffset );
+        cursor.getBytes( buffer.bytes, prefixLength, keySize );
+        try
+        {
+            // A reader racing with a writer may see an inconsistent key, which is fine since it will retry, but it must not throw
+            layout.readKey( keyCursor, into, fullKeySize );
+            keyCursor.checkAndClearCursorException();
+        }
+        catch ( CursorException | IndexOutOfBoundsException | BufferUnderflowException e )
+        {
+            cursor.setCursorException( "Failed to read prefixed key, cause: " + e.getMessage() );
+        }
+    }
+
+    @Override
+    void insertKeyValueAt( PageCursor cursor, KEY key, VALUE value, int pos, int keyCount, long stableGeneration, long unstableGeneration,
+            CursorContext cursorContext ) throws IOException
+    {
+        int keySize = layout.keySize( key );
+        int valueSize = layout.valueSize( value );
+        if ( !canInline( keySize + valueSize ) )
+        {
+            super.insertKeyValueAt( cursor, key, value, pos, keyCount, stableGeneration, unstableGeneration, cursorContext );
+            return;
+        }
+
+        writeNewEntry( key, value );
+        int prefixLength = prefixLength( cursor );
+        if ( sharedPrefixLength( cursor, prefixLength, keySize ) < prefixLength )
+        {
+            // The new key doesn't share the prefix of this leaf, rewrite it with a shorter prefix. leafOverflow has made sure it fits.
+            clearEntries();
+            gatherEntries( cursor, keyCount );
+            addNewEntry( pos, keySize, valueSize );
+            writeEntries( cursor, 0, entryCount, commonPrefixLength( 0, entryCount ) );
+            return;
+        }
+
+        // Write suffix of key and value
+        int suffixSize = keySize - prefixLength;
+        int newKeyValueOffset = getAllocOffset( cursor ) - getOverhead( suffixSize, valueSize, false ) - suffixSize - valueSize;
+        cursor.setOffset( newKeyValueOffset );
+        putKeyValueSize( cursor, suffixSize, valueSize, false );
+        cursor.putBytes( newEntry, prefixLength, suffixSize + valueSize );
+
+        // Update alloc space
+        setAllocOffset( cursor, newKeyValueOffset );
+
+        // Write to offset array
+        insertSlotsAt( cursor, pos, 1, keyCount, keyPosOffsetLeaf( 0 ), bytesKeyOffset() );
+        cursor.setOffset( keyPosOffsetLeaf( pos ) );
+        offsetFormat.putOffset( cursor, newKeyValueOffset );
+    }
+
+    @Override
+    Overflow leafOverflow( PageCursor cursor, int currentKeyCount, KEY newKey, VALUE newValue )
+    {
+        int keySize = layout.keySize( newKey );
+        int valueSize = layout.valueSize( newValue );
+        if ( !canInline( keySize + valueSize ) )
+        {
+            return super.leafOverflow( cursor, currentKeyCount, newKey, newValue );
+        }
+
+        writeNewEntry( newKey, newValue );
+        int prefixLength = prefixLength( cursor );
+        if ( sharedPrefixLength( cursor, prefixLength, keySize ) < prefixLength )
+        {
+            // All keys will grow when the prefix is shortened, see if they still fit. Insert will rewrite the whole leaf.
+            clearEntries();
+            gatherEntries( cursor, currentKeyCount );
+            addNewEntry( currentKeyCount, keySize, valueSize );
+            return spaceOf( 0, entryCount, commonPrefixLength( 0, entryCount ) ) <= totalSpace ? Overflow.NO : Overflow.YES;
+        }
+
+        // How much space do we have?
+        int deadSpace = getDeadSpace( cursor );
+        int allocSpace = getAllocSpace( cursor, currentKeyCount, LEAF );
+
+        // How much space do we need?
+        int suffixSize = keySize - prefixLength;
+        int neededSpace = bytesKeyOffset() + getOverhead( suffixSize, valueSize, false ) + suffixSize + valueSize;
+
+        // There is your answer!
+        return neededSpace <= allocSpace ? Overflow.NO :
+               neededSpace <= allocSpace + deadSpace ? Overflow.NO_NEED_DEFRAG : Overflow.YES;
+    }
+
+    @Override
+    int canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        clearEntries();
+        gatherEntries( leftCursor, leftKeyCount );
+        gatherEntries( rightCursor, rightKeyCount );
+        int count = entryCount;
+        int commonPrefixLength = commonPrefixLength( 0, count );
+        if ( spaceOf( 0, count, commonPrefixLength ) <= totalSpace )
+        {
+            // We can merge
+            return -1;
+        }
+        if ( spaceOf( 0, leftKeyCount ) < spaceOf( leftKeyCount, count ) )
+        {
+            // Moving keys to the right will only create more imbalance
+            return 0;
+        }
+
+        // Find the most balanced position judging by entry sizes given the common prefix of both leaves...
+        int leftSpace = spaceOf( 0, leftKeyCount, commonPrefixLength );
+        int rightSpace = spaceOf( leftKeyCount, count, commonPrefixLength );
+        int keysToMove = 0;
+        while ( keysToMove < leftKeyCount - 1 )
+        {
+            int chunkSize = entrySpace( leftKeyCount - keysToMove - 1, commonPrefixLength );
+            if ( Math.abs( (leftSpace - chunkSize) - (rightSpace + chunkSize) ) >= Math.abs( leftSpace - rightSpace ) )
+            {
+                break;
+            }
+            leftSpace -= chunkSize;
+            rightSpace += chunkSize;
+            keysToMove++;
+        }
+        if ( keysToMove == 0 )
+        {
+            return 0;
+        }
+
+        // ...and verify it with the actual prefixes the two leaves would get
+        int splitPos = leftKeyCount - keysToMove;
+        leftSpace = spaceOf( 0, splitPos );
+        rightSpace = spaceOf( splitPos, count );
+        int halfSpace = this.halfSpace;
+        boolean canRebalance = leftSpace > halfSpace && rightSpace > halfSpace && leftSpace <= totalSpace && rightSpace <= totalSpace;
+        return canRebalance ? keysToMove : 0;
+    }
+
+    @Override
+    boolean canMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        clearEntries();
+        gatherEntries( leftCursor, leftKeyCount );
+        gatherEntries( rightCursor, rightKeyCount );
+        return spaceOf( 0, entryCount ) <= totalSpace;
+    }
+
+    @Override
+    void doSplitLeaf( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos, KEY newKey,
+            VALUE newValue, KEY newSplitter, double ratioToKeepInLeftOnSplit, long stableGeneration, long unstableGeneration,
+            CursorContext cursorContext ) throws IOException
+    {
+        clearEntries();
+        gatherEntries( leftCursor, leftKeyCount );
+        int keySize = layout.keySize( newKey );
+        int valueSize = layout.valueSize( newValue );
+        if ( canInline( keySize + valueSize ) )
+        {
+            writeNewEntry( newKey, newValue );
+            addNewEntry( insertPos, keySize, valueSize );
+        }
+        else
+        {
+            long offloadId = offloadStore.writeKeyValue( newKey, newValue, stableGeneration, unstableGeneration, cursorContext );
+            addOffloadedEntry( insertPos, offloadId );
+        }
+
+        int splitPos = splitPosInLeaf( ratioToKeepInLeftOnSplit );
+        writeEntries( leftCursor, 0, splitPos, commonPrefixLength( 0, splitPos ) );
+        writeEntries( rightCursor, splitPos, entryCount, commonPrefixLength( splitPos, entryCount ) );
+
+        KEY leftInSplit = keyAt( leftCursor, tmpKeyLeft, splitPos - 1, LEAF, cursorContext );
+        KEY rightInSplit = keyAt( rightCursor, tmpKeyRight, 0, LEAF, cursorContext );
+        layout.minimalSplitter( leftInSplit, rightInSplit, newSplitter );
+    }
+
+    @Override
+    void moveKeyValuesFromLeftToRight( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount,
+            int fromPosInLeftNode )
+    {
+        clearEntries();
+        gatherEntries( leftCursor, leftKeyCount );
+        gatherEntries( rightCursor, rightKeyCount );
+        writeEntries( leftCursor, 0, fromPosInLeftNode, commonPrefixLength( 0, fromPosInLeftNode ) );
+        writeEntries( rightCursor, fromPosInLeftNode, entryCount, commonPrefixLength( fromPosInLeftNode, entryCount ) );
+    }
+
+    @Override
+    void copyKeyValuesFromLeftToRight( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        clearEntries();
+        gatherEntries( leftCursor, leftKeyCount );
+        gatherEntries( rightCursor, rightKeyCount );
+        writeEntries( rightCursor, 0, entryCount, commonPrefixLength( 0, entryCount ) );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TreeNodeDynamicSizePrefixed[pageSize:" + pageSize + ", keyValueSizeCap:" + keyValueSizeCap() + ", inlineKeyValueSizeCap:" +
+                inlineKeyValueSizeCap() + ", maxPrefixLength:" + MAX_PREFIX_LENGTH + "]";
+    }
+
+    int prefixLength( PageCursor cursor )
+    {
+        return cursor.getByte( bytePosPrefixLength ) & 0xFF;
+    }
+
+    private void setPrefixLength( PageCursor cursor, int prefixLength )
+    {
+        cursor.putByte( bytePosPrefixLength, (byte) prefixLength );
+    }
+
+    /**
+     * Split position where both halves fit with their own prefix, as close as possible to the position
+     * dictated by {@code ratioToKeepInLeftOnSplit}.
+     */
+    private int splitPosInLeaf( double ratioToKeepInLeftOnSplit )
+    {
+        int count = entryCount;
+        int commonPrefixLength = commonPrefixLength( 0, count );
+        int targetLeftSpace = (int) (this.totalSpace * ratioToKeepInLeftOnSplit);
+        int targetPos = 1;
+        int accumulatedLeftSpace = entrySpace( 0, commonPrefixLength );
+        int currentDelta = Math.abs( accumulatedLeftSpace - targetLeftSpace );
+        while ( targetPos < count - 1 )
+        {
+            int nextLeftSpace = accumulatedLeftSpace + entrySpace( targetPos, commonPrefixLength );
+            int nextDelta = Math.abs( nextLeftSpace - targetLeftSpace );
+            if ( nextDelta >= currentDelta )
+            {
+                break;
+            }
+            accumulatedLeftSpace = nextLeftSpace;
+            currentDelta = nextDelta;
+            targetPos++;
+        }
+
+        for ( int distance = 0; distance < count; distance++ )
+        {
+            if ( fitsAsSplit( targetPos - distance ) )
+            {
+                return targetPos - distance;
+            }
+            if ( fitsAsSplit( targetPos + distance ) )
+            {
+                return targetPos + distance;
+            }
+        }
+        throw new IllegalStateException( format( "Could not split leaf with %d entries so that both halves fit. %s must only compress " +
+                "key prefixes if keys sharing a serialized prefix are adjacent in sort order", count, layout ) );
+    }
+
+    private boolean fitsAsSplit( int splitPos )
+    {
+        return splitPos > 0 && splitPos < entryCount && spaceOf( 0, splitPos ) <= totalSpace && spaceOf( splitPos, entryCount ) <= totalSpace;
+    }
+
+    /**
+     * @return length of prefix that the key in {@link #newEntry} shares with the prefix in the header of this leaf, at most {@code prefixLength}.
+     */
+    private int sharedPrefixLength( PageCursor cursor, int prefixLength, int keySize )
+    {
+        int maxLength = Math.min( prefixLength, keySize );
+        cursor.setOffset( bytePosPrefix );
+        cursor.getBytes( prefix, 0, maxLength );
+        int mismatch = Arrays.mismatch( prefix, 0, maxLength, newEntry, 0, maxLength );
+        return mismatch == -1 ? maxLength : mismatch;
+    }
+
+    private void writeNewEntry( KEY key, VALUE value )
+    {
+        newEntryCursor.setOffset( 0 );
+        layout.writeKey( newEntryCursor, key );
+        layout.writeValue( newEntryCursor, value );
+    }
+
+    private void clearEntries()
+    {
+        entryCount = 0;
+        entryDataLength = 0;
+    }
+
+    /**
+     * Appends all entries of the given leaf, with keys in full.
+     */
+    private void gatherEntries( PageCursor cursor, int keyCount )
+    {
+        int prefixLength = prefixLength( cursor );
+        if ( prefixLength > MAX_PREFIX_LENGTH )
+        {
+            cursor.setCursorException( format( "Read unreliable key prefix length, id=%d, prefixLength=%d, maxPrefixLength=%d",
+                    cursor.getCurrentPageId(), prefixLength, MAX_PREFIX_LENGTH ) );
+            return;
+        }
+        cursor.setOffset( bytePosPrefix );
+        cursor.getBytes( prefix, 0, prefixLength );
+        for ( int pos = 0; pos < keyCount; pos++ )
+        {
+            placeCursorAtActualKey( cursor, pos, LEAF );
+            long keyValueSize = readKeyValueSize( cursor, msbIsOffload );
+            if ( extractOffload( keyValueSize ) )
+            {
+                appendOffloadedEntry( readOffloadId( cursor ) );
+            }
+            else
+            {
+                int suffixSize = extractKeySize( keyValueSize );
+                int valueSize = extractValueSize( keyValueSize );
+                int entry = appendEntry( prefixLength + suffixSize, valueSize );
+                int dataOffset = entryDataOffset[entry];
+                System.arraycopy( prefix, 0, entryData, dataOffset, prefixLength );
+                cursor.getBytes( entryData, dataOffset + prefixLength, suffixSize + valueSize );
+            }
+        }
+    }
+
+    private void addNewEntry( int pos, int keySize, int valueSize )
+    {
+        int entry = appendEntry( keySize, valueSize );
+        System.arraycopy( newEntry, 0, entryData, entryDataOffset[entry], keySize + valueSize );
+        moveLastEntryTo( pos );
+    }
+
+    private void addOffloadedEntry( int pos, long offloadId )
+    {
+        appendOffloadedEntry( offloadId );
+        moveLastEntryTo( pos );
+    }
+
+    private int appendEntry( int keySize, int valueSize )
+    {
+        int entry = reserveEntry();
+        int size = keySize + valueSize;
+        if ( entryDataLength + size > entryData.length )
+        {
+            entryData = Arrays.copyOf( entryData, Math.max( entryData.length * 2, entryDataLength + size ) );
+        }
+        entryDataOffset[entry] = entryDataLength;
+        entryKeySize[entry] = keySize;
+        entryValueSize[entry] = valueSize;
+        entryOffloadId[entry] = NO_OFFLOAD_ID;
+        entryDataLength += size;
+        return entry;
+    }
+
+    private void appendOffloadedEntry( long offloadId )
+    {
+        int entry = reserveEntry();
+        entryDataOffset[entry] = entryDataLength;
+        entryKeySize[entry] = 0;
+        entryValueSize[entry] = 0;
+        entryOffloadId[entry] = offloadId;
+    }
+
+    private int reserveEntry()
+    {
+        if ( entryCount == entryKeySize.length )
+        {
+            int newCapacity = entryCount * 2;
+            entryDataOffset = Arrays.copyOf( entryDataOffset, newCapacity );
+            entryKeySize = Arrays.copyOf( entryKeySize, newCapacity );
+            entryValueSize = Arrays.copyOf( entryValueSize, newCapacity );
+            entryOffloadId = Arrays.copyOf( entryOffloadId, newCapacity );
+        }
+        return entryCount++;
+    }
+
+    private void moveLastEntryTo( int pos )
+    {
+        int last = entryCount - 1;
+        int dataOffset = entryDataOffset[last];
+        int keySize = entryKeySize[last];
+        int valueSize = entryValueSize[last];
+        long offloadId = entryOffloadId[last];
+        int toMove = last - pos;
+        System.arraycopy( entryDataOffset, pos, entryDataOffset, pos + 1, toMove );
+        System.arraycopy( entryKeySize, pos, entryKeySize, pos + 1, toMove );
+        System.arraycopy( entryValueSize, pos, entryValueSize, pos + 1, toMove );
+        System.arraycopy( entryOffloadId, pos, entryOffloadId, pos + 1, toMove );
+        entryDataOffset[pos] = dataOffset;
+        entryKeySize[pos] = keySize;
+        entryValueSize[pos] = valueSize;
+        entryOffloadId[pos] = offloadId;
+    }
+
+    private boolean isOffloaded( int entry )
+    {
+        return entryOffloadId[entry] != NO_OFFLOAD_ID;
+    }
+
+    /**
+     * @return length of the longest common prefix of the inlined keys among entries {@code from} (inclusive) to {@code to} (exclusive),
+     * capped at {@link #MAX_PREFIX_LENGTH}.
+     */
+    private int commonPrefixLength( int from, int to )
+    {
+        int first = -1;
+        int length = 0;
+        for ( int entry = from; entry < to; entry++ )
+        {
+            if ( isOffloaded( entry ) )
+            {
+                continue;
+            }
+            if ( first == -1 )
+            {
+                first = entry;
+                length = Math.min( MAX_PREFIX_LENGTH, entryKeySize[entry] );
+            }
+            else
+            {
+                int maxLength = Math.min( length, entryKeySize[entry] );
+                int firstOffset = entryDataOffset[first];
+                int entryOffset = entryDataOffset[entry];
+                int mismatch = Arrays.mismatch( entryData, firstOffset, firstOffset + maxLength, entryData, entryOffset, entryOffset + maxLength );
+                length = mismatch == -1 ? maxLength : mismatch;
+            }
+            if ( length == 0 )
+            {
+                break;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return space, including offset, the given entry would occupy in a leaf with the given prefix.
+     */
+    private int entrySpace( int entry, int prefixLength )
+    {
+        if ( isOffloaded( entry ) )
+        {
+            return bytesKeyOffset() + getOverhead( 0, 0, true );
+        }
+        int suffixSize = entryKeySize[entry] - prefixLength;
+        int valueSize = entryValueSize[entry];
+        return bytesKeyOffset() + getOverhead( suffixSize, valueSize, false ) + suffixSize + valueSize;
+    }
+
+    private int spaceOf( int from, int to, int prefixLength )
+    {
+        int space = 0;
+        for ( int entry = from; entry < to; entry++ )
+        {
+            space += entrySpace( entry, prefixLength );
+        }
+        return space;
+    }
+
+    private int spaceOf( int from, int to )
+    {
+        return spaceOf( from, to, commonPrefixLength( from, to ) );
+    }
+
+    /**
+     * Rewrites the given leaf to contain entries {@code from} (inclusive) to {@code to} (exclusive), with keys stored after the given prefix.
+     * Updates key count.
+     */
+    private void writeEntries( PageCursor cursor, int from, int to, int prefixLength )
+    {
+        int count = to - from;
+        int first = from;
+        while ( first < to && isOffloaded( first ) )
+        {
+            first++;
+        }
+        if ( first == to )
+        {
+            prefixLength = 0;
+        }
+        if ( spaceOf( from, to, prefixLength ) > totalSpace )
+        {
+            throw new IllegalStateException( format( "Tried to write %d entries with prefix of length %d to leaf %d, but they don't fit",
+                    count, prefixLength, cursor.getCurrentPageId() ) );
+        }
+
+        // Prefix
+        setPrefixLength( cursor, prefixLength );
+        if ( prefixLength > 0 )
+        {
+            cursor.setOffset( bytePosPrefix );
+            cursor.putBytes( entryData, entryDataOffset[first], prefixLength );
+        }
+
+        // Keys and values
+        int allocOffset = pageSize;
+        for ( int entry = from; entry < to; entry++ )
+        {
+            if ( isOffloaded( entry ) )
+            {
+                allocOffset -= getOverhead( 0, 0, true );
+                cursor.setOffset( allocOffset );
+                putKeyValueSize( cursor, 0, 0, true );
+                putOffloadId( cursor, entryOffloadId[entry] );
+            }
+            else
+            {
+                int suffixSize = entryKeySize[entry] - prefixLength;
+                int valueSize = entryValueSize[entry];
+                allocOffset -= getOverhead( suffixSize, valueSize, false ) + suffixSize + valueSize;
+                cursor.setOffset( allocOffset );
+                putKeyValueSize( cursor, suffixSize, valueSize, false );
+                cursor.putBytes( entryData, entryDataOffset[entry] + prefixLength, suffixSize + valueSize );
+            }
+            cursor.setOffset( keyPosOffsetLeaf( entry - from ) );
+            offsetFormat.putOffset( cursor, allocOffset );
+        }
+
+        // Zero pad alloc space
+        int endOfOffsetArray = keyPosOffsetLeaf( count );
+        cursor.setOffset( endOfOffsetArray );
+        cursor.putBytes( allocOffset - endOfOffsetArray, (byte) 0 );
+
+        setAllocOffset( cursor, allocOffset );
+        setDeadSpace( cursor, 0 );
+        setKeyCount( cursor, count );
+    }
+
+    private static class KeyBuffer
+    {
+        private byte[] bytes = new byte[0];
+        private PageCursor cursor;
+
+        PageCursor cursor( int length )
+        {
+            if ( bytes.length < length )
+            {
+                bytes = new byte[Math.max( length, bytes.length * 2 )];
+                cursor = ByteArrayPageCursor.wrap( bytes );
+            }
+            cursor.setOffset( 0 );
+            return cursor;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Latches coordinating {@link GBPTree#concurrentWriter(org.neo4j.io.pagecache.context.CursorContext) concurrent writers} of a tree.
+ * <p>
+ * A change that can be made within the leaf where its key belongs is made holding the structure latch shared and the latch of that leaf.
+ * Internal nodes don't change while the structure latch is held shared, so the leaf found from traversing the tree stays the right one.
+ * A change that modifies the structure of the tree, i.e. splits, merges, creates successors or touches the free-list, is made holding
+ * the structure latch exclusively. Every exclusive section bumps the {@link #structureVersion() structure version}, so that writers
+ * know that the path down the tree they remember may no longer be valid.
+ * <p>
+ * Leaf latches are striped on tree node id, so unrelated leaves can share a latch. A writer only ever holds one leaf latch at a time.
+ */
+class TreeWriterLatches
+{
+    private static final int LEAF_LATCH_STRIPES_BITS = 6;
+    private static final long STRIPE_HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final ReentrantReadWriteLock structureLatch = new ReentrantReadWriteLock();
+    private final ReentrantLock[] leafLatches = new ReentrantLock[1 << LEAF_LATCH_STRIPES_BITS];
+    // Guarded by structureLatch, written when held exclusively
+    private long structureVersion;
+
+    TreeWriterLatches()
+    {
+        for ( int i = 0; i < leafLatches.length; i++ )
+        {
+            leafLatches[i] = new ReentrantLock();
+        }
+    }
+
+    void acquireShared()
+    {
+        structureLatch.readLock().lock();
+    }
+
+    void releaseShared()
+    {
+        structureLatch.readLock().unlock();
+    }
+
+    void acquireExclusive()
+    {
+        structureLatch.writeLock().lock();
+    }
+
+    void releaseExclusive()
+    {
+        structureVersion++;
+        structureLatch.writeLock().unlock();
+    }
+
+    /**
+     * @return version of the structure of the tree, changed by every exclusive section. Must be called holding the structure latch.
+     */
+    long structureVersion()
+    {
+        return structureVersion;
+    }
+
+    /**
+     * @param treeNodeId id of the leaf to latch.
+     * @return the latch to hold while changing the leaf with the given id. Must be called holding the structure latch shared.
+     */
+    ReentrantLock leafLatch( long treeNodeId )
+    {
+        return leafLatches[(int) ((treeNodeId * STRIPE_HASH_MULTIPLIER) >>> (Long.SIZE - LEAF_LATCH_STRIPES_BITS))];
+    }
+}
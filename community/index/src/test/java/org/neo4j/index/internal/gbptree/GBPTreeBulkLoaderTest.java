@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+import org.neo4j.test.extension.testdirectory.EphemeralTestDirectoryExtension;
+import org.neo4j.test.utils.PageCacheConfig;
+import org.neo4j.test.utils.TestDirectory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.io.pagecache.context.CursorContext.NULL;
+
+@EphemeralTestDirectoryExtension
+class GBPTreeBulkLoaderTest
+{
+    @RegisterExtension
+    static PageCacheSupportExtension pageCacheExtension = new PageCacheSupportExtension( PageCacheConfig.config().withPageSize( 512 ) );
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private PageCache pageCache;
+
+    @ParameterizedTest
+    @ValueSource( booleans = {true, false} )
+    void shouldBulkLoadKeysInAscendingOrder( boolean fixedSize ) throws IOException
+    {
+        // given
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( fixedSize ).build();
+        Path file = directory.file( "index" );
+        int count = 100_000;
+
+        // when
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            try ( Writer<MutableLong,MutableLong> bulkLoader = tree.bulkLoader( 1, NULL ) )
+            {
+                for ( long i = 0; i < count; i++ )
+                {
+                    bulkLoader.put( layout.key( i * 2 ), layout.value( i ) );
+                }
+            }
+
+            // then
+            tree.consistencyCheck( NULL );
+            assertContents( tree, layout, count );
+            tree.checkpoint( NULL );
+        }
+
+        // and when reopened
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            tree.consistencyCheck( NULL );
+            assertContents( tree, layout, count );
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource( booleans = {true, false} )
+    void shouldAcceptChangesAfterBulkLoad( boolean fixedSize ) throws IOException
+    {
+        // given
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( fixedSize ).build();
+        int count = 10_000;
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            try ( Writer<MutableLong,MutableLong> bulkLoader = tree.bulkLoader( 0.7, NULL ) )
+            {
+                for ( long i = 0; i < count; i++ )
+                {
+                    bulkLoader.put( layout.key( i * 2 ), layout.value( i ) );
+                }
+            }
+
+            // when
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+            {
+                for ( long i = 0; i < count; i++ )
+                {
+                    writer.put( layout.key( i * 2 + 1 ), layout.value( i ) );
+                    writer.remove( layout.key( i * 2 ) );
+                }
+            }
+
+            // then
+            tree.consistencyCheck( NULL );
+            try ( Seeker<MutableLong,MutableLong> seek = tree.seek( layout.key( 0 ), layout.key( Long.MAX_VALUE ), NULL ) )
+            {
+                for ( long i = 0; i < count; i++ )
+                {
+                    assertTrue( seek.next() );
+                    assertEquals( i * 2 + 1, layout.keySeed( seek.key() ) );
+                }
+                assertFalse( seek.next() );
+            }
+        }
+    }
+
+    @Test
+    void shouldFillNodesUpToFillFactor() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( true ).build();
+        int count = 10_000;
+        int fullLeaves = countLeaves( layout, 1, count );
+        int halfFullLeaves = countLeaves( layout, 0.5, count );
+        assertThat( halfFullLeaves ).isBetween( fullLeaves * 2 - 2, fullLeaves * 2 + 2 );
+    }
+
+    @Test
+    void shouldMergeEqualKeys() throws IOException
+    {
+        // given
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( false ).build();
+        ValueMerger<MutableLong,MutableLong> adder = ( existingKey, newKey, existingValue, newValue ) ->
+        {
+            existingValue.add( newValue.longValue() );
+            return ValueMerger.MergeResult.MERGED;
+        };
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            // when
+            try ( Writer<MutableLong,MutableLong> bulkLoader = tree.bulkLoader( 1, NULL ) )
+            {
+                for ( long i = 0; i < 1_000; i++ )
+                {
+                    bulkLoader.merge( layout.key( i ), layout.value( 1 ), adder );
+                    bulkLoader.merge( layout.key( i ), layout.value( 2 ), adder );
+                    bulkLoader.mergeIfExists( layout.key( i ), layout.value( 3 ), adder );
+                    bulkLoader.mergeIfExists( layout.key( i * 2 + 1 ), layout.value( 4 ), adder );
+                }
+            }
+
+            // then
+            tree.consistencyCheck( NULL );
+            try ( Seeker<MutableLong,MutableLong> seek = tree.seek( layout.key( 0 ), layout.key( Long.MAX_VALUE ), NULL ) )
+            {
+                for ( long i = 0; i < 1_000; i++ )
+                {
+                    assertTrue( seek.next() );
+                    assertEquals( i, layout.keySeed( seek.key() ) );
+                    assertEquals( 6, seek.value().longValue() );
+                }
+                assertFalse( seek.next() );
+            }
+        }
+    }
+
+    @Test
+    void shouldRemoveEntryOnMergeResultRemoved() throws IOException
+    {
+        // given
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( true ).build();
+        ValueMerger<MutableLong,MutableLong> remover = ( existingKey, newKey, existingValue, newValue ) -> ValueMerger.MergeResult.REMOVED;
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            // when
+            try ( Writer<MutableLong,MutableLong> bulkLoader = tree.bulkLoader( 1, NULL ) )
+            {
+                for ( long i = 0; i < 1_000; i++ )
+                {
+                    bulkLoader.put( layout.key( i ), layout.value( i ) );
+                    if ( i % 2 == 1 )
+                    {
+                        bulkLoader.merge( layout.key( i ), layout.value( i ), remover );
+                    }
+                }
+            }
+
+            // then
+            tree.consistencyCheck( NULL );
+            try ( Seeker<MutableLong,MutableLong> seek = tree.seek( layout.key( 0 ), layout.key( Long.MAX_VALUE ), NULL ) )
+            {
+                for ( long i = 0; i < 1_000; i += 2 )
+                {
+                    assertTrue( seek.next() );
+                    assertEquals( i, layout.keySeed( seek.key() ) );
+                }
+                assertFalse( seek.next() );
+            }
+        }
+    }
+
+    @Test
+    void shouldThrowOnKeysNotInAscendingOrder() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build();
+              Writer<MutableLong,MutableLong> bulkLoader = tree.bulkLoader( 1, NULL ) )
+        {
+            bulkLoader.put( layout.key( 10 ), layout.value( 10 ) );
+            assertThrows( IllegalArgumentException.class, () -> bulkLoader.put( layout.key( 9 ), layout.value( 9 ) ) );
+            assertThrows( UnsupportedOperationException.class, () -> bulkLoader.remove( layout.key( 10 ) ) );
+        }
+    }
+
+    @Test
+    void shouldThrowIfTreeIsNotEmpty() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+            {
+                writer.put( layout.key( 1 ), layout.value( 1 ) );
+            }
+            assertThrows( IllegalStateException.class, () -> tree.bulkLoader( 1, NULL ) );
+
+            // and the tree is still writable
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+            {
+                writer.put( layout.key( 2 ), layout.value( 2 ) );
+            }
+        }
+    }
+
+    private int countLeaves( SimpleLongLayout layout, double fillFactor, int count ) throws IOException
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index-" + fillFactor ), layout ).build() )
+        {
+            try ( Writer<MutableLong,MutableLong> bulkLoader = tree.bulkLoader( fillFactor, NULL ) )
+            {
+                for ( long i = 0; i < count; i++ )
+                {
+                    bulkLoader.put( layout.key( i ), layout.value( i ) );
+                }
+            }
+            tree.consistencyCheck( NULL );
+            LeafCountingVisitor visitor = new LeafCountingVisitor();
+            tree.visit( visitor, NULL );
+            return visitor.leaves;
+        }
+    }
+
+    private static void assertContents( GBPTree<MutableLong,MutableLong> tree, SimpleLongLayout layout, int count ) throws IOException
+    {
+        try ( Seeker<MutableLong,MutableLong> seek = tree.seek( layout.key( 0 ), layout.key( Long.MAX_VALUE ), NULL ) )
+        {
+            for ( long i = 0; i < count; i++ )
+            {
+                assertTrue( seek.next() );
+                assertEquals( i * 2, layout.keySeed( seek.key() ) );
+                assertEquals( i, layout.valueSeed( seek.value() ) );
+            }
+            assertFalse( seek.next() );
+        }
+        for ( long i = 0; i < count; i += 997 )
+        {
+            try ( Seeker<MutableLong,MutableLong> seek = tree.seek( layout.key( i * 2 ), layout.key( i * 2 ), NULL ) )
+            {
+                assertTrue( seek.next() );
+                assertEquals( i, layout.valueSeed( seek.value() ) );
+            }
+        }
+    }
+
+    private static class LeafCountingVisitor extends GBPTreeVisitor.Adaptor<MutableLong,MutableLong>
+    {
+        private int leaves;
+
+        @Override
+        public void beginNode( long pageId, boolean isLeaf, long generation, int keyCount )
+        {
+            if ( isLeaf )
+            {
+                leaves++;
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.Race;
+import org.neo4j.test.RandomSupport;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.RandomExtension;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+import org.neo4j.test.extension.testdirectory.EphemeralTestDirectoryExtension;
+import org.neo4j.test.utils.TestDirectory;
+
+import static java.lang.Math.max;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.neo4j.io.pagecache.context.CursorContext.NULL;
+import static org.neo4j.test.utils.PageCacheConfig.config;
+
+/**
+ * Stresses {@link GBPTree#concurrentWriter(org.neo4j.io.pagecache.context.CursorContext) concurrent writers}. Every writer thread owns
+ * the keys whose seed modulo the number of threads is its own index, so that the expected contents of the tree are known, while the keys
+ * of all threads are interleaved and so share leaves.
+ */
+@EphemeralTestDirectoryExtension
+@ExtendWith( RandomExtension.class )
+abstract class GBPTreeConcurrentWritersITBase<KEY,VALUE>
+{
+    private static final int NUMBER_OF_WRITERS = max( 2, Runtime.getRuntime().availableProcessors() );
+
+    @Inject
+    private FileSystemAbstraction fileSystem;
+    @Inject
+    private TestDirectory testDirectory;
+    @Inject
+    private RandomSupport random;
+    @RegisterExtension
+    static PageCacheSupportExtension pageCacheExtension = new PageCacheSupportExtension();
+
+    private TestLayout<KEY,VALUE> layout;
+    private GBPTree<KEY,VALUE> index;
+    private PageCache pageCache;
+
+    protected abstract TestLayout<KEY,VALUE> getLayout( RandomSupport random, int pageSize );
+
+    @BeforeEach
+    void createIndex()
+    {
+        int pageSize = 512;
+        layout = getLayout( random, pageSize );
+        pageCache = PageCacheSupportExtension.getPageCache( fileSystem, config().withPageSize( pageSize ).withAccessChecks( true ) );
+        index = new GBPTreeBuilder<>( pageCache, testDirectory.file( "index" ), layout ).build();
+    }
+
+    @AfterEach
+    void consistencyCheckAndClose() throws IOException
+    {
+        index.consistencyCheck( NULL );
+        index.close();
+        pageCache.close();
+    }
+
+    @Test
+    void shouldInsertAndRemoveConcurrentlyWithCheckpoints() throws Throwable
+    {
+        // given
+        int seedsPerWriter = 5_000;
+        @SuppressWarnings( "unchecked" )
+        Map<Long,Long>[] expected = new Map[NUMBER_OF_WRITERS];
+        long[] randomSeeds = new long[NUMBER_OF_WRITERS];
+        for ( int writer = 0; writer < NUMBER_OF_WRITERS; writer++ )
+        {
+            randomSeeds[writer] = random.nextLong();
+        }
+        AtomicInteger writersDone = new AtomicInteger();
+        Race race = new Race();
+        race.addContestants( NUMBER_OF_WRITERS, writer -> Race.throwing( () ->
+        {
+            try
+            {
+                expected[writer] = applyRandomUpdates( writer, seedsPerWriter, 20_000, new Random( randomSeeds[writer] ) );
+            }
+            finally
+            {
+                writersDone.incrementAndGet();
+            }
+        } ), 1 );
+        race.addContestant( Race.throwing( () ->
+        {
+            // Checkpoint until all writers are done
+            while ( writersDone.get() < NUMBER_OF_WRITERS )
+            {
+                index.checkpoint( NULL );
+                Thread.sleep( 10 );
+            }
+        } ), 1 );
+
+        // when
+        race.go();
+
+        // then
+        assertTreeContains( expected );
+    }
+
+    @Test
+    void shouldGrowAndShrinkTreeWithConcurrentWriters() throws Throwable
+    {
+        // given
+        int seedsPerWriter = 2_000;
+        Race race = new Race();
+        race.addContestants( NUMBER_OF_WRITERS, writer -> Race.throwing( () ->
+        {
+            try ( Writer<KEY,VALUE> treeWriter = index.concurrentWriter( NULL ) )
+            {
+                for ( long i = 0; i < seedsPerWriter; i++ )
+                {
+                    long seed = i * NUMBER_OF_WRITERS + writer;
+                    treeWriter.put( layout.key( seed ), layout.value( seed ) );
+                }
+                for ( long i = 0; i < seedsPerWriter; i++ )
+                {
+                    long seed = i * NUMBER_OF_WRITERS + writer;
+                    VALUE removed = treeWriter.remove( layout.key( seed ) );
+                    assertThat( removed ).isNotNull();
+                    assertThat( layout.compareValue( removed, layout.value( seed ) ) ).isZero();
+                }
+            }
+        } ), 1 );
+
+        // when
+        race.go();
+
+        // then
+        @SuppressWarnings( "unchecked" )
+        Map<Long,Long>[] expected = new Map[]{new TreeMap<>()};
+        assertTreeContains( expected );
+    }
+
+    @Test
+    void concurrentWritersShouldExcludeSingleWriter() throws Exception
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            // given
+            Writer<KEY,VALUE> first = index.concurrentWriter( NULL );
+            Writer<KEY,VALUE> second = index.concurrentWriter( NULL );
+            first.put( layout.key( 1 ), layout.value( 1 ) );
+            second.put( layout.key( 2 ), layout.value( 2 ) );
+
+            // when
+            Future<Object> singleWriter = executor.submit( () ->
+            {
+                try ( Writer<KEY,VALUE> writer = index.writer( NULL ) )
+                {
+                    writer.put( layout.key( 3 ), layout.value( 3 ) );
+                }
+                return null;
+            } );
+
+            // then
+            assertThrows( TimeoutException.class, () -> singleWriter.get( 100, TimeUnit.MILLISECONDS ) );
+            first.close();
+            assertThrows( TimeoutException.class, () -> singleWriter.get( 100, TimeUnit.MILLISECONDS ) );
+            second.close();
+            singleWriter.get( 1, TimeUnit.MINUTES );
+            assertThrows( IllegalStateException.class, second::close );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private Map<Long,Long> applyRandomUpdates( int writer, int seedsPerWriter, int numberOfUpdates, Random rng ) throws IOException
+    {
+        Map<Long,Long> expected = new TreeMap<>();
+        int updatesLeft = numberOfUpdates;
+        while ( updatesLeft > 0 )
+        {
+            // Close the writer every now and then so that the checkpointer can get in between
+            int batchSize = Math.min( updatesLeft, 1 + rng.nextInt( 1_000 ) );
+            try ( Writer<KEY,VALUE> treeWriter = index.concurrentWriter( NULL ) )
+            {
+                for ( int i = 0; i < batchSize; i++ )
+                {
+                    long seed = rng.nextInt( seedsPerWriter ) * (long) NUMBER_OF_WRITERS + writer;
+                    if ( rng.nextInt( 3 ) == 0 )
+                    {
+                        VALUE removed = treeWriter.remove( layout.key( seed ) );
+                        Long expectedValue = expected.remove( seed );
+                        assertThat( removed == null ).isEqualTo( expectedValue == null );
+                        if ( removed != null )
+                        {
+                            assertThat( layout.valueSeed( removed ) ).isEqualTo( expectedValue );
+                        }
+                    }
+                    else
+                    {
+                        long valueSeed = rng.nextInt( 1_000 );
+                        treeWriter.put( layout.key( seed ), layout.value( valueSeed ) );
+                        expected.put( seed, valueSeed );
+                    }
+                }
+            }
+            updatesLeft -= batchSize;
+        }
+        return expected;
+    }
+
+    private void assertTreeContains( Map<Long,Long>[] expected ) throws IOException
+    {
+        TreeMap<Long,Long> allExpected = new TreeMap<>();
+        for ( Map<Long,Long> writerExpected : expected )
+        {
+            allExpected.putAll( writerExpected );
+        }
+
+        KEY lowest = layout.newKey();
+        layout.initializeAsLowest( lowest );
+        KEY highest = layout.newKey();
+        layout.initializeAsHighest( highest );
+        TreeMap<Long,Long> actual = new TreeMap<>();
+        try ( Seeker<KEY,VALUE> seek = index.seek( lowest, highest, NULL ) )
+        {
+            while ( seek.next() )
+            {
+                actual.put( layout.keySeed( seek.key() ), layout.valueSeed( seek.value() ) );
+            }
+        }
+        assertThat( actual ).isEqualTo( allExpected );
+    }
+}
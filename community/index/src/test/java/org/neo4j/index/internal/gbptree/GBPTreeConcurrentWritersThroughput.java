@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.neo4j.io.fs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.neo4j.io.pagecache.context.CursorContext.NULL;
+import static org.neo4j.test.utils.PageCacheConfig.config;
+
+/**
+ * Measures the insert throughput of {@link GBPTree#concurrentWriter(org.neo4j.io.pagecache.context.CursorContext) concurrent writers}
+ * for 1..N writer threads. For every number of writer threads the same number of keys, in random order, are inserted into a new tree,
+ * split evenly between the writers. The same inserts through the exclusive {@link GBPTree#writer(org.neo4j.io.pagecache.context.CursorContext) writer}
+ * are measured first, as the baseline.
+ * <p>
+ * Arguments, all optional: maximum number of writer threads (default: number of processors), number of inserts (default: 2 000 000).
+ */
+public class GBPTreeConcurrentWritersThroughput
+{
+    private static final long SEED_SCRAMBLER = 0x9E3779B97F4A7C15L;
+
+    private GBPTreeConcurrentWritersThroughput()
+    {
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+        int maxWriters = args.length > 0 ? Integer.parseInt( args[0] ) : Runtime.getRuntime().availableProcessors();
+        int inserts = args.length > 1 ? Integer.parseInt( args[1] ) : 2_000_000;
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        ExecutorService executor = Executors.newFixedThreadPool( maxWriters );
+        try ( EphemeralFileSystemAbstraction fs = new EphemeralFileSystemAbstraction();
+              PageCache pageCache = PageCacheSupportExtension.getPageCache( fs, config().withMemory( "1 GiB" ) ) )
+        {
+            // Run everything twice and only report the second round, so that all writers are measured with warm code.
+            for ( int round = 0; round < 2; round++ )
+            {
+                boolean report = round > 0;
+                try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, Path.of( "index-exclusive-" + round ), layout ).build() )
+                {
+                    long nanos = insertExclusive( tree, layout, inserts );
+                    if ( report )
+                    {
+                        System.out.printf( "exclusive writer: %,12d inserts/s%n", inserts * SECONDS.toNanos( 1 ) / nanos );
+                    }
+                }
+                for ( int writers = 1; writers <= maxWriters; writers++ )
+                {
+                    Path file = Path.of( "index-" + writers + "-" + round );
+                    try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+                    {
+                        long nanos = insert( executor, tree, layout, writers, inserts );
+                        if ( report )
+                        {
+                            System.out.printf( "%2d concurrent writers: %,12d inserts/s%n", writers, inserts * SECONDS.toNanos( 1 ) / nanos );
+                        }
+                    }
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static long insertExclusive( GBPTree<MutableLong,MutableLong> tree, SimpleLongLayout layout, int inserts ) throws Exception
+    {
+        long startTime = System.nanoTime();
+        try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+        {
+            for ( long seed = 0; seed < inserts; seed++ )
+            {
+                writer.put( layout.key( seed * SEED_SCRAMBLER ), layout.value( seed ) );
+            }
+        }
+        return System.nanoTime() - startTime;
+    }
+
+    private static long insert( ExecutorService executor, GBPTree<MutableLong,MutableLong> tree, SimpleLongLayout layout, int writers, int inserts )
+            throws Exception
+    {
+        long startTime = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for ( int writer = 0; writer < writers; writer++ )
+        {
+            int thisWriter = writer;
+            futures.add( executor.submit( () ->
+            {
+                try ( Writer<MutableLong,MutableLong> treeWriter = tree.concurrentWriter( NULL ) )
+                {
+                    for ( long seed = thisWriter; seed < inserts; seed += writers )
+                    {
+                        treeWriter.put( layout.key( seed * SEED_SCRAMBLER ), layout.value( seed ) );
+                    }
+                }
+                return null;
+            } ) );
+        }
+        for ( Future<?> future : futures )
+        {
+            future.get();
+        }
+        return System.nanoTime() - startTime;
+    }
+}
@@ -32,6 +32,7 @@ import org.neo4j.test.extension.Inject;
 import org.neo4j.test.extension.actors.Actor;
 import org.neo4j.test.extension.actors.ActorsExtension;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -52,6 +53,8 @@ class GBPTreeLockTest
 
     @Inject
     Actor executor;
+    @Inject
+    Actor sharedLocker;
 
     @Test
     void test_UU_UL_UU() throws Exception
@@ -127,6 +130,75 @@ class GBPTreeLockTest
         assertUU();
     }
 
+    @Test
+    void test_UU_shared_LL_shared_UU() throws Exception
+    {
+        // given
+        assertUU();
+
+        // then
+        lock.sharedWriterAndCleanerLock();
+        lock.sharedWriterAndCleanerLock();
+        assertLL();
+
+        lock.sharedWriterAndCleanerUnlock();
+        assertLL();
+
+        lock.sharedWriterAndCleanerUnlock();
+        assertUU();
+        assertThrows( IllegalStateException.class, lock::sharedWriterAndCleanerUnlock );
+    }
+
+    @Test
+    void sharedLockShouldWaitForExclusiveLock() throws Exception
+    {
+        // given
+        lock.cleanerLock();
+
+        // then
+        Future<Object> shared = sharedLocker.submit( () ->
+        {
+            lock.sharedWriterAndCleanerLock();
+            return null;
+        } );
+        sharedLocker.untilWaitingIn( GBPTreeLock.class.getDeclaredMethod( "doSharedLock", long.class ) );
+        lock.cleanerUnlock();
+        shared.get();
+
+        lock.sharedWriterAndCleanerUnlock();
+        assertUU();
+    }
+
+    @Test
+    void exclusiveLockerWaitingForSharedLockersShouldKeepNewSharedLockersOut() throws Exception
+    {
+        // given
+        lock.sharedWriterAndCleanerLock();
+        Future<Object> exclusive = executor.submit( () ->
+        {
+            lock.writerLock();
+            return null;
+        } );
+        executor.untilWaitingIn( GBPTreeLock.class.getDeclaredMethod( "doLock", long.class ) );
+
+        // when
+        Future<Object> shared = sharedLocker.submit( () ->
+        {
+            lock.sharedWriterAndCleanerLock();
+            return null;
+        } );
+        sharedLocker.untilWaitingIn( GBPTreeLock.class.getDeclaredMethod( "doSharedLock", long.class ) );
+        lock.sharedWriterAndCleanerUnlock();
+
+        // then
+        exclusive.get();
+        assertFalse( shared.isDone() );
+        lock.writerUnlock();
+        shared.get();
+        lock.sharedWriterAndCleanerUnlock();
+        assertUU();
+    }
+
     @Test
     void test_race_ULvsUL()
     {
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.neo4j.io.fs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.neo4j.io.pagecache.context.CursorContext.NULL;
+import static org.neo4j.test.utils.PageCacheConfig.config;
+
+/**
+ * Compares size and seek throughput of a tree with {@link TreeNodeDynamicSize} leaves to one with {@link TreeNodeDynamicSizePrefixed}
+ * leaves, using byte-wise compared keys that share long prefixes, like {@code tenant-00042/https://example.com/users/0000001234}.
+ * The same keys, in random order, are inserted into both trees.
+ * <p>
+ * Arguments, all optional: number of keys (default: 2 000 000), number of seeks (default: 1 000 000).
+ */
+public class GBPTreePrefixCompressionBenchmark
+{
+    private static final long SEED_SCRAMBLER = 0x9E3779B97F4A7C15L;
+    private static final int TENANTS = 100;
+
+    private GBPTreePrefixCompressionBenchmark()
+    {
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+        int keys = args.length > 0 ? Integer.parseInt( args[0] ) : 2_000_000;
+        int seeks = args.length > 1 ? Integer.parseInt( args[1] ) : 1_000_000;
+        try ( EphemeralFileSystemAbstraction fs = new EphemeralFileSystemAbstraction();
+              PageCache pageCache = PageCacheSupportExtension.getPageCache( fs, config().withMemory( "1 GiB" ) ) )
+        {
+            run( fs, pageCache, "dynamic", new SimpleByteArrayLayout( false ), keys, seeks );
+            run( fs, pageCache, "prefixed", new SimpleByteArrayLayout( false )
+            {
+                @Override
+                public boolean compressKeyPrefixes()
+                {
+                    return true;
+                }
+            }, keys, seeks );
+        }
+    }
+
+    private static void run( EphemeralFileSystemAbstraction fs, PageCache pageCache, String name, SimpleByteArrayLayout layout, int keys, int seeks )
+            throws IOException
+    {
+        Path file = Path.of( "index-" + name );
+        try ( GBPTree<RawBytes,RawBytes> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            long startTime = System.nanoTime();
+            try ( Writer<RawBytes,RawBytes> writer = tree.writer( NULL ) )
+            {
+                for ( long i = 0; i < keys; i++ )
+                {
+                    writer.put( key( i * SEED_SCRAMBLER, keys ), RawBytes.EMPTY_BYTES );
+                }
+            }
+            long insertNanos = System.nanoTime() - startTime;
+            tree.checkpoint( NULL );
+
+            startTime = System.nanoTime();
+            long hits = 0;
+            for ( long i = 0; i < seeks; i++ )
+            {
+                RawBytes key = key( i * SEED_SCRAMBLER * 31, keys );
+                try ( Seeker<RawBytes,RawBytes> seeker = tree.seek( key, key, NULL ) )
+                {
+                    while ( seeker.next() )
+                    {
+                        hits++;
+                    }
+                }
+            }
+            long seekNanos = System.nanoTime() - startTime;
+            System.out.printf( "%-8s: %,14d bytes, %,12d inserts/s, %,12d seeks/s (%d hits)%n", name, fs.getFileSize( file ),
+                    keys * SECONDS.toNanos( 1 ) / insertNanos, seeks * SECONDS.toNanos( 1 ) / seekNanos, hits );
+        }
+    }
+
+    private static RawBytes key( long seed, int keys )
+    {
+        long id = Math.floorMod( seed, (long) keys );
+        RawBytes key = new RawBytes();
+        key.bytes = String.format( "tenant-%05d/https://example.com/users/%010d", id % TENANTS, id ).getBytes( UTF_8 );
+        return key;
+    }
+}
@@ -312,6 +312,26 @@ class GBPTreeTest
         }
     }
 
+    @Test
+    void shouldFailWhenTryingToOpenPrefixCompressedTreeWithoutCompressingKeyPrefixes() throws Exception
+    {
+        // GIVEN
+        try ( PageCache pageCache = createPageCache( defaultPageSize ) )
+        {
+            new GBPTreeBuilder<>( pageCache, indexFile, new SimpleByteArrayLayout( false )
+            {
+                @Override
+                public boolean compressKeyPrefixes()
+                {
+                    return true;
+                }
+            } ).build().close();
+
+            assertThatThrownBy( () -> new GBPTreeBuilder<>( pageCache, indexFile, new SimpleByteArrayLayout( false ) ).build() )
+                    .isInstanceOf( MetadataMismatchException.class );
+        }
+    }
+
     @Test
     void shouldReturnNoResultsOnEmptyIndex() throws Exception
     {
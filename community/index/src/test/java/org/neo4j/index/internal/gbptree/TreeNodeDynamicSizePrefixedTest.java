@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.NO;
+import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.YES;
+import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
+import static org.neo4j.io.pagecache.context.CursorContext.NULL;
+
+public class TreeNodeDynamicSizePrefixedTest extends TreeNodeTestBase<RawBytes,RawBytes>
+{
+    private static final String PREFIX = "tenant-00042/https://example.com/users/";
+
+    private final SimpleByteArrayLayout layout = new PrefixCompressedLayout( true );
+
+    @Override
+    protected TestLayout<RawBytes,RawBytes> getLayout()
+    {
+        return layout;
+    }
+
+    @Override
+    protected TreeNodeDynamicSizePrefixed<RawBytes,RawBytes> getNode( int pageSize, Layout<RawBytes,RawBytes> layout,
+            OffloadStore<RawBytes,RawBytes> offloadStore )
+    {
+        return new TreeNodeDynamicSizePrefixed<>( pageSize, layout, offloadStore );
+    }
+
+    @Override
+    void assertAdditionalHeader( PageCursor cursor, TreeNode<RawBytes,RawBytes> node, int pageSize )
+    {
+        TreeNodeDynamicSizePrefixed<RawBytes,RawBytes> prefixedNode = (TreeNodeDynamicSizePrefixed<RawBytes,RawBytes>) node;
+        assertEquals( pageSize, prefixedNode.getAllocOffset( cursor ), "allocSpace point to end of page" );
+        assertEquals( 0, prefixedNode.prefixLength( cursor ), "no prefix in new node" );
+    }
+
+    @Test
+    void shouldStoreCommonPrefixOnceAfterSplit() throws IOException
+    {
+        // given
+        TreeNodeDynamicSizePrefixed<RawBytes,RawBytes> node = byteWiseComparedNode();
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        List<RawBytes> keys = new ArrayList<>();
+        int keyCount = fillLeaf( node, keys );
+        int keyCountBeforePrefix = keyCount;
+
+        // when
+        PageAwareByteArrayCursor rightCursor = cursor.duplicate( 1 );
+        rightCursor.next();
+        node.initializeLeaf( rightCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        RawBytes newKey = key( keyCount );
+        keys.add( newKey );
+        node.doSplitLeaf( cursor, keyCount, rightCursor, keyCount, newKey, RawBytes.EMPTY_BYTES, new RawBytes(), 0.5,
+                STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+
+        // then
+        assertTrue( node.prefixLength( cursor ) >= PREFIX.length() );
+        assertTrue( node.prefixLength( rightCursor ) >= PREFIX.length() );
+        int leftKeyCount = TreeNode.keyCount( cursor );
+        int rightKeyCount = TreeNode.keyCount( rightCursor );
+        assertEquals( keys.size(), leftKeyCount + rightKeyCount );
+        assertKeys( node, cursor, keys.subList( 0, leftKeyCount ) );
+        assertKeys( node, rightCursor, keys.subList( leftKeyCount, keys.size() ) );
+
+        // and when filling the left leaf again
+        while ( node.leafOverflow( cursor, leftKeyCount, key( leftKeyCount ), RawBytes.EMPTY_BYTES ) == NO )
+        {
+            // keys sort before the ones in right sibling, but share the same prefix
+            node.insertKeyValueAt( cursor, key( leftKeyCount ), RawBytes.EMPTY_BYTES, leftKeyCount, leftKeyCount, STABLE_GENERATION,
+                    UNSTABLE_GENERATION, NULL );
+            TreeNode.setKeyCount( cursor, ++leftKeyCount );
+        }
+
+        // then it fits more keys than without the prefix
+        assertTrue( leftKeyCount > keyCountBeforePrefix, "Expected more than " + keyCountBeforePrefix + " keys, but was " + leftKeyCount );
+    }
+
+    @Test
+    void shouldShortenPrefixWhenInsertingKeyNotSharingIt() throws IOException
+    {
+        // given
+        TreeNodeDynamicSizePrefixed<RawBytes,RawBytes> node = byteWiseComparedNode();
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        List<RawBytes> keys = new ArrayList<>();
+        int keyCount = fillLeaf( node, keys );
+        PageAwareByteArrayCursor rightCursor = cursor.duplicate( 1 );
+        rightCursor.next();
+        node.initializeLeaf( rightCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.doSplitLeaf( cursor, keyCount, rightCursor, keyCount, key( keyCount ), RawBytes.EMPTY_BYTES, new RawBytes(), 0.5,
+                STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+        int leftKeyCount = TreeNode.keyCount( cursor );
+        List<RawBytes> leftKeys = new ArrayList<>( keys.subList( 0, leftKeyCount ) );
+        int prefixLengthBefore = node.prefixLength( cursor );
+
+        // when
+        RawBytes otherKey = new RawBytes( "tenant-00041/x".getBytes( UTF_8 ) );
+        assertEquals( NO, node.leafOverflow( cursor, leftKeyCount, otherKey, RawBytes.EMPTY_BYTES ) );
+        node.insertKeyValueAt( cursor, otherKey, RawBytes.EMPTY_BYTES, 0, leftKeyCount, STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+        TreeNode.setKeyCount( cursor, ++leftKeyCount );
+        leftKeys.add( 0, otherKey );
+
+        // then
+        assertTrue( node.prefixLength( cursor ) < prefixLengthBefore );
+        assertEquals( "tenant-0004".length(), node.prefixLength( cursor ) );
+        assertKeys( node, cursor, leftKeys );
+    }
+
+    @Test
+    void shouldSplitLeafWhenShorterPrefixDoesNotFit() throws IOException
+    {
+        // given
+        TreeNodeDynamicSizePrefixed<RawBytes,RawBytes> node = byteWiseComparedNode();
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        List<RawBytes> keys = new ArrayList<>();
+        int keyCount = fillLeaf( node, keys );
+        PageAwareByteArrayCursor rightCursor = cursor.duplicate( 1 );
+        rightCursor.next();
+        node.initializeLeaf( rightCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.doSplitLeaf( cursor, keyCount, rightCursor, keyCount, key( keyCount ), RawBytes.EMPTY_BYTES, new RawBytes(), 1,
+                STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+        int leftKeyCount = TreeNode.keyCount( cursor );
+        while ( node.leafOverflow( cursor, leftKeyCount, key( leftKeyCount ), RawBytes.EMPTY_BYTES ) == NO )
+        {
+            node.insertKeyValueAt( cursor, key( leftKeyCount ), RawBytes.EMPTY_BYTES, leftKeyCount, leftKeyCount, STABLE_GENERATION,
+                    UNSTABLE_GENERATION, NULL );
+            TreeNode.setKeyCount( cursor, ++leftKeyCount );
+        }
+        List<RawBytes> leftKeys = new ArrayList<>();
+        for ( int i = 0; i < leftKeyCount; i++ )
+        {
+            leftKeys.add( key( i ) );
+        }
+
+        // when
+        RawBytes otherKey = new RawBytes( "tenant-00043".getBytes( UTF_8 ) );
+        assertEquals( YES, node.leafOverflow( cursor, leftKeyCount, otherKey, RawBytes.EMPTY_BYTES ) );
+        PageAwareByteArrayCursor newRightCursor = cursor.duplicate( 2 );
+        newRightCursor.next();
+        node.initializeLeaf( newRightCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.doSplitLeaf( cursor, leftKeyCount, newRightCursor, leftKeyCount, otherKey, RawBytes.EMPTY_BYTES, new RawBytes(), 0.5,
+                STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+
+        // then the keys that share the long prefix keep it in the left leaf
+        int keyCountAfterSplit = TreeNode.keyCount( cursor );
+        assertTrue( node.prefixLength( cursor ) >= PREFIX.length() );
+        leftKeys.add( otherKey );
+        assertKeys( node, cursor, leftKeys.subList( 0, keyCountAfterSplit ) );
+        assertKeys( node, newRightCursor, leftKeys.subList( keyCountAfterSplit, leftKeys.size() ) );
+    }
+
+    @Test
+    void shouldMergeLeavesWithDifferentPrefixes() throws IOException
+    {
+        // given
+        TreeNodeDynamicSizePrefixed<RawBytes,RawBytes> node = byteWiseComparedNode();
+        List<RawBytes> leftKeys = new ArrayList<>();
+        List<RawBytes> rightKeys = new ArrayList<>();
+        for ( int i = 0; i < 4; i++ )
+        {
+            leftKeys.add( key( i ) );
+            rightKeys.add( new RawBytes( ("tenant-00043/" + i).getBytes( UTF_8 ) ) );
+        }
+        PageAwareByteArrayCursor leftCursor = prefixCompressedLeaf( node, 1, leftKeys );
+        PageAwareByteArrayCursor rightCursor = prefixCompressedLeaf( node, 2, rightKeys );
+        assertTrue( node.prefixLength( leftCursor ) >= PREFIX.length() );
+        assertEquals( "tenant-00043/".length(), node.prefixLength( rightCursor ) );
+
+        // when
+        assertTrue( node.canMergeLeaves( leftCursor, leftKeys.size(), rightCursor, rightKeys.size() ) );
+        node.copyKeyValuesFromLeftToRight( leftCursor, leftKeys.size(), rightCursor, rightKeys.size() );
+
+        // then
+        List<RawBytes> expectedKeys = new ArrayList<>( leftKeys );
+        expectedKeys.addAll( rightKeys );
+        assertEquals( "tenant-0004".length(), node.prefixLength( rightCursor ) );
+        assertKeys( node, rightCursor, expectedKeys );
+    }
+
+    /**
+     * Keys inserted into a leaf without prefix are written as is, the common prefix is only extracted when the leaf is rewritten,
+     * here by copying the entries of a scratch leaf into a new leaf.
+     */
+    private PageAwareByteArrayCursor prefixCompressedLeaf( TreeNodeDynamicSizePrefixed<RawBytes,RawBytes> node, long pageId, List<RawBytes> keys )
+            throws IOException
+    {
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        for ( int i = 0; i < keys.size(); i++ )
+        {
+            node.insertKeyValueAt( cursor, keys.get( i ), RawBytes.EMPTY_BYTES, i, i, STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+            TreeNode.setKeyCount( cursor, i + 1 );
+        }
+        assertEquals( 0, node.prefixLength( cursor ) );
+        PageAwareByteArrayCursor leafCursor = cursor.duplicate( pageId );
+        leafCursor.next();
+        node.initializeLeaf( leafCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.copyKeyValuesFromLeftToRight( cursor, keys.size(), leafCursor, 0 );
+        assertKeys( node, leafCursor, keys );
+        return leafCursor;
+    }
+
+    private TreeNodeDynamicSizePrefixed<RawBytes,RawBytes> byteWiseComparedNode()
+    {
+        return getNode( PAGE_SIZE, new PrefixCompressedLayout( false ), createOffloadStore() );
+    }
+
+    private int fillLeaf( TreeNodeDynamicSizePrefixed<RawBytes,RawBytes> node, List<RawBytes> keys ) throws IOException
+    {
+        int keyCount = 0;
+        while ( node.leafOverflow( cursor, keyCount, key( keyCount ), RawBytes.EMPTY_BYTES ) == NO )
+        {
+            RawBytes key = key( keyCount );
+            node.insertKeyValueAt( cursor, key, RawBytes.EMPTY_BYTES, keyCount, keyCount, STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+            keys.add( key );
+            TreeNode.setKeyCount( cursor, ++keyCount );
+        }
+        return keyCount;
+    }
+
+    private void assertKeys( TreeNode<RawBytes,RawBytes> node, PageCursor cursor, List<RawBytes> expectedKeys )
+    {
+        assertEquals( expectedKeys.size(), TreeNode.keyCount( cursor ) );
+        RawBytes readKey = layout.newKey();
+        for ( int pos = 0; pos < expectedKeys.size(); pos++ )
+        {
+            node.keyAt( cursor, readKey, pos, LEAF, NULL );
+            assertEquals( expectedKeys.get( pos ).toString(), readKey.toString() );
+        }
+    }
+
+    private static RawBytes key( int id )
+    {
+        return new RawBytes( String.format( "%s%06d", PREFIX, id ).getBytes( UTF_8 ) );
+    }
+
+    private static class PrefixCompressedLayout extends SimpleByteArrayLayout
+    {
+        PrefixCompressedLayout( boolean useFirstLongAsSeed )
+        {
+            super( useFirstLongAsSeed );
+        }
+
+        @Override
+        public boolean compressKeyPrefixes()
+        {
+            return true;
+        }
+    }
+}
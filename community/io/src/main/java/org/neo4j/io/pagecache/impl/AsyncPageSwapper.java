@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOController;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.impl.muninn.SwapperSet;
+import org.neo4j.io.pagecache.tracing.PageFileSwapperTracer;
+
+/**
+ * A {@link SingleFilePageSwapper} that keeps many reads or writes in flight for the vectored operations of the page cache.
+ * <p>
+ * Flushing and read-ahead hand the swapper runs of consecutive pages. Instead of moving such a run with a single vectored system call, which
+ * the storage device sees as one request at a time per thread, the run is split into up to {@code queueDepth} slices that are read or written
+ * concurrently, with positional reads and writes on the shared channel. One slice is always done by the calling thread, and the rest are submitted to
+ * the I/O executor. The call returns when all slices are done, since the page cache reuses the buffers as soon as it gets control back.
+ * <p>
+ * Reads and writes of single pages are passed through to the synchronous implementation.
+ */
+final class AsyncPageSwapper extends SingleFilePageSwapper
+{
+    private final Executor ioExecutor;
+    private final int queueDepth;
+    private final int filePageSize;
+
+    AsyncPageSwapper( Path path, FileSystemAbstraction fs, int filePageSize, PageEvictionCallback onEviction, boolean useDirectIO,
+            boolean preallocateStoreFiles, IOController ioController, SwapperSet swapperSet, PageFileSwapperTracer fileSwapperTracer,
+            Executor ioExecutor, int queueDepth ) throws IOException
+    {
+        super( path, fs, filePageSize, onEviction, useDirectIO, preallocateStoreFiles, ioController, swapperSet, fileSwapperTracer );
+        this.ioExecutor = ioExecutor;
+        this.queueDepth = queueDepth;
+        this.filePageSize = filePageSize;
+    }
+
+    @Override
+    public long read( long startFilePageId, long[] bufferAddresses, int[] bufferLengths, int length ) throws IOException
+    {
+        if ( length < 2 || queueDepth < 2 )
+        {
+            return super.read( startFilePageId, bufferAddresses, bufferLengths, length );
+        }
+        return swapConcurrently( startFilePageId, bufferAddresses, bufferLengths, length, false );
+    }
+
+    @Override
+    public long write( long startFilePageId, long[] bufferAddresses, int[] bufferLengths, int length, int totalAffectedPages ) throws IOException
+    {
+        if ( totalAffectedPages == 0 || length < 2 || queueDepth < 2 )
+        {
+            return super.write( startFilePageId, bufferAddresses, bufferLengths, length, totalAffectedPages );
+        }
+        return swapConcurrently( startFilePageId, bufferAddresses, bufferLengths, length, true );
+    }
+
+    private long swapConcurrently( long startFilePageId, long[] bufferAddresses, int[] bufferLengths, int length, boolean write ) throws IOException
+    {
+        int slices = Math.min( queueDepth, length );
+        int buffersPerSlice = (length + slices - 1) / slices;
+        slices = (length + buffersPerSlice - 1) / buffersPerSlice;
+
+        long[] sliceFilePageIds = new long[slices];
+        long filePageId = startFilePageId;
+        for ( int i = 0; i < length; i++ )
+        {
+            if ( i % buffersPerSlice == 0 )
+            {
+                sliceFilePageIds[i / buffersPerSlice] = filePageId;
+            }
+            filePageId += bufferLengths[i] / filePageSize;
+        }
+
+        @SuppressWarnings( "unchecked" )
+        FutureTask<Long>[] tasks = new FutureTask[slices - 1];
+        for ( int slice = 1; slice < slices; slice++ )
+        {
+            long sliceFilePageId = sliceFilePageIds[slice];
+            int firstBuffer = slice * buffersPerSlice;
+            int endBuffer = Math.min( length, firstBuffer + buffersPerSlice );
+            FutureTask<Long> task = new FutureTask<>( () -> swapSlice( sliceFilePageId, bufferAddresses, bufferLengths, firstBuffer, endBuffer, write ) );
+            submit( task );
+            tasks[slice - 1] = task;
+        }
+
+        long bytes = 0;
+        IOException failure = null;
+        try
+        {
+            bytes += swapSlice( startFilePageId, bufferAddresses, bufferLengths, 0, buffersPerSlice, write );
+        }
+        catch ( Throwable e )
+        {
+            failure = addFailure( null, e );
+        }
+        boolean interrupted = false;
+        for ( FutureTask<Long> task : tasks )
+        {
+            // The buffers belong to the page cache again once we return, so we must wait for every slice, even if we are interrupted.
+            for ( ;; )
+            {
+                try
+                {
+                    bytes += task.get();
+                    break;
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+                catch ( ExecutionException e )
+                {
+                    failure = addFailure( failure, e.getCause() );
+                    break;
+                }
+            }
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+        if ( failure != null )
+        {
+            throw failure;
+        }
+        return bytes;
+    }
+
+    private void submit( FutureTask<Long> task )
+    {
+        try
+        {
+            ioExecutor.execute( task );
+        }
+        catch ( RejectedExecutionException e )
+        {
+            task.run();
+        }
+    }
+
+    private long swapSlice( long filePageId, long[] bufferAddresses, int[] bufferLengths, int firstBuffer, int endBuffer, boolean write )
+            throws IOException
+    {
+        long bytes = 0;
+        for ( int i = firstBuffer; i < endBuffer; i++ )
+        {
+            int bufferLength = bufferLengths[i];
+            // Vectored writes are made on behalf of checkpoints, which report their own IO to the IO controller.
+            bytes += write ? write( filePageId, bufferAddresses[i], bufferLength, false ) : read( filePageId, bufferAddresses[i], bufferLength );
+            filePageId += bufferLength / filePageSize;
+        }
+        return bytes;
+    }
+
+    private static IOException addFailure( IOException failure, Throwable cause )
+    {
+        IOException exception = cause instanceof IOException ? (IOException) cause : new IOException( cause );
+        if ( failure == null )
+        {
+            return exception;
+        }
+        failure.addSuppressed( exception );
+        return failure;
+    }
+}
@@ -444,7 +444,7 @@ public class SingleFilePageSwapper implements PageSwapper
         return write( filePageId, bufferAddress, bufferLength, true );
     }
 
-    private int write( long filePageId, long bufferAddress, int bufferLength, boolean countIo ) throws IOException
+    int write( long filePageId, long bufferAddress, int bufferLength, boolean countIo ) throws IOException
     {
         long fileOffset = pageIdToPosition( filePageId );
         increaseFileSizeTo( fileOffset + bufferLength );
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * Every pin increments the usage stamp of the page, and every pass of the clock arm decrements it. Pages are evicted when the clock arm finds
+ * them with a usage stamp of at most one.
+ */
+final class ClockEvictionPolicy implements EvictionPolicy
+{
+    @Override
+    public void pinned( long pageRef, boolean faulted, boolean sequential )
+    {
+        PageList.incrementUsage( pageRef );
+    }
+
+    @Override
+    public long probationaryVictim()
+    {
+        return NO_VICTIM;
+    }
+
+    @Override
+    public void victimNotEvicted( long pageRef )
+    {
+    }
+
+    @Override
+    public boolean visit( long pageRef )
+    {
+        return PageList.decrementUsage( pageRef );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CLOCK";
+    }
+}
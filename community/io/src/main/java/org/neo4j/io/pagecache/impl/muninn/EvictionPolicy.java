@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+
+/**
+ * The eviction policy decides which pages the {@link MuninnPageCache} gives up when it needs free pages.
+ * <p>
+ * The page cache tells the policy about every pin of a page by a cursor that is not {@link org.neo4j.io.pagecache.PagedFile#PF_TRANSIENT transient},
+ * and asks it for victims when pages must be evicted. A policy first gets to offer victims of its own choosing through
+ * {@link #probationaryVictim()}, and if it has none, the page cache moves its clock arm over the pages and lets the policy decide on each of them
+ * through {@link #visit(long)}.
+ * <p>
+ * Policies are called concurrently from page faulting threads, cursors and the eviction thread, and must be thread-safe. All page references
+ * given to a policy are only guaranteed to stay bound to the same file page while the caller holds a lock on the page, so policies must treat the
+ * page state as advisory.
+ */
+public interface EvictionPolicy
+{
+    /**
+     * Returned by {@link #probationaryVictim()} when the policy has no victim to offer.
+     */
+    long NO_VICTIM = 0;
+
+    /**
+     * The classic clock policy, where every pin bumps the usage stamp of a page, and the clock arm evicts the pages whose stamps it has brought to zero.
+     */
+    Factory CLOCK = ( pageCount, tracer ) -> new ClockEvictionPolicy();
+
+    /**
+     * A scan resistant policy, where pages faulted in by sequential access are only admitted on probation, and are evicted in fault order before the
+     * clock arm gets to age any of the pages that have been referenced by random access.
+     */
+    Factory SCAN_RESISTANT = ScanResistantEvictionPolicy::new;
+
+    /**
+     * Called when a cursor has pinned the given page.
+     *
+     * @param pageRef the page that was pinned.
+     * @param faulted {@code true} if the page was faulted in by this pin, {@code false} if it was already in memory.
+     * @param sequential {@code true} if the cursor is accessing the file sequentially, e.g. because it is scanning it.
+     */
+    void pinned( long pageRef, boolean faulted, boolean sequential );
+
+    /**
+     * @return a page that the policy would like to see evicted before the clock arm moves, or {@link #NO_VICTIM}.
+     */
+    long probationaryVictim();
+
+    /**
+     * Called when a victim offered by {@link #probationaryVictim()} could not be evicted, e.g. because it was locked at the time.
+     * The policy gets the page back and may offer it again later.
+     *
+     * @param pageRef the victim that is still in the page cache.
+     */
+    void victimNotEvicted( long pageRef );
+
+    /**
+     * Called when the clock arm passes the given loaded page.
+     *
+     * @param pageRef the page under the clock arm.
+     * @return {@code true} if the page should be evicted.
+     */
+    boolean visit( long pageRef );
+
+    /**
+     * Creates the eviction policy of a page cache.
+     */
+    @FunctionalInterface
+    interface Factory
+    {
+        /**
+         * @param pageCount the number of pages in the page cache.
+         * @param tracer the page cache tracer that the policy should report its events to.
+         * @return a new eviction policy for a page cache with the given number of pages.
+         */
+        EvictionPolicy create( int pageCount, PageCacheTracer tracer );
+    }
+}
@@ -109,6 +109,21 @@ final class LatchMap
         return null;
     }
 
+    /**
+     * Like {@link #takeOrAwaitLatch(long)}, except that if a latch is currently installed for the given (or any colliding) identifier, then
+     * {@code null} will be returned right away, instead of waiting for that latch to be released.
+     */
+    Latch tryTakeLatch( long identifier )
+    {
+        int index = index( identifier );
+        if ( getLatch( index ) != null )
+        {
+            return null;
+        }
+        Latch latch = new Latch( this, index );
+        return tryInsertLatch( index, latch ) ? latch : null;
+    }
+
     private int index( long identifier )
     {
         return (int) (identifier & faultLockMask);
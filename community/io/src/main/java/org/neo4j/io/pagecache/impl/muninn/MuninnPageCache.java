@@ -170,6 +170,8 @@ public class MuninnPageCache implements PageCache
     private final int faultLockStriping;
     private final boolean preallocateStoreFiles;
     private final boolean enableEvictionThread;
+    final EvictionPolicy evictionPolicy;
+    final int readAheadThreshold;
     final PageList pages;
     // All PageCursors are initialised with their pointers pointing to the victim page. This way, we don't have to throw
     // exceptions on bounds checking failures; we can instead return the victim page pointer, and permit the page
@@ -244,10 +246,13 @@ public class MuninnPageCache implements PageCache
         private final boolean enableEvictionThread;
         private final boolean preallocateStoreFiles;
         private final int reservedPageSize;
+        private final EvictionPolicy.Factory evictionPolicy;
+        private final int readAheadThreshold;
 
         private Configuration( MemoryAllocator memoryAllocator, SystemNanoClock clock, MemoryTracker memoryTracker, PageCacheTracer pageCacheTracer,
                 int pageSize, IOBufferFactory bufferFactory, int faultLockStriping,
-                boolean enableEvictionThread, boolean preallocateStoreFiles, int reservedPageSize )
+                boolean enableEvictionThread, boolean preallocateStoreFiles, int reservedPageSize, EvictionPolicy.Factory evictionPolicy,
+                int readAheadThreshold )
         {
             this.memoryAllocator = memoryAllocator;
             this.clock = clock;
@@ -259,6 +264,8 @@ public class MuninnPageCache implements PageCache
             this.faultLockStriping = faultLockStriping;
             this.enableEvictionThread = enableEvictionThread;
             this.preallocateStoreFiles = preallocateStoreFiles;
+            this.evictionPolicy = evictionPolicy;
+            this.readAheadThreshold = readAheadThreshold;
         }
 
         /**
@@ -267,7 +274,8 @@ public class MuninnPageCache implements PageCache
         public Configuration memoryAllocator( MemoryAllocator memoryAllocator )
         {
             return new Configuration( memoryAllocator, clock, memoryTracker, pageCacheTracer, pageSize, bufferFactory,
-                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize );
+                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize, evictionPolicy,
+                    readAheadThreshold );
         }
 
         /**
@@ -276,7 +284,8 @@ public class MuninnPageCache implements PageCache
         public Configuration clock( SystemNanoClock clock )
         {
             return new Configuration( memoryAllocator, clock, memoryTracker, pageCacheTracer, pageSize, bufferFactory,
-                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize );
+                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize, evictionPolicy,
+                    readAheadThreshold );
         }
 
         /**
@@ -285,7 +294,8 @@ public class MuninnPageCache implements PageCache
         public Configuration memoryTracker( MemoryTracker memoryTracker )
         {
             return new Configuration( memoryAllocator, clock, memoryTracker, pageCacheTracer, pageSize, bufferFactory,
-                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize );
+                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize, evictionPolicy,
+                    readAheadThreshold );
         }
 
         /**
@@ -294,7 +304,8 @@ public class MuninnPageCache implements PageCache
         public Configuration pageCacheTracer( PageCacheTracer pageCacheTracer )
         {
             return new Configuration( memoryAllocator, clock, memoryTracker, pageCacheTracer, pageSize, bufferFactory,
-                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize );
+                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize, evictionPolicy,
+                    readAheadThreshold );
         }
 
         /**
@@ -303,7 +314,8 @@ public class MuninnPageCache implements PageCache
         public Configuration pageSize( int pageSize )
         {
             return new Configuration( memoryAllocator, clock, memoryTracker, pageCacheTracer, pageSize, bufferFactory,
-                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize );
+                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize, evictionPolicy,
+                    readAheadThreshold );
         }
 
         /**
@@ -312,7 +324,8 @@ public class MuninnPageCache implements PageCache
         public Configuration bufferFactory( IOBufferFactory bufferFactory )
         {
             return new Configuration( memoryAllocator, clock, memoryTracker, pageCacheTracer, pageSize, bufferFactory,
-                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize );
+                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize, evictionPolicy,
+                    readAheadThreshold );
         }
 
         /**
@@ -321,7 +334,8 @@ public class MuninnPageCache implements PageCache
         public Configuration reservedPageBytes( int reservedPageBytes )
         {
             return new Configuration( memoryAllocator, clock, memoryTracker, pageCacheTracer, pageSize, bufferFactory,
-                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageBytes );
+                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageBytes, evictionPolicy,
+                    readAheadThreshold );
         }
 
         /**
@@ -330,7 +344,8 @@ public class MuninnPageCache implements PageCache
         public Configuration faultLockStriping( int faultLockStriping )
         {
             return new Configuration( memoryAllocator, clock, memoryTracker, pageCacheTracer, pageSize, bufferFactory,
-                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize );
+                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize, evictionPolicy,
+                    readAheadThreshold );
         }
 
         /**
@@ -339,7 +354,8 @@ public class MuninnPageCache implements PageCache
         public Configuration disableEvictionThread()
         {
             return new Configuration( memoryAllocator, clock, memoryTracker, pageCacheTracer, pageSize, bufferFactory,
-                    faultLockStriping, false, preallocateStoreFiles, reservedPageSize );
+                    faultLockStriping, false, preallocateStoreFiles, reservedPageSize, evictionPolicy,
+                    readAheadThreshold );
         }
 
         /**
@@ -348,7 +364,30 @@ public class MuninnPageCache implements PageCache
         public Configuration preallocateStoreFiles( boolean preallocateStoreFiles )
         {
             return new Configuration( memoryAllocator, clock, memoryTracker, pageCacheTracer, pageSize, bufferFactory,
-                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize );
+                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize, evictionPolicy,
+                    readAheadThreshold );
+        }
+
+        /**
+         * @param evictionPolicy the policy that decides which pages to evict when the page cache needs free pages.
+         */
+        public Configuration evictionPolicy( EvictionPolicy.Factory evictionPolicy )
+        {
+            return new Configuration( memoryAllocator, clock, memoryTracker, pageCacheTracer, pageSize, bufferFactory,
+                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize, evictionPolicy,
+                    readAheadThreshold );
+        }
+
+        /**
+         * @param readAheadThreshold the number of consecutive page faults after which the page cache starts reading ahead of a cursor that is
+         * scanning a file, as if the cursor had been opened with {@link org.neo4j.io.pagecache.PagedFile#PF_READ_AHEAD}, or zero to only read
+         * ahead for the cursors that are opened with that flag.
+         */
+        public Configuration readAheadThreshold( int readAheadThreshold )
+        {
+            return new Configuration( memoryAllocator, clock, memoryTracker, pageCacheTracer, pageSize, bufferFactory,
+                    faultLockStriping, enableEvictionThread, preallocateStoreFiles, reservedPageSize, evictionPolicy,
+                    readAheadThreshold );
         }
     }
 
@@ -368,7 +407,7 @@ public class MuninnPageCache implements PageCache
     public static Configuration config( MemoryAllocator memoryAllocator )
     {
         return new Configuration( memoryAllocator, Clocks.nanoClock(), EmptyMemoryTracker.INSTANCE, PageCacheTracer.NULL,
-                PAGE_SIZE, DISABLED_BUFFER_FACTORY, LatchMap.faultLockStriping, true, true, 0 );
+                PAGE_SIZE, DISABLED_BUFFER_FACTORY, LatchMap.faultLockStriping, true, true, 0, EvictionPolicy.CLOCK, 0 );
     }
 
     /**
@@ -399,6 +438,8 @@ public class MuninnPageCache implements PageCache
         this.faultLockStriping = configuration.faultLockStriping;
         this.enableEvictionThread = configuration.enableEvictionThread;
         this.preallocateStoreFiles = configuration.preallocateStoreFiles;
+        this.evictionPolicy = configuration.evictionPolicy.create( maxPages, pageCacheTracer );
+        this.readAheadThreshold = configuration.readAheadThreshold;
         setFreelistHead( new AtomicInteger() );
 
         // Expose the total number of pages
@@ -874,6 +915,28 @@ public class MuninnPageCache implements PageCache
         // to check and see if it is the shutdownSignal instance. If that's the
         // case, then the page cache has been shut down, and we should throw an
         // exception from our page fault routine.
+        for (;;)
+        {
+            long pageRef = tryGrabFreeAndExclusivelyLockedPage( faultEvent );
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+            unparkEvictor();
+            pageRef = cooperativelyEvict( faultEvent );
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+        }
+    }
+
+    /**
+     * Grab a page from the freelist, like {@link #grabFreeAndExclusivelyLockedPage(PageFaultEvent)} does, but never evict a page to get one.
+     * @return the grabbed page, or zero if the freelist is empty.
+     */
+    long tryGrabFreeAndExclusivelyLockedPage( PageFaultEvent faultEvent ) throws IOException
+    {
         Object current;
         for (;;)
         {
@@ -881,12 +944,7 @@ public class MuninnPageCache implements PageCache
             current = getFreelistHead();
             if ( current == null )
             {
-                unparkEvictor();
-                long pageRef = cooperativelyEvict( faultEvent );
-                if ( pageRef != 0 )
-                {
-                    return pageRef;
-                }
+                return 0;
             }
             else if ( current instanceof AtomicInteger )
             {
@@ -952,6 +1010,16 @@ public class MuninnPageCache implements PageCache
                 return 0;
             }
 
+            pageRef = evictionPolicy.probationaryVictim();
+            if ( pageRef != EvictionPolicy.NO_VICTIM )
+            {
+                if ( pages.tryEvict( pageRef, faultEvent ) )
+                {
+                    return pageRef;
+                }
+                evictionPolicy.victimNotEvicted( pageRef );
+            }
+
             if ( clockArm == pageCount )
             {
                 if ( iterations == cooperativeEvictionLiveLockThreshold )
@@ -963,7 +1031,7 @@ public class MuninnPageCache implements PageCache
             }
 
             pageRef = pages.deref( clockArm );
-            if ( PageList.isLoaded( pageRef ) && PageList.decrementUsage( pageRef ) )
+            if ( PageList.isLoaded( pageRef ) && evictionPolicy.visit( pageRef ) )
             {
                 evicted = pages.tryEvict( pageRef, faultEvent );
             }
@@ -1111,8 +1179,14 @@ public class MuninnPageCache implements PageCache
                 return 0;
             }
 
-            long pageRef = pages.deref( clockArm );
-            if ( PageList.isLoaded( pageRef ) && PageList.decrementUsage( pageRef ) )
+            // The eviction policy gets to offer its own victims before we move the clock arm.
+            long pageRef = evictionPolicy.probationaryVictim();
+            boolean probationary = pageRef != EvictionPolicy.NO_VICTIM;
+            if ( !probationary )
+            {
+                pageRef = pages.deref( clockArm );
+            }
+            if ( probationary || (PageList.isLoaded( pageRef ) && evictionPolicy.visit( pageRef )) )
             {
                 try
                 {
@@ -1122,6 +1196,10 @@ public class MuninnPageCache implements PageCache
                         clearEvictorException();
                         addFreePageToFreelist( pageRef, evictionRunEvent );
                     }
+                    else if ( probationary )
+                    {
+                        evictionPolicy.victimNotEvicted( pageRef );
+                    }
                 }
                 catch ( IOException e )
                 {
@@ -1138,7 +1216,10 @@ public class MuninnPageCache implements PageCache
                 }
             }
 
-            clockArm++;
+            if ( !probationary )
+            {
+                clockArm++;
+            }
         }
 
         return clockArm;
@@ -1207,8 +1288,8 @@ public class MuninnPageCache implements PageCache
 
     void startPreFetching( MuninnPageCursor cursor, CursorFactory cursorFactory )
     {
-        PreFetcher preFetcher = new PreFetcher( cursor, cursorFactory, pageCacheTracer, clock );
         var pagedFile = cursor.pagedFile;
+        PreFetcher preFetcher = new PreFetcher( cursor, pagedFile, cursorFactory, pageCacheTracer, clock );
         var fileName = pagedFile.swapper.path().getFileName();
         var monitoringParams = systemJob( pagedFile.databaseName, "Pre-fetching of file '" + fileName + "'" );
         cursor.preFetcher = scheduler.schedule( Group.PAGE_CACHE_PRE_FETCHER, monitoringParams, preFetcher );
@@ -43,6 +43,8 @@ import org.neo4j.util.VisibleForTesting;
 
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.UNMAPPED_TTE;
@@ -76,7 +78,13 @@ public abstract class MuninnPageCursor extends PageCursor
     protected boolean eagerFlush;
     protected boolean noFault;
     protected boolean noGrow;
-    protected boolean updateUsage;
+    private boolean updateUsage;
+    private boolean readAhead;
+    private long lastPinnedPageId;
+    private EvictionPolicy evictionPolicy;
+    private int readAheadThreshold;
+    private int sequentialFaults;
+    private long lastFaultedPageId;
     @SuppressWarnings( "unused" ) // accessed via VarHandle.
     private long currentPageId;
     private static final VarHandle CURRENT_PAGE_ID;
@@ -129,10 +137,25 @@ public abstract class MuninnPageCursor extends PageCursor
         this.pf_flags = pf_flags;
         this.eagerFlush = isFlagRaised( pf_flags, PF_EAGER_FLUSH );
         this.updateUsage = !isFlagRaised( pf_flags, PF_TRANSIENT );
+        this.readAhead = isFlagRaised( pf_flags, PF_READ_AHEAD );
+        this.lastPinnedPageId = UNBOUND_PAGE_ID;
+        this.evictionPolicy = pagedFile.pageCache.evictionPolicy;
         this.noFault = isFlagRaised( pf_flags, PF_NO_FAULT );
+        boolean mayReadAhead = isFlagRaised( pf_flags, PF_SHARED_READ_LOCK ) && !readAhead && !noFault;
+        this.readAheadThreshold = mayReadAhead ? pagedFile.pageCache.readAheadThreshold : 0;
+        this.sequentialFaults = 0;
+        this.lastFaultedPageId = UNBOUND_PAGE_ID;
         this.noGrow = noFault || isFlagRaised( pf_flags, PagedFile.PF_NO_GROW );
     }
 
+    /**
+     * Never start reading ahead of this cursor, no matter how it moves through the file. Used by cursors that are themselves reading ahead.
+     */
+    void disableReadAheadDetection()
+    {
+        this.readAheadThreshold = 0;
+    }
+
     private static boolean isFlagRaised( int flagSet, int flag )
     {
         return (flagSet & flag) == flag;
@@ -231,10 +254,10 @@ public abstract class MuninnPageCursor extends PageCursor
             cursor.pagedFile = null;
             // Signal to any pre-fetchers that the cursor is closed.
             cursor.storeCurrentPageId( UNBOUND_PAGE_ID );
-            if ( preFetcher != null )
+            if ( cursor.preFetcher != null )
             {
-                preFetcher.cancel();
-                preFetcher = null;
+                cursor.preFetcher.cancel();
+                cursor.preFetcher = null;
             }
             cursor = cursor.linkedCursor;
         }
@@ -351,6 +374,7 @@ public abstract class MuninnPageCursor extends PageCursor
                 if ( locked && PageList.isBoundTo( pageRef, swapperId, filePageId ) )
                 {
                     pinCursorToPage( pageRef, filePageId, swapper );
+                    recordPin( pageRef, filePageId, false );
                     pinEvent.hit();
                     return;
                 }
@@ -391,6 +415,8 @@ public abstract class MuninnPageCursor extends PageCursor
                 // Sweet, we didn't race with any other fault on this translation table entry.
                 long pageRef = pageFault( filePageId, swapper, chunkIndex, chunk, latch );
                 pinCursorToPage( pageRef, filePageId, swapper );
+                recordPin( pageRef, filePageId, true );
+                detectSequentialScan( filePageId );
                 return true;
             }
             // Oops, looks like we raced with another page fault on this file page.
@@ -403,6 +429,39 @@ public abstract class MuninnPageCursor extends PageCursor
         return false;
     }
 
+    /**
+     * Tell the eviction policy that we have pinned the given page, unless this is a transient cursor.
+     * The access counts as sequential if the cursor was opened for read-ahead, or if it moved to the page right after the one it pinned last.
+     * Pinning the same page again does not count as sequential, because that is how hot pages are accessed over and over.
+     */
+    private void recordPin( long pageRef, long filePageId, boolean faulted )
+    {
+        if ( updateUsage )
+        {
+            long distance = filePageId - lastPinnedPageId;
+            boolean sequential = readAhead || (lastPinnedPageId != UNBOUND_PAGE_ID && distance == 1);
+            lastPinnedPageId = filePageId;
+            evictionPolicy.pinned( pageRef, faulted, sequential );
+        }
+    }
+
+    /**
+     * Start reading ahead of this cursor in the background, if it has faulted in enough consecutive file pages, in either direction, to look like
+     * it is scanning the file.
+     */
+    private void detectSequentialScan( long filePageId )
+    {
+        if ( readAheadThreshold > 0 && preFetcher == null )
+        {
+            sequentialFaults = Math.abs( filePageId - lastFaultedPageId ) == 1 ? sequentialFaults + 1 : 1;
+            lastFaultedPageId = filePageId;
+            if ( sequentialFaults >= readAheadThreshold )
+            {
+                pagedFile.startPreFetching( this );
+            }
+        }
+    }
+
     private long pageFault( long filePageId, PageSwapper swapper, int chunkIndex, int[] chunk, LatchMap.Latch latch ) throws IOException
     {
         // We are page faulting. This is a critical time, because we currently have the given latch in the chunk array
@@ -47,6 +47,8 @@ import org.neo4j.io.pagecache.tracing.FlushEvent;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
+import org.neo4j.io.pagecache.tracing.PinEvent;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 
 final class MuninnPagedFile extends PageList implements PagedFile, Flushable
 {
@@ -218,11 +220,16 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         cursor.rewind();
         if ( ( pf_flags & PF_READ_AHEAD ) == PF_READ_AHEAD && ( pf_flags & PF_NO_FAULT ) != PF_NO_FAULT )
         {
-            pageCache.startPreFetching( cursor, cursorFactory );
+            startPreFetching( cursor );
         }
         return cursor;
     }
 
+    void startPreFetching( MuninnPageCursor cursor )
+    {
+        pageCache.startPreFetching( cursor, cursorFactory );
+    }
+
     private static IllegalArgumentException wrongLocksArgument( int lockFlags )
     {
         if ( lockFlags == 0 )
@@ -828,6 +835,120 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return pageCache.grabFreeAndExclusivelyLockedPage( faultEvent );
     }
 
+    /**
+     * Read a run of consecutive file pages into free pages with a single vectored read, ahead of a cursor that is scanning this file.
+     * The run starts at the given file page, and ends before the first page that is in memory or is being faulted in by someone else, or when the
+     * end of the file is reached, or when the freelist runs out of pages. Reading ahead never evicts any pages.
+     * @param startFilePageId The first file page of the run.
+     * @param maxPages The maximum number of pages to read.
+     * @param tracer The cursor tracer that the page faults of the read pages are reported to.
+     * @return The number of pages that were read, or zero if not even the first page could be read ahead.
+     */
+    int readAhead( long startFilePageId, int maxPages, PageCursorTracer tracer ) throws IOException
+    {
+        int length = (int) Math.min( maxPages, getLastPageId() - startFilePageId + 1 );
+        if ( length <= 0 )
+        {
+            return 0;
+        }
+        int[][] tt = translationTable;
+        int maxChunkId = computeChunkId( startFilePageId + length - 1 );
+        if ( tt.length <= maxChunkId )
+        {
+            tt = expandCapacity( maxChunkId );
+        }
+
+        long[] pageRefs = new long[length];
+        LatchMap.Latch[] latches = new LatchMap.Latch[length];
+        int pages = 0;
+        try
+        {
+            while ( pages < length && isUnmappedAndLatched( tt, startFilePageId + pages, latches, pages ) )
+            {
+                long pageRef = pageCache.tryGrabFreeAndExclusivelyLockedPage( PageFaultEvent.NULL );
+                if ( pageRef == 0 )
+                {
+                    break;
+                }
+                initBuffer( pageRef );
+                pageRefs[pages++] = pageRef;
+            }
+            if ( pages == 0 )
+            {
+                return 0;
+            }
+
+            long bytesRead;
+            try
+            {
+                // Check if we're racing with unmapping, like a page fault does, now that we hold the locks of the pages.
+                getLastPageId();
+                bytesRead = PageList.fault( pageRefs, pages, swapper, swapperId, startFilePageId, filePageSize );
+            }
+            catch ( Throwable throwable )
+            {
+                // Unlock the pages, so the eviction thread can pick up our trash.
+                for ( int i = 0; i < pages; i++ )
+                {
+                    PageList.unlockExclusive( pageRefs[i] );
+                }
+                throw throwable;
+            }
+            pageCacheTracer.readAheads( 1 );
+            pageCacheTracer.readAheadPages( pages );
+            for ( int i = 0; i < pages; i++ )
+            {
+                long filePageId = startFilePageId + i;
+                long pageRef = pageRefs[i];
+                int pageId = toId( pageRef );
+                TRANSLATION_TABLE_ARRAY.setVolatile( tt[computeChunkId( filePageId )], computeChunkIndex( filePageId ), pageId );
+                pageCache.evictionPolicy.pinned( pageRef, true, true );
+                PageList.unlockExclusive( pageRef );
+                reportReadAheadFault( tracer, filePageId, pageId, Math.min( Math.max( bytesRead - (long) i * filePageSize, 0 ), filePageSize ) );
+            }
+            return pages;
+        }
+        finally
+        {
+            for ( LatchMap.Latch latch : latches )
+            {
+                if ( latch != null )
+                {
+                    latch.release();
+                }
+            }
+        }
+    }
+
+    private boolean isUnmappedAndLatched( int[][] tt, long filePageId, LatchMap.Latch[] latches, int index )
+    {
+        int[] chunk = tt[computeChunkId( filePageId )];
+        int chunkIndex = computeChunkIndex( filePageId );
+        if ( (int) TRANSLATION_TABLE_ARRAY.getVolatile( chunk, chunkIndex ) != UNMAPPED_TTE )
+        {
+            return false;
+        }
+        LatchMap.Latch latch = pageFaultLatches.tryTakeLatch( filePageId );
+        if ( latch == null )
+        {
+            return false;
+        }
+        latches[index] = latch;
+        // Double-check that no page fault completed in-between our look up and us getting the latch.
+        return (int) TRANSLATION_TABLE_ARRAY.getVolatile( chunk, chunkIndex ) == UNMAPPED_TTE;
+    }
+
+    private void reportReadAheadFault( PageCursorTracer tracer, long filePageId, int pageId, long bytesRead )
+    {
+        PinEvent pinEvent = tracer.beginPin( false, filePageId, swapper );
+        pinEvent.setCachePageId( pageId );
+        PageFaultEvent faultEvent = pinEvent.beginPageFault( filePageId, swapper );
+        faultEvent.addBytesRead( bytesRead );
+        faultEvent.setCachePageId( pageId );
+        faultEvent.done();
+        pinEvent.done();
+    }
+
     /**
      * Remove the mapping of the given filePageId from the translation table, and return the evicted page object.
      * @param filePageId The id of the file page to evict.
@@ -79,10 +79,6 @@ final class MuninnReadPageCursor extends MuninnPageCursor
     protected void pinCursorToPage( long pageRef, long filePageId, PageSwapper swapper )
     {
         reset( pageRef );
-        if ( updateUsage )
-        {
-            PageList.incrementUsage( pageRef );
-        }
     }
 
     @Override
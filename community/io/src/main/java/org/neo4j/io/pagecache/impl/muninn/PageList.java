@@ -439,6 +439,43 @@ class PageList implements PageReferenceTranslator
         setSwapperId( pageRef, swapperId ); // Page now considered isBoundTo( swapper, filePageId )
     }
 
+    /**
+     * Fault in the given number of consecutive file pages, starting from the given file page id, into the given pages with a single vectored read.
+     * The pages must be exclusively locked and unbound, just like for a single page {@link #fault(long, PageSwapper, int, long, PageFaultEvent) fault}.
+     *
+     * @return the number of bytes read from the file.
+     */
+    static long fault( long[] pageRefs, int length, PageSwapper swapper, int swapperId, long startFilePageId, int filePageSize ) throws IOException
+    {
+        if ( swapper == null )
+        {
+            throw swapperCannotBeNull();
+        }
+        long[] bufferAddresses = new long[length];
+        int[] bufferLengths = new int[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageRef = pageRefs[i];
+            long filePageId = startFilePageId + i;
+            int currentSwapper = getSwapperId( pageRef );
+            long currentFilePageId = getFilePageId( pageRef );
+            if ( !isExclusivelyLocked( pageRef ) || currentSwapper != 0 || currentFilePageId != PageCursor.UNBOUND_PAGE_ID )
+            {
+                throw cannotFaultException( pageRef, swapper, swapperId, filePageId, currentSwapper, currentFilePageId );
+            }
+            // Same as for the single page fault; the file page id is assigned before we swap in, and the swapper only after the swapping succeeded.
+            setFilePageId( pageRef, filePageId );
+            bufferAddresses[i] = getAddress( pageRef );
+            bufferLengths[i] = filePageSize;
+        }
+        long bytesRead = swapper.read( startFilePageId, bufferAddresses, bufferLengths, length );
+        for ( int i = 0; i < length; i++ )
+        {
+            setSwapperId( pageRefs[i], swapperId );
+        }
+        return bytesRead;
+    }
+
     private static IllegalArgumentException swapperCannotBeNull()
     {
         return new IllegalArgumentException( "swapper cannot be null" );
@@ -25,7 +25,6 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 
 import org.neo4j.internal.unsafe.UnsafeUtil;
-import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.context.CursorContext;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.scheduler.CancelListener;
@@ -33,6 +32,7 @@ import org.neo4j.time.SystemNanoClock;
 
 import static org.neo4j.io.pagecache.PageCursor.UNBOUND_PAGE_ID;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.util.FeatureToggles.getInteger;
 
 /**
  * An adaptive page pre-fetcher for sequential scans, for either forwards (increasing page id order) or backwards (decreasing page id order) scans.
@@ -45,6 +45,10 @@ import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
  * too much synchronisation overhead on the scanner. Because this does not form a "synchronises-with" edge in Java Memory Model palace, we say that the
  * scanning cursor is being "weakly" observed. Ordered stores have compiler barriers, but no CPU or cache coherence barriers beyond plain stores.
  *
+ * Pages ahead of the scanning cursor that are not in memory are read in runs of consecutive pages, with a single vectored read per run, straight
+ * into free pages of the page cache. The pre-fetcher does not evict pages to make room for these reads, so once the freelist runs dry, the
+ * pre-fetcher falls back to faulting in one page at a time, like the scanning cursor would.
+ *
  * The pre-fetcher is adaptive because the number of pages the pre-fetcher will move ahead of the scanning cursor, and the length of time the pre-fetcher
  * will wait in between checking on the progress of the scanner, are dynamically computed and updated based on how fast the scanner appears to be.
  * The pre-fetcher also automatically figures out if the scanner is scanning the file in a forward or backwards direction.
@@ -52,7 +56,9 @@ import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 class PreFetcher implements Runnable, CancelListener
 {
     private static final String TRACER_PRE_FETCHER_TAG = "Pre-fetcher";
+    private static final int maxReadAheadPages = getInteger( PreFetcher.class, "maxReadAheadPages", 32 );
     private final MuninnPageCursor observedCursor;
+    private final MuninnPagedFile pagedFile;
     private final CursorFactory cursorFactory;
     private final PageCacheTracer tracer;
     private final SystemNanoClock clock;
@@ -62,9 +68,10 @@ class PreFetcher implements Runnable, CancelListener
     private long tripCount;
     private long pauseNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
 
-    PreFetcher( MuninnPageCursor observedCursor, CursorFactory cursorFactory, PageCacheTracer tracer, SystemNanoClock clock )
+    PreFetcher( MuninnPageCursor observedCursor, MuninnPagedFile pagedFile, CursorFactory cursorFactory, PageCacheTracer tracer, SystemNanoClock clock )
     {
         this.observedCursor = observedCursor;
+        this.pagedFile = pagedFile;
         this.cursorFactory = cursorFactory;
         this.tracer = tracer;
         this.clock = clock;
@@ -124,8 +131,9 @@ class PreFetcher implements Runnable, CancelListener
         long jump = offset;
 
         try ( var tracer = this.tracer.createPageCursorTracer( TRACER_PRE_FETCHER_TAG );
-                PageCursor prefetchCursor = cursorFactory.takeReadCursor( 0, PF_SHARED_READ_LOCK, new CursorContext( tracer ) ) )
+                MuninnPageCursor prefetchCursor = cursorFactory.takeReadCursor( 0, PF_SHARED_READ_LOCK, new CursorContext( tracer ) ) )
         {
+            prefetchCursor.disableReadAheadDetection();
             currentPageId = getCurrentObservedPageId();
             while ( currentPageId != UNBOUND_PAGE_ID )
             {
@@ -142,11 +150,21 @@ class PreFetcher implements Runnable, CancelListener
                 }
                 while ( fromPage < toPage )
                 {
-                    if ( !prefetchCursor.next( fromPage ) || cancelled )
+                    if ( cancelled )
+                    {
+                        return;
+                    }
+                    int pages = pagedFile.readAhead( fromPage, (int) Math.min( toPage - fromPage, maxReadAheadPages ), tracer );
+                    if ( pages == 0 )
                     {
-                        return; // Reached the end of the file. Or got cancelled.
+                        // The page is already in memory, or it could not be read ahead. Touch it with our cursor instead.
+                        if ( !prefetchCursor.next( fromPage ) )
+                        {
+                            return; // Reached the end of the file.
+                        }
+                        pages = 1;
                     }
-                    fromPage++;
+                    fromPage += pages;
                 }
 
                 // Phase 3.5: After each prefetch round, we wait for the cursor to move again.
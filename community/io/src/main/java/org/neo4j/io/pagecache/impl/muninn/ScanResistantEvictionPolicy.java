@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.neo4j.internal.helpers.Numbers;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+
+/**
+ * A 2Q style eviction policy that keeps sequential scans from flushing the working set out of the page cache.
+ * <p>
+ * Pages faulted in by a cursor that is moving sequentially through a file are admitted on probation: their usage stamp is left at zero, and they are
+ * put in a bounded probation queue, in fault order. Sequential hits do not change the usage stamp of a page, so a scan touching a page cannot make it
+ * look hot. Only a hit by random access promotes a probationary page into the protected part of the cache, which is managed by the ordinary clock.
+ * <p>
+ * When the page cache needs free pages, the probation queue is drained first, and the clock arm only moves, and thereby ages the protected pages,
+ * once the queue has no more victims to offer. A large scan thus recycles its own pages instead of aging out the pages that index lookups and
+ * other random accesses keep coming back to.
+ * <p>
+ * The probation queue holds up to a quarter of the pages in the cache. If it is full, a page is still admitted with a usage stamp of zero, and the
+ * clock arm will evict it the first time it passes it.
+ */
+final class ScanResistantEvictionPolicy implements EvictionPolicy
+{
+    private static final int PROBATION_SHARE_DIVISOR = 4;
+
+    private final PageCacheTracer tracer;
+    private final ProbationQueue probation;
+
+    ScanResistantEvictionPolicy( int pageCount, PageCacheTracer tracer )
+    {
+        this.tracer = tracer;
+        this.probation = new ProbationQueue( Math.max( 1, pageCount / PROBATION_SHARE_DIVISOR ) );
+    }
+
+    @Override
+    public void pinned( long pageRef, boolean faulted, boolean sequential )
+    {
+        if ( sequential )
+        {
+            if ( faulted )
+            {
+                probation.offer( pageRef );
+                tracer.probationaryFaults( 1 );
+            }
+            return;
+        }
+        if ( !faulted && PageList.getUsage( pageRef ) == 0 )
+        {
+            tracer.promotions( 1 );
+        }
+        PageList.incrementUsage( pageRef );
+    }
+
+    @Override
+    public long probationaryVictim()
+    {
+        long pageRef;
+        while ( (pageRef = probation.poll()) != NO_VICTIM )
+        {
+            // Pages that have been promoted since they were admitted now belong to the clock.
+            if ( PageList.isLoaded( pageRef ) && PageList.getUsage( pageRef ) == 0 )
+            {
+                return pageRef;
+            }
+        }
+        return NO_VICTIM;
+    }
+
+    @Override
+    public void victimNotEvicted( long pageRef )
+    {
+        // If the queue has filled up in the meantime, the clock arm will find the page with its usage stamp at zero.
+        probation.offer( pageRef );
+    }
+
+    @Override
+    public boolean visit( long pageRef )
+    {
+        return PageList.decrementUsage( pageRef );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SCAN_RESISTANT";
+    }
+
+    /**
+     * A bounded multi-producer multi-consumer queue of page references, based on per slot sequence numbers.
+     * Offers to a full queue and polls of an empty queue fail immediately instead of waiting.
+     */
+    private static final class ProbationQueue
+    {
+        private final int mask;
+        private final AtomicLongArray pageRefs;
+        private final AtomicLongArray sequences;
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+
+        ProbationQueue( int minimumCapacity )
+        {
+            int capacity = Numbers.ceilingPowerOfTwo( minimumCapacity );
+            this.mask = capacity - 1;
+            this.pageRefs = new AtomicLongArray( capacity );
+            this.sequences = new AtomicLongArray( capacity );
+            for ( int i = 0; i < capacity; i++ )
+            {
+                sequences.set( i, i );
+            }
+        }
+
+        boolean offer( long pageRef )
+        {
+            long position = tail.get();
+            for (;;)
+            {
+                int slot = (int) (position & mask);
+                long difference = sequences.get( slot ) - position;
+                if ( difference == 0 )
+                {
+                    if ( tail.compareAndSet( position, position + 1 ) )
+                    {
+                        pageRefs.lazySet( slot, pageRef );
+                        sequences.set( slot, position + 1 );
+                        return true;
+                    }
+                    position = tail.get();
+                }
+                else if ( difference < 0 )
+                {
+                    return false;
+                }
+                else
+                {
+                    position = tail.get();
+                }
+            }
+        }
+
+        long poll()
+        {
+            long position = head.get();
+            for (;;)
+            {
+                int slot = (int) (position & mask);
+                long difference = sequences.get( slot ) - (position + 1);
+                if ( difference == 0 )
+                {
+                    if ( head.compareAndSet( position, position + 1 ) )
+                    {
+                        long pageRef = pageRefs.get( slot );
+                        sequences.set( slot, position + mask + 1 );
+                        return pageRef;
+                    }
+                    position = head.get();
+                }
+                else if ( difference < 0 )
+                {
+                    return NO_VICTIM;
+                }
+                else
+                {
+                    position = head.get();
+                }
+            }
+        }
+    }
+}
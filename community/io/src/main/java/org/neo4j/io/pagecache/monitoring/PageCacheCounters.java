@@ -90,6 +90,26 @@ public interface PageCacheCounters
      */
     long evictionExceptions();
 
+    /**
+     * @return The number of page faults that the eviction policy only admitted on probation thus far.
+     */
+    long probationaryFaults();
+
+    /**
+     * @return The number of probationary pages that the eviction policy promoted because they were accessed again thus far.
+     */
+    long promotions();
+
+    /**
+     * @return The number of vectored reads issued to read pages ahead of sequential scans thus far.
+     */
+    long readAheads();
+
+    /**
+     * @return The number of pages loaded by reading ahead of sequential scans thus far.
+     */
+    long readAheadPages();
+
     /**
      * @return The cache hit ratio observed thus far.
      */
@@ -74,4 +74,15 @@ public interface PageFileCounters
      * @return The number of page evictions that have thrown exceptions thus far.
      */
     long evictionExceptions();
+
+    /**
+     * @return The number of pages of this file that are currently loaded in the page cache, as estimated from the faults and evictions observed
+     * thus far.
+     */
+    long residentPages();
+
+    /**
+     * @return The ratio of number of hits to the total number of faults and hits observed thus far for this file.
+     */
+    double hitRatio();
 }
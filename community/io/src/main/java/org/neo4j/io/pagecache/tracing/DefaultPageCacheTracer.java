@@ -49,6 +49,10 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final LongAdder filesUnmapped = new LongAdder();
 
     protected final LongAdder evictionExceptions = new LongAdder();
+    protected final LongAdder probationaryFaults = new LongAdder();
+    protected final LongAdder promotions = new LongAdder();
+    protected final LongAdder readAheads = new LongAdder();
+    protected final LongAdder readAheadPages = new LongAdder();
     protected final LongAdder iopqPerformed = new LongAdder();
     protected final LongAdder ioLimitedTimes = new LongAdder();
     protected final LongAdder ioLimitedMillis = new LongAdder();
@@ -305,6 +309,30 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return evictionExceptions.sum();
     }
 
+    @Override
+    public long probationaryFaults()
+    {
+        return probationaryFaults.sum();
+    }
+
+    @Override
+    public long promotions()
+    {
+        return promotions.sum();
+    }
+
+    @Override
+    public long readAheads()
+    {
+        return readAheads.sum();
+    }
+
+    @Override
+    public long readAheadPages()
+    {
+        return readAheadPages.sum();
+    }
+
     @Override
     public double hitRatio()
     {
@@ -425,6 +453,30 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         this.evictionExceptions.add( evictionExceptions );
     }
 
+    @Override
+    public void probationaryFaults( long probationaryFaults )
+    {
+        this.probationaryFaults.add( probationaryFaults );
+    }
+
+    @Override
+    public void promotions( long promotions )
+    {
+        this.promotions.add( promotions );
+    }
+
+    @Override
+    public void readAheads( long readAheads )
+    {
+        this.readAheads.add( readAheads );
+    }
+
+    @Override
+    public void readAheadPages( long readAheadPages )
+    {
+        this.readAheadPages.add( readAheadPages );
+    }
+
     @Override
     public void bytesWritten( long bytesWritten )
     {
@@ -21,6 +21,8 @@ package org.neo4j.io.pagecache.tracing;
 
 import java.util.concurrent.atomic.LongAdder;
 
+import org.neo4j.internal.helpers.MathUtil;
+
 public class DefaultPageFileSwapperTracer implements PageFileSwapperTracer
 {
     private final LongAdder pins = new LongAdder();
@@ -193,4 +195,16 @@ public class DefaultPageFileSwapperTracer implements PageFileSwapperTracer
     {
         return evictionExceptions.sum();
     }
+
+    @Override
+    public long residentPages()
+    {
+        return Math.max( 0, faults.sum() - evictions.sum() );
+    }
+
+    @Override
+    public double hitRatio()
+    {
+        return MathUtil.portion( hits.sum(), faults.sum() );
+    }
 }
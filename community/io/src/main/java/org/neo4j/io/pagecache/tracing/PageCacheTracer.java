@@ -160,6 +160,30 @@ public interface PageCacheTracer extends PageCacheCounters
             return 0;
         }
 
+        @Override
+        public long probationaryFaults()
+        {
+            return 0;
+        }
+
+        @Override
+        public long promotions()
+        {
+            return 0;
+        }
+
+        @Override
+        public long readAheads()
+        {
+            return 0;
+        }
+
+        @Override
+        public long readAheadPages()
+        {
+            return 0;
+        }
+
         @Override
         public double hitRatio()
         {
@@ -242,6 +266,26 @@ public interface PageCacheTracer extends PageCacheCounters
         {
         }
 
+        @Override
+        public void probationaryFaults( long probationaryFaults )
+        {
+        }
+
+        @Override
+        public void promotions( long promotions )
+        {
+        }
+
+        @Override
+        public void readAheads( long readAheads )
+        {
+        }
+
+        @Override
+        public void readAheadPages( long readAheadPages )
+        {
+        }
+
         @Override
         public void bytesWritten( long bytesWritten )
         {
@@ -387,6 +431,30 @@ public interface PageCacheTracer extends PageCacheCounters
      */
     void evictionExceptions( long evictionExceptions );
 
+    /**
+     * Report number of page faults that the eviction policy only admitted on probation
+     * @param probationaryFaults number of probationary page faults
+     */
+    void probationaryFaults( long probationaryFaults );
+
+    /**
+     * Report number of probationary pages promoted by the eviction policy
+     * @param promotions number of promotions
+     */
+    void promotions( long promotions );
+
+    /**
+     * Report number of vectored reads issued to read pages ahead of sequential scans
+     * @param readAheads number of read-ahead reads
+     */
+    void readAheads( long readAheads );
+
+    /**
+     * Report number of pages loaded by reading ahead of sequential scans
+     * @param readAheadPages number of pages read ahead
+     */
+    void readAheadPages( long readAheadPages );
+
     /**
      * Report number of bytes written
      * @param bytesWritten number of written bytes
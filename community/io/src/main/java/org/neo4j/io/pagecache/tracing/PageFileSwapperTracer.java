@@ -200,5 +200,17 @@ public interface PageFileSwapperTracer extends PageFileCounters
         {
             return 0;
         }
+
+        @Override
+        public long residentPages()
+        {
+            return 0;
+        }
+
+        @Override
+        public double hitRatio()
+        {
+            return 0;
+        }
     }
 }
@@ -338,7 +338,7 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         public void addBytesRead( long bytes )
         {
             bytesRead += bytes;
-            swapperTracer.bytesRead( bytesRead );
+            swapperTracer.bytesRead( bytes );
         }
 
         @Override
@@ -379,7 +379,7 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         public void addBytesWritten( long bytes )
         {
             bytesWritten += bytes;
-            swapperTracer.bytesWritten( bytesWritten );
+            swapperTracer.bytesWritten( bytes );
         }
 
         @Override
@@ -27,6 +27,7 @@ public final class IndexSample
     private final long uniqueValues;
     private final long sampleSize;
     private final long updates;
+    private final IndexValueHistogram histogram;
 
     public IndexSample()
     {
@@ -39,11 +40,17 @@ public final class IndexSample
     }
 
     public IndexSample( long indexSize, long uniqueValues, long sampleSize, long updates )
+    {
+        this( indexSize, uniqueValues, sampleSize, updates, IndexValueHistogram.EMPTY );
+    }
+
+    public IndexSample( long indexSize, long uniqueValues, long sampleSize, long updates, IndexValueHistogram histogram )
     {
         this.indexSize = indexSize;
         this.uniqueValues = uniqueValues;
         this.sampleSize = sampleSize;
         this.updates = updates;
+        this.histogram = histogram;
     }
 
     public long indexSize()
@@ -66,6 +73,14 @@ public final class IndexSample
         return updates;
     }
 
+    /**
+     * @return distribution of the values in the index, or {@link IndexValueHistogram#EMPTY} if none was built when sampling it.
+     */
+    public IndexValueHistogram histogram()
+    {
+        return histogram;
+    }
+
     @Override
     public boolean equals( Object o )
     {
@@ -78,13 +93,14 @@ public final class IndexSample
             return false;
         }
         IndexSample that = (IndexSample) o;
-        return indexSize == that.indexSize && uniqueValues == that.uniqueValues && sampleSize == that.sampleSize && updates == that.updates;
+        return indexSize == that.indexSize && uniqueValues == that.uniqueValues && sampleSize == that.sampleSize && updates == that.updates &&
+               histogram.equals( that.histogram );
     }
 
     @Override
     public int hashCode()
     {
-        return Arrays.hashCode( new long[]{indexSize, uniqueValues, sampleSize, updates} );
+        return 31 * Arrays.hashCode( new long[]{indexSize, uniqueValues, sampleSize, updates} ) + histogram.hashCode();
     }
 
     @Override
@@ -95,6 +111,7 @@ public final class IndexSample
                ", uniqueValues=" + uniqueValues +
                ", sampleSize=" + sampleSize +
                ", updates=" + updates +
+               (histogram.isEmpty() ? "" : ", histogram=" + histogram) +
                '}';
     }
 }
@@ -20,9 +20,12 @@
 package org.neo4j.kernel.api.index;
 
 import java.io.Closeable;
+import java.util.concurrent.Executor;
 
 import org.neo4j.internal.kernel.api.exceptions.schema.IndexNotFoundKernelException;
 import org.neo4j.io.pagecache.context.CursorContext;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.impl.api.index.IndexSamplingConfig;
 
 /**
  * Component able to sample schema index.
@@ -39,6 +42,24 @@ public interface IndexSampler extends Closeable
      */
     IndexSample sampleIndex( CursorContext cursorContext ) throws IndexNotFoundKernelException;
 
+    /**
+     * Sample this index, with the current thread possibly getting help from other threads, if both the index and the
+     * {@link IndexSamplingConfig#samplingPartitions() sampling config} supports it. Per default the index is sampled on the current thread,
+     * like {@link #sampleIndex(CursorContext)}.
+     *
+     * @param cursorContext underlying page cursor context for the current thread.
+     * @param samplingConfig config deciding how to sample the index.
+     * @param executor executor to run work on other threads, work which the current thread will pick up itself if not started in time.
+     * @param pageCacheTracer tracer to create page cursor contexts from for work on other threads.
+     * @return the index sampling result
+     * @throws IndexNotFoundKernelException if the index is dropped while sampling
+     */
+    default IndexSample sampleIndex( CursorContext cursorContext, IndexSamplingConfig samplingConfig, Executor executor, PageCacheTracer pageCacheTracer )
+            throws IndexNotFoundKernelException
+    {
+        return sampleIndex( cursorContext );
+    }
+
     @Override
     default void close()
     {   // no-op
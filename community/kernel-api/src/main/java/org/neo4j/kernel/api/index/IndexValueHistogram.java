@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.index;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.OptionalDouble;
+import java.util.PriorityQueue;
+
+import org.neo4j.values.storable.NumberValue;
+import org.neo4j.values.storable.Value;
+
+/**
+ * Distribution of the values in an index, as seen when it was last sampled: its most common values together with their number of entries
+ * and an equi-depth histogram of its numeric values. Used to estimate the selectivity of equality and range predicates on skewed data,
+ * where the number of unique values in an {@link IndexSample} says little about any particular value.
+ * <p>
+ * Common values are kept as their {@link Value#hashCode() hash codes}, so that values of any type fit in constant space. A value that
+ * isn't common, but happens to share hash code with one that is, gets the frequency of the common value.
+ * Only numeric values are bucketed, since range selectivity can only be interpolated between numbers.
+ */
+public final class IndexValueHistogram
+{
+    public static final IndexValueHistogram EMPTY = new IndexValueHistogram( 0, 0, new int[0], new long[0], Double.NaN, new double[0], new long[0] );
+
+    private final long sampleSize;
+    private final long uniqueValues;
+    private final int[] commonValueHashes;
+    private final long[] commonValueCounts;
+    private final long commonValueEntries;
+    private final double lowestNumber;
+    private final double[] bucketUpperBounds;
+    private final long[] bucketCounts;
+    private final long numericEntries;
+
+    /**
+     * @param sampleSize number of index entries the histogram was built from.
+     * @param uniqueValues number of unique values among those entries.
+     * @param commonValueHashes hash codes of the most common values.
+     * @param commonValueCounts number of entries of each of the most common values.
+     * @param lowestNumber lowest numeric value, the inclusive lower bound of the first bucket.
+     * @param bucketUpperBounds inclusive upper bound of each bucket, in ascending order.
+     * @param bucketCounts number of entries in each bucket.
+     */
+    public IndexValueHistogram( long sampleSize, long uniqueValues, int[] commonValueHashes, long[] commonValueCounts, double lowestNumber,
+            double[] bucketUpperBounds, long[] bucketCounts )
+    {
+        this.sampleSize = sampleSize;
+        this.uniqueValues = uniqueValues;
+        this.commonValueHashes = commonValueHashes;
+        this.commonValueCounts = commonValueCounts;
+        this.commonValueEntries = Arrays.stream( commonValueCounts ).sum();
+        this.lowestNumber = lowestNumber;
+        this.bucketUpperBounds = bucketUpperBounds;
+        this.bucketCounts = bucketCounts;
+        this.numericEntries = Arrays.stream( bucketCounts ).sum();
+    }
+
+    public long sampleSize()
+    {
+        return sampleSize;
+    }
+
+    public long uniqueValues()
+    {
+        return uniqueValues;
+    }
+
+    public int[] commonValueHashes()
+    {
+        return commonValueHashes.clone();
+    }
+
+    public long[] commonValueCounts()
+    {
+        return commonValueCounts.clone();
+    }
+
+    public double lowestNumber()
+    {
+        return lowestNumber;
+    }
+
+    public double[] bucketUpperBounds()
+    {
+        return bucketUpperBounds.clone();
+    }
+
+    public long[] bucketCounts()
+    {
+        return bucketCounts.clone();
+    }
+
+    public boolean isEmpty()
+    {
+        return sampleSize == 0;
+    }
+
+    /**
+     * Estimates the fraction of the entries in the index that have the given value. A value that isn't among the most common values
+     * is assumed to have the average number of entries of the values that aren't, but never less than one.
+     *
+     * @param value the value to estimate the selectivity of.
+     * @return the estimated fraction of entries, or empty if this histogram is empty.
+     */
+    public OptionalDouble equalitySelectivity( Value value )
+    {
+        if ( isEmpty() )
+        {
+            return OptionalDouble.empty();
+        }
+        long commonCount = commonValueCount( value );
+        if ( commonCount > 0 )
+        {
+            return OptionalDouble.of( (double) commonCount / sampleSize );
+        }
+        long otherEntries = sampleSize - commonValueEntries;
+        long otherValues = uniqueValues - commonValueHashes.length;
+        double count = otherValues <= 0 ? 1 : Math.max( 1, (double) otherEntries / otherValues );
+        return OptionalDouble.of( Math.min( 1, count / sampleSize ) );
+    }
+
+    /**
+     * Estimates the fraction of the entries in the index that have a numeric value in the given range, by interpolating within
+     * the buckets that the bounds fall into.
+     *
+     * @param from lower bound of the range, or {@code null} if the range has no lower bound.
+     * @param fromInclusive whether or not the lower bound is included in the range.
+     * @param to upper bound of the range, or {@code null} if the range has no upper bound.
+     * @param toInclusive whether or not the upper bound is included in the range.
+     * @return the estimated fraction of entries, or empty if this histogram has no buckets or a bound isn't a number.
+     */
+    public OptionalDouble rangeSelectivity( Value from, boolean fromInclusive, Value to, boolean toInclusive )
+    {
+        if ( bucketCounts.length == 0 || !isNumberOrUnbounded( from ) || !isNumberOrUnbounded( to ) )
+        {
+            return OptionalDouble.empty();
+        }
+        double upper = to == null ? numericEntries : countAtMost( to ) - (toInclusive ? 0 : commonValueCount( to ));
+        double lower = from == null ? 0 : countAtMost( from ) - (fromInclusive ? commonValueCount( from ) : 0);
+        return OptionalDouble.of( Math.min( 1, Math.max( 0, upper - lower ) / sampleSize ) );
+    }
+
+    private static boolean isNumberOrUnbounded( Value bound )
+    {
+        return bound == null || (bound instanceof NumberValue && !Double.isNaN( ((NumberValue) bound).doubleValue() ));
+    }
+
+    private double countAtMost( Value value )
+    {
+        double number = ((NumberValue) value).doubleValue();
+        if ( number < lowestNumber )
+        {
+            return 0;
+        }
+        double count = 0;
+        double bucketLowerBound = lowestNumber;
+        for ( int i = 0; i < bucketCounts.length; i++ )
+        {
+            if ( number >= bucketUpperBounds[i] )
+            {
+                count += bucketCounts[i];
+            }
+            else
+            {
+                // The number is within this bucket, assume that the values in it are evenly spread out
+                count += bucketCounts[i] * (number - bucketLowerBound) / (bucketUpperBounds[i] - bucketLowerBound);
+                break;
+            }
+            bucketLowerBound = bucketUpperBounds[i];
+        }
+        return count;
+    }
+
+    private long commonValueCount( Value value )
+    {
+        int hash = value.hashCode();
+        for ( int i = 0; i < commonValueHashes.length; i++ )
+        {
+            if ( commonValueHashes[i] == hash )
+            {
+                return commonValueCounts[i];
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+        IndexValueHistogram that = (IndexValueHistogram) o;
+        return sampleSize == that.sampleSize && uniqueValues == that.uniqueValues && Double.compare( lowestNumber, that.lowestNumber ) == 0 &&
+               Arrays.equals( commonValueHashes, that.commonValueHashes ) && Arrays.equals( commonValueCounts, that.commonValueCounts ) &&
+               Arrays.equals( bucketUpperBounds, that.bucketUpperBounds ) && Arrays.equals( bucketCounts, that.bucketCounts );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = Long.hashCode( sampleSize );
+        result = 31 * result + Long.hashCode( uniqueValues );
+        result = 31 * result + Arrays.hashCode( commonValueCounts );
+        result = 31 * result + Arrays.hashCode( bucketCounts );
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "IndexValueHistogram{" +
+               "sampleSize=" + sampleSize +
+               ", uniqueValues=" + uniqueValues +
+               ", commonValueCounts=" + Arrays.toString( commonValueCounts ) +
+               ", lowestNumber=" + lowestNumber +
+               ", bucketUpperBounds=" + Arrays.toString( bucketUpperBounds ) +
+               ", bucketCounts=" + Arrays.toString( bucketCounts ) +
+               '}';
+    }
+
+    /**
+     * Builds an {@link IndexValueHistogram} from the values of an index, which are to be {@link #add(Value, long) added} in index order,
+     * i.e. each unique value once and numbers in ascending order. Numbers are first collected into a fixed number of fine-grained buckets,
+     * adjacent ones being merged whenever they are all used, and these are then combined into the equi-depth buckets of the histogram.
+     */
+    public static class Builder
+    {
+        private static final int FINE_BUCKETS_PER_BUCKET = 32;
+
+        private final int buckets;
+        private final int commonValues;
+        private final PriorityQueue<long[]> leastCommonFirst = new PriorityQueue<>( Comparator.comparingLong( hashAndCount -> hashAndCount[1] ) );
+        private final double[] fineUpperBounds;
+        private final long[] fineCounts;
+        private int fineBuckets;
+        private long fineBucketTargetCount = 1;
+        private double lowestNumber = Double.NaN;
+        private long numericEntries;
+        private long sampleSize;
+        private long uniqueValues;
+
+        /**
+         * @param buckets number of equi-depth buckets for the numeric values, or {@code 0} for no buckets.
+         * @param commonValues number of most common values to keep.
+         */
+        public Builder( int buckets, int commonValues )
+        {
+            this.buckets = buckets;
+            this.commonValues = commonValues;
+            this.fineUpperBounds = new double[buckets * FINE_BUCKETS_PER_BUCKET];
+            this.fineCounts = new long[buckets * FINE_BUCKETS_PER_BUCKET];
+        }
+
+        /**
+         * @param value a unique value in the index.
+         * @param count number of entries in the index having this value.
+         */
+        public void add( Value value, long count )
+        {
+            sampleSize += count;
+            uniqueValues++;
+            if ( commonValues > 0 && count > 1 )
+            {
+                addCommonValueCandidate( value.hashCode(), count );
+            }
+            if ( buckets > 0 && value instanceof NumberValue )
+            {
+                double number = ((NumberValue) value).doubleValue();
+                if ( !Double.isNaN( number ) )
+                {
+                    addNumber( number, count );
+                }
+            }
+        }
+
+        private void addCommonValueCandidate( int hash, long count )
+        {
+            if ( leastCommonFirst.size() < commonValues )
+            {
+                leastCommonFirst.add( new long[]{hash, count} );
+            }
+            else if ( leastCommonFirst.peek()[1] < count )
+            {
+                long[] replaced = leastCommonFirst.poll();
+                replaced[0] = hash;
+                replaced[1] = count;
+                leastCommonFirst.add( replaced );
+            }
+        }
+
+        private void addNumber( double number, long count )
+        {
+            if ( numericEntries == 0 )
+            {
+                lowestNumber = number;
+            }
+            numericEntries += count;
+            if ( fineBuckets > 0 && fineCounts[fineBuckets - 1] < fineBucketTargetCount )
+            {
+                fineUpperBounds[fineBuckets - 1] = number;
+                fineCounts[fineBuckets - 1] += count;
+                return;
+            }
+            if ( fineBuckets == fineCounts.length )
+            {
+                mergeFineBuckets();
+            }
+            fineUpperBounds[fineBuckets] = number;
+            fineCounts[fineBuckets] = count;
+            fineBuckets++;
+        }
+
+        private void mergeFineBuckets()
+        {
+            int merged = 0;
+            for ( int i = 0; i < fineBuckets; i += 2 )
+            {
+                fineCounts[merged] = fineCounts[i] + fineCounts[i + 1];
+                fineUpperBounds[merged] = fineUpperBounds[i + 1];
+                merged++;
+            }
+            fineBuckets = merged;
+            fineBucketTargetCount *= 2;
+        }
+
+        public IndexValueHistogram build()
+        {
+            int[] commonValueHashes = new int[leastCommonFirst.size()];
+            long[] commonValueCounts = new long[leastCommonFirst.size()];
+            for ( int i = commonValueHashes.length - 1; i >= 0; i-- )
+            {
+                long[] hashAndCount = leastCommonFirst.poll();
+                commonValueHashes[i] = (int) hashAndCount[0];
+                commonValueCounts[i] = hashAndCount[1];
+            }
+
+            // Cut the fine-grained buckets into buckets of roughly the same number of entries each
+            double[] bucketUpperBounds = new double[fineBuckets];
+            long[] bucketCounts = new long[fineBuckets];
+            int bucket = 0;
+            long cumulativeCount = 0;
+            long bucketCount = 0;
+            for ( int i = 0; i < fineBuckets; i++ )
+            {
+                if ( bucketCount > 0 && fineCounts[i] * buckets >= numericEntries )
+                {
+                    // As many entries as a whole bucket, most likely of a single value, get a bucket of their own
+                    // so that they don't skew the interpolation within the entries before them
+                    bucketUpperBounds[bucket] = fineUpperBounds[i - 1];
+                    bucketCounts[bucket] = bucketCount;
+                    bucket++;
+                    bucketCount = 0;
+                }
+                cumulativeCount += fineCounts[i];
+                bucketCount += fineCounts[i];
+                if ( cumulativeCount * buckets >= (bucket + 1) * numericEntries || i == fineBuckets - 1 )
+                {
+                    bucketUpperBounds[bucket] = fineUpperBounds[i];
+                    bucketCounts[bucket] = bucketCount;
+                    bucket++;
+                    bucketCount = 0;
+                }
+            }
+            return new IndexValueHistogram( sampleSize, uniqueValues, commonValueHashes, commonValueCounts, lowestNumber,
+                    Arrays.copyOf( bucketUpperBounds, bucket ), Arrays.copyOf( bucketCounts, bucket ) );
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.api.index;
 
 import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
 import org.neo4j.configuration.GraphDatabaseSettings;
 
 public class IndexSamplingConfig
@@ -27,19 +28,40 @@ public class IndexSamplingConfig
     private final int sampleSizeLimit;
     private final double updateRatio;
     private final boolean backgroundSampling;
+    private final int samplingPartitions;
+    private final int partitionWorkers;
+    private final long maxSampledEntries;
+    private final int histogramBuckets;
+    private final int histogramCommonValues;
 
     public IndexSamplingConfig( Config config )
     {
         this( config.get( GraphDatabaseSettings.index_sample_size_limit ),
                           config.get( GraphDatabaseSettings.index_sampling_update_percentage ) / 100.0d,
-                          config.get( GraphDatabaseSettings.index_background_sampling_enabled ) );
+                          config.get( GraphDatabaseSettings.index_background_sampling_enabled ),
+                          config.get( GraphDatabaseInternalSettings.index_sampling_partitions ),
+                          config.get( GraphDatabaseInternalSettings.index_sampling_partition_workers ),
+                          config.get( GraphDatabaseInternalSettings.index_sampling_max_sampled_entries ),
+                          config.get( GraphDatabaseInternalSettings.index_sampling_histogram_buckets ),
+                          config.get( GraphDatabaseInternalSettings.index_sampling_histogram_common_values ) );
     }
 
     public IndexSamplingConfig( int sampleSizeLimit, double updateRatio, boolean backgroundSampling )
+    {
+        this( sampleSizeLimit, updateRatio, backgroundSampling, 0, 1, 0, 0, 0 );
+    }
+
+    public IndexSamplingConfig( int sampleSizeLimit, double updateRatio, boolean backgroundSampling, int samplingPartitions, int partitionWorkers,
+            long maxSampledEntries, int histogramBuckets, int histogramCommonValues )
     {
         this.sampleSizeLimit = sampleSizeLimit;
         this.updateRatio = updateRatio;
         this.backgroundSampling = backgroundSampling;
+        this.samplingPartitions = samplingPartitions;
+        this.partitionWorkers = partitionWorkers;
+        this.maxSampledEntries = maxSampledEntries;
+        this.histogramBuckets = histogramBuckets;
+        this.histogramCommonValues = histogramCommonValues;
     }
 
     public int sampleSizeLimit()
@@ -57,6 +79,46 @@ public class IndexSamplingConfig
         return backgroundSampling;
     }
 
+    /**
+     * @return number of key ranges to split an index into when sampling it, or {@code 0} if indexes are to be sampled as a whole.
+     */
+    public int samplingPartitions()
+    {
+        return samplingPartitions;
+    }
+
+    /**
+     * @return number of threads sampling key ranges of an index in parallel.
+     */
+    public int partitionWorkers()
+    {
+        return partitionWorkers;
+    }
+
+    /**
+     * @return maximum number of index entries to read when sampling key ranges of an index, or {@code 0} for no limit.
+     */
+    public long maxSampledEntries()
+    {
+        return maxSampledEntries;
+    }
+
+    /**
+     * @return number of buckets in the histogram of numeric values to build when sampling an index, or {@code 0} if no histogram is to be built.
+     */
+    public int histogramBuckets()
+    {
+        return histogramBuckets;
+    }
+
+    /**
+     * @return number of most common values to keep in the histogram of an index.
+     */
+    public int histogramCommonValues()
+    {
+        return histogramCommonValues;
+    }
+
     @Override
     public boolean equals( Object o )
     {
@@ -74,7 +136,12 @@ public class IndexSamplingConfig
 
         return backgroundSampling == that.backgroundSampling &&
                sampleSizeLimit == that.sampleSizeLimit &&
-               Double.compare( that.updateRatio, updateRatio ) == 0;
+               Double.compare( that.updateRatio, updateRatio ) == 0 &&
+               samplingPartitions == that.samplingPartitions &&
+               partitionWorkers == that.partitionWorkers &&
+               maxSampledEntries == that.maxSampledEntries &&
+               histogramBuckets == that.histogramBuckets &&
+               histogramCommonValues == that.histogramCommonValues;
     }
 
     @Override
@@ -84,6 +151,11 @@ public class IndexSamplingConfig
         long temp = Double.doubleToLongBits( updateRatio );
         result = 31 * result + (int) (temp ^ (temp >>> 32));
         result = 31 * result + (backgroundSampling ? 1 : 0);
+        result = 31 * result + samplingPartitions;
+        result = 31 * result + partitionWorkers;
+        result = 31 * result + Long.hashCode( maxSampledEntries );
+        result = 31 * result + histogramBuckets;
+        result = 31 * result + histogramCommonValues;
         return result;
     }
 }
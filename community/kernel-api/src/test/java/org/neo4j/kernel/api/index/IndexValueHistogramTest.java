@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.neo4j.values.storable.Values.doubleValue;
+import static org.neo4j.values.storable.Values.intValue;
+import static org.neo4j.values.storable.Values.longValue;
+import static org.neo4j.values.storable.Values.stringValue;
+
+class IndexValueHistogramTest
+{
+    @Test
+    void shouldEstimateFrequencyOfCommonAndUncommonValues()
+    {
+        // given
+        IndexValueHistogram.Builder builder = new IndexValueHistogram.Builder( 16, 4 );
+        for ( int value = 0; value < 1_000; value++ )
+        {
+            builder.add( intValue( value ), value == 500 ? 5_001 : 1 );
+        }
+
+        // when
+        IndexValueHistogram histogram = builder.build();
+
+        // then
+        assertThat( histogram.sampleSize() ).isEqualTo( 6_000 );
+        assertThat( histogram.uniqueValues() ).isEqualTo( 1_000 );
+        assertThat( histogram.equalitySelectivity( intValue( 500 ) ).getAsDouble() ).isCloseTo( 5_001 / 6_000d, within( 1e-9 ) );
+        assertThat( histogram.equalitySelectivity( doubleValue( 500 ) ).getAsDouble() ).isCloseTo( 5_001 / 6_000d, within( 1e-9 ) );
+        assertThat( histogram.equalitySelectivity( intValue( 10 ) ).getAsDouble() ).isCloseTo( 1 / 6_000d, within( 1e-9 ) );
+        assertThat( histogram.equalitySelectivity( stringValue( "not there" ) ).getAsDouble() ).isCloseTo( 1 / 6_000d, within( 1e-9 ) );
+    }
+
+    @Test
+    void shouldEstimateRangesOfUniformlyDistributedNumbers()
+    {
+        // given
+        IndexValueHistogram.Builder builder = new IndexValueHistogram.Builder( 16, 4 );
+        for ( long value = 0; value < 10_000; value++ )
+        {
+            builder.add( longValue( value ), 1 );
+        }
+
+        // when
+        IndexValueHistogram histogram = builder.build();
+
+        // then
+        assertThat( histogram.bucketCounts() ).hasSize( 16 );
+        assertThat( histogram.rangeSelectivity( intValue( 2_000 ), true, intValue( 3_000 ), false ).getAsDouble() ).isCloseTo( 0.1, within( 0.01 ) );
+        assertThat( histogram.rangeSelectivity( null, true, doubleValue( 2_500.5 ), false ).getAsDouble() ).isCloseTo( 0.25, within( 0.01 ) );
+        assertThat( histogram.rangeSelectivity( intValue( 9_000 ), false, null, true ).getAsDouble() ).isCloseTo( 0.1, within( 0.01 ) );
+        assertThat( histogram.rangeSelectivity( intValue( -10 ), true, intValue( -1 ), true ).getAsDouble() ).isEqualTo( 0 );
+        assertThat( histogram.rangeSelectivity( intValue( 20_000 ), true, null, true ).getAsDouble() ).isEqualTo( 0 );
+    }
+
+    @Test
+    void shouldEstimateRangesOfSkewedNumbers()
+    {
+        // given 1 000 values with a single entry each followed by 100 values with 100 entries each
+        IndexValueHistogram.Builder builder = new IndexValueHistogram.Builder( 8, 0 );
+        for ( int value = 0; value < 1_100; value++ )
+        {
+            builder.add( intValue( value ), value < 1_000 ? 1 : 100 );
+        }
+
+        // when
+        IndexValueHistogram histogram = builder.build();
+
+        // then the estimates are off by at most the entries of the bucket that a bound falls into
+        assertThat( histogram.rangeSelectivity( intValue( 1_000 ), true, null, false ).getAsDouble() ).isCloseTo( 10_000 / 11_000d, within( 1 / 8d ) );
+        assertThat( histogram.rangeSelectivity( null, false, intValue( 500 ), false ).getAsDouble() ).isCloseTo( 500 / 11_000d, within( 1 / 8d ) );
+        assertThat( histogram.rangeSelectivity( intValue( 1_050 ), true, null, false ).getAsDouble() ).isCloseTo( 5_000 / 11_000d, within( 1 / 8d ) );
+    }
+
+    @Test
+    void shouldOnlyEstimateRangesOfNumbers()
+    {
+        // given
+        IndexValueHistogram.Builder builder = new IndexValueHistogram.Builder( 8, 2 );
+        builder.add( stringValue( "a" ), 10 );
+        builder.add( stringValue( "b" ), 30 );
+        builder.add( stringValue( "c" ), 1 );
+
+        // when
+        IndexValueHistogram histogram = builder.build();
+
+        // then
+        assertThat( histogram.rangeSelectivity( stringValue( "a" ), true, stringValue( "b" ), true ) ).isEmpty();
+        assertThat( histogram.rangeSelectivity( intValue( 1 ), true, null, true ) ).isEmpty();
+        assertThat( histogram.equalitySelectivity( stringValue( "b" ) ).getAsDouble() ).isCloseTo( 30 / 41d, within( 1e-9 ) );
+        assertThat( histogram.equalitySelectivity( stringValue( "a" ) ).getAsDouble() ).isCloseTo( 10 / 41d, within( 1e-9 ) );
+    }
+
+    @Test
+    void shouldKeepMostCommonValues()
+    {
+        // given
+        IndexValueHistogram.Builder builder = new IndexValueHistogram.Builder( 0, 3 );
+        for ( int value = 0; value < 100; value++ )
+        {
+            builder.add( intValue( value ), value % 10 + 1 );
+        }
+
+        // when
+        IndexValueHistogram histogram = builder.build();
+
+        // then
+        assertThat( histogram.commonValueCounts() ).containsExactly( 10, 10, 10 );
+        assertThat( histogram.bucketCounts() ).isEmpty();
+        assertThat( IndexValueHistogram.EMPTY.equalitySelectivity( intValue( 1 ) ) ).isEmpty();
+    }
+}
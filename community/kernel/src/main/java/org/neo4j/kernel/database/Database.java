@@ -107,6 +107,8 @@ import org.neo4j.kernel.impl.factory.KernelTransactionFactory;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.pagecache.IOControllerService;
 import org.neo4j.kernel.impl.pagecache.PageCacheLifecycle;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmerMonitor;
 import org.neo4j.kernel.impl.query.QueryEngineProvider;
 import org.neo4j.kernel.impl.query.QueryExecutionEngine;
 import org.neo4j.kernel.impl.query.TransactionExecutionMonitor;
@@ -368,6 +370,12 @@ public class Database extends LifecycleAdapter
             recoveryCleanupWorkCollector = RecoveryCleanupWorkCollector.immediate();
             databaseDependencies.satisfyDependency( recoveryCleanupWorkCollector );
 
+            otherDatabasePool = otherMemoryPool.newDatabasePool( namedDatabaseId.name(), 0, null );
+            life.add( onShutdown( () -> otherDatabasePool.close() ) );
+            otherDatabaseMemoryTracker = otherDatabasePool.getPoolMemoryTracker();
+
+            databaseDependencies.satisfyDependency( new DatabaseMemoryTrackers( otherDatabaseMemoryTracker ) );
+
             life.add( new PageCacheLifecycle( databasePageCache ) );
             life.add( initializeExtensions( databaseDependencies ) );
             life.add( initializeIndexProviderMap( databaseDependencies ) );
@@ -376,12 +384,6 @@ public class Database extends LifecycleAdapter
             life.add( watcherService );
             databaseDependencies.satisfyDependency( watcherService );
 
-            otherDatabasePool = otherMemoryPool.newDatabasePool( namedDatabaseId.name(), 0, null );
-            life.add( onShutdown( () -> otherDatabasePool.close() ) );
-            otherDatabaseMemoryTracker = otherDatabasePool.getPoolMemoryTracker();
-
-            databaseDependencies.satisfyDependency( new DatabaseMemoryTrackers( otherDatabaseMemoryTracker ) );
-
             eventListeners.databaseCreate( namedDatabaseId );
 
             initialized = true;
@@ -505,6 +507,8 @@ public class Database extends LifecycleAdapter
 
             this.checkpointerLifecycle = new CheckpointerLifecycle( transactionLogModule.checkPointer(), databaseHealth, ioController );
 
+            life.add( new PageCacheWarmer( fs, databasePageCache, scheduler, databaseLayout, databaseConfig, readOnlyDatabaseChecker, pageCacheTracer, clock,
+                    databaseMonitors.newMonitor( PageCacheWarmerMonitor.class ), internalLogProvider.getLog( PageCacheWarmer.class ) ) );
             life.add( onStart( this::registerUpgradeListener ) );
             life.add( databaseHealth );
             life.add( databaseAvailabilityGuard );
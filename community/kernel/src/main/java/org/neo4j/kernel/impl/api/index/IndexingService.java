@@ -86,7 +86,6 @@ import static org.neo4j.common.EntityType.RELATIONSHIP;
 import static org.neo4j.common.Subject.SYSTEM;
 import static org.neo4j.internal.helpers.collection.Iterables.asList;
 import static org.neo4j.internal.helpers.collection.Iterators.asResourceIterator;
-import static org.neo4j.internal.helpers.collection.Iterators.iterator;
 import static org.neo4j.internal.kernel.api.InternalIndexState.FAILED;
 import static org.neo4j.internal.kernel.api.InternalIndexState.ONLINE;
 import static org.neo4j.internal.kernel.api.InternalIndexState.POPULATING;
@@ -819,7 +818,7 @@ public class IndexingService extends LifecycleAdapter implements IndexUpdateList
     public ResourceIterator<Path> snapshotIndexFiles() throws IOException
     {
         Collection<ResourceIterator<Path>> snapshots = new ArrayList<>();
-        snapshots.add( asResourceIterator( iterator( indexStatisticsStore.storeFile() ) ) );
+        snapshots.add( asResourceIterator( indexStatisticsStore.storeFiles().iterator() ) );
         for ( IndexProxy indexProxy : indexMapRef.getAllIndexProxies() )
         {
             snapshots.add( indexProxy.snapshotFiles() );
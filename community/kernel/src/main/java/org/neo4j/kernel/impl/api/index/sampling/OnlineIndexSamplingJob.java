@@ -19,12 +19,15 @@
  */
 package org.neo4j.kernel.impl.api.index.sampling;
 
+import java.util.concurrent.Executor;
+
 import org.neo4j.internal.kernel.api.exceptions.schema.IndexNotFoundKernelException;
 import org.neo4j.io.pagecache.context.CursorContext;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.IndexSampler;
 import org.neo4j.kernel.impl.api.index.IndexProxy;
+import org.neo4j.kernel.impl.api.index.IndexSamplingConfig;
 import org.neo4j.kernel.impl.api.index.stats.IndexStatisticsStore;
 import org.neo4j.kernel.impl.util.DurationLogger;
 import org.neo4j.logging.Log;
@@ -43,9 +46,11 @@ class OnlineIndexSamplingJob implements IndexSamplingJob
     private final String indexUserDescription;
     private final String indexName;
     private final PageCacheTracer pageCacheTracer;
+    private final IndexSamplingConfig samplingConfig;
+    private final Executor executor;
 
     OnlineIndexSamplingJob( long indexId, IndexProxy indexProxy, IndexStatisticsStore indexStatisticsStore, String indexUserDescription, String indexName,
-            LogProvider logProvider, PageCacheTracer pageCacheTracer )
+            LogProvider logProvider, PageCacheTracer pageCacheTracer, IndexSamplingConfig samplingConfig, Executor executor )
     {
         this.indexId = indexId;
         this.indexProxy = indexProxy;
@@ -54,6 +59,8 @@ class OnlineIndexSamplingJob implements IndexSamplingJob
         this.indexUserDescription = indexUserDescription;
         this.indexName = indexName;
         this.pageCacheTracer = pageCacheTracer;
+        this.samplingConfig = samplingConfig;
+        this.executor = executor;
     }
 
     @Override
@@ -79,7 +86,9 @@ class OnlineIndexSamplingJob implements IndexSamplingJob
                       var cursorContext = new CursorContext( pageCacheTracer.createPageCursorTracer( INDEX_SAMPLER_TAG ) );
                       IndexSampler sampler = reader.createSampler() )
                 {
-                    IndexSample sample = sampler.sampleIndex( cursorContext );
+                    IndexSample sample = samplingConfig.samplingPartitions() > 0 || samplingConfig.histogramBuckets() > 0
+                                         ? sampler.sampleIndex( cursorContext, samplingConfig, executor, pageCacheTracer )
+                                         : sampler.sampleIndex( cursorContext );
 
                     // check again if the index is online before saving the counts in the store
                     if ( indexProxy.getState() == ONLINE )
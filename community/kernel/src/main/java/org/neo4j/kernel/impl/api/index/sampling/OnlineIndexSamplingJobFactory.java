@@ -22,8 +22,11 @@ package org.neo4j.kernel.impl.api.index.sampling;
 import org.neo4j.common.TokenNameLookup;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.impl.api.index.IndexProxy;
+import org.neo4j.kernel.impl.api.index.IndexSamplingConfig;
 import org.neo4j.kernel.impl.api.index.stats.IndexStatisticsStore;
 import org.neo4j.logging.LogProvider;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobScheduler;
 
 public class OnlineIndexSamplingJobFactory implements IndexSamplingJobFactory
 {
@@ -31,14 +34,18 @@ public class OnlineIndexSamplingJobFactory implements IndexSamplingJobFactory
     private final LogProvider logProvider;
     private final TokenNameLookup nameLookup;
     private final PageCacheTracer pageCacheTracer;
+    private final IndexSamplingConfig samplingConfig;
+    private final JobScheduler scheduler;
 
     public OnlineIndexSamplingJobFactory( IndexStatisticsStore indexStatisticsStore, TokenNameLookup nameLookup, LogProvider logProvider,
-            PageCacheTracer pageCacheTracer )
+            PageCacheTracer pageCacheTracer, IndexSamplingConfig samplingConfig, JobScheduler scheduler )
     {
         this.indexStatisticsStore = indexStatisticsStore;
         this.logProvider = logProvider;
         this.nameLookup = nameLookup;
         this.pageCacheTracer = pageCacheTracer;
+        this.samplingConfig = samplingConfig;
+        this.scheduler = scheduler;
     }
 
     @Override
@@ -46,6 +53,7 @@ public class OnlineIndexSamplingJobFactory implements IndexSamplingJobFactory
     {
         final String indexUserDescription = indexProxy.getDescriptor().userDescription( nameLookup );
         String indexName = indexProxy.getDescriptor().getName();
-        return new OnlineIndexSamplingJob( indexId, indexProxy, indexStatisticsStore, indexUserDescription, indexName, logProvider, pageCacheTracer );
+        return new OnlineIndexSamplingJob( indexId, indexProxy, indexStatisticsStore, indexUserDescription, indexName, logProvider, pageCacheTracer,
+                samplingConfig, scheduler.executor( Group.INDEX_SAMPLING ) );
     }
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index.stats;
+
+import org.eclipse.collections.api.map.primitive.MutableLongObjectMap;
+import org.eclipse.collections.impl.factory.primitive.LongObjectMaps;
+
+import java.nio.file.Path;
+import java.util.function.BiConsumer;
+
+import org.neo4j.kernel.api.index.IndexValueHistogram;
+
+/**
+ * Stores the {@link IndexValueHistogram histograms} of {@link IndexStatisticsStore} in a tree of their own, in a file next to the statistics file.
+ * The statistics tree therefore keeps the format that versions without histograms read, and those versions never open the histograms file.
+ * The histograms tree has a {@link #layout() layout} of its own, so opening one of the trees as the other fails.
+ * <p>
+ * The histogram of an index is spread over a number of entries, each holding four longs. Entry {@code e} of the histogram of index {@code i}
+ * is stored under the key {@code i * ENTRIES_PER_HISTOGRAM + e}:
+ * <ol>
+ *     <li>sample size, number of unique values, number of buckets and number of common values</li>
+ *     <li>the lowest numeric value</li>
+ *     <li>the upper bound and number of entries of the buckets, two buckets per entry</li>
+ *     <li>the hash code and number of entries of the common values, two values per entry</li>
+ * </ol>
+ * Dropping an index removes its histogram together with its statistics, which the next checkpoint removes from the tree.
+ */
+final class IndexStatisticsHistograms
+{
+    private static final String FILE_NAME_SUFFIX = ".histograms";
+    private static final long LAYOUT_IDENTIFIER = 556_678;
+    private static final int LAYOUT_MAJOR_VERSION = 0;
+    private static final int LAYOUT_MINOR_VERSION = 1;
+    private static final int ENTRIES_PER_HISTOGRAM = 256;
+    private static final int HEADER_ENTRIES = 2;
+
+    private IndexStatisticsHistograms()
+    {
+    }
+
+    static Path histogramsFile( Path statisticsFile )
+    {
+        return statisticsFile.resolveSibling( statisticsFile.getFileName() + FILE_NAME_SUFFIX );
+    }
+
+    static IndexStatisticsLayout layout()
+    {
+        return new IndexStatisticsLayout( LAYOUT_IDENTIFIER, LAYOUT_MAJOR_VERSION, LAYOUT_MINOR_VERSION );
+    }
+
+    /**
+     * @return whether or not the given histogram is small enough to be stored.
+     */
+    static boolean fits( IndexValueHistogram histogram )
+    {
+        return HEADER_ENTRIES + pairEntries( histogram.bucketCounts().length ) + pairEntries( histogram.commonValueHashes().length ) <=
+               ENTRIES_PER_HISTOGRAM;
+    }
+
+    static void write( long indexId, IndexValueHistogram histogram, BiConsumer<IndexStatisticsKey,IndexStatisticsValue> writer )
+    {
+        double[] bucketUpperBounds = histogram.bucketUpperBounds();
+        long[] bucketCounts = histogram.bucketCounts();
+        int[] commonValueHashes = histogram.commonValueHashes();
+        long[] commonValueCounts = histogram.commonValueCounts();
+        int entry = 0;
+        writer.accept( key( indexId, entry++ ),
+                new IndexStatisticsValue( histogram.sampleSize(), histogram.uniqueValues(), bucketCounts.length, commonValueHashes.length ) );
+        writer.accept( key( indexId, entry++ ), new IndexStatisticsValue( Double.doubleToRawLongBits( histogram.lowestNumber() ), 0, 0, 0 ) );
+        for ( int i = 0; i < bucketCounts.length; i += 2 )
+        {
+            boolean pair = i + 1 < bucketCounts.length;
+            writer.accept( key( indexId, entry++ ), new IndexStatisticsValue( Double.doubleToRawLongBits( bucketUpperBounds[i] ), bucketCounts[i],
+                    pair ? Double.doubleToRawLongBits( bucketUpperBounds[i + 1] ) : 0, pair ? bucketCounts[i + 1] : 0 ) );
+        }
+        for ( int i = 0; i < commonValueHashes.length; i += 2 )
+        {
+            boolean pair = i + 1 < commonValueHashes.length;
+            writer.accept( key( indexId, entry++ ), new IndexStatisticsValue( commonValueHashes[i], commonValueCounts[i],
+                    pair ? commonValueHashes[i + 1] : 0, pair ? commonValueCounts[i + 1] : 0 ) );
+        }
+    }
+
+    private static IndexStatisticsKey key( long indexId, int entry )
+    {
+        return new IndexStatisticsKey( indexId * ENTRIES_PER_HISTOGRAM + entry );
+    }
+
+    private static int pairEntries( int count )
+    {
+        return (count + 1) / 2;
+    }
+
+    /**
+     * Collects the entries of histograms read from the tree, in any order, and puts them together into histograms.
+     */
+    static class Reader
+    {
+        private final MutableLongObjectMap<long[][]> entriesByIndex = LongObjectMaps.mutable.empty();
+
+        void add( IndexStatisticsKey key, IndexStatisticsValue value )
+        {
+            long slot = key.getIndexId();
+            long[][] entries = entriesByIndex.getIfAbsentPut( slot / ENTRIES_PER_HISTOGRAM, () -> new long[ENTRIES_PER_HISTOGRAM][] );
+            entries[(int) (slot % ENTRIES_PER_HISTOGRAM)] =
+                    new long[]{value.getSampleUniqueValues(), value.getSampleSize(), value.getUpdatesCount(), value.getIndexSize()};
+        }
+
+        void forEachHistogram( BiConsumer<Long,IndexValueHistogram> consumer )
+        {
+            entriesByIndex.forEachKeyValue( ( indexId, entries ) ->
+            {
+                IndexValueHistogram histogram = histogram( entries );
+                if ( histogram != null )
+                {
+                    consumer.accept( indexId, histogram );
+                }
+            } );
+        }
+
+        private static IndexValueHistogram histogram( long[][] entries )
+        {
+            if ( entries[0] == null || entries[1] == null )
+            {
+                return null;
+            }
+            int buckets = (int) entries[0][2];
+            int commonValues = (int) entries[0][3];
+            double[] bucketUpperBounds = new double[buckets];
+            long[] bucketCounts = new long[buckets];
+            int[] commonValueHashes = new int[commonValues];
+            long[] commonValueCounts = new long[commonValues];
+            int entry = HEADER_ENTRIES;
+            for ( int i = 0; i < buckets; i += 2, entry++ )
+            {
+                if ( entries[entry] == null )
+                {
+                    return null;
+                }
+                bucketUpperBounds[i] = Double.longBitsToDouble( entries[entry][0] );
+                bucketCounts[i] = entries[entry][1];
+                if ( i + 1 < buckets )
+                {
+                    bucketUpperBounds[i + 1] = Double.longBitsToDouble( entries[entry][2] );
+                    bucketCounts[i + 1] = entries[entry][3];
+                }
+            }
+            for ( int i = 0; i < commonValues; i += 2, entry++ )
+            {
+                if ( entries[entry] == null )
+                {
+                    return null;
+                }
+                commonValueHashes[i] = (int) entries[entry][0];
+                commonValueCounts[i] = entries[entry][1];
+                if ( i + 1 < commonValues )
+                {
+                    commonValueHashes[i + 1] = (int) entries[entry][2];
+                    commonValueCounts[i + 1] = entries[entry][3];
+                }
+            }
+            return new IndexValueHistogram( entries[0][0], entries[0][1], commonValueHashes, commonValueCounts, Double.longBitsToDouble( entries[1][0] ),
+                    bucketUpperBounds, bucketCounts );
+        }
+    }
+}
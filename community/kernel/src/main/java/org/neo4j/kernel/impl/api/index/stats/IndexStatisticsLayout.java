@@ -30,7 +30,12 @@ public class IndexStatisticsLayout extends Layout.Adapter<IndexStatisticsKey,Ind
 {
     public IndexStatisticsLayout()
     {
-        super( true, 556_677, 0, 2 );
+        this( 556_677, 0, 2 );
+    }
+
+    IndexStatisticsLayout( long identifier, int majorVersion, int minorVersion )
+    {
+        super( true, identifier, majorVersion, minorVersion );
     }
 
     @Override
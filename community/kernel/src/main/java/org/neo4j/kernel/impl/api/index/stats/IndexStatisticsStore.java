@@ -36,11 +36,13 @@ import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.index.internal.gbptree.Seeker;
 import org.neo4j.index.internal.gbptree.TreeFileNotFoundException;
 import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.IOUtils;
 import org.neo4j.io.layout.DatabaseLayout;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.context.CursorContext;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.kernel.api.index.IndexValueHistogram;
 import org.neo4j.kernel.impl.index.schema.ConsistencyCheckable;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
@@ -49,7 +51,8 @@ import static org.eclipse.collections.api.factory.Sets.immutable;
 /**
  * A simple store for keeping index statistics counts, like number of updates, index size, number of unique values a.s.o.
  * These values aren't updated transactionally and so the data is just kept in memory and flushed to a {@link GBPTree} on every checkpoint.
- * Neither reads, writes nor checkpoints block each other.
+ * Neither reads, writes nor checkpoints block each other. The {@link IndexValueHistogram histograms} of sampled indexes are kept
+ * in a tree of their own next to it, see {@link IndexStatisticsHistograms}.
  *
  * The store is accessible after {@link #init()} has been called.
  */
@@ -64,25 +67,32 @@ public class IndexStatisticsStore extends LifecycleAdapter implements IndexStati
 
     private final PageCache pageCache;
     private final Path path;
+    private final Path histogramsPath;
     private final RecoveryCleanupWorkCollector recoveryCleanupWorkCollector;
     private final String databaseName;
     private final PageCacheTracer pageCacheTracer;
     private final IndexStatisticsLayout layout;
+    private final IndexStatisticsLayout histogramsLayout;
     private final DatabaseReadOnlyChecker readOnlyChecker;
     private GBPTree<IndexStatisticsKey,IndexStatisticsValue> tree;
+    // Null if there is no histograms tree and none can be created, i.e. in a read only database that never had one
+    private GBPTree<IndexStatisticsKey,IndexStatisticsValue> histogramsTree;
     // Let IndexStatisticsValue be immutable in this map so that checkpoint doesn't have to coordinate with concurrent writers
     // It's assumed that the data in this map will be so small that everything can just be in it always.
     private final ConcurrentHashMap<Long,ImmutableIndexStatistics> cache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long,IndexValueHistogram> histograms = new ConcurrentHashMap<>();
 
     public IndexStatisticsStore( PageCache pageCache, Path path, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector,
             DatabaseReadOnlyChecker readOnlyChecker, String databaseName, PageCacheTracer pageCacheTracer )
     {
         this.pageCache = pageCache;
         this.path = path;
+        this.histogramsPath = IndexStatisticsHistograms.histogramsFile( path );
         this.recoveryCleanupWorkCollector = recoveryCleanupWorkCollector;
         this.databaseName = databaseName;
         this.pageCacheTracer = pageCacheTracer;
         this.layout = new IndexStatisticsLayout();
+        this.histogramsLayout = IndexStatisticsHistograms.layout();
         this.readOnlyChecker = readOnlyChecker;
     }
 
@@ -106,26 +116,54 @@ public class IndexStatisticsStore extends LifecycleAdapter implements IndexStati
             throw new IllegalStateException(
                     "Index statistics store file could not be found, most likely this database needs to be recovered, file:" + path, e );
         }
+        try
+        {
+            histogramsTree = new GBPTree<>( pageCache, histogramsPath, histogramsLayout, GBPTree.NO_MONITOR, GBPTree.NO_HEADER_READER,
+                    GBPTree.NO_HEADER_WRITER, recoveryCleanupWorkCollector, readOnlyChecker, pageCacheTracer, immutable.empty(), databaseName,
+                    "Statistics histograms store" );
+        }
+        catch ( TreeFileNotFoundException e )
+        {
+            // Histograms are only an addition to the statistics, the planner falls back to the uniform estimates without them
+            histogramsTree = null;
+        }
         try ( var cursorContext = new CursorContext( pageCacheTracer.createPageCursorTracer( INIT_TAG ) ) )
         {
-            scanTree( ( key, value ) -> cache.put( key.getIndexId(), new ImmutableIndexStatistics( value ) ), cursorContext );
+            scanTree( tree, ( key, value ) -> cache.put( key.getIndexId(), new ImmutableIndexStatistics( value ) ), cursorContext );
+            if ( histogramsTree != null )
+            {
+                IndexStatisticsHistograms.Reader histogramReader = new IndexStatisticsHistograms.Reader();
+                scanTree( histogramsTree, histogramReader::add, cursorContext );
+                histogramReader.forEachHistogram( histograms::put );
+            }
         }
     }
 
     public IndexSample indexSample( long indexId )
     {
         ImmutableIndexStatistics value = cache.getOrDefault( indexId, EMPTY_STATISTICS );
-        return new IndexSample( value.indexSize, value.sampleUniqueValues, value.sampleSize, value.updatesCount );
+        return new IndexSample( value.indexSize, value.sampleUniqueValues, value.sampleSize, value.updatesCount,
+                histograms.getOrDefault( indexId, IndexValueHistogram.EMPTY ) );
     }
 
     public void replaceStats( long indexId, IndexSample sample )
     {
         cache.put( indexId, new ImmutableIndexStatistics( sample.uniqueValues(), sample.sampleSize(), sample.updates(), sample.indexSize() ) );
+        IndexValueHistogram histogram = sample.histogram();
+        if ( !histogram.isEmpty() && IndexStatisticsHistograms.fits( histogram ) )
+        {
+            histograms.put( indexId, histogram );
+        }
+        else
+        {
+            histograms.remove( indexId );
+        }
     }
 
     public void removeIndex( long indexId )
     {
         cache.remove( indexId );
+        histograms.remove( indexId );
     }
 
     public void incrementIndexUpdates( long indexId, long delta )
@@ -139,7 +177,7 @@ public class IndexStatisticsStore extends LifecycleAdapter implements IndexStati
     {
         try
         {
-            scanTree( ( key, value ) -> visitor.visitIndexStatistics( key.getIndexId(),
+            scanTree( tree, ( key, value ) -> visitor.visitIndexStatistics( key.getIndexId(),
                     value.getSampleUniqueValues(), value.getSampleSize(), value.getUpdatesCount(), value.getIndexSize() ), cursorContext );
         }
         catch ( IOException e )
@@ -151,9 +189,15 @@ public class IndexStatisticsStore extends LifecycleAdapter implements IndexStati
     public void checkpoint( CursorContext cursorContext ) throws IOException
     {
         // There's an assumption that there will never be concurrent calls to checkpoint. This is guarded outside.
-        clearTree( cursorContext );
+        clearTree( tree, cursorContext );
         writeCacheContentsIntoTree( cursorContext );
         tree.checkpoint( cursorContext );
+        if ( histogramsTree != null )
+        {
+            clearTree( histogramsTree, cursorContext );
+            writeHistogramsIntoTree( cursorContext );
+            histogramsTree.checkpoint( cursorContext );
+        }
     }
 
     @Override
@@ -166,7 +210,12 @@ public class IndexStatisticsStore extends LifecycleAdapter implements IndexStati
     {
         try
         {
-            return tree.consistencyCheck( visitor, cursorContext );
+            boolean consistent = tree.consistencyCheck( visitor, cursorContext );
+            if ( histogramsTree != null )
+            {
+                consistent &= histogramsTree.consistencyCheck( visitor, cursorContext );
+            }
+            return consistent;
         }
         catch ( IOException e )
         {
@@ -174,7 +223,8 @@ public class IndexStatisticsStore extends LifecycleAdapter implements IndexStati
         }
     }
 
-    private void scanTree( BiConsumer<IndexStatisticsKey,IndexStatisticsValue> consumer, CursorContext cursorContext ) throws IOException
+    private void scanTree( GBPTree<IndexStatisticsKey,IndexStatisticsValue> tree, BiConsumer<IndexStatisticsKey,IndexStatisticsValue> consumer,
+            CursorContext cursorContext ) throws IOException
     {
         try ( Seeker<IndexStatisticsKey,IndexStatisticsValue> seek = tree.seek( LOWEST_KEY, HIGHEST_KEY, cursorContext ) )
         {
@@ -187,11 +237,11 @@ public class IndexStatisticsStore extends LifecycleAdapter implements IndexStati
         }
     }
 
-    private void clearTree( CursorContext cursorContext ) throws IOException
+    private void clearTree( GBPTree<IndexStatisticsKey,IndexStatisticsValue> tree, CursorContext cursorContext ) throws IOException
     {
         // Read all keys from the tree, we can't do this while having a writer since it will grab write lock on pages
         List<IndexStatisticsKey> keys = new ArrayList<>( cache.size() );
-        scanTree( ( key, value ) -> keys.add( key ), cursorContext );
+        scanTree( tree, ( key, value ) -> keys.add( key ), cursorContext );
 
         // Remove all those read keys
         try ( Writer<IndexStatisticsKey,IndexStatisticsValue> writer = tree.unsafeWriter( cursorContext ) )
@@ -217,18 +267,34 @@ public class IndexStatisticsStore extends LifecycleAdapter implements IndexStati
         }
     }
 
+    private void writeHistogramsIntoTree( CursorContext cursorContext ) throws IOException
+    {
+        try ( Writer<IndexStatisticsKey,IndexStatisticsValue> writer = histogramsTree.unsafeWriter( cursorContext ) )
+        {
+            for ( Map.Entry<Long,IndexValueHistogram> entry : histograms.entrySet() )
+            {
+                IndexStatisticsHistograms.write( entry.getKey(), entry.getValue(), writer::put );
+            }
+        }
+    }
+
     public Path storeFile()
     {
         return path;
     }
 
+    /**
+     * @return the files of this store, i.e. the {@link #storeFile() statistics} and, if there is one, the histograms file.
+     */
+    public List<Path> storeFiles()
+    {
+        return histogramsTree != null ? List.of( path, histogramsPath ) : List.of( path );
+    }
+
     @Override
     public void shutdown() throws IOException
     {
-        if ( tree != null )
-        {
-            tree.close();
-        }
+        IOUtils.closeAll( tree, histogramsTree );
     }
 
     private static class ImmutableIndexStatistics
@@ -39,6 +39,9 @@ class CountingLogCheckPointEvent implements LogCheckPointEvent
     private final BiConsumer<LogPosition,LogPosition> logFileAppendConsumer;
     private final CountingLogRotateEvent countingLogRotateEvent;
     private volatile long lastCheckpointTimeMillis;
+    private volatile long lastCheckpointIOs;
+    private volatile long lastCheckpointIOLimitedMillis;
+    private volatile long lastCheckpointIOPS;
 
     CountingLogCheckPointEvent( BiConsumer<LogPosition,LogPosition> logFileAppendConsumer, CountingLogRotateEvent countingLogRotateEvent )
     {
@@ -54,6 +57,14 @@ class CountingLogCheckPointEvent implements LogCheckPointEvent
         lastCheckpointTimeMillis = checkpointMillis;
     }
 
+    @Override
+    public void checkpointFlushed( long ios, long ioLimitedMillis, long flushMillis )
+    {
+        lastCheckpointIOs = ios;
+        lastCheckpointIOLimitedMillis = ioLimitedMillis;
+        lastCheckpointIOPS = ios * 1000 / Math.max( 1, flushMillis );
+    }
+
     @Override
     public void close()
     {
@@ -93,6 +104,21 @@ class CountingLogCheckPointEvent implements LogCheckPointEvent
         return lastCheckpointTimeMillis;
     }
 
+    long lastCheckpointIOs()
+    {
+        return lastCheckpointIOs;
+    }
+
+    long lastCheckpointIOLimitedMillis()
+    {
+        return lastCheckpointIOLimitedMillis;
+    }
+
+    long lastCheckpointIOPS()
+    {
+        return lastCheckpointIOPS;
+    }
+
     @Override
     public LogRotateEvent beginLogRotate()
     {
@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.api.tracer;
 
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.neo4j.io.pagecache.context.CursorContext;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
@@ -36,6 +37,7 @@ import org.neo4j.kernel.impl.transaction.tracing.LogRotateEvent;
 import org.neo4j.kernel.impl.transaction.tracing.StoreApplyEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_FORMAT_LOG_HEADER_SIZE;
 
 /**
@@ -46,6 +48,10 @@ public class DefaultTracer implements DatabaseTracer
     private final AtomicLong appendedBytes = new AtomicLong();
     private final AtomicLong numberOfFlushes = new AtomicLong();
     private final AtomicLong appliedBatchSize = new AtomicLong();
+    private final AtomicLong numberOfGroupCommits = new AtomicLong();
+    private final AtomicLongArray groupCommitSizes = new AtomicLongArray( Integer.SIZE - 1 );
+    private final AtomicLong groupCommitDelayNanos = new AtomicLong();
+    private final AtomicLong logForceNanos = new AtomicLong();
 
     private final CountingLogRotateEvent countingLogRotateEvent = new CountingLogRotateEvent();
     private final LogFileCreateEvent logFileCreateEvent = () -> appendedBytes.addAndGet( CURRENT_FORMAT_LOG_HEADER_SIZE );
@@ -102,6 +108,35 @@ public class DefaultTracer implements DatabaseTracer
         return appliedBatchSize.get();
     }
 
+    @Override
+    public long numberOfGroupCommits()
+    {
+        return numberOfGroupCommits.get();
+    }
+
+    @Override
+    public long[] groupCommitSizeHistogram()
+    {
+        long[] histogram = new long[groupCommitSizes.length()];
+        for ( int i = 0; i < histogram.length; i++ )
+        {
+            histogram[i] = groupCommitSizes.get( i );
+        }
+        return histogram;
+    }
+
+    @Override
+    public long groupCommitDelayAccumulatedTotalTimeMillis()
+    {
+        return NANOSECONDS.toMillis( groupCommitDelayNanos.get() );
+    }
+
+    @Override
+    public long logForceAccumulatedTotalTimeMillis()
+    {
+        return NANOSECONDS.toMillis( logForceNanos.get() );
+    }
+
     @Override
     public long numberOfCheckPoints()
     {
@@ -120,6 +155,24 @@ public class DefaultTracer implements DatabaseTracer
         return logCheckPointEvent.lastCheckpointTimeMillis();
     }
 
+    @Override
+    public long lastCheckpointIOs()
+    {
+        return logCheckPointEvent.lastCheckpointIOs();
+    }
+
+    @Override
+    public long lastCheckpointIOLimitedMillis()
+    {
+        return logCheckPointEvent.lastCheckpointIOLimitedMillis();
+    }
+
+    @Override
+    public long lastCheckpointIOPS()
+    {
+        return logCheckPointEvent.lastCheckpointIOPS();
+    }
+
     @Override
     public LogCheckPointEvent beginCheckPoint()
     {
@@ -240,6 +293,18 @@ public class DefaultTracer implements DatabaseTracer
             return AppendTransactionEvent.NULL;
         }
 
+        @Override
+        public void groupCommitted( int batchSize, long commitDelayNanos, long forceNanos )
+        {
+            numberOfGroupCommits.incrementAndGet();
+            if ( batchSize > 0 )
+            {
+                groupCommitSizes.incrementAndGet( Integer.SIZE - 1 - Integer.numberOfLeadingZeros( batchSize ) );
+            }
+            groupCommitDelayNanos.addAndGet( commitDelayNanos );
+            logForceNanos.addAndGet( forceNanos );
+        }
+
         @Override
         public LogForceWaitEvent beginLogForceWait()
         {
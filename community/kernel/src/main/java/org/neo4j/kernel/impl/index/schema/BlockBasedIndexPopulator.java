@@ -31,6 +31,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 import org.neo4j.configuration.Config;
@@ -59,6 +60,9 @@ import org.neo4j.storageengine.api.ValueIndexEntryUpdate;
 import org.neo4j.util.Preconditions;
 import org.neo4j.values.storable.Value;
 
+import static java.util.Collections.emptyList;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.index_population_workers;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.index_populator_merge_workers;
 import static org.neo4j.internal.helpers.collection.Iterables.first;
 import static org.neo4j.io.ByteUnit.kibiBytes;
 import static org.neo4j.io.IOUtils.closeAllUnchecked;
@@ -89,10 +93,30 @@ import static org.neo4j.util.concurrent.Runnables.runAll;
  *
  * where {@link GraphDatabaseInternalSettings#index_population_workers} controls the number of population workers.
  *
+ * Regarding key ranges: merging all the sorted files into the one stream written to the tree would otherwise be done by a single thread,
+ * so for populations large enough the key space is split into ranges, using split keys picked from keys sampled while adding scan updates.
+ * The last merge iteration of each file then writes one block per key range and every key range is merged from those blocks by its own job,
+ * see {@link KeyRangeMerger}, which streams the merged ranges to the tree in order. {@link GraphDatabaseInternalSettings#index_populator_merge_workers}
+ * controls the number of key ranges. Each such job uses one read buffer per file.
+ *
+ * Regarding disk usage: each merge iteration of a file writes all its entries to a second file before the first one is deleted, and the files
+ * are merged in parallel, so merging needs temporary disk space up to the total size of the files, on top of the files themselves.
+ * The merged stream, whether merged in key ranges or not, is written straight to the tree and needs no temporary disk space.
+ *
  * @param <KEY>
  */
 public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>> extends NativeIndexPopulator<KEY>
 {
+    /**
+     * Upper bound of keys each thread samples from its scan updates, for picking split keys between the key ranges. When reached,
+     * every other sampled key is dropped and the sampling interval doubled.
+     */
+    static final int MAX_SAMPLED_KEYS_PER_PART = 1_000;
+    /**
+     * Minimum number of scan updates per key range for it to be worth merging them in multiple key ranges.
+     */
+    static final long MIN_ENTRIES_PER_KEY_RANGE = 100_000;
+
     private final boolean archiveFailedIndex;
     private final MemoryTracker memoryTracker;
     /**
@@ -101,6 +125,10 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>>
      * i.e. the number of blocks shrinks by a factor {@link #mergeFactor} every pass, until one block is left.
      */
     private final int mergeFactor;
+    /**
+     * Number of key ranges to split the scan updates into when merging them, if there are enough of them, see {@link #selectSplitKeys()}.
+     */
+    private final int maxNumberOfKeyRanges;
     private final BlockStorage.Monitor blockStorageMonitor;
     // written to in a synchronized method when creating new thread-local instances, read from when population completes
     private final List<ThreadLocalBlockStorage> allScanUpdates = new CopyOnWriteArrayList<>();
@@ -116,7 +144,11 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>>
     private final AtomicLong numberOfIndexUpdatesSinceSample = new AtomicLong();
     private IndexValueValidator validator;
 
+    // split keys separating the key ranges the scan updates are merged in, empty if merged as a single range
+    private volatile List<KEY> splitKeys = emptyList();
+
     // progress state
+    private final AtomicLong numberOfEntriesMergedIntoKeyRanges = new AtomicLong();
     private final AtomicLong numberOfAppliedScanUpdates = new AtomicLong();
     private final AtomicLong numberOfAppliedExternalUpdates = new AtomicLong();
 
@@ -134,11 +166,22 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>>
         this.archiveFailedIndex = archiveFailedIndex;
         this.memoryTracker = memoryTracker;
         this.mergeFactor = config.get( GraphDatabaseInternalSettings.index_populator_merge_factor );
+        this.maxNumberOfKeyRanges = numberOfKeyRanges( config );
         this.blockStorageMonitor = blockStorageMonitor;
         this.scanUpdates = ThreadLocal.withInitial( this::newThreadLocalBlockStorage );
         this.bufferFactory = bufferFactory;
     }
 
+    private static int numberOfKeyRanges( Config config )
+    {
+        int mergeWorkers = config.get( index_populator_merge_workers );
+        if ( mergeWorkers == 0 )
+        {
+            mergeWorkers = config.get( index_population_workers );
+        }
+        return mergeWorkers == 0 ? Runtime.getRuntime().availableProcessors() : mergeWorkers;
+    }
+
     private synchronized ThreadLocalBlockStorage newThreadLocalBlockStorage()
     {
         Preconditions.checkState( !cancellation.cancelled(), "Already closed" );
@@ -183,7 +226,7 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>>
     {
         if ( !updates.isEmpty() )
         {
-            BlockStorage<KEY,NullValue> blockStorage = null;
+            ThreadLocalBlockStorage blockStorage = null;
             for ( IndexEntryUpdate<?> update : updates )
             {
                 ValueIndexEntryUpdate<?> valueUpdate = (ValueIndexEntryUpdate<?>) update;
@@ -198,21 +241,21 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>>
                 // and the code dealing with the block storage is not ready for this option.
                 if ( blockStorage == null )
                 {
-                    blockStorage = scanUpdates.get().blockStorage;
+                    blockStorage = scanUpdates.get();
                 }
                 storeUpdate( update.getEntityId(), valueUpdate.values(), blockStorage );
             }
         }
     }
 
-    private void storeUpdate( long entityId, Value[] values, BlockStorage<KEY,NullValue> blockStorage )
+    private void storeUpdate( long entityId, Value[] values, ThreadLocalBlockStorage blockStorage )
     {
         try
         {
             validator.validate( entityId, values );
             KEY key = layout.newKey();
             initializeKeyFromUpdate( key, entityId, values );
-            blockStorage.add( key, NullValue.INSTANCE );
+            blockStorage.add( key );
         }
         catch ( IOException e )
         {
@@ -247,6 +290,7 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>>
             phaseTracker.enterPhase( PhaseTracker.Phase.MERGE );
             if ( !allScanUpdates.isEmpty() )
             {
+                splitKeys = selectSplitKeys();
                 mergeScanUpdates( populationWorkScheduler );
             }
 
@@ -309,8 +353,53 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>>
         }
     }
 
+    /**
+     * Picks the keys separating the key ranges that the scan updates are merged in, from the keys sampled from all the parts.
+     * Populations with too few scan updates to benefit from merging them in multiple ranges are merged as a single range.
+     * A split key has the lowest possible entity id for its value, so that all entries with the same value end up in the same range,
+     * which conflict detection and sampling rely on.
+     *
+     * @return split keys in ascending order, or an empty list if the scan updates are to be merged as a single range.
+     */
+    private List<KEY> selectSplitKeys()
+    {
+        long numberOfEntries = allScanUpdates.stream().mapToLong( part -> part.entriesAdded ).sum();
+        int numberOfRanges = (int) Math.min( maxNumberOfKeyRanges, numberOfEntries / MIN_ENTRIES_PER_KEY_RANGE );
+        if ( numberOfRanges <= 1 )
+        {
+            return emptyList();
+        }
+
+        // Make every sampled key represent the same number of entries, i.e. the largest sampling interval
+        long sampleInterval = allScanUpdates.stream().mapToLong( part -> part.sampleInterval ).max().orElse( 1 );
+        List<KEY> sampledKeys = new ArrayList<>();
+        for ( ThreadLocalBlockStorage part : allScanUpdates )
+        {
+            int step = (int) (sampleInterval / part.sampleInterval);
+            for ( int i = step - 1; i < part.sampledKeys.size(); i += step )
+            {
+                sampledKeys.add( part.sampledKeys.get( i ) );
+            }
+        }
+        sampledKeys.sort( layout );
+
+        List<KEY> selected = new ArrayList<>();
+        for ( int range = 1; range < numberOfRanges; range++ )
+        {
+            KEY splitKey = layout.copyKey( sampledKeys.get( (int) ((long) range * sampledKeys.size() / numberOfRanges) ), layout.newKey() );
+            splitKey.setCompareId( true );
+            splitKey.setEntityId( Long.MIN_VALUE );
+            if ( selected.isEmpty() || layout.compare( selected.get( selected.size() - 1 ), splitKey ) < 0 )
+            {
+                selected.add( splitKey );
+            }
+        }
+        return selected;
+    }
+
     private void mergeScanUpdates( PopulationWorkScheduler populationWorkScheduler ) throws InterruptedException, ExecutionException, IOException
     {
+        List<KEY> splitKeys = this.splitKeys;
         List<JobHandle<?>> mergeFutures = new ArrayList<>();
         for ( ThreadLocalBlockStorage part : allScanUpdates )
         {
@@ -321,7 +410,7 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>>
                     indexName -> "Block merging for '" + indexName + "'",
                     () ->
                     {
-                        scanUpdates.merge( mergeFactor, cancellation );
+                        scanUpdates.merge( mergeFactor, splitKeys, cancellation );
                         return null;
                     } )
             );
@@ -408,8 +497,27 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>>
             return new IndexSample( 0, 0, 0 );
         }
 
+        Comparator<KEY> samplingComparator = descriptor.isUnique() ? null : layout::compareValue;
+        if ( !splitKeys.isEmpty() )
+        {
+            // Merge the scan updates key range by key range, every range by its own job, and direct the merged ranges, in order,
+            // towards the tree bulk loader, which builds the tree bottom-up from them since they are sorted and the tree is still empty
+            // at this point. External updates are buffered separately and applied afterwards
+            List<BlockStorage<KEY,NullValue>> parts = allScanUpdates.stream().map( part -> part.blockStorage ).collect( Collectors.toList() );
+            IntConsumer entriesMergedReporter = numberOfEntriesMergedIntoKeyRanges::addAndGet;
+            try ( var merger = new KeyRangeMerger<>( populationWorkScheduler, parts, splitKeys.size() + 1, layout, samplingComparator, allocator,
+                    bufferSize, PartMerger.DEFAULT_BATCH_SIZE, memoryTracker, cancellation, entriesMergedReporter );
+                  var allEntries = merger.startMerge();
+                  var writer = tree.bulkLoader( 1, cursorContext ) )
+            {
+                writeScanUpdatesToTree( allEntries, writer, recordingConflictDetector );
+                return descriptor.isUnique() ? null : merger.buildIndexSample();
+            }
+        }
+
         // Merge the (sorted) scan updates from all the different threads in pairs until only one stream remain,
-        // and direct that stream towards the tree writer (which itself is only single threaded)
+        // and direct that stream towards the tree bulk loader, which builds the tree bottom-up from it since the stream is sorted
+        // and the tree is still empty at this point. External updates are buffered separately and applied afterwards
         try ( var readBuffers = new CompositeBuffer();
               var singleBlockScopedBuffer = allocator.allocate( (int) kibiBytes( 8 ), memoryTracker ) )
         {
@@ -428,21 +536,26 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>>
                 }
             }
 
-            Comparator<KEY> samplingComparator = descriptor.isUnique() ? null : layout::compareValue;
             try ( var merger = new PartMerger<>( populationWorkScheduler, parts, layout, samplingComparator, cancellation, PartMerger.DEFAULT_BATCH_SIZE );
                   var allEntries = merger.startMerge();
-                  var writer = tree.writer( 1, cursorContext ) )
+                  var writer = tree.bulkLoader( 1, cursorContext ) )
             {
-                while ( allEntries.next() && !cancellation.cancelled() )
-                {
-                    writeToTree( writer, recordingConflictDetector, allEntries.key() );
-                    numberOfAppliedScanUpdates.incrementAndGet();
-                }
+                writeScanUpdatesToTree( allEntries, writer, recordingConflictDetector );
                 return descriptor.isUnique() ? null : allEntries.buildIndexSample();
             }
         }
     }
 
+    private void writeScanUpdatesToTree( BlockEntryCursor<KEY,NullValue> allEntries, Writer<KEY,NullValue> writer,
+            RecordingConflictDetector<KEY> recordingConflictDetector ) throws IOException, IndexEntryConflictException
+    {
+        while ( allEntries.next() && !cancellation.cancelled() )
+        {
+            writeToTree( writer, recordingConflictDetector, allEntries.key() );
+            numberOfAppliedScanUpdates.incrementAndGet();
+        }
+    }
+
     @Override
     public IndexUpdater newPopulatingUpdater( CursorContext cursorContext )
     {
@@ -596,6 +709,12 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>>
                 ThreadLocalBlockStorage part = first( allScanUpdates );
                 completed = part.entriesMerged.get();
                 total = part.totalEntriesToMerge;
+                if ( !splitKeys.isEmpty() )
+                {
+                    // The key ranges are then merged in parallel from all the parts
+                    completed += numberOfEntriesMergedIntoKeyRanges.get();
+                    total += allScanUpdates.stream().mapToLong( p -> p.count ).sum();
+                }
             }
             builder.add( PopulationProgress.single( completed, total ), 1 );
         }
@@ -665,6 +784,10 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>>
     private class ThreadLocalBlockStorage extends BlockStorage.Monitor.Delegate
     {
         private final BlockStorage<KEY,NullValue> blockStorage;
+        // keys sampled from the added entries, every sampleInterval:th of them, only accessed by the owning thread until scan has completed
+        private final List<KEY> sampledKeys = new ArrayList<>();
+        private long sampleInterval = 1;
+        private long entriesAdded;
         private volatile long count;
         private volatile boolean mergeStarted;
         private volatile long totalEntriesToMerge;
@@ -678,6 +801,26 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>>
             this.blockStorage = new BlockStorage<>( layout, bufferFactory, fileSystem, blockFile, this, memoryTracker );
         }
 
+        void add( KEY key ) throws IOException
+        {
+            blockStorage.add( key, NullValue.INSTANCE );
+            if ( ++entriesAdded % sampleInterval == 0 )
+            {
+                // The key instance isn't reused by the caller so it's fine to keep a reference to it
+                sampledKeys.add( key );
+                if ( sampledKeys.size() == 2 * MAX_SAMPLED_KEYS_PER_PART )
+                {
+                    // Keep every other sampled key, i.e. those that would have been sampled with twice the interval
+                    for ( int i = 0; i < MAX_SAMPLED_KEYS_PER_PART; i++ )
+                    {
+                        sampledKeys.set( i, sampledKeys.get( 2 * i + 1 ) );
+                    }
+                    sampledKeys.subList( MAX_SAMPLED_KEYS_PER_PART, sampledKeys.size() ).clear();
+                    sampleInterval *= 2;
+                }
+            }
+        }
+
         @Override
         public void mergeStarted( long entryCount, long totalEntriesToWriteDuringMerge )
         {
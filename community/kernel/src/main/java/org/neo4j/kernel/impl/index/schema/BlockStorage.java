@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Comparator;
+import java.util.List;
 import java.util.function.IntConsumer;
 
 import org.neo4j.index.internal.gbptree.Layout;
@@ -41,6 +42,7 @@ import org.neo4j.memory.MemoryTracker;
 import org.neo4j.util.Preconditions;
 
 import static java.lang.Math.ceil;
+import static java.util.Collections.emptyList;
 import static org.neo4j.kernel.impl.index.schema.BlockStorage.Cancellation.NOT_CANCELLABLE;
 
 /**
@@ -51,7 +53,8 @@ import static org.neo4j.kernel.impl.index.schema.BlockStorage.Cancellation.NOT_C
  * 2. MERGE: By calling {@link #merge(int, Cancellation)} (after {@link #doneAdding()} has been called) the multiple Blocks are merge joined into a new file
  * resulting in larger blocks of sorted entries. Those larger blocks are then merge joined back to the original file. Merging continues in this ping pong
  * fashion until there is only a single large block in the resulting file. The entries are now ready to be read in sorted order,
- * call {@link #reader(boolean)}.
+ * call {@link #reader(boolean)}. Alternatively, by calling {@link #merge(int, List, Cancellation)} with split keys, the last merge iteration
+ * writes one block per key range instead of a single block, so that the ranges can be processed separately from each other.
  */
 class BlockStorage<KEY, VALUE> implements Closeable
 {
@@ -132,7 +135,7 @@ class BlockStorage<KEY, VALUE> implements Closeable
         ByteBuffer byteBuffer = bufferFactory.acquireThreadLocalBuffer( memoryTracker );
         try
         {
-            writeBlock( storeChannel, entries, blockSize, bufferedEntries.size(), NOT_CANCELLABLE, count -> entryCount += count, byteBuffer );
+            writeBlock( storeChannel, layout, entries, blockSize, bufferedEntries.size(), NOT_CANCELLABLE, count -> entryCount += count, byteBuffer );
         }
         finally
         {
@@ -161,7 +164,26 @@ class BlockStorage<KEY, VALUE> implements Closeable
      */
     public void merge( int mergeFactor, Cancellation cancellation ) throws IOException
     {
-        monitor.mergeStarted( entryCount, calculateNumberOfEntriesWrittenDuringMerges( entryCount, numberOfBlocksInCurrentFile, mergeFactor ) );
+        merge( mergeFactor, emptyList(), cancellation );
+    }
+
+    /**
+     * Like {@link #merge(int, Cancellation)}, but instead of merging into a single block the last merge iteration merges into one block
+     * per key range, as given by {@code splitKeys}. Given {@code n} split keys the result is {@code n + 1} blocks, some of them possibly empty,
+     * where block {@code i} contains the entries which are equal to or greater than split key {@code i - 1} and less than split key {@code i}.
+     * The last merge iteration merges the remaining, at most {@code mergeFactor}, blocks and is done even if there is only a single block.
+     *
+     * @param mergeFactor See {@link #performSingleMerge(int, BlockReader, StoreChannel, Cancellation, ScopedBuffer[], ByteBuffer)}.
+     * @param splitKeys keys, in ascending order, which separate the key ranges. If empty the result is a single block,
+     * just like {@link #merge(int, Cancellation)}.
+     * @param cancellation Injected so that this merge can be cancelled, if an external request to do that comes in.
+     * @throws IOException If something goes wrong when reading from file.
+     */
+    public void merge( int mergeFactor, List<KEY> splitKeys, Cancellation cancellation ) throws IOException
+    {
+        boolean partitioned = !splitKeys.isEmpty();
+        monitor.mergeStarted( entryCount,
+                calculateNumberOfEntriesWrittenDuringMerges( entryCount, numberOfBlocksInCurrentFile, mergeFactor, partitioned ) );
         Path sourceFile = blockFile;
         Path tempFile = blockFile.resolveSibling( blockFile.getFileName() + ".b" );
         Path targetFile = tempFile;
@@ -171,7 +193,7 @@ class BlockStorage<KEY, VALUE> implements Closeable
               var writeBuffer = mergeBufferAllocator.allocate( bufferSize, memoryTracker );
               var readBuffers = new CompositeScopedBuffer( mergeFactor, bufferSize, mergeBufferAllocator, memoryTracker ) )
         {
-            while ( numberOfBlocksInCurrentFile > 1 )
+            while ( numberOfBlocksInCurrentFile > (partitioned ? mergeFactor : 1) )
             {
                 // Perform one complete merge iteration, merging all blocks from source into target.
                 // After this step, target will contain fewer blocks than source, but may need another merge iteration.
@@ -195,6 +217,22 @@ class BlockStorage<KEY, VALUE> implements Closeable
                 sourceFile = targetFile;
                 targetFile = tmpSourceFile;
             }
+
+            if ( partitioned && !cancellation.cancelled() )
+            {
+                // The last merge iteration, merging all remaining blocks into one block per key range
+                try ( BlockReader<KEY,VALUE> reader = reader( sourceFile, false );
+                      StoreChannel targetChannel = fs.write( targetFile ) )
+                {
+                    long blocksMerged = performPartitioningMerge( reader, targetChannel, splitKeys, cancellation, readBuffers.getScopedBuffers(),
+                            writeBuffer.getBuffer() );
+                    numberOfBlocksInCurrentFile = splitKeys.size() + 1;
+                    monitor.mergeIterationFinished( blocksMerged, numberOfBlocksInCurrentFile );
+                }
+                Path tmpSourceFile = sourceFile;
+                sourceFile = targetFile;
+                targetFile = tmpSourceFile;
+            }
         }
         finally
         {
@@ -224,9 +262,22 @@ class BlockStorage<KEY, VALUE> implements Closeable
      * merged with the given merge factor.
      */
     static long calculateNumberOfEntriesWrittenDuringMerges( long entryCount, long numberOfBlocks, int mergeFactor )
+    {
+        return calculateNumberOfEntriesWrittenDuringMerges( entryCount, numberOfBlocks, mergeFactor, false );
+    }
+
+    /**
+     * Like {@link #calculateNumberOfEntriesWrittenDuringMerges(long, long, int)}, but if {@code partitioned} then for a
+     * {@link #merge(int, List, Cancellation) merge into key ranges}.
+     */
+    static long calculateNumberOfEntriesWrittenDuringMerges( long entryCount, long numberOfBlocks, int mergeFactor, boolean partitioned )
     {
         int singleMerges = 0;
-        for ( long blocks = numberOfBlocks; blocks > 1; blocks = (long) ceil( (double) blocks / mergeFactor ) )
+        for ( long blocks = numberOfBlocks; blocks > (partitioned ? mergeFactor : 1); blocks = (long) ceil( (double) blocks / mergeFactor ) )
+        {
+            singleMerges++;
+        }
+        if ( partitioned )
         {
             singleMerges++;
         }
@@ -242,7 +293,7 @@ class BlockStorage<KEY, VALUE> implements Closeable
      * like a single large and sorted entry reader.
      *
      * The large block resulting from the merge is written down to targetChannel by calling
-     * {@link #writeBlock(StoreChannel, BlockEntryCursor, long, long, Cancellation, IntConsumer, ByteBuffer)}.
+     * {@link #writeBlock(StoreChannel, Layout, BlockEntryCursor, long, long, Cancellation, IntConsumer, ByteBuffer)}.
      *
      * @param mergeFactor How many blocks to merge at the same time. Influence how much memory will be used because each merge block will have it's own
      * {@link ByteBuffer} that they read from.
@@ -280,14 +331,120 @@ class BlockStorage<KEY, VALUE> implements Closeable
             }
 
             writeBuffer.clear();
-            writeBlock( targetChannel, merger, blockSize, entryCount, cancellation, monitor::entriesMerged, writeBuffer );
+            writeBlock( targetChannel, layout, merger, blockSize, entryCount, cancellation, monitor::entriesMerged, writeBuffer );
             monitor.mergedBlocks( blockSize, entryCount, blocksMerged );
             return blocksMerged;
         }
     }
 
-    private void writeBlock( StoreChannel targetChannel, BlockEntryCursor<KEY,VALUE> blockEntryCursor, long blockSize, long entryCount,
-            Cancellation cancellation, IntConsumer entryCountReporter, ByteBuffer byteBuffer ) throws IOException
+    /**
+     * Merge all remaining blocks, at most as many as there are read buffers, and write the result as one block per key range.
+     * The size and entry count of a block isn't known until all entries in its key range have been written, so its header
+     * is written afterwards, at the start of the block, instead of before the entries.
+     *
+     * @param reader The {@link BlockReader} to pull blocks / {@link BlockEntryReader}s from.
+     * @param targetChannel The {@link StoreChannel} to write the blocks to.
+     * @param splitKeys keys, in ascending order, separating the key ranges.
+     * @param cancellation Injected so that this merge can be cancelled, if an external request to do that comes in.
+     * @param readBuffers buffers for all block readers.
+     * @param writeBuffer buffer for writing the blocks.
+     * @return The number of blocks that were merged.
+     * @throws IOException If something goes wrong when reading from file.
+     */
+    private long performPartitioningMerge( BlockReader<KEY,VALUE> reader, StoreChannel targetChannel, List<KEY> splitKeys, Cancellation cancellation,
+            ScopedBuffer[] readBuffers, ByteBuffer writeBuffer ) throws IOException
+    {
+        try ( MergingBlockEntryReader<KEY,VALUE> merger = new MergingBlockEntryReader<>( layout ) )
+        {
+            int blocksMerged = 0;
+            for ( ScopedBuffer readBuffer : readBuffers )
+            {
+                readBuffer.getBuffer().clear();
+                BlockEntryReader<KEY,VALUE> source = reader.nextBlock( readBuffer );
+                if ( source == null )
+                {
+                    break;
+                }
+                blocksMerged++;
+                merger.addSource( source );
+            }
+
+            writeBuffer.clear();
+            ByteBuffer headerBuffer = ByteBuffer.allocate( BLOCK_HEADER_SIZE );
+            ByteArrayPageCursor pageCursor = new ByteArrayPageCursor( writeBuffer );
+            int range = 0;
+            long blockStart = startPartitionBlock( targetChannel, writeBuffer );
+            long blockEntryCount = 0;
+            int entryCountToReport = 0;
+            while ( merger.next() )
+            {
+                KEY key = merger.key();
+                VALUE value = merger.value();
+                while ( range < splitKeys.size() && layout.compare( key, splitKeys.get( range ) ) >= 0 )
+                {
+                    endPartitionBlock( targetChannel, writeBuffer, headerBuffer, blockStart, blockEntryCount, blocksMerged );
+                    blockStart = startPartitionBlock( targetChannel, writeBuffer );
+                    blockEntryCount = 0;
+                    range++;
+                }
+
+                int entrySize = BlockEntry.entrySize( layout, key, value );
+                if ( writeBuffer.remaining() < entrySize )
+                {
+                    if ( cancellation.cancelled() )
+                    {
+                        return blocksMerged;
+                    }
+                    writeBuffer.flip();
+                    targetChannel.writeAll( writeBuffer );
+                    writeBuffer.clear();
+                    monitor.entriesMerged( entryCountToReport );
+                    entryCountToReport = 0;
+                }
+                BlockEntry.write( pageCursor, layout, key, value );
+                blockEntryCount++;
+                entryCountToReport++;
+            }
+            if ( entryCountToReport > 0 )
+            {
+                monitor.entriesMerged( entryCountToReport );
+            }
+
+            // End the current block and write empty blocks for the key ranges, if any, after the last entry
+            endPartitionBlock( targetChannel, writeBuffer, headerBuffer, blockStart, blockEntryCount, blocksMerged );
+            for ( ; range < splitKeys.size(); range++ )
+            {
+                blockStart = startPartitionBlock( targetChannel, writeBuffer );
+                endPartitionBlock( targetChannel, writeBuffer, headerBuffer, blockStart, 0, blocksMerged );
+            }
+            return blocksMerged;
+        }
+    }
+
+    private static long startPartitionBlock( StoreChannel targetChannel, ByteBuffer writeBuffer ) throws IOException
+    {
+        // Reserve space for the header, it's written when the block is ended
+        long blockStart = targetChannel.position() + writeBuffer.position();
+        writeHeader( writeBuffer, 0, 0 );
+        return blockStart;
+    }
+
+    private void endPartitionBlock( StoreChannel targetChannel, ByteBuffer writeBuffer, ByteBuffer headerBuffer, long blockStart, long blockEntryCount,
+            int blocksMerged ) throws IOException
+    {
+        writeBuffer.flip();
+        targetChannel.writeAll( writeBuffer );
+        writeBuffer.clear();
+        long blockSize = targetChannel.position() - blockStart;
+        headerBuffer.clear();
+        writeHeader( headerBuffer, blockSize, blockEntryCount );
+        headerBuffer.flip();
+        targetChannel.writeAll( headerBuffer, blockStart );
+        monitor.mergedBlocks( blockSize, blockEntryCount, blocksMerged );
+    }
+
+    static <KEY, VALUE> void writeBlock( StoreChannel targetChannel, Layout<KEY,VALUE> layout, BlockEntryCursor<KEY,VALUE> blockEntryCursor,
+            long blockSize, long entryCount, Cancellation cancellation, IntConsumer entryCountReporter, ByteBuffer byteBuffer ) throws IOException
     {
         writeHeader( byteBuffer, blockSize, entryCount );
         long actualDataSize = writeEntries( targetChannel, byteBuffer, layout, blockEntryCursor, cancellation, entryCountReporter );
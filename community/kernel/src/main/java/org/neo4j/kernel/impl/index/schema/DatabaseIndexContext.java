@@ -23,7 +23,10 @@ import org.neo4j.dbms.database.readonly.DatabaseReadOnlyChecker;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.memory.EmptyMemoryTracker;
+import org.neo4j.memory.MemoryTracker;
 import org.neo4j.monitoring.Monitors;
+import org.neo4j.scheduler.JobScheduler;
 
 public class DatabaseIndexContext
 {
@@ -34,9 +37,12 @@ public class DatabaseIndexContext
     final DatabaseReadOnlyChecker readOnlyChecker;
     final PageCacheTracer pageCacheTracer;
     final String databaseName;
+    final MemoryTracker memoryTracker;
+    final JobScheduler jobScheduler;
 
     private DatabaseIndexContext( PageCache pageCache, FileSystemAbstraction fileSystem, Monitors monitors, String monitorTag,
-            DatabaseReadOnlyChecker readOnlyChecker, PageCacheTracer pageCacheTracer, String databaseName )
+            DatabaseReadOnlyChecker readOnlyChecker, PageCacheTracer pageCacheTracer, String databaseName, MemoryTracker memoryTracker,
+            JobScheduler jobScheduler )
     {
         this.pageCache = pageCache;
         this.fileSystem = fileSystem;
@@ -45,6 +51,8 @@ public class DatabaseIndexContext
         this.readOnlyChecker = readOnlyChecker;
         this.pageCacheTracer = pageCacheTracer;
         this.databaseName = databaseName;
+        this.memoryTracker = memoryTracker;
+        this.jobScheduler = jobScheduler;
     }
 
     /**
@@ -70,7 +78,9 @@ public class DatabaseIndexContext
                 .withReadOnlyChecker( copy.readOnlyChecker )
                 .withMonitors( copy.monitors )
                 .withTag( copy.monitorTag )
-                .withPageCacheTracer( copy.pageCacheTracer );
+                .withPageCacheTracer( copy.pageCacheTracer )
+                .withMemoryTracker( copy.memoryTracker )
+                .withJobScheduler( copy.jobScheduler );
     }
 
     public static class Builder
@@ -82,6 +92,8 @@ public class DatabaseIndexContext
         private String monitorTag;
         private DatabaseReadOnlyChecker readOnlyChecker;
         private PageCacheTracer pageCacheTracer;
+        private MemoryTracker memoryTracker;
+        private JobScheduler jobScheduler;
 
         private Builder( PageCache pageCache, FileSystemAbstraction fileSystem, String databaseName )
         {
@@ -92,6 +104,7 @@ public class DatabaseIndexContext
             this.monitorTag = "";
             this.readOnlyChecker = DatabaseReadOnlyChecker.writable();
             this.pageCacheTracer = PageCacheTracer.NULL;
+            this.memoryTracker = EmptyMemoryTracker.INSTANCE;
         }
 
         /**
@@ -142,9 +155,34 @@ public class DatabaseIndexContext
             return this;
         }
 
+        /**
+         * Default is {@link EmptyMemoryTracker#INSTANCE}.
+         *
+         * @param memoryTracker {@link MemoryTracker} for memory that indexes keep for as long as they are open.
+         * @return {@link Builder this builder}
+         */
+        public Builder withMemoryTracker( MemoryTracker memoryTracker )
+        {
+            this.memoryTracker = memoryTracker;
+            return this;
+        }
+
+        /**
+         * Default is none, in which case indexes do no work in the background, e.g. unique indexes get no bloom filter.
+         *
+         * @param jobScheduler {@link JobScheduler} for work that indexes do in the background.
+         * @return {@link Builder this builder}
+         */
+        public Builder withJobScheduler( JobScheduler jobScheduler )
+        {
+            this.jobScheduler = jobScheduler;
+            return this;
+        }
+
         public DatabaseIndexContext build()
         {
-            return new DatabaseIndexContext( pageCache, fileSystem, monitors, monitorTag, readOnlyChecker, pageCacheTracer, databaseName );
+            return new DatabaseIndexContext( pageCache, fileSystem, monitors, monitorTag, readOnlyChecker, pageCacheTracer, databaseName, memoryTracker,
+                    jobScheduler );
         }
     }
 }
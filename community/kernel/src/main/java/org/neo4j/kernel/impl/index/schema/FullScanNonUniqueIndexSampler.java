@@ -26,6 +26,7 @@ import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Seeker;
 import org.neo4j.io.pagecache.context.CursorContext;
 import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.kernel.api.index.IndexValueHistogram;
 import org.neo4j.kernel.api.index.NonUniqueIndexSampler;
 
 /**
@@ -47,6 +48,15 @@ class FullScanNonUniqueIndexSampler<KEY extends NativeIndexKey<KEY>>
 
     @Override
     public IndexSample sample( CursorContext cursorContext )
+    {
+        return sample( cursorContext, null );
+    }
+
+    /**
+     * Like {@link #sample(CursorContext)}, also feeding each unique value and its number of entries to the given histogram builder,
+     * if any, to have the histogram in the returned sample. Only for indexes of a single property.
+     */
+    IndexSample sample( CursorContext cursorContext, IndexValueHistogram.Builder histogram )
     {
         KEY lowest = layout.newKey();
         lowest.initialize( Long.MIN_VALUE );
@@ -66,20 +76,26 @@ class FullScanNonUniqueIndexSampler<KEY extends NativeIndexKey<KEY>>
                 prev = layout.copyKey( seek.key(), prev );
                 sampledValues++;
                 uniqueValues++;
+                long entriesOfValue = 1;
 
                 // Then do the rest
                 while ( seek.next() )
                 {
                     if ( layout.compareValue( prev, seek.key() ) != 0 )
                     {
+                        addToHistogram( histogram, prev, entriesOfValue );
+                        entriesOfValue = 0;
                         uniqueValues++;
                         layout.copyKey( seek.key(), prev );
                     }
                     // else this is a duplicate of the previous one
+                    entriesOfValue++;
                     sampledValues++;
                 }
+                addToHistogram( histogram, prev, entriesOfValue );
             }
-            return new IndexSample( sampledValues, uniqueValues, sampledValues );
+            return histogram == null ? new IndexSample( sampledValues, uniqueValues, sampledValues )
+                                     : new IndexSample( sampledValues, uniqueValues, sampledValues, 0, histogram.build() );
         }
         catch ( IOException e )
         {
@@ -87,6 +103,14 @@ class FullScanNonUniqueIndexSampler<KEY extends NativeIndexKey<KEY>>
         }
     }
 
+    private void addToHistogram( IndexValueHistogram.Builder histogram, KEY key, long entriesOfValue )
+    {
+        if ( histogram != null )
+        {
+            histogram.add( key.asValues()[0], entriesOfValue );
+        }
+    }
+
     @Override
     public IndexSample sample( int numDocs, CursorContext cursorContext )
     {
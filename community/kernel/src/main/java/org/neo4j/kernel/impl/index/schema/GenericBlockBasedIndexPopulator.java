@@ -60,7 +60,7 @@ class GenericBlockBasedIndexPopulator extends BlockBasedIndexPopulator<BtreeKey>
     @Override
     NativeIndexReader<BtreeKey> newReader()
     {
-        return new GenericNativeIndexReader( tree, layout, descriptor, spatialSettings, configuration );
+        return new GenericNativeIndexReader( tree, layout, descriptor, spatialSettings, configuration, null );
     }
 
     @Override
@@ -41,9 +41,10 @@ class GenericNativeIndexAccessor extends NativeIndexAccessor<BtreeKey>
 
     GenericNativeIndexAccessor( DatabaseIndexContext databaseIndexContext, IndexFiles indexFiles,
             IndexLayout<BtreeKey> layout, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, IndexDescriptor descriptor,
-            IndexSpecificSpaceFillingCurveSettings spaceFillingCurveSettings, SpaceFillingCurveConfiguration configuration, TokenNameLookup tokenNameLookup )
+            IndexSpecificSpaceFillingCurveSettings spaceFillingCurveSettings, SpaceFillingCurveConfiguration configuration, TokenNameLookup tokenNameLookup,
+            boolean uniqueIndexBloomFilter )
     {
-        super( databaseIndexContext, indexFiles, layout, descriptor );
+        super( databaseIndexContext, indexFiles, layout, descriptor, uniqueIndexBloomFilter );
         this.spaceFillingCurveSettings = spaceFillingCurveSettings;
         this.configuration = configuration;
         this.tokenNameLookup = tokenNameLookup;
@@ -60,7 +61,7 @@ class GenericNativeIndexAccessor extends NativeIndexAccessor<BtreeKey>
     public ValueIndexReader newValueReader()
     {
         assertOpen();
-        return new GenericNativeIndexReader( tree, layout, descriptor, spaceFillingCurveSettings, configuration );
+        return new GenericNativeIndexReader( tree, layout, descriptor, spaceFillingCurveSettings, configuration, bloomFilter );
     }
 
     @Override
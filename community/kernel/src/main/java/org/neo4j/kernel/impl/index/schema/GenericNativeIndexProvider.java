@@ -191,7 +191,7 @@ public class GenericNativeIndexProvider extends NativeIndexProvider<BtreeKey,Gen
     protected IndexAccessor newIndexAccessor( IndexFiles indexFiles, GenericLayout layout, IndexDescriptor descriptor, TokenNameLookup tokenNameLookup )
     {
         return new GenericNativeIndexAccessor( databaseIndexContext, indexFiles, layout, recoveryCleanupWorkCollector, descriptor,
-                layout.getSpaceFillingCurveSettings(), configuration, tokenNameLookup );
+                layout.getSpaceFillingCurveSettings(), configuration, tokenNameLookup, config.get( GraphDatabaseInternalSettings.unique_index_bloom_filter ) );
     }
 
     @Override
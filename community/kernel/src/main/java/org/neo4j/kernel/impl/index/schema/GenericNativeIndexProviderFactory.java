@@ -31,6 +31,8 @@ import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.api.index.IndexDirectoryStructure;
 import org.neo4j.logging.Log;
+import org.neo4j.memory.EmptyMemoryTracker;
+import org.neo4j.memory.MemoryTracker;
 import org.neo4j.monitoring.Monitors;
 import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.token.TokenHolders;
@@ -40,6 +42,21 @@ import static org.neo4j.kernel.api.index.IndexDirectoryStructure.directoriesByPr
 
 public class GenericNativeIndexProviderFactory extends AbstractIndexProviderFactory<GenericNativeIndexProvider>
 {
+    private final MemoryTracker memoryTracker;
+
+    public GenericNativeIndexProviderFactory()
+    {
+        this( EmptyMemoryTracker.INSTANCE );
+    }
+
+    /**
+     * @param memoryTracker tracker of the memory that the created provider's indexes keep for as long as they are open.
+     */
+    public GenericNativeIndexProviderFactory( MemoryTracker memoryTracker )
+    {
+        this.memoryTracker = memoryTracker;
+    }
+
     @Override
     protected Class<?> loggingClass()
     {
@@ -60,7 +77,7 @@ public class GenericNativeIndexProviderFactory extends AbstractIndexProviderFact
                                                          TokenHolders tokenHolders, JobScheduler scheduler )
     {
         return create( pageCache, databaseLayout.databaseDirectory(), fs, monitors, monitorTag, config, readOnlyChecker, recoveryCleanupWorkCollector,
-                       pageCacheTracer, databaseLayout.getDatabaseName() );
+                       pageCacheTracer, databaseLayout.getDatabaseName(), memoryTracker, scheduler );
     }
 
     @VisibleForTesting
@@ -68,11 +85,20 @@ public class GenericNativeIndexProviderFactory extends AbstractIndexProviderFact
                                                      String monitorTag, Config config, DatabaseReadOnlyChecker readOnlyChecker,
                                                      RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, PageCacheTracer pageCacheTracer,
                                                      String databaseName )
+    {
+        return create( pageCache, storeDir, fs, monitors, monitorTag, config, readOnlyChecker, recoveryCleanupWorkCollector, pageCacheTracer, databaseName,
+                       EmptyMemoryTracker.INSTANCE, null );
+    }
+
+    public static GenericNativeIndexProvider create( PageCache pageCache, Path storeDir, FileSystemAbstraction fs, Monitors monitors,
+                                                     String monitorTag, Config config, DatabaseReadOnlyChecker readOnlyChecker,
+                                                     RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, PageCacheTracer pageCacheTracer,
+                                                     String databaseName, MemoryTracker memoryTracker, JobScheduler jobScheduler )
     {
         IndexDirectoryStructure.Factory directoryStructure = directoriesByProvider( storeDir );
         DatabaseIndexContext databaseIndexContext = DatabaseIndexContext.builder( pageCache, fs, databaseName ).withMonitors( monitors ).withTag( monitorTag )
                                                                         .withReadOnlyChecker( readOnlyChecker ).withPageCacheTracer( pageCacheTracer )
-                                                                        .build();
+                                                                        .withMemoryTracker( memoryTracker ).withJobScheduler( jobScheduler ).build();
         return new GenericNativeIndexProvider( databaseIndexContext, directoryStructure, recoveryCleanupWorkCollector, config );
     }
 }
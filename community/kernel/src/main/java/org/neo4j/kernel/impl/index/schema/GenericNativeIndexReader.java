@@ -52,9 +52,9 @@ class GenericNativeIndexReader extends NativeIndexReader<BtreeKey>
 
     GenericNativeIndexReader( GBPTree<BtreeKey,NullValue> tree, IndexLayout<BtreeKey> layout,
             IndexDescriptor descriptor, IndexSpecificSpaceFillingCurveSettings spaceFillingCurveSettings,
-            SpaceFillingCurveConfiguration configuration )
+            SpaceFillingCurveConfiguration configuration, UniqueIndexBloomFilter<BtreeKey> bloomFilter )
     {
-        super( tree, layout, descriptor );
+        super( tree, layout, descriptor, bloomFilter );
         this.spaceFillingCurveSettings = spaceFillingCurveSettings;
         this.configuration = configuration;
     }
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
+
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.IOUtils;
+import org.neo4j.io.memory.ByteBufferFactory.Allocator;
+import org.neo4j.io.memory.ScopedBuffer;
+import org.neo4j.kernel.api.index.IndexPopulator.PopulationWorkScheduler;
+import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.memory.MemoryTracker;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobHandles;
+import org.neo4j.util.Preconditions;
+
+import static org.neo4j.io.ByteUnit.kibiBytes;
+import static org.neo4j.io.IOUtils.closeAll;
+import static org.neo4j.kernel.impl.index.schema.BlockEntryStreamMerger.QUEUE_SIZE;
+
+/**
+ * Merges multiple parts of {@link BlockEntry block entries} into one stream, like {@link PartMerger}, but range by range. Each part is a
+ * {@link BlockStorage} which has been {@link BlockStorage#merge(int, List, BlockStorage.Cancellation) merged into one block per key range},
+ * all of them with the same split keys. Every key range is merged by its own {@link BlockEntryStreamMerger}, from that range's block in
+ * every part, and the stream returned by {@link #startMerge()} reads the merged ranges one after the other.
+ * <pre>
+ *   part 1: [ A1 | B1 | C1 ]       range A: (A1 A2 A3) \
+ *   part 2: [ A2 | B2 | C2 ]  ==>  range B: (B1 B2 B3)  |==> A, B, C
+ *   part 3: [ A3 | B3 | C3 ]       range C: (C1 C2 C3) /
+ * </pre>
+ * The merged ranges are streamed, not written to disk, so merging needs no disk space on top of the parts themselves. Each range merger
+ * keeps a bounded number of merged batches ahead of the stream, so the ranges after the one being read are merged ahead only that far.
+ */
+class KeyRangeMerger<KEY,VALUE> implements AutoCloseable
+{
+    private static final int SKIP_BUFFER_SIZE = (int) kibiBytes( 8 );
+
+    private final PopulationWorkScheduler populationWorkScheduler;
+    private final List<BlockStorage<KEY,VALUE>> parts;
+    private final int numberOfRanges;
+    private final Layout<KEY,VALUE> layout;
+    private final Comparator<KEY> samplingComparator;
+    private final Allocator allocator;
+    private final int readBufferSize;
+    private final int batchSize;
+    private final MemoryTracker memoryTracker;
+    private final BlockStorage.Cancellation cancellation;
+    private final IntConsumer entriesMergedReporter;
+    private final List<ScopedBuffer> readBuffers = new ArrayList<>();
+    private final List<BlockEntryStreamMerger<KEY,VALUE>> rangeMergers = new ArrayList<>();
+    private final List<JobHandle<Void>> mergeHandles = new ArrayList<>();
+
+    /**
+     * @param parts the parts to merge, each of them merged into {@code numberOfRanges} blocks, one per key range.
+     * @param numberOfRanges number of key ranges, i.e. number of blocks in every part.
+     * @param samplingComparator if not {@code null} then the merged entries are sampled, see {@link #buildIndexSample()}.
+     * @param allocator for the buffers reading the blocks of the parts, one per part and key range.
+     * @param readBufferSize size of the buffers used for reading blocks.
+     * @param batchSize number of entries the range mergers hand over at a time.
+     * @param entriesMergedReporter gets the number of entries read from the merged stream as the merge progresses.
+     */
+    KeyRangeMerger( PopulationWorkScheduler populationWorkScheduler, List<BlockStorage<KEY,VALUE>> parts, int numberOfRanges, Layout<KEY,VALUE> layout,
+            Comparator<KEY> samplingComparator, Allocator allocator, int readBufferSize, int batchSize, MemoryTracker memoryTracker,
+            BlockStorage.Cancellation cancellation, IntConsumer entriesMergedReporter )
+    {
+        Preconditions.checkArgument( !parts.isEmpty(), "No parts to merge" );
+        this.populationWorkScheduler = populationWorkScheduler;
+        this.parts = parts;
+        this.numberOfRanges = numberOfRanges;
+        this.layout = layout;
+        this.samplingComparator = samplingComparator;
+        this.allocator = allocator;
+        this.readBufferSize = readBufferSize;
+        this.batchSize = batchSize;
+        this.memoryTracker = memoryTracker;
+        this.cancellation = cancellation;
+        this.entriesMergedReporter = entriesMergedReporter;
+    }
+
+    BlockEntryCursor<KEY,VALUE> startMerge() throws IOException
+    {
+        List<List<BlockEntryCursor<KEY,VALUE>>> rangeBlocks = new ArrayList<>();
+        for ( int range = 0; range < numberOfRanges; range++ )
+        {
+            rangeBlocks.add( new ArrayList<>() );
+        }
+        try ( var skipBuffer = allocator.allocate( SKIP_BUFFER_SIZE, memoryTracker ) )
+        {
+            for ( BlockStorage<KEY,VALUE> part : parts )
+            {
+                // The blocks are read in order, but each of them by its own channel, so it's OK to close the reader after getting all of them
+                try ( var reader = part.reader( true ) )
+                {
+                    for ( int range = 0; range < numberOfRanges; range++ )
+                    {
+                        var readBuffer = allocator.allocate( readBufferSize, memoryTracker );
+                        readBuffers.add( readBuffer );
+                        BlockEntryReader<KEY,VALUE> block = reader.nextBlock( readBuffer );
+                        Preconditions.checkState( block != null, "Part has no block for key range %d", range );
+                        rangeBlocks.get( range ).add( block );
+                    }
+                }
+            }
+        }
+        catch ( Throwable e )
+        {
+            rangeBlocks.forEach( IOUtils::closeAllSilently );
+            throw e;
+        }
+
+        for ( List<BlockEntryCursor<KEY,VALUE>> blocks : rangeBlocks )
+        {
+            rangeMergers.add( new BlockEntryStreamMerger<>( blocks, layout, samplingComparator, cancellation, batchSize, QUEUE_SIZE ) );
+        }
+        rangeMergers.forEach( merger -> mergeHandles.add(
+                populationWorkScheduler.schedule( indexName -> "Key range merger while writing scan update for " + indexName, merger ) ) );
+        return new RangesCursor();
+    }
+
+    /**
+     * @return sample of all merged entries. Must only be called after all entries have been read from the stream returned by {@link #startMerge()}.
+     */
+    IndexSample buildIndexSample()
+    {
+        Preconditions.checkState( samplingComparator != null, "I haven't been sampling at all" );
+        // The split keys separating the key ranges are chosen such that equal values are in the same range, so the samples can simply be summed up
+        long sampled = 0;
+        long unique = 0;
+        for ( BlockEntryStreamMerger<KEY,VALUE> merger : rangeMergers )
+        {
+            IndexSample sample = merger.buildIndexSample();
+            sampled += sample.sampleSize();
+            unique += sample.uniqueValues();
+        }
+        return new IndexSample( sampled, unique, sampled );
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        rangeMergers.forEach( BlockEntryStreamMerger::halt );
+        try
+        {
+            JobHandles.getAllResults( mergeHandles );
+        }
+        catch ( ExecutionException e )
+        {
+            throw asIOException( e );
+        }
+        finally
+        {
+            closeAll( () -> closeAll( rangeMergers ), () -> closeAll( readBuffers ) );
+        }
+    }
+
+    private static IOException asIOException( ExecutionException e )
+    {
+        if ( e.getCause() instanceof IOException )
+        {
+            return (IOException) e.getCause();
+        }
+        return new IOException( e.getCause() );
+    }
+
+    /**
+     * Reads the merged ranges in order. A range merger only ends its stream early if it failed or was cancelled, so the job of every range
+     * is checked for failure before moving on to the next range.
+     */
+    private class RangesCursor implements BlockEntryCursor<KEY,VALUE>
+    {
+        private int range = -1;
+        private BlockEntryStreamMerger<KEY,VALUE> current;
+
+        @Override
+        public boolean next() throws IOException
+        {
+            while ( current == null || !current.next() )
+            {
+                if ( current != null )
+                {
+                    awaitRange( range );
+                }
+                if ( range + 1 >= numberOfRanges )
+                {
+                    return false;
+                }
+                range++;
+                current = rangeMergers.get( range );
+            }
+            entriesMergedReporter.accept( 1 );
+            return true;
+        }
+
+        @Override
+        public KEY key()
+        {
+            return current.key();
+        }
+
+        @Override
+        public VALUE value()
+        {
+            return current.value();
+        }
+
+        @Override
+        public void close()
+        {   // The range mergers are closed by the KeyRangeMerger
+        }
+
+        private void awaitRange( int range ) throws IOException
+        {
+            try
+            {
+                mergeHandles.get( range ).get();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException( "Interrupted while waiting for key range " + range + " to be merged" );
+            }
+            catch ( ExecutionException e )
+            {
+                throw asIOException( e );
+            }
+        }
+    }
+}
@@ -49,8 +49,8 @@ abstract class NativeIndex<KEY extends NativeIndexKey<KEY>> implements Consisten
     final IndexLayout<KEY> layout;
     final FileSystemAbstraction fileSystem;
     final IndexDescriptor descriptor;
-    private final Monitors monitors;
-    private final String monitorTag;
+    final Monitors monitors;
+    final String monitorTag;
     private final DatabaseReadOnlyChecker readOnlyChecker;
     private final PageCacheTracer pageCacheTracer;
     private final String databaseName;
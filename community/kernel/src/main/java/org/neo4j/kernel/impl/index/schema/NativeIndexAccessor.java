@@ -47,18 +47,34 @@ public abstract class NativeIndexAccessor<KEY extends NativeIndexKey<KEY>> exten
 {
     private final NativeIndexUpdater<KEY> singleUpdater;
     final NativeIndexHeaderWriter headerWriter;
+    /**
+     * Filter over the values in this index if it's a unique index configured to have one, otherwise {@code null}.
+     */
+    final UniqueIndexBloomFilter<KEY> bloomFilter;
 
     NativeIndexAccessor( DatabaseIndexContext databaseIndexContext, IndexFiles indexFiles, IndexLayout<KEY> layout,
             IndexDescriptor descriptor )
+    {
+        this( databaseIndexContext, indexFiles, layout, descriptor, false );
+    }
+
+    NativeIndexAccessor( DatabaseIndexContext databaseIndexContext, IndexFiles indexFiles, IndexLayout<KEY> layout,
+            IndexDescriptor descriptor, boolean uniqueIndexBloomFilter )
     {
         super( databaseIndexContext, layout, indexFiles, descriptor );
-        singleUpdater = new NativeIndexUpdater<>( layout.newKey(), indexUpdateIgnoreStrategy() );
+        bloomFilter = uniqueIndexBloomFilter && descriptor.isUnique() && databaseIndexContext.jobScheduler != null
+                      ? new UniqueIndexBloomFilter<>( layout, descriptor, monitors.newMonitor( UniqueIndexBloomFilter.Monitor.class, monitorTag ),
+                                                      databaseIndexContext.memoryTracker, databaseIndexContext.jobScheduler,
+                                                      databaseIndexContext.pageCacheTracer, databaseIndexContext.databaseName )
+                      : null;
+        singleUpdater = new NativeIndexUpdater<>( layout.newKey(), indexUpdateIgnoreStrategy(), bloomFilter );
         headerWriter = new NativeIndexHeaderWriter( BYTE_ONLINE );
     }
 
     @Override
     public void drop()
     {
+        closeBloomFilter();
         tree.setDeleteOnClose( true );
         closeTree();
         indexFiles.clear();
@@ -104,9 +120,18 @@ public abstract class NativeIndexAccessor<KEY extends NativeIndexKey<KEY>> exten
     @Override
     public void close()
     {
+        closeBloomFilter();
         closeTree();
     }
 
+    private void closeBloomFilter()
+    {
+        if ( bloomFilter != null )
+        {
+            bloomFilter.close();
+        }
+    }
+
     @Override
     public abstract ValueIndexReader newValueReader();
 
@@ -23,6 +23,8 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Iterator;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Seeker;
@@ -35,9 +37,13 @@ import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.internal.schema.IndexOrder;
 import org.neo4j.io.pagecache.context.CursorContext;
 import org.neo4j.io.pagecache.impl.FileIsNotMappedException;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.api.index.IndexProgressor;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.IndexSampler;
+import org.neo4j.kernel.api.index.IndexValueHistogram;
 import org.neo4j.kernel.api.index.ValueIndexReader;
+import org.neo4j.kernel.impl.api.index.IndexSamplingConfig;
 import org.neo4j.util.Preconditions;
 import org.neo4j.values.storable.Value;
 
@@ -49,12 +55,19 @@ abstract class NativeIndexReader<KEY extends NativeIndexKey<KEY>> implements Val
     protected final IndexDescriptor descriptor;
     final IndexLayout<KEY> layout;
     final GBPTree<KEY,NullValue> tree;
+    private final UniqueIndexBloomFilter<KEY> bloomFilter;
 
     NativeIndexReader( GBPTree<KEY,NullValue> tree, IndexLayout<KEY> layout, IndexDescriptor descriptor )
+    {
+        this( tree, layout, descriptor, null );
+    }
+
+    NativeIndexReader( GBPTree<KEY,NullValue> tree, IndexLayout<KEY> layout, IndexDescriptor descriptor, UniqueIndexBloomFilter<KEY> bloomFilter )
     {
         this.tree = tree;
         this.layout = layout;
         this.descriptor = descriptor;
+        this.bloomFilter = bloomFilter;
     }
 
     @Override
@@ -73,25 +86,54 @@ abstract class NativeIndexReader<KEY extends NativeIndexKey<KEY>> implements Val
         // be none in a unique index).
 
         FullScanNonUniqueIndexSampler<KEY> sampler = new FullScanNonUniqueIndexSampler<>( tree, layout );
-        return tracer ->
+        return new IndexSampler()
         {
-            try
+            @Override
+            public IndexSample sampleIndex( CursorContext cursorContext ) throws IndexNotFoundKernelException
             {
-                return sampler.sample( tracer );
+                return sampleUnlessDropped( () -> sampler.sample( cursorContext ) );
             }
-            catch ( UncheckedIOException e )
+
+            @Override
+            public IndexSample sampleIndex( CursorContext cursorContext, IndexSamplingConfig samplingConfig, Executor executor,
+                    PageCacheTracer pageCacheTracer ) throws IndexNotFoundKernelException
             {
-                if ( getRootCause( e ) instanceof FileIsNotMappedException )
+                if ( samplingConfig.samplingPartitions() == 0 )
                 {
-                    IndexNotFoundKernelException exception = new IndexNotFoundKernelException( "Index dropped while sampling." );
-                    exception.addSuppressed( e );
-                    throw exception;
+                    if ( samplingConfig.histogramBuckets() == 0 || descriptor.schema().getPropertyIds().length != 1 )
+                    {
+                        return sampleIndex( cursorContext );
+                    }
+                    IndexValueHistogram.Builder histogram =
+                            new IndexValueHistogram.Builder( samplingConfig.histogramBuckets(), samplingConfig.histogramCommonValues() );
+                    return sampleUnlessDropped( () -> sampler.sample( cursorContext, histogram ) );
                 }
-                throw e;
+                // Samples key ranges of the tree in parallel, possibly not all of them, see PartitionedIndexSampler
+                PartitionedIndexSampler<KEY> partitionedSampler = new PartitionedIndexSampler<>( tree, layout );
+                return sampleUnlessDropped( () -> partitionedSampler.sample( samplingConfig.samplingPartitions(), samplingConfig.partitionWorkers(),
+                        samplingConfig.maxSampledEntries(), cursorContext, executor, pageCacheTracer ) );
             }
         };
     }
 
+    private static IndexSample sampleUnlessDropped( Supplier<IndexSample> sampling ) throws IndexNotFoundKernelException
+    {
+        try
+        {
+            return sampling.get();
+        }
+        catch ( UncheckedIOException e )
+        {
+            if ( getRootCause( e ) instanceof FileIsNotMappedException )
+            {
+                IndexNotFoundKernelException exception = new IndexNotFoundKernelException( "Index dropped while sampling." );
+                exception.addSuppressed( e );
+                throw exception;
+            }
+            throw e;
+        }
+    }
+
     @Override
     public long countIndexedEntities( long entityId, CursorContext cursorContext, int[] propertyKeyIds, Value... propertyValues )
     {
@@ -135,6 +177,15 @@ abstract class NativeIndexReader<KEY extends NativeIndexKey<KEY>> implements Val
         initializeFromToKeys( treeKeyFrom, treeKeyTo );
 
         boolean needFilter = initializeRangeForQuery( treeKeyFrom, treeKeyTo, predicates );
+        if ( bloomFilter != null && UniqueIndexBloomFilter.canFilter( predicates ) )
+        {
+            if ( !bloomFilter.mightContain( treeKeyFrom, tree ) )
+            {
+                cursor.initialize( descriptor, IndexProgressor.EMPTY, accessMode, false, constraints, predicates );
+                return;
+            }
+            cursor = bloomFilter.reportingFalsePositives( cursor );
+        }
         startSeekForInitializedRange( cursor, treeKeyFrom, treeKeyTo, context.cursorContext(), accessMode, needFilter, constraints, predicates );
     }
 
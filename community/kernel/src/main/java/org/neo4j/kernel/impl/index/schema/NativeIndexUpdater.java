@@ -24,6 +24,7 @@ import org.neo4j.io.IOUtils;
 import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.storageengine.api.IndexEntryUpdate;
+import org.neo4j.storageengine.api.UpdateMode;
 import org.neo4j.storageengine.api.ValueIndexEntryUpdate;
 import org.neo4j.values.storable.Value;
 
@@ -33,15 +34,22 @@ class NativeIndexUpdater<KEY extends NativeIndexKey<KEY>> implements IndexUpdate
 {
     private final KEY treeKey;
     private final IndexUpdateIgnoreStrategy ignoreStrategy;
+    private final UniqueIndexBloomFilter<KEY> bloomFilter;
     private final ConflictDetectingValueMerger<KEY,Value[]> conflictDetectingValueMerger = new ThrowingConflictDetector<>( true );
     private Writer<KEY,NullValue> writer;
 
     private boolean closed = true;
 
     NativeIndexUpdater( KEY treeKey, IndexUpdateIgnoreStrategy ignoreStrategy )
+    {
+        this( treeKey, ignoreStrategy, null );
+    }
+
+    NativeIndexUpdater( KEY treeKey, IndexUpdateIgnoreStrategy ignoreStrategy, UniqueIndexBloomFilter<KEY> bloomFilter )
     {
         this.treeKey = treeKey;
         this.ignoreStrategy = ignoreStrategy;
+        this.bloomFilter = bloomFilter;
     }
 
     NativeIndexUpdater<KEY> initialize( Writer<KEY,NullValue> writer )
@@ -61,6 +69,15 @@ class NativeIndexUpdater<KEY extends NativeIndexKey<KEY>> implements IndexUpdate
     {
         assertOpen();
         ValueIndexEntryUpdate<?> valueUpdate = asValueUpdate( update );
+        if ( bloomFilter != null && valueUpdate.updateMode() != UpdateMode.REMOVED && UniqueIndexBloomFilter.canFilter( valueUpdate.values() ) )
+        {
+            initializeKeyFromUpdate( treeKey, valueUpdate.getEntityId(), valueUpdate.values() );
+            long hash = UniqueIndexBloomFilter.hash( treeKey.asValues() );
+            bloomFilter.add( hash );
+            processUpdate( treeKey, valueUpdate, writer, conflictDetectingValueMerger, ignoreStrategy );
+            bloomFilter.addWritten( hash );
+            return;
+        }
         processUpdate( treeKey, valueUpdate, writer, conflictDetectingValueMerger, ignoreStrategy );
     }
 
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Seeker;
+import org.neo4j.io.pagecache.context.CursorContext;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.api.index.IndexSample;
+
+import static java.lang.Math.min;
+import static java.lang.Math.round;
+
+/**
+ * Samples a {@link GBPTree} by splitting it into key ranges using {@link GBPTree#partitionedSeek(Object, Object, int, CursorContext)} and
+ * scanning the key ranges in random order, in parallel, until all of them have been scanned or a budget of read entries has been reached.
+ * A key range picked for sampling is scanned completely, which keeps the reads sequential and lets unique values be counted the same way as in
+ * {@link FullScanNonUniqueIndexSampler}, by comparing adjacent keys. If not all key ranges were scanned the size of the index is extrapolated
+ * from the scanned ones.
+ * <p>
+ * A value with entries in two key ranges is counted as unique in both, which for any reasonable number of key ranges is negligible.
+ *
+ * @param <KEY> type of keys in tree.
+ */
+class PartitionedIndexSampler<KEY extends NativeIndexKey<KEY>>
+{
+    private static final String SAMPLING_WORKER_TAG = "indexSamplingWorker";
+
+    private final GBPTree<KEY,NullValue> tree;
+    private final IndexLayout<KEY> layout;
+
+    PartitionedIndexSampler( GBPTree<KEY,NullValue> tree, IndexLayout<KEY> layout )
+    {
+        this.tree = tree;
+        this.layout = layout;
+    }
+
+    /**
+     * Samples the tree, with the current thread getting help from up to {@code workers - 1} tasks run by the given executor. Tasks which haven't
+     * started when the current thread runs out of key ranges to sample are not waited for.
+     *
+     * @param desiredNumberOfPartitions number of key ranges to split the tree into, fewer if the tree is small.
+     * @param workers number of threads, including the current one, to sample key ranges.
+     * @param maxSampledEntries number of read entries after which no more key ranges are picked for sampling, or {@code 0} for no limit.
+     * @param cursorContext underlying page cursor context for the current thread.
+     * @param executor executor running the tasks helping the current thread.
+     * @param pageCacheTracer tracer to create page cursor contexts for the tasks from.
+     * @return the sample.
+     */
+    IndexSample sample( int desiredNumberOfPartitions, int workers, long maxSampledEntries, CursorContext cursorContext, Executor executor,
+            PageCacheTracer pageCacheTracer )
+    {
+        KEY lowest = layout.newKey();
+        lowest.initialize( Long.MIN_VALUE );
+        lowest.initValuesAsLowest();
+        KEY highest = layout.newKey();
+        highest.initialize( Long.MAX_VALUE );
+        highest.initValuesAsHighest();
+        List<Seeker.WithContext<KEY,NullValue>> partitions;
+        try
+        {
+            partitions = new ArrayList<>( tree.partitionedSeek( lowest, highest, desiredNumberOfPartitions, cursorContext ) );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+        Collections.shuffle( partitions, ThreadLocalRandom.current() );
+
+        Sampling sampling = new Sampling( partitions, maxSampledEntries );
+        for ( int i = 1; i < min( workers, partitions.size() ); i++ )
+        {
+            executor.execute( () ->
+            {
+                try ( CursorContext workerCursorContext = new CursorContext( pageCacheTracer.createPageCursorTracer( SAMPLING_WORKER_TAG ) ) )
+                {
+                    sampling.sampleRemainingPartitions( workerCursorContext );
+                }
+            } );
+        }
+        sampling.sampleRemainingPartitions( cursorContext );
+        return sampling.awaitSample();
+    }
+
+    private class Sampling
+    {
+        private final List<Seeker.WithContext<KEY,NullValue>> partitions;
+        private final long maxSampledEntries;
+        private final AtomicInteger nextPartition = new AtomicInteger();
+        private final CountDownLatch partitionsDone;
+        private final AtomicInteger sampledPartitions = new AtomicInteger();
+        private final LongAdder sampledEntries = new LongAdder();
+        private final LongAdder uniqueValues = new LongAdder();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Sampling( List<Seeker.WithContext<KEY,NullValue>> partitions, long maxSampledEntries )
+        {
+            this.partitions = partitions;
+            this.maxSampledEntries = maxSampledEntries;
+            this.partitionsDone = new CountDownLatch( partitions.size() );
+        }
+
+        /**
+         * Claims and samples partitions until there are no more. Partitions claimed after the budget has been reached, or after
+         * a failure, are skipped, but still counted as done so that {@link #awaitSample()} knows when all have been claimed.
+         */
+        void sampleRemainingPartitions( CursorContext cursorContext )
+        {
+            int partition;
+            while ( (partition = nextPartition.getAndIncrement()) < partitions.size() )
+            {
+                try
+                {
+                    if ( failure.get() == null && (maxSampledEntries == 0 || sampledEntries.sum() < maxSampledEntries) )
+                    {
+                        samplePartition( partitions.get( partition ), cursorContext );
+                    }
+                }
+                catch ( Throwable t )
+                {
+                    failure.compareAndSet( null, t );
+                }
+                finally
+                {
+                    partitionsDone.countDown();
+                }
+            }
+        }
+
+        private void samplePartition( Seeker.WithContext<KEY,NullValue> partition, CursorContext cursorContext ) throws IOException
+        {
+            KEY prev = layout.newKey();
+            long entries = 0;
+            long unique = 0;
+            try ( Seeker<KEY,NullValue> seek = partition.with( cursorContext ) )
+            {
+                while ( seek.next() )
+                {
+                    if ( entries == 0 || layout.compareValue( prev, seek.key() ) != 0 )
+                    {
+                        unique++;
+                        layout.copyKey( seek.key(), prev );
+                    }
+                    entries++;
+                }
+            }
+            sampledEntries.add( entries );
+            uniqueValues.add( unique );
+            sampledPartitions.incrementAndGet();
+        }
+
+        IndexSample awaitSample()
+        {
+            try
+            {
+                partitionsDone.await();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException( "Interrupted while waiting for index sampling to complete", e );
+            }
+            Throwable t = failure.get();
+            if ( t != null )
+            {
+                if ( t instanceof IOException )
+                {
+                    throw new UncheckedIOException( (IOException) t );
+                }
+                if ( t instanceof RuntimeException )
+                {
+                    throw (RuntimeException) t;
+                }
+                if ( t instanceof Error )
+                {
+                    throw (Error) t;
+                }
+                throw new RuntimeException( t );
+            }
+
+            long sampleSize = sampledEntries.sum();
+            int numberOfSampledPartitions = sampledPartitions.get();
+            long indexSize = numberOfSampledPartitions == partitions.size() || numberOfSampledPartitions == 0
+                             ? sampleSize
+                             : round( (double) sampleSize * partitions.size() / numberOfSampledPartitions );
+            return new IndexSample( indexSize, uniqueValues.sum(), sampleSize );
+        }
+    }
+}
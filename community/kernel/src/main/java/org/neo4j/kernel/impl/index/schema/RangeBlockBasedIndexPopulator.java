@@ -49,7 +49,7 @@ class RangeBlockBasedIndexPopulator extends BlockBasedIndexPopulator<RangeKey>
     @Override
     NativeIndexReader<RangeKey> newReader()
     {
-        return new RangeIndexReader( tree, layout, descriptor );
+        return new RangeIndexReader( tree, layout, descriptor, null );
     }
 
     @Override
@@ -34,9 +34,9 @@ public class RangeIndexAccessor extends NativeIndexAccessor<RangeKey>
 
     RangeIndexAccessor( DatabaseIndexContext databaseIndexContext, IndexFiles indexFiles,
             IndexLayout<RangeKey> layout, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector,
-            IndexDescriptor descriptor, TokenNameLookup tokenNameLookup )
+            IndexDescriptor descriptor, TokenNameLookup tokenNameLookup, boolean uniqueIndexBloomFilter )
     {
-        super( databaseIndexContext, indexFiles, layout, descriptor );
+        super( databaseIndexContext, indexFiles, layout, descriptor, uniqueIndexBloomFilter );
         this.tokenNameLookup = tokenNameLookup;
         instantiateTree( recoveryCleanupWorkCollector, headerWriter );
     }
@@ -51,7 +51,7 @@ public class RangeIndexAccessor extends NativeIndexAccessor<RangeKey>
     public ValueIndexReader newValueReader()
     {
         assertOpen();
-        return new RangeIndexReader( tree, layout, descriptor );
+        return new RangeIndexReader( tree, layout, descriptor, bloomFilter );
     }
 
     @Override
@@ -149,7 +149,8 @@ public class RangeIndexProvider extends NativeIndexProvider<RangeKey,RangeLayout
     @Override
     protected IndexAccessor newIndexAccessor( IndexFiles indexFiles, RangeLayout layout, IndexDescriptor descriptor, TokenNameLookup tokenNameLookup )
     {
-        return new RangeIndexAccessor( databaseIndexContext, indexFiles, layout, recoveryCleanupWorkCollector, descriptor, tokenNameLookup );
+        return new RangeIndexAccessor( databaseIndexContext, indexFiles, layout, recoveryCleanupWorkCollector, descriptor, tokenNameLookup,
+                config.get( GraphDatabaseInternalSettings.unique_index_bloom_filter ) );
     }
 
     @Override
@@ -38,9 +38,9 @@ import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.Inclusion.NEUTRA
 public class RangeIndexReader extends NativeIndexReader<RangeKey>
 {
     RangeIndexReader( GBPTree<RangeKey,NullValue> tree,
-            IndexLayout<RangeKey> layout, IndexDescriptor descriptor )
+            IndexLayout<RangeKey> layout, IndexDescriptor descriptor, UniqueIndexBloomFilter<RangeKey> bloomFilter )
     {
-        super( tree, layout, descriptor );
+        super( tree, layout, descriptor, bloomFilter );
     }
 
     @Override
@@ -20,37 +20,64 @@
 package org.neo4j.kernel.impl.index.schema;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 
 import org.neo4j.configuration.Config;
+import org.neo4j.index.internal.gbptree.ValueMerger;
+import org.neo4j.index.internal.gbptree.Writer;
 import org.neo4j.internal.batchimport.IndexImporter;
 import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.memory.ByteBufferFactory;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.context.CursorContext;
 import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
-import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.storageengine.api.IndexEntryUpdate;
 
 import static org.neo4j.collection.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
 import static org.neo4j.common.EntityType.NODE;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.index_populator_block_size;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.index_populator_merge_factor;
 import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.immediate;
 import static org.neo4j.io.IOUtils.closeAll;
-import static org.neo4j.kernel.impl.api.index.IndexUpdateMode.ONLINE;
+import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
 
+/**
+ * Imports token index entries into an empty token index. Entries are converted into tree entries by a {@link TokenIndexUpdater},
+ * but instead of being written to the tree right away they are buffered in a {@link BlockStorage}. On {@link #close()}
+ * the buffered entries are sorted and the tree is built bottom-up from them by the {@link org.neo4j.index.internal.gbptree.GBPTree#bulkLoader(double,
+ * CursorContext) bulk loader}.
+ */
 public class TokenIndexImporter implements IndexImporter
 {
-    private final IndexUpdater updater;
     private final IndexDescriptor index;
     private final TokenIndexAccessor accessor;
     private final CursorContext cursorContext;
+    private final ByteBufferFactory bufferFactory;
+    private final int mergeFactor;
+    private final BlockStorage<TokenScanKey,TokenScanValue> entries;
+    private final TokenIndexUpdater updater;
 
     TokenIndexImporter( IndexDescriptor index, DatabaseLayout layout, FileSystemAbstraction fs, PageCache cache, CursorContext cursorContext, Config config )
     {
         this.index = index;
         this.accessor = tokenIndexAccessor( layout, fs, cache, config );
         this.cursorContext = cursorContext;
-        this.updater = accessor.newUpdater( ONLINE, cursorContext );
+        this.bufferFactory = new ByteBufferFactory( UnsafeDirectByteBufferAllocator::new, config.get( index_populator_block_size ).intValue() );
+        this.mergeFactor = config.get( index_populator_merge_factor );
+        try
+        {
+            Path storeFile = index.schema().entityType() == NODE ? layout.labelScanStore() : layout.relationshipTypeScanStore();
+            this.entries = new BlockStorage<>( new TokenScanLayout(), bufferFactory, fs, storeFile.resolveSibling( storeFile.getFileName() + ".import" ),
+                    BlockStorage.Monitor.NO_MONITOR, INSTANCE );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+        this.updater = new TokenIndexUpdater( 1_000, accessor.writeMonitor ).initialize( new BufferingWriter() );
     }
 
     @Override
@@ -69,7 +96,25 @@ public class TokenIndexImporter implements IndexImporter
     @Override
     public void close() throws IOException
     {
-        closeAll( updater, () -> accessor.force( cursorContext ), accessor );
+        closeAll( updater, this::bulkLoad, entries, () -> accessor.force( cursorContext ), accessor, bufferFactory );
+    }
+
+    private void bulkLoad() throws IOException
+    {
+        entries.doneAdding();
+        entries.merge( mergeFactor, BlockStorage.Cancellation.NOT_CANCELLABLE );
+        // The same token and id range can have been added in multiple batches, such entries are adjacent after the merge and merged into one
+        ValueMerger<TokenScanKey,TokenScanValue> addMerger = new AddMerger( accessor.writeMonitor );
+        try ( var readBuffer = bufferFactory.globalAllocator().allocate( bufferFactory.bufferSize(), INSTANCE );
+              var reader = entries.reader( false );
+              var block = reader.nextBlock( readBuffer );
+              var writer = accessor.index.bulkLoader( 1, cursorContext ) )
+        {
+            while ( block != null && block.next() )
+            {
+                writer.merge( block.key(), block.value(), addMerger );
+            }
+        }
     }
 
     private TokenIndexAccessor tokenIndexAccessor( DatabaseLayout layout, FileSystemAbstraction fs, PageCache pageCache, Config config )
@@ -78,4 +123,54 @@ public class TokenIndexImporter implements IndexImporter
         var path = index.schema().entityType() == NODE ? layout.labelScanStore() : layout.relationshipTypeScanStore();
         return new TokenIndexAccessor( context, layout, new IndexFiles.SingleFile( fs, path ), config, index, immediate() );
     }
+
+    /**
+     * Receives the tree entries from the {@link TokenIndexUpdater} and adds copies of them, since the updater reuses its instances,
+     * to the {@link BlockStorage}. Only additions are expected since the index is imported from scratch.
+     */
+    private class BufferingWriter implements Writer<TokenScanKey,TokenScanValue>
+    {
+        @Override
+        public void put( TokenScanKey key, TokenScanValue value )
+        {
+            add( key, value );
+        }
+
+        @Override
+        public void merge( TokenScanKey key, TokenScanValue value, ValueMerger<TokenScanKey,TokenScanValue> valueMerger )
+        {
+            add( key, value );
+        }
+
+        @Override
+        public void mergeIfExists( TokenScanKey key, TokenScanValue value, ValueMerger<TokenScanKey,TokenScanValue> valueMerger )
+        {
+            throw new UnsupportedOperationException( "Only additions are supported when importing a token index" );
+        }
+
+        @Override
+        public TokenScanValue remove( TokenScanKey key )
+        {
+            throw new UnsupportedOperationException( "Only additions are supported when importing a token index" );
+        }
+
+        @Override
+        public void close()
+        {
+        }
+
+        private void add( TokenScanKey key, TokenScanValue value )
+        {
+            TokenScanValue valueCopy = new TokenScanValue();
+            valueCopy.add( value );
+            try
+            {
+                entries.add( new TokenScanKey( key.tokenId, key.idRange ), valueCopy );
+            }
+            catch ( IOException e )
+            {
+                throw new UncheckedIOException( e );
+            }
+        }
+    }
 }
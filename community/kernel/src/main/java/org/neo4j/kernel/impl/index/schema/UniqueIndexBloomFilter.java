@@ -0,0 +1,550 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.neo4j.hashing.HashFunction;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Seeker;
+import org.neo4j.index.internal.gbptree.TreeInconsistencyException;
+import org.neo4j.internal.kernel.api.IndexQueryConstraints;
+import org.neo4j.internal.kernel.api.PropertyIndexQuery;
+import org.neo4j.internal.kernel.api.security.AccessMode;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.io.pagecache.context.CursorContext;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.api.index.IndexProgressor;
+import org.neo4j.memory.MemoryLimitExceededException;
+import org.neo4j.memory.MemoryTracker;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.ValueCategory;
+
+import static java.lang.Math.floorMod;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static org.neo4j.io.ByteUnit.mebiBytes;
+import static org.neo4j.internal.schema.IndexQuery.IndexQueryType.EXACT;
+import static org.neo4j.memory.HeapEstimator.shallowSizeOfInstance;
+import static org.neo4j.memory.HeapEstimator.sizeOfLongArray;
+import static org.neo4j.scheduler.JobMonitoringParams.systemJob;
+
+/**
+ * In-memory bloom filter over the values in a unique native index. Exact lookups of values which aren't in the index, which is what most
+ * lookups done by MERGE and unique constraint checks are when ingesting new data, can this way be answered without seeking the tree.
+ * <p>
+ * The first lookup schedules a job on the {@link JobScheduler} which builds the filter by scanning the tree. Lookups don't wait for it, but seek
+ * the tree unfiltered until it's done. From that point the filter is kept up to date by the index updater, which adds values
+ * both before and after writing them to the tree so that neither lookups nor a concurrently running build can miss them.
+ * Removed values are never removed from the filter. Instead the filter is rebuilt when more values than it was sized for have been added,
+ * which keeps the false positive rate close to what it was sized for. A build which such a rebuild raced with is thrown away rather than used,
+ * since values added after that point are added to no filter. Indexes with more values than the largest filter is sized for get no filter.
+ * <p>
+ * The filter is kept on heap for as long as the index is open and its size is accounted for in the given {@link MemoryTracker}.
+ * <p>
+ * Values are hashed the way they come out of the index key, i.e. {@link NativeIndexKey#asValues()}, using {@link Value#hashCode()} since it's
+ * consistent with value equality also across types, e.g. an integer and a float with the same numeric value, which the index considers equal.
+ * Geometries are left out since their keys are derived from space filling curves.
+ */
+public class UniqueIndexBloomFilter<KEY extends NativeIndexKey<KEY>>
+{
+    private static final HashFunction HASH = HashFunction.incrementalXXH64();
+    private static final long HASH_SEED = HASH.initialise( 0x5EED_B100_3F11_7E55L );
+    // 10 bits per value and 7 hash functions gives a false positive rate of about 1%
+    private static final int BITS_PER_VALUE = 10;
+    private static final int NUMBER_OF_HASHES = 7;
+    private static final long MIN_CAPACITY = 1 << 16;
+    private static final long MAX_NUMBER_OF_BITS = mebiBytes( 64 ) * Byte.SIZE;
+    private static final long MAX_CAPACITY = MAX_NUMBER_OF_BITS / BITS_PER_VALUE;
+    private static final long SHALLOW_FILTER_SIZE = shallowSizeOfInstance( Filter.class ) + shallowSizeOfInstance( AtomicLongArray.class ) +
+                                                    shallowSizeOfInstance( AtomicLong.class ) + shallowSizeOfInstance( AtomicBoolean.class );
+    static final String BUILD_TAG = "buildUniqueIndexBloomFilter";
+
+    private final IndexLayout<KEY> layout;
+    private final IndexDescriptor descriptor;
+    private final Monitor monitor;
+    private final MemoryTracker memoryTracker;
+    private final JobScheduler jobScheduler;
+    private final PageCacheTracer pageCacheTracer;
+    private final String databaseName;
+    private final AtomicReference<Filter> current = new AtomicReference<>();
+    private final AtomicBoolean buildScheduled = new AtomicBoolean();
+    private final ReentrantLock buildLock = new ReentrantLock();
+    private volatile boolean closed;
+
+    UniqueIndexBloomFilter( IndexLayout<KEY> layout, IndexDescriptor descriptor, Monitor monitor, MemoryTracker memoryTracker, JobScheduler jobScheduler,
+            PageCacheTracer pageCacheTracer, String databaseName )
+    {
+        this.layout = layout;
+        this.descriptor = descriptor;
+        this.monitor = monitor;
+        this.memoryTracker = memoryTracker;
+        this.jobScheduler = jobScheduler;
+        this.pageCacheTracer = pageCacheTracer;
+        this.databaseName = databaseName;
+    }
+
+    /**
+     * @param values values of an index entry.
+     * @return whether or not the given values are kept in the filter.
+     */
+    static boolean canFilter( Value[] values )
+    {
+        for ( Value value : values )
+        {
+            ValueCategory category = value.valueGroup().category();
+            if ( category == ValueCategory.GEOMETRY || category == ValueCategory.GEOMETRY_ARRAY )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param predicates predicates of an index query.
+     * @return whether or not the given query is an exact lookup which the filter can answer.
+     */
+    static boolean canFilter( PropertyIndexQuery[] predicates )
+    {
+        for ( PropertyIndexQuery predicate : predicates )
+        {
+            if ( predicate.type() != EXACT )
+            {
+                return false;
+            }
+            ValueCategory category = ((PropertyIndexQuery.ExactPredicate) predicate).value().valueGroup().category();
+            if ( category == ValueCategory.GEOMETRY || category == ValueCategory.GEOMETRY_ARRAY )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param values values of an index key, as returned by {@link NativeIndexKey#asValues()}.
+     * @return the hash of the values.
+     */
+    static long hash( Value[] values )
+    {
+        long hash = HASH_SEED;
+        for ( Value value : values )
+        {
+            hash = HASH.update( hash, value.hashCode() );
+        }
+        return HASH.finalise( hash );
+    }
+
+    /**
+     * Adds values which are about to be written to the index. Must be followed by {@link #addWritten(long)} after the write.
+     *
+     * @param hash hash of the values, see {@link #hash(Value[])}.
+     */
+    void add( long hash )
+    {
+        Filter filter = current.get();
+        if ( filter != null )
+        {
+            filter.add( hash );
+            if ( filter.additions.incrementAndGet() > filter.capacity )
+            {
+                // The filter has been filled beyond what it was sized for, let the next lookup schedule a build of a new one
+                if ( current.compareAndSet( filter, null ) )
+                {
+                    release( filter );
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds values which have just been written to the index, in case a new filter started to be built after {@link #add(long)}.
+     *
+     * @param hash hash of the values, see {@link #hash(Value[])}.
+     */
+    void addWritten( long hash )
+    {
+        Filter filter = current.get();
+        if ( filter != null )
+        {
+            filter.add( hash );
+        }
+    }
+
+    /**
+     * Checks whether or not the index may contain the values of the given key. If there's no filter yet a build of it is scheduled,
+     * unless one already is, and the values are considered to maybe be in the index. This call never waits for a build.
+     *
+     * @param key index key with its values initialized.
+     * @param tree the tree of the index, scanned if building the filter.
+     * @return {@code false} if the index definitely doesn't contain the values, otherwise {@code true}.
+     */
+    boolean mightContain( KEY key, GBPTree<KEY,NullValue> tree )
+    {
+        Filter filter = current.get();
+        if ( filter == null )
+        {
+            scheduleBuild( tree );
+            return true;
+        }
+        if ( !filter.complete )
+        {
+            return true;
+        }
+        if ( !filter.mightContain( hash( key.asValues() ) ) )
+        {
+            monitor.negativeLookup( descriptor );
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Wraps a client of a lookup which the filter said the index may contain the values of, to notice if it didn't.
+     *
+     * @param client client to receive the results of the lookup.
+     * @return a client which reports the lookup to the {@link Monitor} when it's exhausted, or the given client if there's no built filter,
+     * i.e. if the lookup wasn't filtered.
+     */
+    IndexProgressor.EntityValueClient reportingFalsePositives( IndexProgressor.EntityValueClient client )
+    {
+        Filter filter = current.get();
+        return filter != null && filter.complete ? new FalsePositiveReportingClient( client ) : client;
+    }
+
+    private void scheduleBuild( GBPTree<KEY,NullValue> tree )
+    {
+        if ( closed || !buildScheduled.compareAndSet( false, true ) )
+        {
+            return;
+        }
+        try
+        {
+            jobScheduler.schedule( Group.INDEX_BLOOM_FILTER, systemJob( databaseName, "Building bloom filter of index '" + descriptor.getName() + "'" ),
+                    () -> build( tree ) );
+        }
+        catch ( RuntimeException e )
+        {
+            // The scheduler is shutting down, leave the index unfiltered
+            buildScheduled.set( false );
+        }
+    }
+
+    private void build( GBPTree<KEY,NullValue> tree )
+    {
+        buildLock.lock();
+        try ( CursorContext cursorContext = new CursorContext( pageCacheTracer.createPageCursorTracer( BUILD_TAG ) ) )
+        {
+            if ( !closed && current.get() == null )
+            {
+                buildFilter( tree, cursorContext );
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            if ( !closed )
+            {
+                monitor.buildFailed( descriptor, e );
+            }
+        }
+        finally
+        {
+            buildScheduled.set( false );
+            buildLock.unlock();
+        }
+    }
+
+    private void buildFilter( GBPTree<KEY,NullValue> tree, CursorContext cursorContext ) throws IOException
+    {
+        long capacity = max( MIN_CAPACITY, estimateNumberOfEntries( tree, cursorContext ) * 2 );
+        if ( capacity > MAX_CAPACITY )
+        {
+            return;
+        }
+        long numberOfBits = Filter.numberOfBits( capacity );
+        try
+        {
+            memoryTracker.allocateHeap( Filter.heapSize( numberOfBits ) );
+        }
+        catch ( MemoryLimitExceededException e )
+        {
+            return;
+        }
+        Filter filter = new Filter( numberOfBits );
+        // Publish the filter before scanning so that values written from this point on are added to it by the updater
+        current.set( filter );
+        KEY lowest = layout.newKey();
+        lowest.initialize( Long.MIN_VALUE );
+        lowest.initValuesAsLowest();
+        KEY highest = layout.newKey();
+        highest.initialize( Long.MAX_VALUE );
+        highest.initValuesAsHighest();
+        long numberOfValues = 0;
+        try ( Seeker<KEY,NullValue> seek = tree.seek( lowest, highest, cursorContext ) )
+        {
+            while ( seek.next() )
+            {
+                if ( closed )
+                {
+                    // Stop scanning as soon as possible, the tree is about to be closed
+                    throw new IllegalStateException( "Index has been closed" );
+                }
+                Value[] values = seek.key().asValues();
+                if ( canFilter( values ) )
+                {
+                    filter.add( hash( values ) );
+                }
+                numberOfValues++;
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            if ( current.compareAndSet( filter, null ) )
+            {
+                release( filter );
+            }
+            throw e;
+        }
+        filter.complete = true;
+        if ( current.get() == filter )
+        {
+            monitor.built( descriptor, numberOfValues, filter.numberOfBits );
+        }
+        // Otherwise an updater replaced the filter while it was being built, so values it added after that may be missing from it
+    }
+
+    /**
+     * Drops the filter and releases its memory. Waits for a running build to stop, so that the tree can be closed after this call.
+     * No builds are scheduled after this call.
+     */
+    void close()
+    {
+        closed = true;
+        buildLock.lock();
+        try
+        {
+            Filter filter = current.getAndSet( null );
+            if ( filter != null )
+            {
+                release( filter );
+            }
+        }
+        finally
+        {
+            buildLock.unlock();
+        }
+    }
+
+    private void release( Filter filter )
+    {
+        if ( filter.released.compareAndSet( false, true ) )
+        {
+            memoryTracker.releaseHeap( filter.heapSize );
+        }
+    }
+
+    private static long estimateNumberOfEntries( GBPTree<?,?> tree, CursorContext cursorContext ) throws IOException
+    {
+        try
+        {
+            return tree.estimateNumberOfEntriesInTree( cursorContext );
+        }
+        catch ( TreeInconsistencyException e )
+        {
+            return 0;
+        }
+    }
+
+    private static class Filter
+    {
+        private final AtomicLongArray bits;
+        private final long numberOfBits;
+        private final long capacity;
+        private final long heapSize;
+        private final AtomicLong additions = new AtomicLong();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean complete;
+
+        Filter( long numberOfBits )
+        {
+            this.numberOfBits = numberOfBits;
+            this.capacity = numberOfBits / BITS_PER_VALUE;
+            this.heapSize = heapSize( numberOfBits );
+            this.bits = new AtomicLongArray( (int) (numberOfBits / Long.SIZE) );
+        }
+
+        static long numberOfBits( long capacity )
+        {
+            return min( MAX_NUMBER_OF_BITS, (capacity * BITS_PER_VALUE + Long.SIZE - 1) / Long.SIZE * Long.SIZE );
+        }
+
+        static long heapSize( long numberOfBits )
+        {
+            return SHALLOW_FILTER_SIZE + sizeOfLongArray( (int) (numberOfBits / Long.SIZE) );
+        }
+
+        void add( long hash )
+        {
+            long hash2 = Long.rotateLeft( hash, 32 ) | 1;
+            for ( int i = 0; i < NUMBER_OF_HASHES; i++ )
+            {
+                long bit = floorMod( hash + i * hash2, numberOfBits );
+                int word = (int) (bit / Long.SIZE);
+                long mask = 1L << (bit % Long.SIZE);
+                if ( (bits.get( word ) & mask) == 0 )
+                {
+                    bits.accumulateAndGet( word, mask, ( a, b ) -> a | b );
+                }
+            }
+        }
+
+        boolean mightContain( long hash )
+        {
+            long hash2 = Long.rotateLeft( hash, 32 ) | 1;
+            for ( int i = 0; i < NUMBER_OF_HASHES; i++ )
+            {
+                long bit = floorMod( hash + i * hash2, numberOfBits );
+                if ( (bits.get( (int) (bit / Long.SIZE) ) & (1L << (bit % Long.SIZE))) == 0 )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private class FalsePositiveReportingClient implements IndexProgressor.EntityValueClient
+    {
+        private final IndexProgressor.EntityValueClient client;
+        private boolean found;
+
+        FalsePositiveReportingClient( IndexProgressor.EntityValueClient client )
+        {
+            this.client = client;
+        }
+
+        @Override
+        public void initialize( IndexDescriptor descriptor, IndexProgressor progressor, AccessMode accessMode, boolean indexIncludesTransactionState,
+                IndexQueryConstraints constraints, PropertyIndexQuery... query )
+        {
+            client.initialize( descriptor, new IndexProgressor()
+            {
+                private boolean reported;
+
+                @Override
+                public boolean next()
+                {
+                    boolean next = progressor.next();
+                    if ( !next && !found && !reported )
+                    {
+                        reported = true;
+                        monitor.falsePositiveLookup( descriptor );
+                    }
+                    return next;
+                }
+
+                @Override
+                public void close()
+                {
+                    progressor.close();
+                }
+            }, accessMode, indexIncludesTransactionState, constraints, query );
+        }
+
+        @Override
+        public boolean acceptEntity( long reference, float score, Value... values )
+        {
+            found = true;
+            return client.acceptEntity( reference, score, values );
+        }
+
+        @Override
+        public boolean needsValues()
+        {
+            return client.needsValues();
+        }
+    }
+
+    public interface Monitor
+    {
+        /**
+         * Called when a filter has been built for an index.
+         *
+         * @param descriptor the index.
+         * @param numberOfValues number of values in the index at the time of building.
+         * @param numberOfBits size of the filter.
+         */
+        void built( IndexDescriptor descriptor, long numberOfValues, long numberOfBits );
+
+        /**
+         * Called when the filter answered a lookup without the index being seeked.
+         *
+         * @param descriptor the index.
+         */
+        void negativeLookup( IndexDescriptor descriptor );
+
+        /**
+         * Called when the filter said that the index may contain the looked up values, but it didn't.
+         * Together with {@link #negativeLookup(IndexDescriptor)} this gives the false positive rate of the filter.
+         *
+         * @param descriptor the index.
+         */
+        void falsePositiveLookup( IndexDescriptor descriptor );
+
+        /**
+         * Called when building a filter failed. Lookups are answered without a filter until a build succeeds.
+         *
+         * @param descriptor the index.
+         * @param cause what made the build fail.
+         */
+        void buildFailed( IndexDescriptor descriptor, Throwable cause );
+
+        class Adaptor implements Monitor
+        {
+            @Override
+            public void built( IndexDescriptor descriptor, long numberOfValues, long numberOfBits )
+            {   // no-op
+            }
+
+            @Override
+            public void negativeLookup( IndexDescriptor descriptor )
+            {   // no-op
+            }
+
+            @Override
+            public void falsePositiveLookup( IndexDescriptor descriptor )
+            {   // no-op
+            }
+
+            @Override
+            public void buildFailed( IndexDescriptor descriptor, Throwable cause )
+            {   // no-op
+            }
+        }
+    }
+}
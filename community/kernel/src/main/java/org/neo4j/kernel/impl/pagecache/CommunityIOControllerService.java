@@ -30,7 +30,7 @@ public class CommunityIOControllerService implements IOControllerService
     @Override
     public IOController createIOController( Config config, SystemNanoClock clock )
     {
-        return IOController.DISABLED;
+        return new ConfigurableIOController( config, clock );
     }
 
     @Override
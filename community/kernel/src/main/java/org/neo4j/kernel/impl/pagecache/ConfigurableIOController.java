@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.Flushable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.io.pagecache.IOController;
+import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
+import org.neo4j.time.SystemNanoClock;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.neo4j.configuration.GraphDatabaseSettings.check_point_iops_limit;
+
+/**
+ * An IO controller that limits the rate of the IO of page cache flushes to the {@link org.neo4j.configuration.GraphDatabaseSettings#check_point_iops_limit}.
+ * <p>
+ * The IOs of the flush, and any IO reported by the rest of the database through {@link #reportIO(int)}, are counted in quanta of time. Once the IOs of
+ * a quantum reach the share of the limit that the quantum is allowed, the flushing thread is paused until the time those IOs would have taken at the
+ * limited rate has passed, and a new quantum starts.
+ * <p>
+ * Unless the limit is explicitly configured, the controller starts out disabled, so that checkpoints flush as fast as they did before it existed.
+ * The limit can be changed at runtime, and takes effect from the next time the flush asks the controller. A limit of zero or less disables the
+ * controller, and so does {@link #disable()}, which is used when a checkpoint must complete as quickly as possible.
+ * <p>
+ * The pause is computed while holding the lock on the controller, but taken after releasing it. A paused flusher reserves its time by moving the
+ * start of the next quantum to when its pause ends, so concurrent flushers that come in meanwhile are paused for their own IOs on top of that,
+ * instead of queueing up on the monitor of a sleeping thread.
+ */
+public class ConfigurableIOController implements IOController
+{
+    private static final long QUANTUM_NANOS = MILLISECONDS.toNanos( 100 );
+    private static final int QUANTUMS_PER_SECOND = (int) (SECONDS.toNanos( 1 ) / QUANTUM_NANOS);
+
+    private final SystemNanoClock clock;
+    private final LongConsumer pauseNanos;
+    private final AtomicInteger disabledCounter = new AtomicInteger();
+    private final LongAdder externalIOs = new LongAdder();
+    private volatile int iopsLimit;
+
+    // Guarded by synchronized(this).
+    private long quantumStartNanos;
+    private long quantumIOs;
+
+    public ConfigurableIOController( Config config, SystemNanoClock clock )
+    {
+        this( config, clock, LockSupport::parkNanos );
+    }
+
+    ConfigurableIOController( Config config, SystemNanoClock clock, LongConsumer pauseNanos )
+    {
+        this.clock = clock;
+        this.pauseNanos = pauseNanos;
+        this.iopsLimit = config.isExplicitlySet( check_point_iops_limit ) ? config.get( check_point_iops_limit ) : -1;
+        config.addListener( check_point_iops_limit, ( before, after ) -> iopsLimit = after );
+        this.quantumStartNanos = clock.nanos();
+    }
+
+    @Override
+    public void maybeLimitIO( int recentlyCompletedIOs, Flushable flushable, MajorFlushEvent flushEvent )
+    {
+        flushEvent.reportIO( recentlyCompletedIOs );
+        int limit = iopsLimit;
+        if ( limit <= 0 || disabledCounter.get() > 0 )
+        {
+            return;
+        }
+
+        long pause = reservePause( recentlyCompletedIOs, limit );
+        if ( pause > 0 )
+        {
+            pauseNanos.accept( pause );
+            flushEvent.throttle( NANOSECONDS.toMillis( pause ) );
+        }
+    }
+
+    /**
+     * Count the given IOs against the current quantum, and if that fills it, start the next quantum at the time the IOs of this one would have
+     * taken at the limited rate.
+     *
+     * @return the time to pause for before the next quantum starts, or zero if the quantum still has room.
+     */
+    private synchronized long reservePause( int recentlyCompletedIOs, int limit )
+    {
+        long now = clock.nanos();
+        if ( now - quantumStartNanos >= QUANTUM_NANOS )
+        {
+            startQuantum( now );
+        }
+        quantumIOs += recentlyCompletedIOs + externalIOs.sumThenReset();
+        if ( quantumIOs < Math.max( 1, limit / QUANTUMS_PER_SECOND ) )
+        {
+            return 0;
+        }
+
+        long pause = Math.max( 0, quantumIOs * SECONDS.toNanos( 1 ) / limit - (now - quantumStartNanos) );
+        startQuantum( now + pause );
+        return pause;
+    }
+
+    private void startQuantum( long now )
+    {
+        quantumStartNanos = now;
+        quantumIOs = 0;
+        externalIOs.reset();
+    }
+
+    @Override
+    public void reportIO( int completedIOs )
+    {
+        if ( iopsLimit > 0 )
+        {
+            externalIOs.add( completedIOs );
+        }
+    }
+
+    @Override
+    public void disable()
+    {
+        disabledCounter.incrementAndGet();
+    }
+
+    @Override
+    public void enable()
+    {
+        disabledCounter.decrementAndGet();
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return iopsLimit > 0 && disabledCounter.get() == 0;
+    }
+}
@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.pagecache;
 import java.util.function.Function;
 
 import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings.PageCacheEvictionPolicy;
+import org.neo4j.configuration.GraphDatabaseInternalSettings.PageCacheSwapper;
 import org.neo4j.configuration.pagecache.ConfigurableIOBufferFactory;
 import org.neo4j.io.ByteUnit;
 import org.neo4j.io.fs.FileSystemAbstraction;
@@ -29,16 +31,23 @@ import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.os.OsBeanUtil;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.impl.AsyncPageSwapperFactory;
 import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicy;
 import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.logging.Log;
 import org.neo4j.memory.MachineMemory;
 import org.neo4j.memory.MemoryPools;
 import org.neo4j.memory.MemoryTracker;
+import org.neo4j.scheduler.Group;
 import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.time.SystemNanoClock;
 
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.pagecache_eviction_policy;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.pagecache_read_ahead_threshold;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.pagecache_swapper;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.pagecache_swapper_queue_depth;
 import static org.neo4j.configuration.GraphDatabaseInternalSettings.reserved_page_header_bytes;
 import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_memory;
 import static org.neo4j.configuration.GraphDatabaseSettings.preallocate_store_files;
@@ -93,7 +102,7 @@ public class ConfiguringPageCacheFactory
     {
         if ( pageCache == null )
         {
-            this.swapperFactory = createAndConfigureSwapperFactory( fs, pageCacheTracer );
+            this.swapperFactory = createAndConfigureSwapperFactory( fs, config, pageCacheTracer, scheduler );
             this.pageCache = createPageCache();
         }
         return pageCache;
@@ -111,12 +120,27 @@ public class ConfiguringPageCacheFactory
                 .bufferFactory( bufferFactory )
                 .reservedPageBytes( config.get( reserved_page_header_bytes ) )
                 .preallocateStoreFiles( config.get( preallocate_store_files ) )
+                .evictionPolicy( evictionPolicy( config.get( pagecache_eviction_policy ) ) )
+                .readAheadThreshold( config.get( pagecache_read_ahead_threshold ) )
                 .clock( clock )
                 .pageCacheTracer( pageCacheTracer );
         configuration = pageCacheConfigurator.apply( configuration );
         return new MuninnPageCache( swapperFactory, scheduler, configuration );
     }
 
+    private static EvictionPolicy.Factory evictionPolicy( PageCacheEvictionPolicy policy )
+    {
+        switch ( policy )
+        {
+        case CLOCK:
+            return EvictionPolicy.CLOCK;
+        case SCAN_RESISTANT:
+            return EvictionPolicy.SCAN_RESISTANT;
+        default:
+            throw new IllegalArgumentException( "Unknown page cache eviction policy: " + policy );
+        }
+    }
+
     private static MemoryAllocator buildMemoryAllocator( long pageCacheMaxMemory, MemoryTracker memoryTracker )
     {
         return createAllocator( pageCacheMaxMemory, memoryTracker );
@@ -197,8 +221,18 @@ public class ConfiguringPageCacheFactory
         log.info( msg );
     }
 
-    private static PageSwapperFactory createAndConfigureSwapperFactory( FileSystemAbstraction fs, PageCacheTracer pageCacheTracer )
+    private static PageSwapperFactory createAndConfigureSwapperFactory( FileSystemAbstraction fs, Config config, PageCacheTracer pageCacheTracer,
+            JobScheduler scheduler )
     {
-        return new SingleFilePageSwapperFactory( fs, pageCacheTracer );
+        PageCacheSwapper swapper = config.get( pagecache_swapper );
+        switch ( swapper )
+        {
+        case SYNCHRONOUS:
+            return new SingleFilePageSwapperFactory( fs, pageCacheTracer );
+        case ASYNCHRONOUS:
+            return new AsyncPageSwapperFactory( fs, pageCacheTracer, scheduler.executor( Group.PAGE_CACHE_IO ), config.get( pagecache_swapper_queue_depth ) );
+        default:
+            throw new IllegalArgumentException( "Unknown page cache swapper: " + swapper );
+        }
     }
 }
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseInternalSettings;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.dbms.database.readonly.DatabaseReadOnlyChecker;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.context.CursorContext;
+import org.neo4j.io.pagecache.impl.FileIsNotMappedException;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.time.SystemNanoClock;
+import org.neo4j.util.VisibleForTesting;
+
+import static org.neo4j.io.pagecache.PageCursor.UNBOUND_PAGE_ID;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
+import static org.neo4j.scheduler.JobMonitoringParams.systemJob;
+
+/**
+ * The page cache warmer periodically records which pages of the mapped files of a database are in memory, and uses those profiles to load the
+ * same pages back into the page cache when the database starts, so the database does not have to fault its working set back in one page at a
+ * time after a restart.
+ * <p>
+ * Pages are reloaded file by file, in file page order, so the IO stays as sequential as the profile allows. The warmup either blocks the
+ * database start, or runs in the background with an optional budget on the number of pages loaded per second.
+ */
+public class PageCacheWarmer extends LifecycleAdapter
+{
+    static final String PROFILES_DIRECTORY = "profiles";
+    private static final String PROFILER_TAG = "pageCacheProfiler";
+    private static final String WARMER_TAG = "pageCacheWarmer";
+    private static final int PACING_BATCH_PAGES = 64;
+
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final JobScheduler scheduler;
+    private final DatabaseLayout databaseLayout;
+    private final Path profilesDirectory;
+    private final Config config;
+    private final DatabaseReadOnlyChecker readOnlyChecker;
+    private final PageCacheTracer pageCacheTracer;
+    private final SystemNanoClock clock;
+    private final PageCacheWarmerMonitor monitor;
+    private final Log log;
+    private volatile boolean stopped;
+    private JobHandle<?> warmupJob;
+    private JobHandle<?> profileJob;
+
+    public PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler, DatabaseLayout databaseLayout, Config config,
+            DatabaseReadOnlyChecker readOnlyChecker, PageCacheTracer pageCacheTracer, SystemNanoClock clock, PageCacheWarmerMonitor monitor, Log log )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.scheduler = scheduler;
+        this.databaseLayout = databaseLayout;
+        this.profilesDirectory = databaseLayout.databaseDirectory().resolve( PROFILES_DIRECTORY );
+        this.config = config;
+        this.readOnlyChecker = readOnlyChecker;
+        this.pageCacheTracer = pageCacheTracer;
+        this.clock = clock;
+        this.monitor = monitor;
+        this.log = log;
+    }
+
+    @Override
+    public synchronized void start()
+    {
+        if ( !config.get( GraphDatabaseSettings.pagecache_warmup_enabled ) )
+        {
+            return;
+        }
+        stopped = false;
+        if ( config.get( GraphDatabaseInternalSettings.pagecache_warmup_blocking ) )
+        {
+            warmupAndStartProfiling( 0 );
+        }
+        else
+        {
+            int pagesPerSecond = config.get( GraphDatabaseInternalSettings.pagecache_warmup_pages_per_second );
+            warmupJob = scheduler.schedule( Group.FILE_IO_HELPER, systemJob( databaseLayout.getDatabaseName(), "Page cache warmup" ),
+                    () -> warmupAndStartProfiling( pagesPerSecond ) );
+        }
+    }
+
+    @Override
+    public void stop() throws Exception
+    {
+        JobHandle<?> warmup;
+        synchronized ( this )
+        {
+            if ( stopped || !config.get( GraphDatabaseSettings.pagecache_warmup_enabled ) )
+            {
+                return;
+            }
+            stopped = true;
+            warmup = warmupJob;
+            warmupJob = null;
+        }
+        if ( warmup != null )
+        {
+            // The warmup checks the stopped flag between pages, so it will finish quickly.
+            warmup.waitTermination();
+        }
+        synchronized ( this )
+        {
+            if ( profileJob != null )
+            {
+                profileJob.cancel();
+                profileJob = null;
+            }
+        }
+        // Take a last profile, so the next start warms up what was hot right before we stopped.
+        profile();
+    }
+
+    private void warmupAndStartProfiling( int pagesPerSecond )
+    {
+        try
+        {
+            reheat( pagesPerSecond );
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Page cache warmup failed", e );
+        }
+        synchronized ( this )
+        {
+            if ( !stopped )
+            {
+                long intervalMillis = config.get( GraphDatabaseSettings.pagecache_warmup_profiling_interval ).toMillis();
+                profileJob = scheduler.scheduleRecurring( Group.FILE_IO_HELPER, systemJob( databaseLayout.getDatabaseName(), "Page cache profiling" ),
+                        this::profile, intervalMillis, TimeUnit.MILLISECONDS );
+            }
+        }
+    }
+
+    /**
+     * Load all the pages recorded in the existing profiles back into the page cache.
+     *
+     * @param pagesPerSecond the maximum number of pages to load per second, or zero for no limit.
+     * @return the number of pages that were loaded.
+     */
+    @VisibleForTesting
+    long reheat( int pagesPerSecond ) throws IOException
+    {
+        monitor.warmupStarted();
+        long startNanos = clock.nanos();
+        long pagesLoaded = 0;
+        for ( PagedFile pagedFile : pageCache.listExistingMappings() )
+        {
+            if ( stopped )
+            {
+                break;
+            }
+            Profile profile = profileOf( pagedFile );
+            if ( profile == null || !profile.exists( fs ) )
+            {
+                continue;
+            }
+            BitSet residentPages;
+            try
+            {
+                residentPages = profile.read( fs );
+            }
+            catch ( IOException e )
+            {
+                log.warn( "Ignoring unreadable page cache profile " + profile.file(), e );
+                continue;
+            }
+            pagesLoaded = reheat( pagedFile, residentPages, pagesLoaded, startNanos, pagesPerSecond );
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis( clock.nanos() - startNanos );
+        monitor.warmupCompleted( pagesLoaded, elapsedMillis );
+        log.info( "Page cache warmup completed. %d pages loaded in %d ms.", pagesLoaded, elapsedMillis );
+        return pagesLoaded;
+    }
+
+    private long reheat( PagedFile pagedFile, BitSet residentPages, long pagesLoaded, long startNanos, int pagesPerSecond ) throws IOException
+    {
+        try ( var cursorTracer = pageCacheTracer.createPageCursorTracer( WARMER_TAG );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, new CursorContext( cursorTracer ) ) )
+        {
+            long lastPageId = pagedFile.getLastPageId();
+            int pageId = residentPages.nextSetBit( 0 );
+            while ( pageId >= 0 && pageId <= lastPageId && !stopped )
+            {
+                if ( !cursor.next( pageId ) )
+                {
+                    break;
+                }
+                pagesLoaded++;
+                if ( pagesPerSecond > 0 && pagesLoaded % PACING_BATCH_PAGES == 0 )
+                {
+                    pace( pagesLoaded, startNanos, pagesPerSecond );
+                }
+                pageId = residentPages.nextSetBit( pageId + 1 );
+            }
+        }
+        catch ( FileIsNotMappedException ignore )
+        {
+            // The file got unmapped while we were warming it up. Nothing more to do for this file.
+        }
+        return pagesLoaded;
+    }
+
+    private void pace( long pagesLoaded, long startNanos, int pagesPerSecond )
+    {
+        long expectedNanos = TimeUnit.SECONDS.toNanos( pagesLoaded ) / pagesPerSecond;
+        long aheadNanos = expectedNanos - (clock.nanos() - startNanos);
+        if ( aheadNanos > 0 )
+        {
+            LockSupport.parkNanos( this, aheadNanos );
+        }
+    }
+
+    /**
+     * Record which pages of the currently mapped files are in memory, and atomically replace the profiles of those files.
+     *
+     * @return the total number of pages found to be in memory.
+     */
+    @VisibleForTesting
+    synchronized long profile()
+    {
+        if ( readOnlyChecker.isReadOnly() )
+        {
+            return 0;
+        }
+        long pagesInMemory = 0;
+        try
+        {
+            for ( PagedFile pagedFile : pageCache.listExistingMappings() )
+            {
+                Profile profile = profileOf( pagedFile );
+                if ( profile != null )
+                {
+                    pagesInMemory += profile( pagedFile, profile );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            log.warn( "Page cache profiling failed", e );
+        }
+        monitor.profileCompleted( pagesInMemory );
+        return pagesInMemory;
+    }
+
+    private long profile( PagedFile pagedFile, Profile profile ) throws IOException
+    {
+        BitSet residentPages = new BitSet();
+        try ( var cursorTracer = pageCacheTracer.createPageCursorTracer( PROFILER_TAG );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT | PF_TRANSIENT, new CursorContext( cursorTracer ) ) )
+        {
+            // With PF_NO_FAULT the cursor stays unbound on pages that are not in memory, instead of faulting them in.
+            while ( cursor.next() )
+            {
+                long pageId = cursor.getCurrentPageId();
+                if ( pageId != UNBOUND_PAGE_ID )
+                {
+                    residentPages.set( Math.toIntExact( pageId ) );
+                }
+            }
+        }
+        catch ( FileIsNotMappedException ignore )
+        {
+            // The file was unmapped while we were profiling it. Keep the profile we already have.
+            return 0;
+        }
+        profile.write( fs, residentPages );
+        return residentPages.cardinality();
+    }
+
+    /**
+     * @return the profile of the given file, or {@code null} if the file does not belong in the database directory.
+     */
+    private Profile profileOf( PagedFile pagedFile )
+    {
+        Path databaseDirectory = databaseLayout.databaseDirectory();
+        Path path = pagedFile.path();
+        if ( !path.startsWith( databaseDirectory ) || path.startsWith( profilesDirectory ) )
+        {
+            return null;
+        }
+        return Profile.of( profilesDirectory, databaseDirectory.relativize( path ) );
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * The page residency profile of a single mapped file.
+ * <p>
+ * A profile is a bitmap with one bit per file page, where a raised bit means that the page was in memory when the profile was taken.
+ * Profiles are stored gzip compressed next to the store, in the profiles directory, mirroring the relative path of the profiled file.
+ * They are always written to a temporary file first and then atomically moved in place, so a crash while profiling never leaves a torn
+ * profile behind.
+ */
+final class Profile
+{
+    static final String SUFFIX_CACHEPROF = ".cacheprof";
+    private static final String SUFFIX_TEMP = ".tmp";
+    private static final byte FORMAT_VERSION = 1;
+
+    private final Path profileFile;
+
+    private Profile( Path profileFile )
+    {
+        this.profileFile = profileFile;
+    }
+
+    /**
+     * @param profilesDirectory the directory where all the profiles of a database live.
+     * @param relativeMappedFile the path of the mapped file, relative to the database directory.
+     * @return the profile for the given mapped file.
+     */
+    static Profile of( Path profilesDirectory, Path relativeMappedFile )
+    {
+        return new Profile( profilesDirectory.resolve( relativeMappedFile.toString() + SUFFIX_CACHEPROF ) );
+    }
+
+    Path file()
+    {
+        return profileFile;
+    }
+
+    boolean exists( FileSystemAbstraction fs )
+    {
+        return fs.fileExists( profileFile );
+    }
+
+    /**
+     * Atomically replace this profile with the given set of resident pages.
+     */
+    void write( FileSystemAbstraction fs, BitSet residentPages ) throws IOException
+    {
+        Path directory = profileFile.getParent();
+        if ( !fs.fileExists( directory ) )
+        {
+            fs.mkdirs( directory );
+        }
+        Path tempFile = profileFile.resolveSibling( profileFile.getFileName() + SUFFIX_TEMP );
+        try
+        {
+            try ( OutputStream out = fs.openAsOutputStream( tempFile, false );
+                  DataOutputStream data = new DataOutputStream( new GZIPOutputStream( out ) ) )
+            {
+                byte[] bitmap = residentPages.toByteArray();
+                data.writeByte( FORMAT_VERSION );
+                data.writeInt( bitmap.length );
+                data.write( bitmap );
+            }
+            fs.renameFile( tempFile, profileFile, ATOMIC_MOVE, REPLACE_EXISTING );
+        }
+        catch ( IOException e )
+        {
+            fs.deleteFile( tempFile );
+            throw e;
+        }
+    }
+
+    /**
+     * @return the pages that were resident when this profile was written.
+     * @throws IOException if the profile could not be read, or has an unknown format.
+     */
+    BitSet read( FileSystemAbstraction fs ) throws IOException
+    {
+        try ( InputStream in = fs.openAsInputStream( profileFile );
+              DataInputStream data = new DataInputStream( new GZIPInputStream( in ) ) )
+        {
+            byte version = data.readByte();
+            if ( version != FORMAT_VERSION )
+            {
+                throw new IOException( "Unsupported page cache profile format version " + version + " in " + profileFile );
+            }
+            byte[] bitmap = new byte[data.readInt()];
+            data.readFully( bitmap );
+            return BitSet.valueOf( bitmap );
+        }
+    }
+
+    void delete( FileSystemAbstraction fs ) throws IOException
+    {
+        fs.deleteFile( profileFile );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Profile[" + profileFile + "]";
+    }
+}
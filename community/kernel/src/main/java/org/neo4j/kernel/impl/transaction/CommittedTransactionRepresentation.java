@@ -36,15 +36,28 @@ import org.neo4j.storageengine.api.StorageCommand;
  */
 public class CommittedTransactionRepresentation
 {
+    /**
+     * Size of a transaction that was not read from a transaction log.
+     */
+    public static final long UNKNOWN_SERIALIZED_SIZE = -1;
+
     private final LogEntryStart startEntry;
     private final TransactionRepresentation transactionRepresentation;
     private final LogEntryCommit commitEntry;
+    private final long serializedSize;
 
     public CommittedTransactionRepresentation( LogEntryStart startEntry, TransactionRepresentation transactionRepresentation, LogEntryCommit commitEntry )
+    {
+        this( startEntry, transactionRepresentation, commitEntry, UNKNOWN_SERIALIZED_SIZE );
+    }
+
+    public CommittedTransactionRepresentation( LogEntryStart startEntry, TransactionRepresentation transactionRepresentation, LogEntryCommit commitEntry,
+            long serializedSize )
     {
         this.startEntry = startEntry;
         this.transactionRepresentation = transactionRepresentation;
         this.commitEntry = commitEntry;
+        this.serializedSize = serializedSize;
     }
 
     public void accept( Visitor<StorageCommand, IOException> visitor ) throws IOException
@@ -67,6 +80,15 @@ public class CommittedTransactionRepresentation
         return commitEntry;
     }
 
+    /**
+     * @return the number of bytes the transaction takes up in the transaction log, from its start entry to the end of its commit entry,
+     * or {@link #UNKNOWN_SERIALIZED_SIZE} if it was not read from a transaction log.
+     */
+    public long getSerializedSize()
+    {
+        return serializedSize;
+    }
+
     public int getChecksum()
     {
         return getCommitEntry().getChecksum();
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+/**
+ * Decides for how long the transaction log writer should hold a group of committing transactions open, to let more transactions join it before it
+ * is written and forced.
+ * <p>
+ * Holding a group open delays the transactions already in it, but every transaction that joins the group saves a force of its own. This is only worth
+ * it if transactions are expected to arrive within a fraction of the time a force takes, so the controller keeps moving averages of the force latency
+ * and of the time between arriving transactions. Arrivals are timed when transactions are submitted to the queue, not when the writer takes them off
+ * it, so the time the writer spends writing and forcing does not make transactions look like they arrive more slowly than they do.
+ * A group is held open until it reaches the size that is expected to arrive during one force, for at most half of the force latency, and never for
+ * longer than the configured maximum delay.
+ * <p>
+ * The controller is only used by the transaction log writer thread, and is not thread safe.
+ */
+class AdaptiveGroupCommit
+{
+    /**
+     * The weight of a new sample in the moving averages is 1/2^AVERAGE_SHIFT.
+     */
+    private static final int AVERAGE_SHIFT = 3;
+
+    private final long maxDelayNanos;
+    private final int maxBatchSize;
+    private long forceNanos;
+    private long arrivalIntervalNanos;
+    private long lastEnqueuedNanos;
+
+    AdaptiveGroupCommit( long maxDelayNanos, int maxBatchSize )
+    {
+        this.maxDelayNanos = maxDelayNanos;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Notes that a transaction was taken off the queue. Transactions must be given in queue order.
+     *
+     * @param enqueuedNanos the time the transaction was submitted to the queue.
+     */
+    void arrived( long enqueuedNanos )
+    {
+        if ( lastEnqueuedNanos != 0 )
+        {
+            // Concurrent submitters can enqueue in a slightly different order than they read the clock in, so the interval can come out negative.
+            // An idle period says little about the arrival rate of the next burst, so it may only slow the average down this much.
+            long sample = Math.max( 0, Math.min( enqueuedNanos - lastEnqueuedNanos, 4 * maxDelayNanos ) );
+            arrivalIntervalNanos = arrivalIntervalNanos == 0 ? sample : average( arrivalIntervalNanos, sample );
+        }
+        lastEnqueuedNanos = Math.max( lastEnqueuedNanos, enqueuedNanos );
+    }
+
+    /**
+     * Notes the time a force of the transaction log took.
+     */
+    void forced( long nanos )
+    {
+        forceNanos = forceNanos == 0 ? nanos : average( forceNanos, nanos );
+    }
+
+    /**
+     * @return the number of transactions that are expected to arrive during one force, which is the size a group is held open for.
+     */
+    int targetBatchSize()
+    {
+        if ( forceNanos == 0 || arrivalIntervalNanos == 0 )
+        {
+            return 1;
+        }
+        return (int) Math.max( 1, Math.min( maxBatchSize, forceNanos / arrivalIntervalNanos ) );
+    }
+
+    /**
+     * @param batchSize the number of transactions in the group so far.
+     * @return how much longer the group should be held open, or zero if it should be written and forced right away.
+     */
+    long commitDelayNanos( int batchSize )
+    {
+        if ( maxDelayNanos == 0 || batchSize >= targetBatchSize() )
+        {
+            return 0;
+        }
+        long window = Math.min( maxDelayNanos, forceNanos / 2 );
+        if ( window < arrivalIntervalNanos )
+        {
+            // Not even one more transaction is expected to join the group in time.
+            return 0;
+        }
+        return Math.min( window, (targetBatchSize() - batchSize) * arrivalIntervalNanos );
+    }
+
+    long averageForceNanos()
+    {
+        return forceNanos;
+    }
+
+    long averageArrivalIntervalNanos()
+    {
+        return arrivalIntervalNanos;
+    }
+
+    private static long average( long average, long sample )
+    {
+        return average + ((sample - average) >> AVERAGE_SHIFT);
+    }
+}
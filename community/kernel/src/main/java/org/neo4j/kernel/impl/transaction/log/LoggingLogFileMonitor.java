@@ -28,10 +28,12 @@ import org.neo4j.kernel.recovery.RecoveryMonitor;
 import org.neo4j.kernel.recovery.RecoveryPredicate;
 import org.neo4j.kernel.recovery.RecoveryStartInformationProvider;
 import org.neo4j.logging.Log;
+import org.neo4j.storageengine.api.TransactionApplicationMode;
 
 import static java.lang.String.format;
 import static org.neo4j.internal.helpers.Format.date;
 import static org.neo4j.internal.helpers.Format.duration;
+import static org.neo4j.io.ByteUnit.bytesToString;
 
 public class LoggingLogFileMonitor implements RecoveryMonitor, RecoveryStartInformationProvider.Monitor, LogRotationMonitor
 {
@@ -64,6 +66,13 @@ public class LoggingLogFileMonitor implements RecoveryMonitor, RecoveryStartInfo
         }
     }
 
+    @Override
+    public void recoveryThroughput( TransactionApplicationMode mode, long transactionsPerSecond, long bytesPerSecond, double applierUtilisation )
+    {
+        log.info( format( "%s applied %d transactions/s, %s/s, applier utilisation: %.0f%%", mode == TransactionApplicationMode.REVERSE_RECOVERY ?
+                "Reverse recovery" : "Recovery", transactionsPerSecond, bytesToString( bytesPerSecond ), applierUtilisation * 100 ) );
+    }
+
     @Override
     public void failToRecoverTransactionsAfterCommit( Throwable t, LogEntryCommit commitEntry, LogPosition recoveryToPosition )
     {
@@ -103,12 +103,21 @@ public class PhysicalTransactionCursor implements TransactionCursor
             PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( entries );
             transaction.setHeader( startEntry.getAdditionalHeader(), startEntry.getTimeWritten(),
                     startEntry.getLastCommittedTxWhenTransactionStarted(), commitEntry.getTimeWritten(), -1, ANONYMOUS );
-            current = new CommittedTransactionRepresentation( startEntry, transaction, commitEntry );
             channel.getCurrentPosition( lastGoodPositionMarker );
+            current = new CommittedTransactionRepresentation( startEntry, transaction, commitEntry, serializedSize( startEntry ) );
             return true;
         }
     }
 
+    private long serializedSize( LogEntryStart startEntry )
+    {
+        // A transaction never spans log files, so the versions only differ if the positions are not known
+        LogPosition startPosition = startEntry.getStartPosition();
+        return startPosition != LogPosition.UNSPECIFIED && startPosition.getLogVersion() == lastGoodPositionMarker.getLogVersion()
+               ? lastGoodPositionMarker.getByteOffset() - startPosition.getByteOffset()
+               : CommittedTransactionRepresentation.UNKNOWN_SERIALIZED_SIZE;
+    }
+
     @Override
     public void close() throws IOException
     {
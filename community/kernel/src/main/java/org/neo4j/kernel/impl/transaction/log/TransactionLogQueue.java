@@ -46,8 +46,12 @@ import org.neo4j.scheduler.JobHandle;
 import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.TransactionIdStore;
 
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.locks.LockSupport.parkNanos;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.TransactionLogGroupCommit.ADAPTIVE;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.tx_log_group_commit;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.tx_log_group_commit_max_delay;
 import static org.neo4j.configuration.GraphDatabaseSettings.max_concurrent_transactions;
 import static org.neo4j.internal.helpers.Exceptions.throwIfUnchecked;
 import static org.neo4j.kernel.impl.api.TransactionToApply.TRANSACTION_ID_NOT_SPECIFIED;
@@ -56,6 +60,7 @@ public class TransactionLogQueue extends LifecycleAdapter
 {
     private static final int CONSUMER_MAX_BATCH = 1024;
     private static final int INITIAL_CAPACITY = 128;
+    private static final long MIN_GROUP_PARK_NANOS = MICROSECONDS.toNanos( 10 );
     private final LogFiles logFiles;
     private final LogRotation logRotation;
     private final TransactionIdStore transactionIdStore;
@@ -64,6 +69,8 @@ public class TransactionLogQueue extends LifecycleAdapter
     private final MpscChunkedArrayQueue<TxQueueElement> txAppendQueue;
     private final JobScheduler jobScheduler;
     private final Log log;
+    private final boolean adaptiveGroupCommit;
+    private final long groupCommitMaxDelayNanos;
     private JobHandle<?> jobHandle;
     private TransactionWriter transactionWriter;
     private volatile boolean stopped;
@@ -80,6 +87,8 @@ public class TransactionLogQueue extends LifecycleAdapter
         this.jobScheduler = jobScheduler;
         this.stopped = true;
         this.log = logProvider.getLog( getClass() );
+        this.adaptiveGroupCommit = config.get( tx_log_group_commit ) == ADAPTIVE;
+        this.groupCommitMaxDelayNanos = config.get( tx_log_group_commit_max_delay ).toNanos();
     }
 
     public Future<Long> submit( TransactionToApply batch, LogAppendEvent logAppendEvent ) throws IOException
@@ -88,7 +97,7 @@ public class TransactionLogQueue extends LifecycleAdapter
         {
             return CompletableFuture.failedFuture( new DatabaseShutdownException() );
         }
-        TxQueueElement txQueueElement = new TxQueueElement( batch, logAppendEvent );
+        TxQueueElement txQueueElement = new TxQueueElement( batch, logAppendEvent, adaptiveGroupCommit ? System.nanoTime() : 0 );
         while ( !txAppendQueue.offer( txQueueElement ) )
         {
             if ( stopped )
@@ -103,8 +112,9 @@ public class TransactionLogQueue extends LifecycleAdapter
     @Override
     public synchronized void start()
     {
-        transactionWriter =
-                new TransactionWriter( txAppendQueue, logFiles.getLogFile(), transactionIdStore, databaseHealth, transactionMetadataCache, logRotation, log );
+        AdaptiveGroupCommit groupCommit = adaptiveGroupCommit ? new AdaptiveGroupCommit( groupCommitMaxDelayNanos, CONSUMER_MAX_BATCH ) : null;
+        transactionWriter = new TransactionWriter( txAppendQueue, logFiles.getLogFile(), transactionIdStore, databaseHealth, transactionMetadataCache,
+                logRotation, groupCommit, log );
         jobHandle = jobScheduler.schedule( Group.LOG_WRITER, transactionWriter );
         stopped = false;
     }
@@ -138,11 +148,13 @@ public class TransactionLogQueue extends LifecycleAdapter
         final TransactionToApply batch;
         final LogAppendEvent logAppendEvent;
         final CompletableFuture<Long> resultFuture;
+        final long enqueuedNanos;
 
-        TxQueueElement( TransactionToApply batch, LogAppendEvent logAppendEvent )
+        TxQueueElement( TransactionToApply batch, LogAppendEvent logAppendEvent, long enqueuedNanos )
         {
             this.batch = batch;
             this.logAppendEvent = logAppendEvent;
+            this.enqueuedNanos = enqueuedNanos;
             this.resultFuture = new CompletableFuture<>();
         }
     }
@@ -156,13 +168,14 @@ public class TransactionLogQueue extends LifecycleAdapter
         private final Health databaseHealth;
         private final TransactionMetadataCache transactionMetadataCache;
         private final LogRotation logRotation;
+        private final AdaptiveGroupCommit groupCommit;
         private final Log log;
         private final int checksum;
         private volatile boolean stopped;
         private final MessagePassingQueue.WaitStrategy waitStrategy;
 
         TransactionWriter( MpscChunkedArrayQueue<TxQueueElement> txQueue, LogFile logFile, TransactionIdStore transactionIdStore, Health databaseHealth,
-                TransactionMetadataCache transactionMetadataCache, LogRotation logRotation, Log log )
+                TransactionMetadataCache transactionMetadataCache, LogRotation logRotation, AdaptiveGroupCommit groupCommit, Log log )
         {
             this.txQueue = txQueue;
             this.transactionLogWriter = logFile.getTransactionLogWriter();
@@ -172,6 +185,7 @@ public class TransactionLogQueue extends LifecycleAdapter
             this.databaseHealth = databaseHealth;
             this.transactionMetadataCache = transactionMetadataCache;
             this.logRotation = logRotation;
+            this.groupCommit = groupCommit;
             this.log = log;
             this.waitStrategy = new SleepingWaitingStrategy();
         }
@@ -179,7 +193,7 @@ public class TransactionLogQueue extends LifecycleAdapter
         @Override
         public void run()
         {
-            TxConsumer txConsumer = new TxConsumer( databaseHealth, transactionIdStore, transactionLogWriter, checksum, transactionMetadataCache );
+            TxConsumer txConsumer = new TxConsumer( databaseHealth, transactionIdStore, transactionLogWriter, checksum, transactionMetadataCache, groupCommit );
 
             int idleCounter = 0;
             while ( !stopped )
@@ -190,15 +204,33 @@ public class TransactionLogQueue extends LifecycleAdapter
                     if ( drainedElements > 0 )
                     {
                         idleCounter = 0;
+                        long commitDelayNanos = 0;
+                        if ( groupCommit != null )
+                        {
+                            long startNanos = System.nanoTime();
+                            long delayNanos = groupCommit.commitDelayNanos( drainedElements );
+                            if ( delayNanos > 0 )
+                            {
+                                drainedElements = holdGroupOpen( txConsumer, drainedElements, startNanos + delayNanos );
+                                commitDelayNanos = System.nanoTime() - startNanos;
+                            }
+                        }
                         txConsumer.processBatch();
 
                         LogAppendEvent logAppendEvent = txConsumer.txElements[drainedElements - 1].logAppendEvent;
+                        long forceStartNanos = System.nanoTime();
                         boolean logRotated = logRotation.locklessRotateLogIfNeeded( logAppendEvent );
                         logAppendEvent.setLogRotated( logRotated );
                         if ( !logRotated )
                         {
                             logFile.locklessForce( logAppendEvent );
                         }
+                        long forceNanos = System.nanoTime() - forceStartNanos;
+                        if ( groupCommit != null && !logRotated )
+                        {
+                            groupCommit.forced( forceNanos );
+                        }
+                        logAppendEvent.groupCommitted( drainedElements, commitDelayNanos, forceNanos );
 
                         txConsumer.complete();
                     }
@@ -223,12 +255,36 @@ public class TransactionLogQueue extends LifecycleAdapter
             }
         }
 
+        /**
+         * Keeps taking transactions off the queue until the group reaches the size the adaptive group commit aims for, or the deadline passes.
+         * While the queue is empty, the writer parks until the next transaction is expected to arrive, rather than spinning.
+         * @return the number of transactions in the group.
+         */
+        private int holdGroupOpen( TxConsumer txConsumer, int drainedElements, long deadlineNanos )
+        {
+            long now;
+            while ( !stopped && drainedElements < groupCommit.targetBatchSize() && (now = System.nanoTime()) < deadlineNanos )
+            {
+                int drained = txQueue.drain( txConsumer, CONSUMER_MAX_BATCH - drainedElements );
+                if ( drained > 0 )
+                {
+                    drainedElements += drained;
+                }
+                else
+                {
+                    parkNanos( Math.min( deadlineNanos - now, Math.max( MIN_GROUP_PARK_NANOS, groupCommit.averageArrivalIntervalNanos() ) ) );
+                }
+            }
+            return drainedElements;
+        }
+
         private static class TxConsumer implements MessagePassingQueue.Consumer<TxQueueElement>
         {
             private final Health databaseHealth;
             private final TransactionIdStore transactionIdStore;
             private final TransactionLogWriter transactionLogWriter;
             private final TransactionMetadataCache transactionMetadataCache;
+            private final AdaptiveGroupCommit groupCommit;
 
             private int checksum;
             private final TxQueueElement[] txElements = new TransactionLogQueue.TxQueueElement[CONSUMER_MAX_BATCH];
@@ -236,9 +292,10 @@ public class TransactionLogQueue extends LifecycleAdapter
             private int index;
 
             TxConsumer( Health databaseHealth, TransactionIdStore transactionIdStore, TransactionLogWriter transactionLogWriter, int checksum,
-                    TransactionMetadataCache transactionMetadataCache )
+                    TransactionMetadataCache transactionMetadataCache, AdaptiveGroupCommit groupCommit )
             {
                 this.transactionMetadataCache = transactionMetadataCache;
+                this.groupCommit = groupCommit;
                 this.databaseHealth = databaseHealth;
                 this.transactionIdStore = transactionIdStore;
                 this.transactionLogWriter = transactionLogWriter;
@@ -249,6 +306,10 @@ public class TransactionLogQueue extends LifecycleAdapter
             public void accept( TxQueueElement txQueueElement )
             {
                 txElements[index++] = txQueueElement;
+                if ( groupCommit != null )
+                {
+                    groupCommit.arrived( txQueueElement.enqueuedNanos );
+                }
             }
 
             private void processBatch() throws IOException
@@ -22,8 +22,10 @@ package org.neo4j.kernel.impl.transaction.log;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
+import org.neo4j.kernel.KernelVersion;
 import org.neo4j.kernel.database.LogEntryWriterFactory;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.CompressedCommandsLogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.util.VisibleForTesting;
 
@@ -31,11 +33,24 @@ public class TransactionLogWriter
 {
     private final FlushablePositionAwareChecksumChannel channel;
     private final LogEntryWriterFactory logEntryWriterFactory;
+    private final CompressedCommandsLogEntryWriter compressedCommandsWriter;
 
     public TransactionLogWriter( FlushablePositionAwareChecksumChannel channel, LogEntryWriterFactory logEntryWriterFactory )
+    {
+        this( channel, logEntryWriterFactory, null );
+    }
+
+    /**
+     * @param compressedCommandsWriter writer to compress the commands of the appended transactions with, or {@code null} to write them uncompressed.
+     * Transactions of the version that compressed commands extend are then written in the version with compressed commands, which versions of Neo4j
+     * without them cannot read.
+     */
+    public TransactionLogWriter( FlushablePositionAwareChecksumChannel channel, LogEntryWriterFactory logEntryWriterFactory,
+            CompressedCommandsLogEntryWriter compressedCommandsWriter )
     {
         this.channel = channel;
         this.logEntryWriterFactory = logEntryWriterFactory;
+        this.compressedCommandsWriter = compressedCommandsWriter;
     }
 
     /**
@@ -45,10 +60,22 @@ public class TransactionLogWriter
     public int append( TransactionRepresentation transaction, long transactionId, int previousChecksum ) throws IOException
     {
         var writer = logEntryWriterFactory.createEntryWriter( channel, transaction.version() );
+        if ( compressedCommandsWriter != null && writer.kernelVersion() == KernelVersion.V4_4 )
+        {
+            // The whole transaction must be written in one version, since the checksum of the transaction restarts when the version changes
+            writer = new LogEntryWriter<>( channel, KernelVersion.VERSION_IN_WHICH_COMPRESSED_COMMANDS_ARE_INTRODUCED );
+        }
         writer.writeStartEntry( transaction.getTimeStarted(), transaction.getLatestCommittedTxWhenStarted(), previousChecksum, transaction.additionalHeader() );
 
         // Write all the commands to the log channel
-        writer.serialize( transaction );
+        if ( compressedCommandsWriter != null )
+        {
+            writer.serialize( transaction, compressedCommandsWriter );
+        }
+        else
+        {
+            writer.serialize( transaction );
+        }
 
         // Write commit record
         return writer.writeCommitEntry( transactionId, transaction.getTimeCommitted() );
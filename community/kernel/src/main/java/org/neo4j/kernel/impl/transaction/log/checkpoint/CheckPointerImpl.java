@@ -198,7 +198,11 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
              */
             msgLog.info( checkpointReason + " checkpoint started..." );
             Stopwatch startTime = Stopwatch.start();
+            long iosBefore = pageCacheTracer.iopqPerformed();
+            long ioLimitedMillisBefore = pageCacheTracer.ioLimitedMillis();
             forceOperation.flushAndForce( cursorContext );
+            event.checkpointFlushed( pageCacheTracer.iopqPerformed() - iosBefore, pageCacheTracer.ioLimitedMillis() - ioLimitedMillisBefore,
+                    startTime.elapsed( MILLISECONDS ) );
             /*
              * Check kernel health before going to write the next check point.  In case of a panic this check point
              * will be aborted, which is the safest alternative so that the next recovery will have a chance to
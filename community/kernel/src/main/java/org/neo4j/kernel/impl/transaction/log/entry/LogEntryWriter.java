@@ -40,11 +40,13 @@ public class LogEntryWriter<T extends WritableChecksumChannel>
 {
     private final Visitor<StorageCommand,IOException> serializer;
     protected final T channel;
+    private final KernelVersion version;
     private final byte parserSetVersion;
 
     public LogEntryWriter( T channel, KernelVersion version )
     {
         this.channel = channel;
+        this.version = version;
         this.parserSetVersion = version.version();
         this.serializer = new StorageCommandSerializer( channel, this );
     }
@@ -90,6 +92,27 @@ public class LogEntryWriter<T extends WritableChecksumChannel>
         tx.accept( serializer );
     }
 
+    /**
+     * Writes the commands of the transaction through the given compressing writer, if compressed commands are supported by the version of this writer.
+     * Older versions of Neo4j cannot read compressed commands, so they are only written by a writer created for
+     * {@link KernelVersion#VERSION_IN_WHICH_COMPRESSED_COMMANDS_ARE_INTRODUCED}.
+     */
+    public void serialize( TransactionRepresentation tx, CompressedCommandsLogEntryWriter compressedWriter ) throws IOException
+    {
+        if ( parserSetVersion < KernelVersion.VERSION_IN_WHICH_COMPRESSED_COMMANDS_ARE_INTRODUCED.version() )
+        {
+            serialize( tx );
+            return;
+        }
+        compressedWriter.begin( parserSetVersion, channel );
+        tx.accept( command ->
+        {
+            compressedWriter.writeCommand( command );
+            return false;
+        } );
+        compressedWriter.end();
+    }
+
     public void serialize( CommittedTransactionRepresentation tx ) throws IOException
     {
         writeStartEntry( tx.getStartEntry() );
@@ -119,6 +142,11 @@ public class LogEntryWriter<T extends WritableChecksumChannel>
         channel.putChecksum();
     }
 
+    public KernelVersion kernelVersion()
+    {
+        return version;
+    }
+
     public T getChannel()
     {
         return channel;
@@ -61,6 +61,7 @@ import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
 import org.neo4j.kernel.impl.transaction.log.ReaderLogVersionBridge;
 import org.neo4j.kernel.impl.transaction.log.TransactionLogWriter;
+import org.neo4j.kernel.impl.transaction.log.entry.CompressedCommandsLogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
@@ -76,6 +77,8 @@ import org.neo4j.monitoring.DatabaseHealth;
 import org.neo4j.storageengine.api.LogVersionRepository;
 import org.neo4j.util.VisibleForTesting;
 
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.TransactionLogCompression.DEFLATE;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.tx_log_compression;
 import static org.neo4j.configuration.GraphDatabaseSettings.transaction_log_buffer_size;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
 import static org.neo4j.kernel.impl.transaction.log.rotation.FileLogRotation.transactionLogRotation;
@@ -108,6 +111,7 @@ public class TransactionLogFile extends LifecycleAdapter implements LogFile
     private final FileSystemAbstraction fileSystem;
     private final ConcurrentMap<Long,List<StoreChannel>> externalFileReaders = new ConcurrentHashMap<>();
     private TransactionLogWriter transactionLogWriter;
+    private CompressedCommandsLogEntryWriter compressedCommandsWriter;
 
     TransactionLogFile( LogFiles logFiles, TransactionLogFilesContext context, String baseName )
     {
@@ -145,7 +149,9 @@ public class TransactionLogFile extends LifecycleAdapter implements LogFile
 
         writer = new PositionAwarePhysicalFlushableChecksumChannel( channel,
                 new NativeScopedBuffer( context.getConfig().get( transaction_log_buffer_size ), memoryTracker ) );
-        transactionLogWriter = new TransactionLogWriter( writer, new DbmsLogEntryWriterFactory( context.getKernelVersionProvider() ) );
+        compressedCommandsWriter = context.getConfig().get( tx_log_compression ) == DEFLATE ? new CompressedCommandsLogEntryWriter() : null;
+        transactionLogWriter =
+                new TransactionLogWriter( writer, new DbmsLogEntryWriterFactory( context.getKernelVersionProvider() ), compressedCommandsWriter );
     }
 
     // In order to be able to write into a logfile after life.stop during shutdown sequence
@@ -154,7 +160,7 @@ public class TransactionLogFile extends LifecycleAdapter implements LogFile
     @Override
     public void shutdown() throws IOException
     {
-        IOUtils.closeAll( writer );
+        IOUtils.closeAll( writer, compressedCommandsWriter );
     }
 
     @Override
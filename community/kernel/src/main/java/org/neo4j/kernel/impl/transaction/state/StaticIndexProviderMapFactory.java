@@ -28,6 +28,7 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.layout.DatabaseLayout;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.database.DatabaseMemoryTrackers;
 import org.neo4j.kernel.impl.factory.DbmsInfo;
 import org.neo4j.kernel.impl.index.schema.FulltextIndexProviderFactory;
 import org.neo4j.kernel.impl.index.schema.GenericNativeIndexProviderFactory;
@@ -38,6 +39,8 @@ import org.neo4j.kernel.impl.index.schema.TokenIndexProviderFactory;
 import org.neo4j.kernel.impl.index.schema.fusion.NativeLuceneFusionIndexProviderFactory30;
 import org.neo4j.kernel.lifecycle.LifeSupport;
 import org.neo4j.logging.internal.LogService;
+import org.neo4j.memory.EmptyMemoryTracker;
+import org.neo4j.memory.MemoryTracker;
 import org.neo4j.monitoring.Monitors;
 import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.token.TokenHolders;
@@ -62,11 +65,15 @@ public class StaticIndexProviderMapFactory
             RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, PageCacheTracer pageCacheTracer,
             DatabaseLayout databaseLayout, TokenHolders tokenHolders, JobScheduler scheduler, DependencyResolver dependencies )
     {
+        MemoryTracker memoryTracker = dependencies.containsDependency( DatabaseMemoryTrackers.class )
+                                      ? dependencies.resolveDependency( DatabaseMemoryTrackers.class ).getOtherTracker()
+                                      : EmptyMemoryTracker.INSTANCE;
+
         var tokenIndexProvider = life.add( new TokenIndexProviderFactory().create(
                 pageCache, fs, logService, monitors, databaseConfig, readOnlyChecker, dbmsInfo,
                 recoveryCleanupWorkCollector, pageCacheTracer, databaseLayout, tokenHolders, scheduler ) );
 
-        var nativeIndexProvider = life.add( new GenericNativeIndexProviderFactory().create(
+        var nativeIndexProvider = life.add( new GenericNativeIndexProviderFactory( memoryTracker ).create(
                 pageCache, fs, logService, monitors, databaseConfig, readOnlyChecker, dbmsInfo,
                 recoveryCleanupWorkCollector, pageCacheTracer, databaseLayout, tokenHolders, scheduler ) );
 
@@ -82,7 +89,7 @@ public class StaticIndexProviderMapFactory
                 pageCache, fs, logService, monitors, databaseConfig, readOnlyChecker, dbmsInfo,
                 recoveryCleanupWorkCollector, pageCacheTracer, databaseLayout, tokenHolders, scheduler ) );
 
-        var rangeIndexProvider = life.add( new RangeIndexProviderFactory().create(
+        var rangeIndexProvider = life.add( new RangeIndexProviderFactory( memoryTracker ).create(
                 pageCache, fs, logService, monitors, databaseConfig, readOnlyChecker, dbmsInfo,
                 recoveryCleanupWorkCollector, pageCacheTracer, databaseLayout, tokenHolders, scheduler ) );
 
@@ -38,4 +38,22 @@ public interface CheckpointCounters
      * @return last checkpoint duration in milliseconds
      */
     long lastCheckpointTimeMillis();
+
+    /**
+     * Number of IOs the last checkpoint did to flush the page cache
+     * @return number of IOs of the last checkpoint
+     */
+    long lastCheckpointIOs();
+
+    /**
+     * Time in milliseconds the last checkpoint was paused by the IO controller, to keep within the checkpoint IO limit
+     * @return time the last checkpoint was paused in milliseconds
+     */
+    long lastCheckpointIOLimitedMillis();
+
+    /**
+     * IOs per second that the last checkpoint achieved while flushing the page cache
+     * @return IOs per second of the last checkpoint
+     */
+    long lastCheckpointIOPS();
 }
@@ -56,4 +56,29 @@ public interface TransactionLogCounters
      * @return last append batch size
      */
     long lastTransactionLogAppendBatch();
+
+    /**
+     * Total number of groups of transactions that were appended to the transaction log and forced together
+     * @return number of group commits
+     */
+    long numberOfGroupCommits();
+
+    /**
+     * Distribution of the sizes of the groups of transactions that were appended to the transaction log and forced together. The element at index
+     * {@code i} is the number of groups with at least {@code 2^i} and less than {@code 2^(i+1)} transactions.
+     * @return number of group commits by group size
+     */
+    long[] groupCommitSizeHistogram();
+
+    /**
+     * Accumulated time in milliseconds that groups of transactions were held open for more transactions to join them
+     * @return accumulated group commit delay in milliseconds
+     */
+    long groupCommitDelayAccumulatedTotalTimeMillis();
+
+    /**
+     * Accumulated time in milliseconds that groups of committing transactions have waited for the transaction log to be forced
+     * @return accumulated log force time in milliseconds
+     */
+    long logForceAccumulatedTotalTimeMillis();
 }
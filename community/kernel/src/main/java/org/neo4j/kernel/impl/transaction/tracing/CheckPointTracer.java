@@ -48,6 +48,24 @@ public interface CheckPointTracer extends CheckpointCounters
         {
             return 0;
         }
+
+        @Override
+        public long lastCheckpointIOs()
+        {
+            return 0;
+        }
+
+        @Override
+        public long lastCheckpointIOLimitedMillis()
+        {
+            return 0;
+        }
+
+        @Override
+        public long lastCheckpointIOPS()
+        {
+            return 0;
+        }
     };
 
     /**
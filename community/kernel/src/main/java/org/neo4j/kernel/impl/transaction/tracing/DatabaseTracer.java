@@ -43,6 +43,24 @@ public interface DatabaseTracer extends TransactionTracer, CheckPointTracer
             return 0;
         }
 
+        @Override
+        public long lastCheckpointIOs()
+        {
+            return 0;
+        }
+
+        @Override
+        public long lastCheckpointIOLimitedMillis()
+        {
+            return 0;
+        }
+
+        @Override
+        public long lastCheckpointIOPS()
+        {
+            return 0;
+        }
+
         @Override
         public LogFileCreateEvent createLogFile()
         {
@@ -108,6 +126,30 @@ public interface DatabaseTracer extends TransactionTracer, CheckPointTracer
         {
             return 0;
         }
+
+        @Override
+        public long numberOfGroupCommits()
+        {
+            return 0;
+        }
+
+        @Override
+        public long[] groupCommitSizeHistogram()
+        {
+            return new long[0];
+        }
+
+        @Override
+        public long groupCommitDelayAccumulatedTotalTimeMillis()
+        {
+            return 0;
+        }
+
+        @Override
+        public long logForceAccumulatedTotalTimeMillis()
+        {
+            return 0;
+        }
     };
 
     LogFileCreateEvent createLogFile();
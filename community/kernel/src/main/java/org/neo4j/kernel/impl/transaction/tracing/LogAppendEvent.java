@@ -54,6 +54,14 @@ public interface LogAppendEvent extends LogForceEvents, LogRotateEvents, AutoClo
      */
     AppendTransactionEvent beginAppendTransaction( int appendItems );
 
+    /**
+     * Note that a group of transactions, of which this transaction was the last, has been appended to the transaction log and made durable.
+     * @param batchSize number of transactions in the group
+     * @param commitDelayNanos time the group was held open for more transactions to join it
+     * @param forceNanos time spent forcing, or rotating, the transaction log to make the group durable
+     */
+    void groupCommitted( int batchSize, long commitDelayNanos, long forceNanos );
+
     class Empty implements LogAppendEvent
     {
         @Override
@@ -84,6 +92,11 @@ public interface LogAppendEvent extends LogForceEvents, LogRotateEvents, AutoClo
             return AppendTransactionEvent.NULL;
         }
 
+        @Override
+        public void groupCommitted( int batchSize, long commitDelayNanos, long forceNanos )
+        {
+        }
+
         @Override
         public LogForceWaitEvent beginLogForceWait()
         {
@@ -51,6 +51,11 @@ public interface LogCheckPointEvent extends LogForceEvents, LogRotateEvents, Aut
         {
         }
 
+        @Override
+        public void checkpointFlushed( long ios, long ioLimitedMillis, long flushMillis )
+        {
+        }
+
         @Override
         public void close()
         {
@@ -69,6 +74,14 @@ public interface LogCheckPointEvent extends LogForceEvents, LogRotateEvents, Aut
      */
     void checkpointCompleted( long checkpointMillis );
 
+    /**
+     * Notify about the IO that the checkpoint did to flush the page cache
+     * @param ios number of IOs done by the flush
+     * @param ioLimitedMillis time the flush was paused by the IO controller, to keep within the checkpoint IO limit
+     * @param flushMillis flush duration
+     */
+    void checkpointFlushed( long ios, long ioLimitedMillis, long flushMillis );
+
     /**
      * Marks the end of the check pointing process.
      */
@@ -78,6 +78,30 @@ public interface TransactionTracer extends TransactionLogCounters
         {
             return 0;
         }
+
+        @Override
+        public long numberOfGroupCommits()
+        {
+            return 0;
+        }
+
+        @Override
+        public long[] groupCommitSizeHistogram()
+        {
+            return new long[0];
+        }
+
+        @Override
+        public long groupCommitDelayAccumulatedTotalTimeMillis()
+        {
+            return 0;
+        }
+
+        @Override
+        public long logForceAccumulatedTotalTimeMillis()
+        {
+            return 0;
+        }
     };
 
     /**
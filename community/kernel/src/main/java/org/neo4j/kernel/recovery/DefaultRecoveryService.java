@@ -29,12 +29,15 @@ import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
 import org.neo4j.logging.Log;
+import org.neo4j.memory.MemoryTracker;
 import org.neo4j.storageengine.api.LogVersionRepository;
 import org.neo4j.storageengine.api.StorageEngine;
 import org.neo4j.storageengine.api.TransactionApplicationMode;
 import org.neo4j.storageengine.api.TransactionIdStore;
 
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.parallel_recovery_max_in_flight_memory;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_FORMAT_LOG_HEADER_SIZE;
+import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
 import static org.neo4j.storageengine.api.LogVersionRepository.INITIAL_LOG_VERSION;
 
 public class DefaultRecoveryService implements RecoveryService
@@ -46,10 +49,24 @@ public class DefaultRecoveryService implements RecoveryService
     private final LogVersionRepository logVersionRepository;
     private final Log log;
     private final boolean doParallelRecovery;
+    private final long parallelRecoveryMaxInFlightMemory;
+    private final MemoryTracker memoryTracker;
+    private final RecoveryMonitor recoveryMonitor;
 
     DefaultRecoveryService( StorageEngine storageEngine, TransactionIdStore transactionIdStore,
             LogicalTransactionStore logicalTransactionStore, LogVersionRepository logVersionRepository, LogFiles logFiles,
             RecoveryStartInformationProvider.Monitor monitor, Log log, boolean doParallelRecovery )
+    {
+        this( storageEngine, transactionIdStore, logicalTransactionStore, logVersionRepository, logFiles, monitor, log, doParallelRecovery,
+                parallel_recovery_max_in_flight_memory.defaultValue(), INSTANCE, new RecoveryMonitor()
+                {
+                } );
+    }
+
+    DefaultRecoveryService( StorageEngine storageEngine, TransactionIdStore transactionIdStore,
+            LogicalTransactionStore logicalTransactionStore, LogVersionRepository logVersionRepository, LogFiles logFiles,
+            RecoveryStartInformationProvider.Monitor monitor, Log log, boolean doParallelRecovery, long parallelRecoveryMaxInFlightMemory,
+            MemoryTracker memoryTracker, RecoveryMonitor recoveryMonitor )
     {
         this.storageEngine = storageEngine;
         this.transactionIdStore = transactionIdStore;
@@ -57,6 +74,9 @@ public class DefaultRecoveryService implements RecoveryService
         this.logVersionRepository = logVersionRepository;
         this.log = log;
         this.doParallelRecovery = doParallelRecovery;
+        this.parallelRecoveryMaxInFlightMemory = parallelRecoveryMaxInFlightMemory;
+        this.memoryTracker = memoryTracker;
+        this.recoveryMonitor = recoveryMonitor;
         this.recoveryStartInformationProvider = new RecoveryStartInformationProvider( logFiles, monitor );
     }
 
@@ -71,7 +91,8 @@ public class DefaultRecoveryService implements RecoveryService
     {
         if ( doParallelRecovery )
         {
-            return new ParallelRecoveryVisitor( storageEngine, mode, cacheTracer, tracerTag );
+            return new ParallelRecoveryVisitor( storageEngine, mode, cacheTracer, tracerTag, memoryTracker, parallelRecoveryMaxInFlightMemory,
+                    recoveryMonitor );
         }
         return new RecoveryVisitor( storageEngine, mode, cacheTracer, tracerTag );
     }
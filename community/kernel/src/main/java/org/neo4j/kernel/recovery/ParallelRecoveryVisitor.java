@@ -19,12 +19,18 @@
  */
 package org.neo4j.kernel.recovery;
 
+import org.apache.commons.lang3.mutable.MutableLong;
+
+import java.io.IOException;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.neo4j.internal.helpers.Exceptions;
 import org.neo4j.io.pagecache.context.CursorContext;
@@ -35,15 +41,37 @@ import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.lock.LockGroup;
 import org.neo4j.lock.LockService;
 import org.neo4j.lock.ReentrantLockService;
+import org.neo4j.memory.MemoryTracker;
 import org.neo4j.storageengine.api.StorageEngine;
 import org.neo4j.storageengine.api.TransactionApplicationMode;
 
 import static java.lang.Integer.max;
+import static org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation.UNKNOWN_SERIALIZED_SIZE;
 import static org.neo4j.kernel.impl.transaction.log.Commitment.NO_COMMITMENT;
 import static org.neo4j.util.Preconditions.checkState;
 
+/**
+ * Applies recovered transactions with a pool of appliers, where transactions that touch the same entities are applied in transaction order.
+ * <p>
+ * The transactions handed to the appliers are kept in memory until they have been applied. To bound that memory, the estimated size of every
+ * transaction in flight, its size in the transaction log plus an overhead per command, is allocated on the given {@link MemoryTracker}, and
+ * {@link #visit(CommittedTransactionRepresentation)} blocks the reader of the transaction log while queueing the next transaction would make
+ * the transactions in flight exceed the memory budget. One transaction is always let through, however large it is, so that recovery can make
+ * progress.
+ * <p>
+ * When closed, the visitor reports the throughput of the recovery, and how busy the appliers were, to the {@link RecoveryMonitor}.
+ */
 final class ParallelRecoveryVisitor implements RecoveryApplier
 {
+    /**
+     * Rough heap overhead of a command object and its records, on top of its serialized size.
+     */
+    private static final long COMMAND_OVERHEAD = 64;
+    /**
+     * Assumed serialized size of a command of a transaction whose size in the transaction log is unknown.
+     */
+    private static final long UNKNOWN_COMMAND_SIZE = 128;
+
     private final AtomicLong prevLockedTxId = new AtomicLong( -1 );
     private final StorageEngine storageEngine;
     private final LockService lockService = new ReentrantLockService();
@@ -53,18 +81,38 @@ final class ParallelRecoveryVisitor implements RecoveryApplier
     private final ExecutorService appliers;
     private final AtomicReference<Throwable> failure = new AtomicReference<>();
     private final int stride;
+    private final int numAppliers;
+    private final MemoryTracker memoryTracker;
+    private final long maxInFlightMemory;
+    private final RecoveryMonitor monitor;
+    private final ReentrantLock inFlightLock = new ReentrantLock();
+    private final Condition inFlightReleased = inFlightLock.newCondition();
+    private final LongAdder applyNanos = new LongAdder();
+    // Guarded by inFlightLock.
+    private long inFlightMemory;
+    // Only accessed by the thread visiting the transactions.
+    private long startNanos;
+    private long visitedTransactions;
+    private long visitedBytes;
 
-    ParallelRecoveryVisitor( StorageEngine storageEngine, TransactionApplicationMode mode, PageCacheTracer cacheTracer, String tracerTag )
+    ParallelRecoveryVisitor( StorageEngine storageEngine, TransactionApplicationMode mode, PageCacheTracer cacheTracer, String tracerTag,
+            MemoryTracker memoryTracker, long maxInFlightMemory, RecoveryMonitor monitor )
     {
-        this( storageEngine, mode, cacheTracer, tracerTag, max( 1, Runtime.getRuntime().availableProcessors() - 1 ) );
+        this( storageEngine, mode, cacheTracer, tracerTag, memoryTracker, maxInFlightMemory, monitor,
+                max( 1, Runtime.getRuntime().availableProcessors() - 1 ) );
     }
 
-    ParallelRecoveryVisitor( StorageEngine storageEngine, TransactionApplicationMode mode, PageCacheTracer cacheTracer, String tracerTag, int numAppliers )
+    ParallelRecoveryVisitor( StorageEngine storageEngine, TransactionApplicationMode mode, PageCacheTracer cacheTracer, String tracerTag,
+            MemoryTracker memoryTracker, long maxInFlightMemory, RecoveryMonitor monitor, int numAppliers )
     {
         this.storageEngine = storageEngine;
         this.mode = mode;
         this.cacheTracer = cacheTracer;
         this.tracerTag = tracerTag;
+        this.memoryTracker = memoryTracker;
+        this.maxInFlightMemory = maxInFlightMemory;
+        this.monitor = monitor;
+        this.numAppliers = numAppliers;
         this.appliers = new ThreadPoolExecutor( numAppliers, numAppliers, 1, TimeUnit.HOURS, new ArrayBlockingQueue<>( numAppliers ),
                 new ThreadPoolExecutor.CallerRunsPolicy() );
         this.stride = mode == TransactionApplicationMode.REVERSE_RECOVERY ? -1 : 1;
@@ -76,33 +124,98 @@ final class ParallelRecoveryVisitor implements RecoveryApplier
         checkFailure();
 
         // We need to know the starting point for the "is it my turn yet?" check below that each thread needs to do before acquiring the locks
-        prevLockedTxId.compareAndSet( -1, transaction.getCommitEntry().getTxId() - stride );
+        if ( prevLockedTxId.compareAndSet( -1, transaction.getCommitEntry().getTxId() - stride ) )
+        {
+            startNanos = System.nanoTime();
+        }
 
-        // TODO Also consider the memory usage of all active transaction instances and apply back-pressure if surpassing it
+        long size = estimateSize( transaction );
+        reserveInFlightMemory( size );
+        visitedTransactions++;
+        visitedBytes += size;
         appliers.submit( () ->
         {
-            long txId = transaction.getCommitEntry().getTxId();
-            while ( prevLockedTxId.get() != txId - stride )
+            try
             {
-                Thread.onSpinWait();
-                checkFailure();
+                long txId = transaction.getCommitEntry().getTxId();
+                while ( prevLockedTxId.get() != txId - stride )
+                {
+                    Thread.onSpinWait();
+                    checkFailure();
+                }
+                long applyStartNanos = System.nanoTime();
+                try ( LockGroup locks = new LockGroup() )
+                {
+                    storageEngine.lockRecoveryCommands( transaction.getTransactionRepresentation(), lockService, locks, mode );
+                    boolean myTurn = prevLockedTxId.compareAndSet( txId - stride, txId );
+                    checkState( myTurn, "Something wrong with the algorithm, I thought it was my turn, but apparently it wasn't %d", txId );
+                    apply( transaction );
+                }
+                catch ( Throwable e )
+                {
+                    failure.compareAndSet( null, e );
+                }
+                applyNanos.add( System.nanoTime() - applyStartNanos );
             }
-            try ( LockGroup locks = new LockGroup() )
+            finally
             {
-                storageEngine.lockRecoveryCommands( transaction.getTransactionRepresentation(), lockService, locks, mode );
-                boolean myTurn = prevLockedTxId.compareAndSet( txId - stride, txId );
-                checkState( myTurn, "Something wrong with the algorithm, I thought it was my turn, but apparently it wasn't %d", txId );
-                apply( transaction );
-            }
-            catch ( Throwable e )
-            {
-                failure.compareAndSet( null, e );
+                releaseInFlightMemory( size );
             }
             return null;
         } );
         return false;
     }
 
+    private void reserveInFlightMemory( long size ) throws Exception
+    {
+        inFlightLock.lockInterruptibly();
+        try
+        {
+            while ( inFlightMemory > 0 && inFlightMemory + size > maxInFlightMemory )
+            {
+                inFlightReleased.await();
+                checkFailure();
+            }
+            inFlightMemory += size;
+            memoryTracker.allocateHeap( size );
+        }
+        finally
+        {
+            inFlightLock.unlock();
+        }
+    }
+
+    private void releaseInFlightMemory( long size )
+    {
+        inFlightLock.lock();
+        try
+        {
+            inFlightMemory -= size;
+            memoryTracker.releaseHeap( size );
+            inFlightReleased.signalAll();
+        }
+        finally
+        {
+            inFlightLock.unlock();
+        }
+    }
+
+    private static long estimateSize( CommittedTransactionRepresentation transaction ) throws IOException
+    {
+        MutableLong commands = new MutableLong();
+        transaction.accept( command ->
+        {
+            commands.increment();
+            return false;
+        } );
+        long serializedSize = transaction.getSerializedSize();
+        if ( serializedSize == UNKNOWN_SERIALIZED_SIZE )
+        {
+            serializedSize = commands.longValue() * UNKNOWN_COMMAND_SIZE;
+        }
+        return serializedSize + commands.longValue() * COMMAND_OVERHEAD;
+    }
+
     private void checkFailure() throws Exception
     {
         Throwable failure = this.failure.get();
@@ -143,5 +256,19 @@ final class ParallelRecoveryVisitor implements RecoveryApplier
             Thread.currentThread().interrupt();
         }
         checkFailure();
+        reportThroughput();
+    }
+
+    private void reportThroughput()
+    {
+        if ( visitedTransactions == 0 )
+        {
+            return;
+        }
+        long elapsedNanos = Math.max( 1, System.nanoTime() - startNanos );
+        long transactionsPerSecond = visitedTransactions * TimeUnit.SECONDS.toNanos( 1 ) / elapsedNanos;
+        long bytesPerSecond = (long) (visitedBytes * ((double) TimeUnit.SECONDS.toNanos( 1 ) / elapsedNanos));
+        double applierUtilisation = Math.min( 1.0, applyNanos.sum() / ((double) elapsedNanos * numAppliers) );
+        monitor.recoveryThroughput( mode, transactionsPerSecond, bytesPerSecond, applierUtilisation );
     }
 }
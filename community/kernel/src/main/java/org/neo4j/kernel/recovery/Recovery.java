@@ -542,11 +542,13 @@ public final class Recovery
         schemaLife.add( indexingService );
 
         var doParallelRecovery = config.get( GraphDatabaseInternalSettings.do_parallel_recovery );
+        var parallelRecoveryMaxInFlightMemory = config.get( GraphDatabaseInternalSettings.parallel_recovery_max_in_flight_memory );
         TransactionLogsRecovery transactionLogsRecovery =
                 transactionLogRecovery( fs, metadataProvider, monitors.newMonitor( RecoveryMonitor.class ),
                                         monitors.newMonitor( RecoveryStartInformationProvider.Monitor.class ), logFiles, storageEngine,
                                         transactionStore, metadataProvider, schemaLife, databaseLayout, failOnCorruptedLogFiles, recoveryLog,
-                                        startupChecker, tracers.getPageCacheTracer(), memoryTracker, doParallelRecovery, recoveryPredicate );
+                                        startupChecker, tracers.getPageCacheTracer(), memoryTracker, doParallelRecovery, parallelRecoveryMaxInFlightMemory,
+                                        recoveryPredicate );
 
         CheckPointerImpl.ForceOperation forceOperation = new DefaultForceOperation( indexingService, storageEngine );
         var checkpointAppender = logFiles.getCheckpointFile().getCheckpointAppender();
@@ -615,10 +617,12 @@ public final class Recovery
             RecoveryMonitor recoveryMonitor, RecoveryStartInformationProvider.Monitor positionMonitor, LogFiles logFiles,
             StorageEngine storageEngine, LogicalTransactionStore logicalTransactionStore, LogVersionRepository logVersionRepository,
             Lifecycle schemaLife, DatabaseLayout databaseLayout, boolean failOnCorruptedLogFiles, Log log, RecoveryStartupChecker startupChecker,
-            PageCacheTracer pageCacheTracer, MemoryTracker memoryTracker, boolean doParallelRecovery, RecoveryPredicate recoveryPredicate )
+            PageCacheTracer pageCacheTracer, MemoryTracker memoryTracker, boolean doParallelRecovery, long parallelRecoveryMaxInFlightMemory,
+            RecoveryPredicate recoveryPredicate )
     {
         RecoveryService recoveryService = new DefaultRecoveryService( storageEngine, transactionIdStore, logicalTransactionStore,
-                                                                      logVersionRepository, logFiles, positionMonitor, log, doParallelRecovery );
+                                                                      logVersionRepository, logFiles, positionMonitor, log, doParallelRecovery,
+                                                                      parallelRecoveryMaxInFlightMemory, memoryTracker, recoveryMonitor );
         CorruptedLogsTruncator logsTruncator =
                 new CorruptedLogsTruncator( databaseLayout.databaseDirectory(), logFiles, fileSystemAbstraction, memoryTracker );
         ProgressReporter progressReporter = new LogProgressReporter( log );
@@ -21,6 +21,7 @@ package org.neo4j.kernel.recovery;
 
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.storageengine.api.TransactionApplicationMode;
 
 public interface RecoveryMonitor
 {
@@ -55,6 +56,19 @@ public interface RecoveryMonitor
         //noop
     }
 
+    /**
+     * Called when the transactions of a recovery pass have been applied by parallel recovery.
+     *
+     * @param mode the recovery pass, either reverse or forward recovery.
+     * @param transactionsPerSecond the number of transactions applied per second.
+     * @param bytesPerSecond the estimated size of the transactions applied per second.
+     * @param applierUtilisation the share of the time that the appliers spent applying transactions, between 0 and 1.
+     */
+    default void recoveryThroughput( TransactionApplicationMode mode, long transactionsPerSecond, long bytesPerSecond, double applierUtilisation )
+    {
+        // noop
+    }
+
     default void partialRecovery( RecoveryPredicate recoveryPredicate, LogEntryCommit lastTransaction )
     {
         // noop
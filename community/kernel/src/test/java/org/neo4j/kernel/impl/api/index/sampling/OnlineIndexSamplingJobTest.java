@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.api.index.sampling;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import org.neo4j.configuration.Config;
 import org.neo4j.internal.kernel.api.exceptions.schema.IndexNotFoundKernelException;
 import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.internal.schema.IndexProviderDescriptor;
@@ -31,6 +32,7 @@ import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.IndexSampler;
 import org.neo4j.kernel.api.index.ValueIndexReader;
 import org.neo4j.kernel.impl.api.index.IndexProxy;
+import org.neo4j.kernel.impl.api.index.IndexSamplingConfig;
 import org.neo4j.kernel.impl.api.index.stats.IndexStatisticsStore;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.logging.NullLogProvider;
@@ -56,6 +58,7 @@ class OnlineIndexSamplingJobTest
     private final IndexDescriptor indexDescriptor = forSchema( forLabel( 1, 2 ), IndexProviderDescriptor.UNDECIDED ).withName( "index" ).materialise( indexId );
     private final ValueIndexReader indexReader = mock( ValueIndexReader.class );
     private final IndexSampler indexSampler = mock( IndexSampler.class );
+    private final IndexSamplingConfig samplingConfig = new IndexSamplingConfig( Config.defaults() );
 
     private final long indexUniqueValues = 21L;
     private final long indexSize = 23L;
@@ -74,7 +77,8 @@ class OnlineIndexSamplingJobTest
     void shouldSampleTheIndexAndStoreTheValueWhenTheIndexIsOnline()
     {
         // given
-        OnlineIndexSamplingJob job = new OnlineIndexSamplingJob( indexId, indexProxy, indexStatisticsStore, "Foo", "Foo", logProvider, NULL );
+        OnlineIndexSamplingJob job = new OnlineIndexSamplingJob( indexId, indexProxy, indexStatisticsStore, "Foo", "Foo", logProvider, NULL,
+                samplingConfig, Runnable::run );
         when( indexProxy.getState() ).thenReturn( ONLINE );
 
         // when
@@ -89,7 +93,8 @@ class OnlineIndexSamplingJobTest
     void shouldSampleTheIndexButDoNotStoreTheValuesIfTheIndexIsNotOnline()
     {
         // given
-        OnlineIndexSamplingJob job = new OnlineIndexSamplingJob( indexId, indexProxy, indexStatisticsStore, "Foo", "Foo", logProvider, NULL );
+        OnlineIndexSamplingJob job = new OnlineIndexSamplingJob( indexId, indexProxy, indexStatisticsStore, "Foo", "Foo", logProvider, NULL,
+                samplingConfig, Runnable::run );
         when( indexProxy.getState() ).thenReturn( FAILED );
 
         // when
@@ -106,7 +111,8 @@ class OnlineIndexSamplingJobTest
         var pageCursorTracer = mock( PageCursorTracer.class );
         when( pageCacheTracer.createPageCursorTracer( any() ) ).thenReturn( pageCursorTracer );
 
-        OnlineIndexSamplingJob job = new OnlineIndexSamplingJob( indexId, indexProxy, indexStatisticsStore, "Foo", "Foo", logProvider, pageCacheTracer );
+        OnlineIndexSamplingJob job = new OnlineIndexSamplingJob( indexId, indexProxy, indexStatisticsStore, "Foo", "Foo", logProvider, pageCacheTracer,
+                samplingConfig, Runnable::run );
         when( indexProxy.getState() ).thenReturn( ONLINE );
 
         // when
@@ -25,10 +25,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 
+import org.neo4j.dbms.database.readonly.DatabaseReadOnlyChecker;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.MetadataMismatchException;
+import org.neo4j.index.internal.gbptree.Seeker;
 import org.neo4j.index.internal.gbptree.TreeFileNotFoundException;
+import org.neo4j.index.internal.gbptree.Writer;
 import org.neo4j.internal.helpers.Exceptions;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
@@ -38,6 +46,7 @@ import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.api.exceptions.WriteOnReadOnlyAccessDbException;
 import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.kernel.api.index.IndexValueHistogram;
 import org.neo4j.kernel.lifecycle.LifeSupport;
 import org.neo4j.test.Race;
 import org.neo4j.test.RandomSupport;
@@ -47,6 +56,7 @@ import org.neo4j.test.extension.pagecache.EphemeralPageCacheExtension;
 import org.neo4j.test.utils.TestDirectory;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.collections.api.factory.Sets.immutable;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -111,9 +121,9 @@ class IndexStatisticsStoreTest
             store.consistencyCheck( noopReporterFactory(), cursorContext );
 
             PageCursorTracer cursorTracer = cursorContext.getCursorTracer();
-            assertThat( cursorTracer.pins() ).isEqualTo( 16 );
-            assertThat( cursorTracer.unpins() ).isEqualTo( 16 );
-            assertThat( cursorTracer.hits() ).isEqualTo( 16 );
+            assertThat( cursorTracer.pins() ).isEqualTo( 18 );
+            assertThat( cursorTracer.unpins() ).isEqualTo( 18 );
+            assertThat( cursorTracer.hits() ).isEqualTo( 18 );
         }
     }
 
@@ -129,10 +139,10 @@ class IndexStatisticsStoreTest
 
         openStore( cacheTracer, "tracedStats" );
 
-        assertThat( cacheTracer.faults() ).isEqualTo( 5 );
-        assertThat( cacheTracer.pins() ).isEqualTo( 14 );
-        assertThat( cacheTracer.unpins() ).isEqualTo( 14 );
-        assertThat( cacheTracer.hits() ).isEqualTo( 9 );
+        assertThat( cacheTracer.faults() ).isEqualTo( 10 );
+        assertThat( cacheTracer.pins() ).isEqualTo( 28 );
+        assertThat( cacheTracer.unpins() ).isEqualTo( 28 );
+        assertThat( cacheTracer.hits() ).isEqualTo( 18 );
     }
 
     @Test
@@ -151,9 +161,9 @@ class IndexStatisticsStoreTest
 
             store.checkpoint( cursorContext );
             PageCursorTracer cursorTracer = cursorContext.getCursorTracer();
-            assertThat( cursorTracer.pins() ).isEqualTo( 43 );
-            assertThat( cursorTracer.unpins() ).isEqualTo( 43 );
-            assertThat( cursorTracer.hits() ).isEqualTo( 35 );
+            assertThat( cursorTracer.pins() ).isEqualTo( 50 );
+            assertThat( cursorTracer.unpins() ).isEqualTo( 50 );
+            assertThat( cursorTracer.hits() ).isEqualTo( 42 );
             assertThat( cursorTracer.faults() ).isEqualTo( 8 );
         }
     }
@@ -205,6 +215,189 @@ class IndexStatisticsStoreTest
         assertEquals( sample2, store.indexSample( indexId2 ) );
     }
 
+    @Test
+    void shouldStoreHistogramsOnCheckpoint() throws IOException
+    {
+        // given
+        long indexId1 = 1;
+        long indexId2 = 2;
+        IndexValueHistogram histogram1 = randomHistogram( 7, 5 );
+        IndexValueHistogram histogram2 = randomHistogram( 64, 64 );
+        IndexSample sample1 = new IndexSample( 500, 100, 200, 25, histogram1 );
+        IndexSample sample2 = new IndexSample( 501, 101, 201, 26, histogram2 );
+        store.replaceStats( indexId1, sample1 );
+        store.replaceStats( indexId2, sample2 );
+
+        // when
+        restartStore();
+
+        // then
+        assertEquals( sample1, store.indexSample( indexId1 ) );
+        assertEquals( sample2, store.indexSample( indexId2 ) );
+        List<Long> visitedIndexes = new ArrayList<>();
+        store.visit( ( indexId, sampleUniqueValues, sampleSize, updatesCount, indexSize ) -> visitedIndexes.add( indexId ), CursorContext.NULL );
+        assertThat( visitedIndexes ).containsExactly( indexId1, indexId2 );
+    }
+
+    @Test
+    void shouldRemoveHistogramWhenReplacedBySampleWithoutOne() throws IOException
+    {
+        // given
+        long indexId = 3;
+        store.replaceStats( indexId, new IndexSample( 500, 100, 200, 25, randomHistogram( 4, 4 ) ) );
+        store.checkpoint( CursorContext.NULL );
+
+        // when
+        IndexSample sample = new IndexSample( 500, 100, 200, 25 );
+        store.replaceStats( indexId, sample );
+        restartStore();
+
+        // then
+        assertEquals( sample, store.indexSample( indexId ) );
+    }
+
+    @Test
+    void shouldRemoveHistogramEntriesWhenIndexIsDropped() throws IOException
+    {
+        // given
+        long indexId1 = 1;
+        long indexId2 = 2;
+        IndexSample sample2 = new IndexSample( 501, 101, 201, 26, randomHistogram( 64, 64 ) );
+        store.replaceStats( indexId1, new IndexSample( 500, 100, 200, 25, randomHistogram( 64, 64 ) ) );
+        store.replaceStats( indexId2, sample2 );
+        store.checkpoint( CursorContext.NULL );
+
+        // when
+        store.removeIndex( indexId1 );
+        restartStore();
+
+        // then
+        assertEquals( new IndexSample(), store.indexSample( indexId1 ) );
+        assertEquals( sample2, store.indexSample( indexId2 ) );
+        lifeSupport.shutdown();
+        assertThat( keys( testDirectory.file( "stats" ), new IndexStatisticsLayout() ) ).containsExactly( indexId2 );
+        // histogram entries of index 2 are stored under keys from 512 and up
+        assertThat( keys( histogramsFile( "stats" ), IndexStatisticsHistograms.layout() ) ).isNotEmpty().allMatch( key -> key >= 512 && key < 768 );
+    }
+
+    @Test
+    void shouldKeepHistogramsOutOfStatisticsTree() throws IOException
+    {
+        // given
+        store.replaceStats( 1, new IndexSample( 500, 100, 200, 25, randomHistogram( 64, 64 ) ) );
+        store.checkpoint( CursorContext.NULL );
+        lifeSupport.shutdown();
+
+        // then the statistics tree can still be read by versions without histograms, which can't open the histograms tree
+        assertThat( keys( testDirectory.file( "stats" ), new IndexStatisticsLayout() ) ).containsExactly( 1L );
+        assertThrows( MetadataMismatchException.class, () -> openTree( histogramsFile( "stats" ), new IndexStatisticsLayout(), writable() ) );
+        assertThat( store.storeFiles() ).containsExactly( testDirectory.file( "stats" ), histogramsFile( "stats" ) );
+    }
+
+    @Test
+    void shouldReadStatisticsTreeWrittenBeforeHistograms() throws IOException
+    {
+        // given a statistics tree written by a version without histograms
+        lifeSupport.shutdown();
+        writeStatisticsWithoutHistograms( "old" );
+
+        // when
+        lifeSupport = new LifeSupport();
+        store = openStore( pageCacheTracer, "old" );
+        lifeSupport.start();
+
+        // then
+        assertEquals( new IndexSample( 500, 100, 200, 25 ), store.indexSample( 1 ) );
+        assertThat( store.indexSample( 1 ).histogram().isEmpty() ).isTrue();
+        IndexSample sample = new IndexSample( 501, 101, 201, 26, randomHistogram( 16, 16 ) );
+        store.replaceStats( 1, sample );
+        store.checkpoint( CursorContext.NULL );
+        lifeSupport.shutdown();
+        lifeSupport = new LifeSupport();
+        store = openStore( pageCacheTracer, "old" );
+        lifeSupport.start();
+        assertEquals( sample, store.indexSample( 1 ) );
+    }
+
+    @Test
+    void shouldStartWithoutHistogramsFileIfReadOnly() throws IOException
+    {
+        // given
+        lifeSupport.shutdown();
+        writeStatisticsWithoutHistograms( "old" );
+
+        // when
+        lifeSupport = new LifeSupport();
+        store = lifeSupport.add( new IndexStatisticsStore( pageCache, testDirectory.file( "old" ), immediate(), readOnly(), DEFAULT_DATABASE_NAME,
+                PageCacheTracer.NULL ) );
+        lifeSupport.start();
+
+        // then
+        assertEquals( new IndexSample( 500, 100, 200, 25 ), store.indexSample( 1 ) );
+        assertThat( store.storeFiles() ).containsExactly( testDirectory.file( "old" ) );
+        assertThat( fs.fileExists( histogramsFile( "old" ) ) ).isFalse();
+    }
+
+    private void writeStatisticsWithoutHistograms( String fileName ) throws IOException
+    {
+        try ( GBPTree<IndexStatisticsKey,IndexStatisticsValue> tree = openTree( testDirectory.file( fileName ), new IndexStatisticsLayout(), writable() ) )
+        {
+            try ( Writer<IndexStatisticsKey,IndexStatisticsValue> writer = tree.writer( CursorContext.NULL ) )
+            {
+                writer.put( new IndexStatisticsKey( 1 ), new IndexStatisticsValue( 100, 200, 25, 500 ) );
+            }
+            tree.checkpoint( CursorContext.NULL );
+        }
+    }
+
+    private List<Long> keys( Path file, IndexStatisticsLayout layout ) throws IOException
+    {
+        List<Long> keys = new ArrayList<>();
+        try ( GBPTree<IndexStatisticsKey,IndexStatisticsValue> tree = openTree( file, layout, readOnly() );
+              Seeker<IndexStatisticsKey,IndexStatisticsValue> seek = tree.seek( new IndexStatisticsKey( Long.MIN_VALUE ),
+                      new IndexStatisticsKey( Long.MAX_VALUE ), CursorContext.NULL ) )
+        {
+            while ( seek.next() )
+            {
+                keys.add( seek.key().getIndexId() );
+            }
+        }
+        return keys;
+    }
+
+    private Path histogramsFile( String fileName )
+    {
+        return IndexStatisticsHistograms.histogramsFile( testDirectory.file( fileName ) );
+    }
+
+    private GBPTree<IndexStatisticsKey,IndexStatisticsValue> openTree( Path file, IndexStatisticsLayout layout, DatabaseReadOnlyChecker readOnlyChecker )
+    {
+        return new GBPTree<>( pageCache, file, layout, GBPTree.NO_MONITOR, GBPTree.NO_HEADER_READER, GBPTree.NO_HEADER_WRITER, immediate(),
+                readOnlyChecker, PageCacheTracer.NULL, immutable.empty(), DEFAULT_DATABASE_NAME, "test" );
+    }
+
+    private IndexValueHistogram randomHistogram( int buckets, int commonValues )
+    {
+        double[] bucketUpperBounds = new double[buckets];
+        long[] bucketCounts = new long[buckets];
+        double bound = randomRule.nextDouble();
+        for ( int i = 0; i < buckets; i++ )
+        {
+            bound += randomRule.nextDouble();
+            bucketUpperBounds[i] = bound;
+            bucketCounts[i] = randomRule.nextLong( 1, 1_000 );
+        }
+        int[] commonValueHashes = new int[commonValues];
+        long[] commonValueCounts = new long[commonValues];
+        for ( int i = 0; i < commonValues; i++ )
+        {
+            commonValueHashes[i] = randomRule.nextInt();
+            commonValueCounts[i] = randomRule.nextLong( 2, 1_000 );
+        }
+        return new IndexValueHistogram( randomRule.nextLong( 1, 100_000 ), randomRule.nextLong( 1, 100_000 ), commonValueHashes, commonValueCounts,
+                randomRule.nextDouble(), bucketUpperBounds, bucketCounts );
+    }
+
     private void restartStore() throws IOException
     {
         store.checkpoint( CursorContext.NULL );
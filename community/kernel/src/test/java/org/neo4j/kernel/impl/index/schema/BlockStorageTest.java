@@ -229,6 +229,54 @@ class BlockStorageTest
         }
     }
 
+    @Test
+    void shouldMergeMultipleBlocksIntoKeyRanges() throws IOException
+    {
+        // given
+        TrackingMonitor monitor = new TrackingMonitor();
+        int blockSize = 1_000;
+        try ( BlockStorage<MutableLong,MutableLong> storage = new BlockStorage<>( layout, heapBufferFactory( blockSize ), fileSystem, file, monitor,
+                INSTANCE ) )
+        {
+            int numberOfBlocks = random.nextInt( 100 ) + 2;
+            List<List<BlockEntry<MutableLong,MutableLong>>> expectedBlocks = addACoupleOfBlocksOfEntries( monitor, storage, numberOfBlocks );
+            storage.doneAdding();
+            List<MutableLong> splitKeys = new ArrayList<>();
+            MutableLongSet uniqueSplitKeys = LongSets.mutable.empty();
+            for ( int i = random.nextInt( 1, 5 ); i > 0; i-- )
+            {
+                splitKeys.add( uniqueKey( uniqueSplitKeys ) );
+            }
+            splitKeys.sort( layout );
+
+            // when
+            storage.merge( randomMergeFactor(), splitKeys, NOT_CANCELLABLE );
+
+            // then
+            assertContents( layout, storage, asKeyRanges( asOneBigBlock( expectedBlocks ), splitKeys ) );
+            assertEquals( monitor.totalEntriesToMerge, monitor.entriesMerged );
+        }
+    }
+
+    @Test
+    void shouldMergeSingleBlockIntoKeyRanges() throws IOException
+    {
+        // given
+        try ( BlockStorage<MutableLong,MutableLong> storage = new BlockStorage<>( layout, heapBufferFactory( 1_000 ), fileSystem, file, NO_MONITOR,
+                INSTANCE ) )
+        {
+            List<BlockEntry<MutableLong,MutableLong>> entries = addEntries( storage, 10 );
+            storage.doneAdding();
+            List<MutableLong> splitKeys = List.of( new MutableLong( entries.get( 5 ).key().longValue() ), new MutableLong( Long.MAX_VALUE ) );
+
+            // when
+            storage.merge( randomMergeFactor(), splitKeys, NOT_CANCELLABLE );
+
+            // then
+            assertContents( layout, storage, List.of( entries.subList( 0, 5 ), entries.subList( 5, 10 ), emptyList() ) );
+        }
+    }
+
     @Test
     void shouldOnlyLeaveSingleFileAfterMerge() throws IOException
     {
@@ -338,6 +386,20 @@ class BlockStorageTest
         assertEquals( 300, entryCountForThreeFactorsMergeFactorBlocks );
     }
 
+    @Test
+    void shouldCalculateCorrectNumberOfEntriesToWriteDuringMergeIntoKeyRanges()
+    {
+        // when
+        long entryCountForOneBlock = BlockStorage.calculateNumberOfEntriesWrittenDuringMerges( 100, 1, 2, true );
+        long entryCountForMergeFactorBlocks = BlockStorage.calculateNumberOfEntriesWrittenDuringMerges( 100, 4, 4, true );
+        long entryCountForMoreThanMergeFactorBlocks = BlockStorage.calculateNumberOfEntriesWrittenDuringMerges( 100, 5, 4, true );
+
+        // then
+        assertEquals( 100, entryCountForOneBlock );
+        assertEquals( 100, entryCountForMergeFactorBlocks );
+        assertEquals( 200, entryCountForMoreThanMergeFactorBlocks );
+    }
+
     private static Iterable<List<BlockEntry<MutableLong,MutableLong>>> asOneBigBlock( List<List<BlockEntry<MutableLong,MutableLong>>> expectedBlocks )
     {
         List<BlockEntry<MutableLong,MutableLong>> all = new ArrayList<>();
@@ -349,6 +411,26 @@ class BlockStorageTest
         return singletonList( all );
     }
 
+    private Iterable<List<BlockEntry<MutableLong,MutableLong>>> asKeyRanges( Iterable<List<BlockEntry<MutableLong,MutableLong>>> oneBigBlock,
+            List<MutableLong> splitKeys )
+    {
+        List<List<BlockEntry<MutableLong,MutableLong>>> ranges = new ArrayList<>();
+        ranges.add( new ArrayList<>() );
+        for ( BlockEntry<MutableLong,MutableLong> entry : oneBigBlock.iterator().next() )
+        {
+            while ( ranges.size() <= splitKeys.size() && layout.compare( entry.key(), splitKeys.get( ranges.size() - 1 ) ) >= 0 )
+            {
+                ranges.add( new ArrayList<>() );
+            }
+            ranges.get( ranges.size() - 1 ).add( entry );
+        }
+        while ( ranges.size() <= splitKeys.size() )
+        {
+            ranges.add( new ArrayList<>() );
+        }
+        return ranges;
+    }
+
     private int randomMergeFactor()
     {
         return random.nextInt( 2, 8 );
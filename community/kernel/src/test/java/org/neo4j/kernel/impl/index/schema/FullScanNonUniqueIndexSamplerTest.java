@@ -34,14 +34,17 @@ import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.api.index.IndexDirectoryStructure;
 import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.kernel.api.index.IndexValueHistogram;
 import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
 import org.neo4j.test.utils.TestDirectory;
 import org.neo4j.values.storable.NumberValue;
 import org.neo4j.values.storable.RandomValues;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.ValueType;
+import org.neo4j.values.storable.Values;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.neo4j.internal.schema.IndexPrototype.forSchema;
 import static org.neo4j.internal.schema.SchemaDescriptors.forLabel;
@@ -90,6 +93,37 @@ public class FullScanNonUniqueIndexSamplerTest extends IndexTestUtil<BtreeKey,Nu
         assertEquals( values.length, sample.indexSize() );
     }
 
+    @Test
+    void shouldBuildHistogramOfAllValuesInTree() throws Exception
+    {
+        // GIVEN
+        Value[] values = new Value[300];
+        for ( int i = 0; i < values.length; i++ )
+        {
+            // every third entry has the same value
+            values[i] = i % 3 == 0 ? Values.intValue( 1_000 ) : Values.intValue( i );
+        }
+        buildTree( values );
+
+        // WHEN
+        IndexSample sample;
+        try ( GBPTree<BtreeKey,NullValue> gbpTree = getTree() )
+        {
+            FullScanNonUniqueIndexSampler<BtreeKey> sampler = new FullScanNonUniqueIndexSampler<>( gbpTree, layout );
+            sample = sampler.sample( NULL, new IndexValueHistogram.Builder( 4, 2 ) );
+        }
+
+        // THEN
+        IndexValueHistogram histogram = sample.histogram();
+        assertEquals( values.length, sample.sampleSize() );
+        assertEquals( countUniqueValues( values ), sample.uniqueValues() );
+        assertEquals( values.length, histogram.sampleSize() );
+        assertEquals( sample.uniqueValues(), histogram.uniqueValues() );
+        assertThat( histogram.commonValueCounts() ).containsExactly( 100 );
+        assertThat( histogram.equalitySelectivity( Values.intValue( 1_000 ) ).getAsDouble() ).isCloseTo( 1 / 3d, within( 1e-9 ) );
+        assertThat( histogram.rangeSelectivity( Values.intValue( 300 ), true, null, false ).getAsDouble() ).isCloseTo( 1 / 3d, within( 0.01 ) );
+    }
+
     @Test
     void tracePageCacheAccessOnSampling() throws IOException
     {
@@ -102,6 +102,6 @@ class GenericAccessorTilesTest extends BaseAccessorTilesTest<BtreeKey>
         DatabaseIndexContext databaseIndexContext = DatabaseIndexContext.builder( pageCache, fs, DEFAULT_DATABASE_NAME ).build();
         StandardConfiguration configuration = new StandardConfiguration();
         return new GenericNativeIndexAccessor( databaseIndexContext, indexFiles, layout, collector, descriptor, indexSettings, configuration,
-                SIMPLE_NAME_LOOKUP );
+                SIMPLE_NAME_LOOKUP, false );
     }
 }
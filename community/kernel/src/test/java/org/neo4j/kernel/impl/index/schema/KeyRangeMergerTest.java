@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.index.internal.gbptree.SimpleLongLayout;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.memory.ByteBufferFactory;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.IndexPopulator.PopulationWorkScheduler;
+import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.test.RandomSupport;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.RandomExtension;
+import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
+import org.neo4j.test.scheduler.ThreadPoolJobScheduler;
+import org.neo4j.test.utils.TestDirectory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.io.IOUtils.closeAll;
+import static org.neo4j.io.memory.ByteBufferFactory.heapBufferFactory;
+import static org.neo4j.kernel.impl.index.schema.BlockStorage.Cancellation.NOT_CANCELLABLE;
+import static org.neo4j.kernel.impl.index.schema.BlockStorage.Monitor.NO_MONITOR;
+import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
+import static org.neo4j.scheduler.JobMonitoringParams.NOT_MONITORED;
+
+@TestDirectoryExtension
+@ExtendWith( RandomExtension.class )
+class KeyRangeMergerTest
+{
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private RandomSupport random;
+
+    private final SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+    private final ByteBufferFactory bufferFactory = heapBufferFactory( 1_000 );
+    private FileSystemAbstraction fs;
+    private JobScheduler scheduler;
+    private PopulationWorkScheduler populationWorkScheduler;
+
+    @BeforeEach
+    void setUp()
+    {
+        fs = directory.getFileSystem();
+        scheduler = new ThreadPoolJobScheduler();
+        populationWorkScheduler = new PopulationWorkScheduler()
+        {
+            @Override
+            public <T> JobHandle<T> schedule( IndexPopulator.JobDescriptionSupplier descriptionSupplier, Callable<T> job )
+            {
+                return scheduler.schedule( Group.INDEX_POPULATION_WORK, NOT_MONITORED, job );
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() throws Exception
+    {
+        scheduler.close();
+    }
+
+    @Test
+    void shouldMergeKeyRanges() throws IOException
+    {
+        // given
+        List<MutableLong> splitKeys = randomSplitKeys();
+        List<Long> allKeys = new ArrayList<>();
+        List<BlockStorage<MutableLong,MutableLong>> parts = buildParts( splitKeys, allKeys );
+        AtomicLong entriesMerged = new AtomicLong();
+
+        // when
+        try ( var merger = newMerger( parts, splitKeys, null, entriesMerged );
+              var stream = merger.startMerge() )
+        {
+            // then
+            assertMergedStream( allKeys, stream );
+        }
+        finally
+        {
+            closeAll( parts );
+        }
+        assertThat( entriesMerged.get() ).isEqualTo( allKeys.size() );
+    }
+
+    @Test
+    void shouldSampleMergedKeyRanges() throws IOException
+    {
+        // given
+        List<MutableLong> splitKeys = randomSplitKeys();
+        List<Long> allKeys = new ArrayList<>();
+        List<BlockStorage<MutableLong,MutableLong>> parts = buildParts( splitKeys, allKeys );
+
+        // when
+        IndexSample sample;
+        try ( var merger = newMerger( parts, splitKeys, layout, new AtomicLong() );
+              var stream = merger.startMerge() )
+        {
+            assertMergedStream( allKeys, stream );
+            sample = merger.buildIndexSample();
+        }
+        finally
+        {
+            closeAll( parts );
+        }
+
+        // then
+        long uniqueKeys = allKeys.stream().distinct().count();
+        assertThat( sample.sampleSize() ).isEqualTo( allKeys.size() );
+        assertThat( sample.uniqueValues() ).isEqualTo( uniqueKeys );
+    }
+
+    @Test
+    void shouldStreamKeyRangesWithoutWritingFiles() throws IOException
+    {
+        // given
+        List<MutableLong> splitKeys = randomSplitKeys();
+        List<Long> allKeys = new ArrayList<>();
+        List<BlockStorage<MutableLong,MutableLong>> parts = buildParts( splitKeys, allKeys );
+        Path[] filesBefore = fs.listFiles( directory.homePath() );
+
+        // when
+        try ( var merger = newMerger( parts, splitKeys, null, new AtomicLong() );
+              var stream = merger.startMerge() )
+        {
+            assertMergedStream( allKeys, stream );
+
+            // then
+            assertThat( fs.listFiles( directory.homePath() ) ).containsExactlyInAnyOrder( filesBefore );
+        }
+        finally
+        {
+            closeAll( parts );
+        }
+    }
+
+    @Test
+    void shouldCloseBeforeHavingReadAllKeyRanges() throws IOException
+    {
+        // given
+        List<MutableLong> splitKeys = randomSplitKeys();
+        List<BlockStorage<MutableLong,MutableLong>> parts = buildParts( splitKeys, new ArrayList<>() );
+
+        // when closing before having read all the key ranges, with range mergers possibly waiting for their merged batches to be read
+        try ( var merger = newMerger( parts, splitKeys, null, new AtomicLong() );
+              var stream = merger.startMerge() )
+        {
+            // then
+            assertThat( stream.next() ).isTrue();
+        }
+        finally
+        {
+            closeAll( parts );
+        }
+    }
+
+    private KeyRangeMerger<MutableLong,MutableLong> newMerger( List<BlockStorage<MutableLong,MutableLong>> parts, List<MutableLong> splitKeys,
+            SimpleLongLayout samplingComparator, AtomicLong entriesMerged )
+    {
+        return new KeyRangeMerger<>( populationWorkScheduler, parts, splitKeys.size() + 1, layout, samplingComparator, bufferFactory.globalAllocator(),
+                1_000, random.nextInt( 1, 20 ), INSTANCE, NOT_CANCELLABLE, entriesMerged::addAndGet );
+    }
+
+    private List<MutableLong> randomSplitKeys()
+    {
+        List<MutableLong> splitKeys = new ArrayList<>();
+        for ( int i = random.nextInt( 1, 6 ); i > 0; i-- )
+        {
+            splitKeys.add( new MutableLong( random.nextLong( 1_000 ) ) );
+        }
+        splitKeys.sort( layout );
+        return splitKeys;
+    }
+
+    private List<BlockStorage<MutableLong,MutableLong>> buildParts( List<MutableLong> splitKeys, List<Long> allKeys ) throws IOException
+    {
+        List<BlockStorage<MutableLong,MutableLong>> parts = new ArrayList<>();
+        for ( int p = random.nextInt( 1, 5 ); p > 0; p-- )
+        {
+            BlockStorage<MutableLong,MutableLong> part =
+                    new BlockStorage<>( layout, bufferFactory, fs, directory.file( "part-" + p ), NO_MONITOR, INSTANCE );
+            parts.add( part );
+            for ( int i = random.nextInt( 500 ); i > 0; i-- )
+            {
+                long key = random.nextLong( 1_000 );
+                part.add( new MutableLong( key ), new MutableLong( key ) );
+                allKeys.add( key );
+            }
+            part.doneAdding();
+            part.merge( random.nextInt( 2, 8 ), splitKeys, NOT_CANCELLABLE );
+        }
+        allKeys.sort( Long::compare );
+        return parts;
+    }
+
+    private static void assertMergedStream( List<Long> expectedKeys, BlockEntryCursor<MutableLong,MutableLong> stream ) throws IOException
+    {
+        for ( long expectedKey : expectedKeys )
+        {
+            assertThat( stream.next() ).isTrue();
+            assertThat( stream.key().longValue() ).isEqualTo( expectedKey );
+            assertThat( stream.value().longValue() ).isEqualTo( expectedKey );
+        }
+        assertThat( stream.next() ).isFalse();
+    }
+}
@@ -69,7 +69,7 @@ class NativeIndexAccessorTest extends GenericNativeIndexAccessorTests<BtreeKey>
         RecoveryCleanupWorkCollector cleanup = RecoveryCleanupWorkCollector.immediate();
         DatabaseIndexContext context = DatabaseIndexContext.builder( pageCache, fs, DEFAULT_DATABASE_NAME ).withReadOnlyChecker( writable() ).build();
         return new GenericNativeIndexAccessor( context, indexFiles, layout, cleanup, INDEX_DESCRIPTOR,
-                                               SPACE_FILLING_CURVE_SETTINGS, CONFIGURATION, tokenNameLookup );
+                                               SPACE_FILLING_CURVE_SETTINGS, CONFIGURATION, tokenNameLookup, false );
     }
 
     @Override
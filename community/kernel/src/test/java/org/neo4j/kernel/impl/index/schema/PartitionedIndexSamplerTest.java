@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.api.index.IndexDirectoryStructure;
+import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
+import org.neo4j.scheduler.Group;
+import org.neo4j.test.utils.TestDirectory;
+import org.neo4j.values.storable.Values;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.internal.schema.IndexPrototype.forSchema;
+import static org.neo4j.internal.schema.SchemaDescriptors.forLabel;
+import static org.neo4j.io.pagecache.context.CursorContext.NULL;
+import static org.neo4j.kernel.api.index.IndexDirectoryStructure.directoriesByProvider;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.Inclusion.NEUTRAL;
+
+class PartitionedIndexSamplerTest extends IndexTestUtil<BtreeKey,NullValue,IndexLayout<BtreeKey>>
+{
+    private static final IndexSpecificSpaceFillingCurveSettings specificSettings = IndexSpecificSpaceFillingCurveSettings.fromConfig( Config.defaults() );
+    private static final IndexDescriptor index = forSchema( forLabel( 42, 666 ) ).withName( "index" ).materialise( 0 );
+    private static final int ENTRIES = 30_000;
+    private static final int ENTRIES_PER_VALUE = 3;
+
+    @Test
+    void shouldSampleAllPartitionsInParallel() throws IOException
+    {
+        // given
+        buildTree();
+
+        // when
+        IndexSample sample = sample( 20, 4, 0, jobScheduler.executor( Group.INDEX_SAMPLING ) );
+
+        // then
+        assertThat( sample.sampleSize() ).isEqualTo( ENTRIES );
+        assertThat( sample.indexSize() ).isEqualTo( ENTRIES );
+        // a value with entries in two partitions is counted in both
+        assertThat( sample.uniqueValues() ).isBetween( (long) ENTRIES / ENTRIES_PER_VALUE, (long) ENTRIES / ENTRIES_PER_VALUE + 20 );
+    }
+
+    @Test
+    void shouldSampleAllPartitionsOnCurrentThreadIfHelpersNeverStart() throws IOException
+    {
+        // given
+        buildTree();
+
+        // when
+        IndexSample sample = sample( 20, 4, 0, task -> {} );
+
+        // then
+        assertThat( sample.sampleSize() ).isEqualTo( ENTRIES );
+        assertThat( sample.indexSize() ).isEqualTo( ENTRIES );
+    }
+
+    @Test
+    void shouldStopSamplingAtBudgetAndExtrapolateIndexSize() throws IOException
+    {
+        // given
+        buildTree();
+        long budget = ENTRIES / 10;
+
+        // when
+        IndexSample sample = sample( 50, 2, budget, jobScheduler.executor( Group.INDEX_SAMPLING ) );
+
+        // then
+        assertThat( sample.sampleSize() ).isGreaterThanOrEqualTo( budget ).isLessThan( ENTRIES );
+        assertThat( sample.indexSize() ).isBetween( (long) (ENTRIES * 0.7), (long) (ENTRIES * 1.3) );
+        double selectivity = (double) sample.uniqueValues() / sample.sampleSize();
+        assertThat( selectivity ).isBetween( 1.0 / ENTRIES_PER_VALUE * 0.9, 1.0 / ENTRIES_PER_VALUE * 1.1 );
+    }
+
+    private IndexSample sample( int partitions, int workers, long maxSampledEntries, Executor executor ) throws IOException
+    {
+        try ( GBPTree<BtreeKey,NullValue> gbpTree = getTree() )
+        {
+            PartitionedIndexSampler<BtreeKey> sampler = new PartitionedIndexSampler<>( gbpTree, layout );
+            return sampler.sample( partitions, workers, maxSampledEntries, NULL, executor, PageCacheTracer.NULL );
+        }
+    }
+
+    private void buildTree() throws IOException
+    {
+        try ( GBPTree<BtreeKey,NullValue> gbpTree = getTree() )
+        {
+            try ( Writer<BtreeKey,NullValue> writer = gbpTree.writer( NULL ) )
+            {
+                BtreeKey key = layout.newKey();
+                for ( int nodeId = 0; nodeId < ENTRIES; nodeId++ )
+                {
+                    key.initialize( nodeId );
+                    key.initFromValue( 0, Values.intValue( nodeId / ENTRIES_PER_VALUE ), NEUTRAL );
+                    writer.put( key, NullValue.INSTANCE );
+                }
+            }
+            gbpTree.checkpoint( NULL );
+        }
+    }
+
+    @Override
+    IndexFiles createIndexFiles( FileSystemAbstraction fs, TestDirectory directory, IndexDescriptor indexDescriptor )
+    {
+        IndexDirectoryStructure indexDirectoryStructure =
+                directoriesByProvider( directory.directory( "root" ) ).forProvider( indexDescriptor.getIndexProvider() );
+        return new IndexFiles.Directory( fs, indexDirectoryStructure, indexDescriptor.getId() );
+    }
+
+    @Override
+    IndexDescriptor indexDescriptor()
+    {
+        return index;
+    }
+
+    @Override
+    IndexLayout<BtreeKey> layout()
+    {
+        return new GenericLayout( 1, specificSettings );
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.eclipse.collections.api.map.primitive.MutableLongObjectMap;
+import org.eclipse.collections.impl.factory.primitive.LongObjectMaps;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import org.neo4j.common.EntityType;
+import org.neo4j.configuration.Config;
+import org.neo4j.index.internal.gbptree.GBPTreeBuilder;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.RandomSupport;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.RandomExtension;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
+import org.neo4j.test.utils.TestDirectory;
+
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.index_populator_block_size;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.index_populator_merge_factor;
+import static org.neo4j.internal.schema.IndexPrototype.forSchema;
+import static org.neo4j.internal.schema.SchemaDescriptors.forAnyEntityTokens;
+import static org.neo4j.io.pagecache.context.CursorContext.NULL;
+import static org.neo4j.kernel.impl.index.schema.TokenIndexUtility.generateRandomTokens;
+import static org.neo4j.kernel.impl.index.schema.TokenIndexUtility.verifyUpdates;
+
+@TestDirectoryExtension
+@ExtendWith( RandomExtension.class )
+class TokenIndexImporterTest
+{
+    @RegisterExtension
+    static PageCacheSupportExtension pageCacheExtension = new PageCacheSupportExtension();
+    @Inject
+    private DefaultFileSystemAbstraction fs;
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private PageCache pageCache;
+    @Inject
+    private RandomSupport random;
+
+    @Test
+    void shouldImportEntitiesSpanningMultipleBlocks() throws Exception
+    {
+        // given a small block size so that the buffered entries are spread over many blocks, which are merged over multiple rounds
+        DatabaseLayout layout = DatabaseLayout.ofFlat( directory.homePath() );
+        IndexDescriptor index = forSchema( forAnyEntityTokens( EntityType.NODE ), TokenIndexProvider.DESCRIPTOR ).withName( "index" ).materialise( 0 );
+        Config config = Config.newBuilder().set( index_populator_block_size, 1_000L ).set( index_populator_merge_factor, 2 ).build();
+        MutableLongObjectMap<long[]> expected = LongObjectMaps.mutable.empty();
+
+        // when
+        try ( TokenIndexImporter importer = new TokenIndexImporter( index, layout, fs, pageCache, NULL, config ) )
+        {
+            long entity = 0;
+            for ( int i = 0; i < 10_000; i++ )
+            {
+                entity += random.nextInt( 1, 4 );
+                long[] tokens = generateRandomTokens( random );
+                importer.add( entity, tokens );
+                if ( tokens.length > 0 )
+                {
+                    expected.put( entity, tokens );
+                }
+            }
+        }
+
+        // then
+        verifyUpdates( expected, new TokenScanLayout(), () -> new GBPTreeBuilder<>( pageCache, layout.labelScanStore(), new TokenScanLayout() ).build() );
+    }
+
+    @Test
+    void shouldImportNothing() throws Exception
+    {
+        DatabaseLayout layout = DatabaseLayout.ofFlat( directory.homePath() );
+        IndexDescriptor index = forSchema( forAnyEntityTokens( EntityType.RELATIONSHIP ), TokenIndexProvider.DESCRIPTOR ).withName( "index" ).materialise( 0 );
+
+        // when
+        new TokenIndexImporter( index, layout, fs, pageCache, NULL, Config.defaults() ).close();
+
+        // then
+        verifyUpdates( LongObjectMaps.mutable.empty(), new TokenScanLayout(),
+                () -> new GBPTreeBuilder<>( pageCache, layout.relationshipTypeScanStore(), new TokenScanLayout() ).build() );
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.internal.kernel.api.PropertyIndexQuery;
+import org.neo4j.internal.kernel.api.exceptions.schema.IndexNotApplicableKernelException;
+import org.neo4j.internal.kernel.api.security.AccessMode;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.internal.schema.IndexType;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.PinEvent;
+import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.ValueIndexReader;
+import org.neo4j.kernel.api.schema.SchemaTestUtil;
+import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.memory.MemoryPools;
+import org.neo4j.monitoring.Monitors;
+import org.neo4j.storageengine.api.IndexEntryUpdate;
+import org.neo4j.storageengine.api.schema.SimpleEntityValueClient;
+import org.neo4j.test.OnDemandJobScheduler;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.OtherThread;
+import org.neo4j.test.extension.OtherThreadExtension;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
+import org.neo4j.test.utils.TestDirectory;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.dbms.database.readonly.DatabaseReadOnlyChecker.writable;
+import static org.neo4j.internal.kernel.api.IndexQueryConstraints.unconstrained;
+import static org.neo4j.internal.kernel.api.QueryContext.NULL_CONTEXT;
+import static org.neo4j.internal.schema.IndexPrototype.uniqueForSchema;
+import static org.neo4j.internal.schema.SchemaDescriptors.forLabel;
+import static org.neo4j.io.pagecache.context.CursorContext.NULL;
+import static org.neo4j.kernel.api.index.IndexDirectoryStructure.directoriesByProvider;
+import static org.neo4j.kernel.impl.api.index.IndexUpdateMode.ONLINE;
+
+@TestDirectoryExtension
+@ExtendWith( OtherThreadExtension.class )
+class UniqueIndexBloomFilterTest
+{
+    private static final IndexDescriptor INDEX_DESCRIPTOR = uniqueForSchema( forLabel( 42, 666 ) ).withIndexType( IndexType.RANGE )
+                                                                                                  .withIndexProvider( RangeIndexProvider.DESCRIPTOR )
+                                                                                                  .withName( "index" )
+                                                                                                  .materialise( 0 );
+
+    @RegisterExtension
+    static PageCacheSupportExtension pageCacheExtension = new PageCacheSupportExtension();
+    @Inject
+    private DefaultFileSystemAbstraction fs;
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private PageCache pageCache;
+    @Inject
+    private OtherThread t2;
+
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong negativeLookups = new AtomicLong();
+    private final AtomicLong falsePositiveLookups = new AtomicLong();
+    private final RangeLayout layout = new RangeLayout( 1 );
+    private final OnDemandJobScheduler jobScheduler = new OnDemandJobScheduler();
+    private RangeIndexAccessor accessor;
+
+    @BeforeEach
+    void setUp()
+    {
+        accessor = newAccessor( new LocalMemoryTracker() );
+    }
+
+    private RangeIndexAccessor newAccessor( LocalMemoryTracker memoryTracker )
+    {
+        return newAccessor( memoryTracker, PageCacheTracer.NULL );
+    }
+
+    private RangeIndexAccessor newAccessor( LocalMemoryTracker memoryTracker, PageCacheTracer pageCacheTracer )
+    {
+        Monitors monitors = new Monitors();
+        monitors.addMonitorListener( new UniqueIndexBloomFilter.Monitor()
+        {
+            @Override
+            public void built( IndexDescriptor descriptor, long numberOfValues, long numberOfBits )
+            {
+                builds.incrementAndGet();
+            }
+
+            @Override
+            public void negativeLookup( IndexDescriptor descriptor )
+            {
+                negativeLookups.incrementAndGet();
+            }
+
+            @Override
+            public void falsePositiveLookup( IndexDescriptor descriptor )
+            {
+                falsePositiveLookups.incrementAndGet();
+            }
+
+            @Override
+            public void buildFailed( IndexDescriptor descriptor, Throwable cause )
+            {
+                throw new AssertionError( cause );
+            }
+        } );
+        DatabaseIndexContext context = DatabaseIndexContext.builder( pageCache, fs, DEFAULT_DATABASE_NAME )
+                .withReadOnlyChecker( writable() )
+                .withMonitors( monitors )
+                .withMemoryTracker( memoryTracker )
+                .withJobScheduler( jobScheduler )
+                .withPageCacheTracer( pageCacheTracer )
+                .build();
+        IndexFiles indexFiles = new IndexFiles.Directory( fs, directoriesByProvider( directory.directory( "root" ) )
+                .forProvider( INDEX_DESCRIPTOR.getIndexProvider() ), INDEX_DESCRIPTOR.getId() );
+        indexFiles.ensureDirectoryExist();
+        return new RangeIndexAccessor( context, indexFiles, layout, RecoveryCleanupWorkCollector.immediate(), INDEX_DESCRIPTOR,
+                SchemaTestUtil.SIMPLE_NAME_LOOKUP, true );
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        accessor.close();
+    }
+
+    @Test
+    void shouldFindIndexedValuesAndFilterOutOthers() throws Exception
+    {
+        // given
+        int count = 1_000;
+        add( 0, count );
+        buildFilter();
+
+        // when/then
+        for ( int i = 0; i < count; i++ )
+        {
+            assertThat( lookup( value( i ) ) ).isEqualTo( i );
+        }
+        for ( int i = count; i < count * 2; i++ )
+        {
+            assertThat( lookup( value( i ) ) ).isEqualTo( -1 );
+        }
+        assertThat( builds.get() ).isEqualTo( 1 );
+        assertThat( negativeLookups.get() + falsePositiveLookups.get() ).isEqualTo( count );
+        assertThat( negativeLookups.get() ).isGreaterThan( count * 9 / 10 );
+    }
+
+    @Test
+    void shouldFindValuesAddedAfterFilterWasBuilt() throws Exception
+    {
+        // given a built filter
+        add( 0, 10 );
+        buildFilter();
+        assertThat( builds.get() ).isEqualTo( 1 );
+
+        // when
+        add( 10, 100 );
+
+        // then
+        for ( int i = 0; i < 100; i++ )
+        {
+            assertThat( lookup( value( i ) ) ).isEqualTo( i );
+        }
+        assertThat( builds.get() ).isEqualTo( 1 );
+    }
+
+    @Test
+    void shouldFindValuesOfOtherTypesEqualToIndexedValues() throws Exception
+    {
+        // given
+        try ( IndexUpdater updater = accessor.newUpdater( ONLINE, NULL ) )
+        {
+            updater.process( IndexEntryUpdate.add( 1, INDEX_DESCRIPTOR, Values.intValue( 10 ) ) );
+            updater.process( IndexEntryUpdate.add( 2, INDEX_DESCRIPTOR, Values.stringValue( "abc" ) ) );
+        }
+        buildFilter();
+
+        // when/then
+        assertThat( lookup( Values.longValue( 10 ) ) ).isEqualTo( 1 );
+        assertThat( lookup( Values.doubleValue( 10 ) ) ).isEqualTo( 1 );
+        assertThat( lookup( Values.utf8Value( "abc" ) ) ).isEqualTo( 2 );
+        assertThat( lookup( Values.doubleValue( 10.5 ) ) ).isEqualTo( -1 );
+    }
+
+    @Test
+    void shouldNotFilterLookupsOfRemovedValuesBeforeRebuild() throws Exception
+    {
+        // given
+        add( 0, 10 );
+        buildFilter();
+
+        // when
+        try ( IndexUpdater updater = accessor.newUpdater( ONLINE, NULL ) )
+        {
+            updater.process( IndexEntryUpdate.remove( 5, INDEX_DESCRIPTOR, value( 5 ) ) );
+        }
+
+        // then the value is still in the filter, but not in the index
+        assertThat( lookup( value( 5 ) ) ).isEqualTo( -1 );
+        assertThat( falsePositiveLookups.get() ).isEqualTo( 1 );
+    }
+
+    @Test
+    void shouldNotUseFilterWhichWasReplacedWhileBeingBuilt() throws Exception
+    {
+        // given an updater which fills the filter beyond its capacity while it's being built, i.e. while the tree is being scanned
+        AtomicBoolean race = new AtomicBoolean( true );
+        accessor.close();
+        accessor = newAccessor( new LocalMemoryTracker(), onPin( () ->
+        {
+            if ( race.get() )
+            {
+                for ( int i = 0; i < 70_000; i++ )
+                {
+                    accessor.bloomFilter.add( UniqueIndexBloomFilter.hash( new Value[]{value( 10 + i )} ) );
+                }
+            }
+        } ) );
+        add( 0, 10 );
+
+        // when
+        buildFilter();
+        race.set( false );
+
+        // then the build is thrown away
+        assertThat( builds.get() ).isZero();
+        assertThat( lookup( value( 10 ) ) ).isEqualTo( -1 );
+        assertThat( negativeLookups.get() ).isZero();
+
+        // and values added after it was thrown away are found once a new filter has been built
+        add( 10, 20 );
+        buildFilter();
+        for ( int i = 0; i < 30; i++ )
+        {
+            assertThat( lookup( value( i ) ) ).isEqualTo( i < 20 ? i : -1 );
+        }
+        assertThat( builds.get() ).isEqualTo( 1 );
+    }
+
+    @Test
+    void shouldNotWaitForFilterToBeBuilt() throws Exception
+    {
+        // given a build which is stuck scanning the index
+        CountDownLatch buildStarted = new CountDownLatch( 1 );
+        CountDownLatch buildReleased = new CountDownLatch( 1 );
+        accessor.close();
+        accessor = newAccessor( new LocalMemoryTracker(), onPin( () ->
+        {
+            buildStarted.countDown();
+            try
+            {
+                buildReleased.await();
+            }
+            catch ( InterruptedException e )
+            {
+                throw new RuntimeException( e );
+            }
+        } ) );
+        add( 0, 10 );
+        assertThat( lookup( value( 10 ) ) ).isEqualTo( -1 );
+        Future<Void> build = t2.execute( () ->
+        {
+            jobScheduler.runJob();
+            return null;
+        } );
+        buildStarted.await();
+
+        // when/then lookups are answered by seeking the index
+        for ( int i = 0; i < 20; i++ )
+        {
+            assertThat( lookup( value( i ) ) ).isEqualTo( i < 10 ? i : -1 );
+        }
+        assertThat( builds.get() ).isZero();
+        assertThat( negativeLookups.get() ).isZero();
+
+        // when
+        buildReleased.countDown();
+        build.get();
+
+        // then
+        for ( int i = 0; i < 20; i++ )
+        {
+            assertThat( lookup( value( i ) ) ).isEqualTo( i < 10 ? i : -1 );
+        }
+        assertThat( builds.get() ).isEqualTo( 1 );
+        assertThat( negativeLookups.get() + falsePositiveLookups.get() ).isEqualTo( 10 );
+    }
+
+    @Test
+    void shouldStopBuildingFilterWhenClosed() throws Exception
+    {
+        // given
+        add( 0, 10 );
+        assertThat( lookup( value( 10 ) ) ).isEqualTo( -1 );
+
+        // when
+        accessor.close();
+        jobScheduler.runJob();
+
+        // then
+        assertThat( builds.get() ).isZero();
+        accessor = newAccessor( new LocalMemoryTracker() );
+    }
+
+    @Test
+    void shouldTrackMemoryOfFilter() throws Exception
+    {
+        // given
+        accessor.close();
+        LocalMemoryTracker memoryTracker = new LocalMemoryTracker();
+        accessor = newAccessor( memoryTracker );
+        add( 0, 10 );
+        assertThat( memoryTracker.estimatedHeapMemory() ).isZero();
+
+        // when
+        buildFilter();
+
+        // then
+        assertThat( builds.get() ).isEqualTo( 1 );
+        assertThat( memoryTracker.estimatedHeapMemory() ).isGreaterThan( 65_536 * 10 / Byte.SIZE );
+
+        // when
+        accessor.close();
+
+        // then
+        assertThat( memoryTracker.estimatedHeapMemory() ).isZero();
+    }
+
+    @Test
+    void shouldNotBuildFilterBeyondMemoryLimit() throws Exception
+    {
+        // given
+        accessor.close();
+        LocalMemoryTracker memoryTracker = new LocalMemoryTracker( MemoryPools.NO_TRACKING, 1_000, 0, "limit" );
+        accessor = newAccessor( memoryTracker );
+        add( 0, 10 );
+        buildFilter();
+
+        // when/then
+        for ( int i = 0; i < 20; i++ )
+        {
+            assertThat( lookup( value( i ) ) ).isEqualTo( i < 10 ? i : -1 );
+        }
+        assertThat( builds.get() ).isZero();
+        assertThat( negativeLookups.get() ).isZero();
+        assertThat( memoryTracker.estimatedHeapMemory() ).isZero();
+    }
+
+    private void buildFilter() throws IndexNotApplicableKernelException
+    {
+        // The first lookup after the index has been opened, or the filter has been dropped, schedules the build
+        lookup( Values.stringValue( "not in the index" ) );
+        jobScheduler.runJob();
+    }
+
+    /**
+     * @return a tracer which runs the given action on every page pinned by a build of the filter.
+     */
+    private static PageCacheTracer onPin( Runnable action )
+    {
+        return new DefaultPageCacheTracer()
+        {
+            @Override
+            public PageCursorTracer createPageCursorTracer( String tag )
+            {
+                if ( !UniqueIndexBloomFilter.BUILD_TAG.equals( tag ) )
+                {
+                    return super.createPageCursorTracer( tag );
+                }
+                return new DefaultPageCursorTracer( this, tag )
+                {
+                    @Override
+                    public PinEvent beginPin( boolean writeLock, long filePageId, PageSwapper swapper )
+                    {
+                        action.run();
+                        return super.beginPin( writeLock, filePageId, swapper );
+                    }
+                };
+            }
+        };
+    }
+
+    private void add( int from, int to ) throws IndexEntryConflictException
+    {
+        try ( IndexUpdater updater = accessor.newUpdater( ONLINE, NULL ) )
+        {
+            for ( int i = from; i < to; i++ )
+            {
+                updater.process( IndexEntryUpdate.add( i, INDEX_DESCRIPTOR, value( i ) ) );
+            }
+        }
+    }
+
+    private Value value( int i )
+    {
+        // Mix of types to not only test numbers
+        return i % 2 == 0 ? Values.longValue( i * 3L ) : Values.stringValue( "value-" + i );
+    }
+
+    private long lookup( Value value ) throws IndexNotApplicableKernelException
+    {
+        try ( ValueIndexReader reader = accessor.newValueReader() )
+        {
+            SimpleEntityValueClient client = new SimpleEntityValueClient();
+            reader.query( client, NULL_CONTEXT, AccessMode.Static.ACCESS, unconstrained(), PropertyIndexQuery.exact( 666, value ) );
+            long found = -1;
+            while ( client.next() )
+            {
+                assertThat( found ).isEqualTo( -1 );
+                found = client.reference;
+            }
+            return found;
+        }
+    }
+}
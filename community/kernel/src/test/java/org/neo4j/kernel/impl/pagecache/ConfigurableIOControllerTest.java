@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.junit.jupiter.api.Test;
+
+import java.io.Flushable;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
+import org.neo4j.time.FakeClock;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.configuration.GraphDatabaseSettings.check_point_iops_limit;
+
+class ConfigurableIOControllerTest
+{
+    private static final Flushable FLUSHABLE = () -> {};
+
+    private final FakeClock clock = new FakeClock();
+    private final DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+    private long pausedNanos;
+
+    @Test
+    void mustPauseFlushesThatExceedTheLimit()
+    {
+        ConfigurableIOController controller = createController( Config.defaults( check_point_iops_limit, 100 ) );
+
+        flush( controller, 1000 );
+
+        // 1000 IOs at 100 IOs per second take ten seconds.
+        assertThat( NANOSECONDS.toMillis( pausedNanos ) ).isEqualTo( 10_000 );
+        assertThat( tracer.ioLimitedTimes() ).isEqualTo( 1 );
+        assertThat( tracer.ioLimitedMillis() ).isEqualTo( 10_000 );
+        assertThat( tracer.iopqPerformed() ).isEqualTo( 1000 );
+    }
+
+    @Test
+    void mustNotPauseFlushesWithinTheLimit()
+    {
+        ConfigurableIOController controller = createController( Config.defaults( check_point_iops_limit, 100 ) );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            flush( controller, 5 );
+            clock.forward( 100, MILLISECONDS );
+        }
+
+        assertThat( pausedNanos ).isZero();
+        assertThat( tracer.iopqPerformed() ).isEqualTo( 500 );
+    }
+
+    @Test
+    void mustCountExternalIOAgainstTheLimit()
+    {
+        ConfigurableIOController controller = createController( Config.defaults( check_point_iops_limit, 100 ) );
+
+        controller.reportIO( 20 );
+        flush( controller, 1 );
+
+        assertThat( pausedNanos ).isPositive();
+    }
+
+    @Test
+    void mustNotPauseFlushesWhenDisabled()
+    {
+        ConfigurableIOController controller = createController( Config.defaults( check_point_iops_limit, 100 ) );
+
+        controller.disable();
+        controller.disable();
+        flush( controller, 1000 );
+        controller.enable();
+        flush( controller, 1000 );
+        assertThat( controller.isEnabled() ).isFalse();
+        assertThat( pausedNanos ).isZero();
+
+        controller.enable();
+        flush( controller, 1000 );
+        assertThat( controller.isEnabled() ).isTrue();
+        assertThat( pausedNanos ).isPositive();
+    }
+
+    @Test
+    void mustNotPauseFlushesWithoutLimit()
+    {
+        ConfigurableIOController controller = createController( Config.defaults( check_point_iops_limit, -1 ) );
+
+        flush( controller, 1000 );
+
+        assertThat( controller.isEnabled() ).isFalse();
+        assertThat( pausedNanos ).isZero();
+    }
+
+    @Test
+    void mustNotPauseFlushesUnlessTheLimitIsConfigured()
+    {
+        Config config = Config.defaults();
+        ConfigurableIOController controller = createController( config );
+
+        flush( controller, 1000 );
+
+        assertThat( config.get( check_point_iops_limit ) ).isPositive();
+        assertThat( controller.isEnabled() ).isFalse();
+        assertThat( pausedNanos ).isZero();
+    }
+
+    @Test
+    void mustNotHoldTheControllerWhilePausing()
+    {
+        Config config = Config.defaults( check_point_iops_limit, 100 );
+        MutableBoolean pausedHoldingController = new MutableBoolean();
+        ConfigurableIOController[] controller = new ConfigurableIOController[1];
+        controller[0] = new ConfigurableIOController( config, clock, nanos ->
+        {
+            pausedHoldingController.setValue( pausedHoldingController.booleanValue() || Thread.holdsLock( controller[0] ) );
+            pausedNanos += nanos;
+            clock.forward( nanos, NANOSECONDS );
+        } );
+
+        flush( controller[0], 1000 );
+
+        assertThat( pausedNanos ).isPositive();
+        assertThat( pausedHoldingController.booleanValue() ).isFalse();
+    }
+
+    @Test
+    void mustPauseConcurrentFlushesForTheirOwnIOsAfterAnOngoingPause()
+    {
+        Config config = Config.defaults( check_point_iops_limit, 100 );
+        ConfigurableIOController controller = new ConfigurableIOController( config, clock, nanos -> pausedNanos += nanos );
+
+        // The first flusher is paused for ten seconds, but the clock does not move, as if the second flusher came in during that pause.
+        flush( controller, 1000 );
+        assertThat( NANOSECONDS.toMillis( pausedNanos ) ).isEqualTo( 10_000 );
+        flush( controller, 1000 );
+        assertThat( NANOSECONDS.toMillis( pausedNanos ) ).isEqualTo( 10_000 + 20_000 );
+    }
+
+    @Test
+    void mustFollowLimitChangesAtRuntime()
+    {
+        Config config = Config.defaults( check_point_iops_limit, -1 );
+        ConfigurableIOController controller = createController( config );
+
+        config.setDynamic( check_point_iops_limit, 1000, getClass().getSimpleName() );
+        flush( controller, 1000 );
+        assertThat( NANOSECONDS.toMillis( pausedNanos ) ).isEqualTo( 1000 );
+
+        config.setDynamic( check_point_iops_limit, -1, getClass().getSimpleName() );
+        flush( controller, 1000 );
+        assertThat( NANOSECONDS.toMillis( pausedNanos ) ).isEqualTo( 1000 );
+    }
+
+    private ConfigurableIOController createController( Config config )
+    {
+        return new ConfigurableIOController( config, clock, nanos ->
+        {
+            pausedNanos += nanos;
+            clock.forward( nanos, NANOSECONDS );
+        } );
+    }
+
+    private void flush( ConfigurableIOController controller, int ios )
+    {
+        try ( MajorFlushEvent flushEvent = tracer.beginCacheFlush() )
+        {
+            controller.maybeLimitIO( ios, FLUSHABLE, flushEvent );
+        }
+    }
+}
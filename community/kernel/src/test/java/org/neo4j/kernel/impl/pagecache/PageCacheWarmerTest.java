@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.dbms.database.readonly.DatabaseReadOnlyChecker;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.impl.scheduler.JobSchedulerFactory;
+import org.neo4j.logging.NullLog;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
+import org.neo4j.test.utils.PageCacheConfig;
+import org.neo4j.test.utils.TestDirectory;
+import org.neo4j.time.Clocks;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.collections.api.factory.Sets.immutable;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.context.CursorContext.NULL;
+
+@TestDirectoryExtension
+class PageCacheWarmerTest
+{
+    private static final int PAGES = 100;
+
+    @RegisterExtension
+    static PageCacheSupportExtension pageCacheExtension = new PageCacheSupportExtension();
+    @Inject
+    private DefaultFileSystemAbstraction fs;
+    @Inject
+    private TestDirectory testDirectory;
+
+    private JobScheduler jobScheduler;
+    private DatabaseLayout databaseLayout;
+    private Path storeFile;
+
+    @BeforeEach
+    void setUp()
+    {
+        jobScheduler = JobSchedulerFactory.createInitialisedScheduler();
+        databaseLayout = DatabaseLayout.ofFlat( testDirectory.directory( DEFAULT_DATABASE_NAME ) );
+        storeFile = databaseLayout.file( "neostore.nodestore.db" );
+    }
+
+    @AfterEach
+    void tearDown() throws Exception
+    {
+        jobScheduler.shutdown();
+    }
+
+    @Test
+    void profileMustRecordResidentPagesOfMappedFiles() throws IOException
+    {
+        try ( PageCache pageCache = pageCacheExtension.getPageCache( fs );
+              PagedFile pagedFile = pageCache.map( storeFile, pageCache.pageSize(), DEFAULT_DATABASE_NAME, immutable.of( CREATE ) ) )
+        {
+            writePages( pagedFile );
+
+            long pagesInMemory = warmer( pageCache, DatabaseReadOnlyChecker.writable(), PageCacheTracer.NULL ).profile();
+
+            assertThat( pagesInMemory ).isEqualTo( PAGES );
+            assertThat( profileOf( storeFile ).exists( fs ) ).isTrue();
+        }
+    }
+
+    @Test
+    void reheatMustLoadProfiledPagesIntoNewPageCache() throws IOException
+    {
+        try ( PageCache pageCache = pageCacheExtension.getPageCache( fs );
+              PagedFile pagedFile = pageCache.map( storeFile, pageCache.pageSize(), DEFAULT_DATABASE_NAME, immutable.of( CREATE ) ) )
+        {
+            writePages( pagedFile );
+            warmer( pageCache, DatabaseReadOnlyChecker.writable(), PageCacheTracer.NULL ).profile();
+        }
+
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( PageCache pageCache = PageCacheSupportExtension.getPageCache( fs, PageCacheConfig.config().withTracer( tracer ) );
+              PagedFile ignored = pageCache.map( storeFile, pageCache.pageSize(), DEFAULT_DATABASE_NAME ) )
+        {
+            long pagesLoaded = warmer( pageCache, DatabaseReadOnlyChecker.writable(), tracer ).reheat( 0 );
+
+            assertThat( pagesLoaded ).isEqualTo( PAGES );
+            assertThat( tracer.faults() ).isEqualTo( PAGES );
+        }
+    }
+
+    @Test
+    void reheatWithoutProfilesMustNotLoadAnything() throws IOException
+    {
+        try ( PageCache pageCache = pageCacheExtension.getPageCache( fs );
+              PagedFile pagedFile = pageCache.map( storeFile, pageCache.pageSize(), DEFAULT_DATABASE_NAME, immutable.of( CREATE ) ) )
+        {
+            writePages( pagedFile );
+
+            assertThat( warmer( pageCache, DatabaseReadOnlyChecker.writable(), PageCacheTracer.NULL ).reheat( 0 ) ).isZero();
+        }
+    }
+
+    @Test
+    void mustNotProfileReadOnlyDatabase() throws IOException
+    {
+        try ( PageCache pageCache = pageCacheExtension.getPageCache( fs );
+              PagedFile pagedFile = pageCache.map( storeFile, pageCache.pageSize(), DEFAULT_DATABASE_NAME, immutable.of( CREATE ) ) )
+        {
+            writePages( pagedFile );
+
+            assertThat( warmer( pageCache, DatabaseReadOnlyChecker.readOnly(), PageCacheTracer.NULL ).profile() ).isZero();
+            assertThat( profileOf( storeFile ).exists( fs ) ).isFalse();
+        }
+    }
+
+    private PageCacheWarmer warmer( PageCache pageCache, DatabaseReadOnlyChecker readOnlyChecker, PageCacheTracer tracer )
+    {
+        return new PageCacheWarmer( fs, pageCache, jobScheduler, databaseLayout, Config.defaults(), readOnlyChecker, tracer, Clocks.nanoClock(),
+                new PageCacheWarmerMonitor()
+                {
+                }, NullLog.getInstance() );
+    }
+
+    private Profile profileOf( Path file )
+    {
+        Path databaseDirectory = databaseLayout.databaseDirectory();
+        return Profile.of( databaseDirectory.resolve( PageCacheWarmer.PROFILES_DIRECTORY ), databaseDirectory.relativize( file ) );
+    }
+
+    private static void writePages( PagedFile pagedFile ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+        {
+            for ( int i = 0; i < PAGES; i++ )
+            {
+                cursor.next();
+                cursor.putLong( i );
+            }
+        }
+    }
+}
@@ -26,6 +26,7 @@ import java.io.IOException;
 
 import org.neo4j.kernel.impl.api.TestCommand;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
 import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionCursor;
 import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
@@ -40,6 +41,7 @@ import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.RETURNS_MOCKS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -140,4 +142,24 @@ class PhysicalTransactionCursorTest
                 cursor.get()
         );
     }
+
+    @Test
+    void shouldKnowTheSizeOfTheTransactionInTheLog() throws IOException
+    {
+        // given
+        LogEntryStart startEntry = new LogEntryStart( 0L, 0L, 0, null, new LogPosition( 3, 100 ) );
+        when( entryReader.readLogEntry( channel ) ).thenReturn( startEntry, A_COMMAND_ENTRY, A_COMMIT_ENTRY );
+        when( channel.getCurrentPosition( any( LogPositionMarker.class ) ) ).thenAnswer( invocation ->
+        {
+            LogPositionMarker marker = invocation.getArgument( 0 );
+            marker.mark( 3, 150 );
+            return marker;
+        } );
+
+        // when
+        cursor.next();
+
+        // then
+        assertEquals( 50, cursor.get().getSerializedSize() );
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveGroupCommitTest
+{
+    private static final long MAX_DELAY = MILLISECONDS.toNanos( 2 );
+
+    private final AdaptiveGroupCommit groupCommit = new AdaptiveGroupCommit( MAX_DELAY, 1024 );
+    private long now = SECONDS.toNanos( 1 );
+
+    @Test
+    void shouldNotDelayBeforeAnythingIsKnown()
+    {
+        assertThat( groupCommit.targetBatchSize() ).isEqualTo( 1 );
+        assertThat( groupCommit.commitDelayNanos( 1 ) ).isZero();
+    }
+
+    @Test
+    void shouldHoldGroupOpenForTransactionsExpectedDuringAForce()
+    {
+        arrive( 10, MICROSECONDS.toNanos( 100 ) );
+        groupCommit.forced( MILLISECONDS.toNanos( 1 ) );
+
+        // Ten transactions arrive during a force, and the group is held open for at most half the force latency.
+        assertThat( groupCommit.targetBatchSize() ).isEqualTo( 10 );
+        assertThat( groupCommit.commitDelayNanos( 1 ) ).isEqualTo( MICROSECONDS.toNanos( 500 ) );
+        assertThat( groupCommit.commitDelayNanos( 8 ) ).isEqualTo( MICROSECONDS.toNanos( 200 ) );
+        assertThat( groupCommit.commitDelayNanos( 10 ) ).isZero();
+    }
+
+    @Test
+    void shouldNotDelayLongerThanMaxDelay()
+    {
+        arrive( 100, MICROSECONDS.toNanos( 100 ) );
+        groupCommit.forced( MILLISECONDS.toNanos( 10 ) );
+
+        assertThat( groupCommit.commitDelayNanos( 1 ) ).isEqualTo( MAX_DELAY );
+    }
+
+    @Test
+    void shouldNotDelayWhenNoMoreTransactionsAreExpectedInTime()
+    {
+        arrive( 10, MICROSECONDS.toNanos( 800 ) );
+        groupCommit.forced( MILLISECONDS.toNanos( 1 ) );
+
+        assertThat( groupCommit.commitDelayNanos( 1 ) ).isZero();
+    }
+
+    @Test
+    void shouldNotDelayWithoutMaxDelay()
+    {
+        AdaptiveGroupCommit groupCommit = new AdaptiveGroupCommit( 0, 1024 );
+        groupCommit.arrived( now );
+        groupCommit.arrived( now + MICROSECONDS.toNanos( 100 ) );
+        groupCommit.forced( MILLISECONDS.toNanos( 1 ) );
+
+        assertThat( groupCommit.commitDelayNanos( 1 ) ).isZero();
+    }
+
+    @Test
+    void shouldLimitTargetBatchSize()
+    {
+        AdaptiveGroupCommit groupCommit = new AdaptiveGroupCommit( MAX_DELAY, 16 );
+        groupCommit.arrived( now );
+        groupCommit.arrived( now + MICROSECONDS.toNanos( 1 ) );
+        groupCommit.forced( MILLISECONDS.toNanos( 10 ) );
+
+        assertThat( groupCommit.targetBatchSize() ).isEqualTo( 16 );
+    }
+
+    @Test
+    void shouldLimitHowMuchAnIdlePeriodSlowsDownTheArrivalRate()
+    {
+        arrive( 10, MICROSECONDS.toNanos( 100 ) );
+        long interval = groupCommit.averageArrivalIntervalNanos();
+
+        now += SECONDS.toNanos( 60 );
+        groupCommit.arrived( now );
+
+        assertThat( groupCommit.averageArrivalIntervalNanos() ).isLessThanOrEqualTo( interval + MAX_DELAY / 2 );
+    }
+
+    @Test
+    void shouldTimeArrivalsByWhenTransactionsWereEnqueued()
+    {
+        // Transactions enqueued 100us apart, but taken off the queue in one go after a slow force, still arrive 100us apart.
+        arrive( 10, MICROSECONDS.toNanos( 100 ) );
+
+        assertThat( groupCommit.averageArrivalIntervalNanos() ).isEqualTo( MICROSECONDS.toNanos( 100 ) );
+    }
+
+    @Test
+    void shouldNotLetSubmittersThatRaceForTheQueueSpeedUpTheArrivalRate()
+    {
+        arrive( 10, MICROSECONDS.toNanos( 100 ) );
+
+        // Enqueued in the other order than the clock was read in.
+        groupCommit.arrived( now + MICROSECONDS.toNanos( 200 ) );
+        groupCommit.arrived( now + MICROSECONDS.toNanos( 100 ) );
+        groupCommit.arrived( now + MICROSECONDS.toNanos( 300 ) );
+
+        assertThat( groupCommit.averageArrivalIntervalNanos() ).isPositive();
+    }
+
+    @Test
+    void shouldAverageForceLatency()
+    {
+        groupCommit.forced( MILLISECONDS.toNanos( 1 ) );
+        groupCommit.forced( MILLISECONDS.toNanos( 9 ) );
+
+        assertThat( groupCommit.averageForceNanos() ).isEqualTo( MILLISECONDS.toNanos( 2 ) );
+    }
+
+    private void arrive( int transactions, long intervalNanos )
+    {
+        groupCommit.arrived( now );
+        for ( int i = 0; i < transactions; i++ )
+        {
+            now += intervalNanos;
+            groupCommit.arrived( now );
+        }
+    }
+}
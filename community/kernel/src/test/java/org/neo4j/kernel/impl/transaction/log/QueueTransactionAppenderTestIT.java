@@ -297,6 +297,11 @@ class QueueTransactionAppenderTestIT
             return new RecordingTransactionAppendEvent( events );
         }
 
+        @Override
+        public void groupCommitted( int batchSize, long commitDelayNanos, long forceNanos )
+        {
+        }
+
         @Override
         public LogForceWaitEvent beginLogForceWait()
         {
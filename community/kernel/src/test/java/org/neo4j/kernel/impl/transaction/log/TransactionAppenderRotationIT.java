@@ -222,5 +222,10 @@ class TransactionAppenderRotationIT
                 }
             };
         }
+
+        @Override
+        public void groupCommitted( int batchSize, long commitDelayNanos, long forceNanos )
+        {
+        }
     }
 }
@@ -23,23 +23,35 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+import org.neo4j.io.fs.WritableChecksumChannel;
 import org.neo4j.kernel.KernelVersion;
+import org.neo4j.kernel.database.LogEntryWriterFactory;
 import org.neo4j.kernel.impl.api.TestCommand;
 import org.neo4j.kernel.impl.api.TestCommandReaderFactory;
 import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionLogWriter;
 import org.neo4j.storageengine.api.CommandReader;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.internal.kernel.api.security.AuthSubject.ANONYMOUS;
 import static org.neo4j.kernel.KernelVersion.LATEST;
+import static org.neo4j.kernel.impl.transaction.log.entry.CompressedCommandsLogEntryParser.MAX_UNCOMPRESSED_LENGTH;
 import static org.neo4j.storageengine.api.TransactionIdStore.BASE_TX_CHECKSUM;
 
 class VersionAwareLogEntryReaderTest
 {
+    private static final KernelVersion COMPRESSED = KernelVersion.VERSION_IN_WHICH_COMPRESSED_COMMANDS_ARE_INTRODUCED;
     private final LogEntryReader logEntryReader = new VersionAwareLogEntryReader( new TestCommandReaderFactory() );
 
     @Test
@@ -144,6 +156,195 @@ class VersionAwareLogEntryReaderTest
         assertNull( logEntry );
     }
 
+    @Test
+    void shouldReadCompressedCommandLogEntries() throws IOException
+    {
+        // given
+        final LogEntryStart start = new LogEntryStart( COMPRESSED, 1, 2, BASE_TX_CHECKSUM, new byte[]{4}, new LogPosition( 0, 0 ) );
+        final LogEntryCommit commit = new LogEntryCommit( COMPRESSED, 42, 21, 0 );
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel( true );
+        List<LogEntryCommand> commands = new ArrayList<>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            byte[] data = new byte[100];
+            Arrays.fill( data, (byte) i );
+            commands.add( new LogEntryCommand( COMPRESSED, new TestCommand( data ) ) );
+        }
+
+        writeStartEntry( channel, start );
+        try ( CompressedCommandsLogEntryWriter compressedWriter = new CompressedCommandsLogEntryWriter() )
+        {
+            compressedWriter.begin( COMPRESSED.version(), channel );
+            for ( LogEntryCommand command : commands )
+            {
+                compressedWriter.writeCommand( command.getCommand() );
+            }
+            compressedWriter.end();
+        }
+        writeCommitEntry( channel, commit );
+
+        // then
+        assertTrue( channel.writerPosition() < 1000 );
+        assertEquals( start, logEntryReader.readLogEntry( channel ) );
+        for ( LogEntryCommand command : commands )
+        {
+            assertEquals( command, logEntryReader.readLogEntry( channel ) );
+        }
+        // the checksum, which covers the compressed commands, is validated when reading the commit entry
+        LogEntryCommit readCommit = (LogEntryCommit) logEntryReader.readLogEntry( channel );
+        assertEquals( commit.getTxId(), readCommit.getTxId() );
+        assertNull( logEntryReader.readLogEntry( channel ) );
+    }
+
+    @Test
+    void shouldWriteSmallCommandBatchesUncompressed() throws IOException
+    {
+        // given
+        TestCommand testCommand = new TestCommand( new byte[] {100, 101, 102} );
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel( true );
+
+        try ( CompressedCommandsLogEntryWriter compressedWriter = new CompressedCommandsLogEntryWriter() )
+        {
+            compressedWriter.begin( COMPRESSED.version(), channel );
+            compressedWriter.writeCommand( testCommand );
+            compressedWriter.end();
+        }
+
+        // then
+        assertEquals( COMPRESSED.version(), channel.get() );
+        assertEquals( LogEntryTypeCodes.COMMAND, channel.get() );
+        channel.positionReader( 0 );
+        assertEquals( new LogEntryCommand( COMPRESSED, testCommand ), logEntryReader.readLogEntry( channel ) );
+    }
+
+    @Test
+    void shouldNotReadCompressedCommandsOfVersionsBeforeTheyWereIntroduced() throws IOException
+    {
+        // given
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel( true );
+        try ( CompressedCommandsLogEntryWriter compressedWriter = new CompressedCommandsLogEntryWriter() )
+        {
+            compressedWriter.begin( KernelVersion.V4_4.version(), channel );
+            compressedWriter.writeCommand( new TestCommand( new byte[1000] ) );
+            compressedWriter.end();
+        }
+
+        // then
+        IOException e = assertThrows( IOException.class, () -> logEntryReader.readLogEntry( channel ) );
+        assertThat( e ).hasMessageContaining( "Unknown entry type " + LogEntryTypeCodes.COMPRESSED_COMMANDS );
+    }
+
+    @Test
+    void shouldOnlyCompressCommandsOnceTheKernelVersionSupportsIt() throws IOException
+    {
+        // given
+        TestCommand testCommand = new TestCommand( new byte[1000] );
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( List.of( testCommand ) );
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel( 10_000, true );
+
+        // when
+        try ( CompressedCommandsLogEntryWriter compressedWriter = new CompressedCommandsLogEntryWriter() )
+        {
+            new LogEntryWriter<>( channel, KernelVersion.V4_4 ).serialize( transaction, compressedWriter );
+            new LogEntryWriter<>( channel, COMPRESSED ).serialize( transaction, compressedWriter );
+        }
+
+        // then
+        assertEquals( new LogEntryCommand( KernelVersion.V4_4, testCommand ), logEntryReader.readLogEntry( channel ) );
+        LogPositionMarker compressedPosition = new LogPositionMarker();
+        channel.getCurrentPosition( compressedPosition );
+        assertEquals( new LogEntryCommand( COMPRESSED, testCommand ),
+                logEntryReader.readLogEntry( channel ) );
+        channel.positionReader( (int) compressedPosition.getByteOffset() + 1 );
+        assertEquals( LogEntryTypeCodes.COMPRESSED_COMMANDS, channel.get() );
+    }
+
+    @Test
+    void shouldOnlyWriteTransactionsInTheCompressedVersionWhenCompressingCommands() throws IOException
+    {
+        // given
+        TestCommand testCommand = new TestCommand( new byte[1000] );
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( List.of( testCommand ) );
+        transaction.setHeader( new byte[0], 1, 2, 3, -1, ANONYMOUS );
+        LogEntryWriterFactory writerFactory = new LogEntryWriterFactory()
+        {
+            @Override
+            public <T extends WritableChecksumChannel> LogEntryWriter<T> createEntryWriter( T channel )
+            {
+                return new LogEntryWriter<>( channel, KernelVersion.V4_4 );
+            }
+        };
+        final InMemoryClosableChannel plainChannel = new InMemoryClosableChannel( 10_000, true );
+        final InMemoryClosableChannel compressedChannel = new InMemoryClosableChannel( 10_000, true );
+
+        // when
+        new TransactionLogWriter( plainChannel, writerFactory ).append( transaction, 42, BASE_TX_CHECKSUM );
+        try ( CompressedCommandsLogEntryWriter compressedWriter = new CompressedCommandsLogEntryWriter() )
+        {
+            new TransactionLogWriter( compressedChannel, writerFactory, compressedWriter ).append( transaction, 42, BASE_TX_CHECKSUM );
+        }
+
+        // then
+        assertEquals( KernelVersion.V4_4, logEntryReader.readLogEntry( plainChannel ).getVersion() );
+        assertEquals( new LogEntryCommand( KernelVersion.V4_4, testCommand ), logEntryReader.readLogEntry( plainChannel ) );
+        assertEquals( KernelVersion.V4_4, logEntryReader.readLogEntry( plainChannel ).getVersion() );
+
+        assertEquals( COMPRESSED, logEntryReader.readLogEntry( compressedChannel ).getVersion() );
+        assertEquals( new LogEntryCommand( COMPRESSED, testCommand ), logEntryReader.readLogEntry( compressedChannel ) );
+        // the checksum, which covers the whole transaction, is validated when reading the commit entry
+        assertEquals( COMPRESSED, logEntryReader.readLogEntry( compressedChannel ).getVersion() );
+        assertTrue( compressedChannel.writerPosition() < plainChannel.writerPosition() );
+    }
+
+    @Test
+    void shouldEndTheLogAtTruncatedCompressedCommands() throws IOException
+    {
+        // given
+        final InMemoryClosableChannel written = new InMemoryClosableChannel( true );
+        final LogEntryStart start = new LogEntryStart( COMPRESSED, 1, 2, BASE_TX_CHECKSUM, new byte[0], new LogPosition( 0, 0 ) );
+        writeStartEntry( written, start );
+        try ( CompressedCommandsLogEntryWriter compressedWriter = new CompressedCommandsLogEntryWriter() )
+        {
+            compressedWriter.begin( COMPRESSED.version(), written );
+            compressedWriter.writeCommand( new TestCommand( new byte[1000] ) );
+            compressedWriter.end();
+        }
+
+        // when the log is torn in the middle of the compressed data
+        byte[] bytes = new byte[written.writerPosition() - 5];
+        written.get( bytes, bytes.length );
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel( bytes, true, true );
+
+        // then
+        assertEquals( start, logEntryReader.readLogEntry( channel ) );
+        assertNull( logEntryReader.readLogEntry( channel ) );
+    }
+
+    @Test
+    void shouldEndTheLogAtCompressedCommandsLongerThanTheLog() throws IOException
+    {
+        // given
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel( true );
+        writeCompressedCommandsHeader( channel, 1, MAX_UNCOMPRESSED_LENGTH, MAX_UNCOMPRESSED_LENGTH - 1 );
+        channel.put( new byte[10], 10 );
+
+        // then
+        assertNull( logEntryReader.readLogEntry( channel ) );
+    }
+
+    @Test
+    void shouldFailOnCompressedCommandsWithInvalidLengths()
+    {
+        assertInvalidCompressedCommands( 1, 1000, -1 );
+        assertInvalidCompressedCommands( 1, -1, 100 );
+        assertInvalidCompressedCommands( 1, Integer.MAX_VALUE, 100 );
+        assertInvalidCompressedCommands( 1, MAX_UNCOMPRESSED_LENGTH + 1, 100 );
+        assertInvalidCompressedCommands( 1, 1000, 1000 );
+        assertInvalidCompressedCommands( 0, 1000, 100 );
+        assertInvalidCompressedCommands( Integer.MAX_VALUE, 1000, 100 );
+        assertInvalidCompressedCommands( 501, 1000, 100 );
+    }
+
     @Disabled // TODO it's not clear what the benefit verifying the chain will give us, so it's disable for now
     @Test
     void shouldValidateChecksumChain() throws IOException
@@ -185,6 +386,26 @@ class VersionAwareLogEntryReaderTest
         assertTrue( e.getMessage().contains( "The checksum chain is broken" ) );
     }
 
+    private void assertInvalidCompressedCommands( int commandCount, int uncompressedLength, int compressedLength )
+    {
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel( true );
+        writeCompressedCommandsHeader( channel, commandCount, uncompressedLength, compressedLength );
+        channel.put( new byte[100], 100 );
+
+        IOException e = assertThrows( IOException.class, () -> logEntryReader.readLogEntry( channel ) );
+        assertThat( e ).hasMessageContaining( "Invalid compressed commands" );
+    }
+
+    private static void writeCompressedCommandsHeader( InMemoryClosableChannel channel, int commandCount, int uncompressedLength, int compressedLength )
+    {
+        channel.put( COMPRESSED.version() );
+        channel.put( LogEntryTypeCodes.COMPRESSED_COMMANDS );
+        channel.put( CompressedCommandsLogEntryParser.DEFLATE_CODEC );
+        channel.putInt( commandCount );
+        channel.putInt( uncompressedLength );
+        channel.putInt( compressedLength );
+    }
+
     private static void writeStartEntry( InMemoryClosableChannel channel, LogEntryStart start )
     {
         channel.beginChecksum();
@@ -27,6 +27,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.neo4j.counts.CountsAccessor;
 import org.neo4j.exceptions.KernelException;
@@ -50,6 +51,7 @@ import org.neo4j.lock.LockTracer;
 import org.neo4j.lock.LockType;
 import org.neo4j.lock.ResourceLocker;
 import org.neo4j.logging.Log;
+import org.neo4j.memory.LocalMemoryTracker;
 import org.neo4j.memory.MemoryTracker;
 import org.neo4j.storageengine.api.CommandCreationContext;
 import org.neo4j.storageengine.api.CommandStream;
@@ -71,10 +73,15 @@ import org.neo4j.test.Barrier;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.neo4j.kernel.impl.transaction.log.LogPosition.UNSPECIFIED;
+import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
 import static org.neo4j.storageengine.api.TransactionApplicationMode.RECOVERY;
 
 class ParallelRecoveryVisitorTest
 {
+    private static final RecoveryMonitor NO_MONITOR = new RecoveryMonitor()
+    {
+    };
+
     @Test
     void shouldApplyUnrelatedInParallel() throws Exception
     {
@@ -103,7 +110,7 @@ class ParallelRecoveryVisitorTest
         };
 
         // when
-        try ( ParallelRecoveryVisitor visitor = new ParallelRecoveryVisitor( storageEngine, RECOVERY, PageCacheTracer.NULL, "test", 2 ) )
+        try ( ParallelRecoveryVisitor visitor = parallelRecoveryVisitor( storageEngine ) )
         {
             visitor.visit( tx( 2, commandsRelatedToNode( 99 ) ) );
             visitor.visit( tx( 3, commandsRelatedToNode( 999 ) ) );
@@ -134,7 +141,7 @@ class ParallelRecoveryVisitorTest
         };
 
         // when
-        try ( ParallelRecoveryVisitor visitor = new ParallelRecoveryVisitor( storageEngine, RECOVERY, PageCacheTracer.NULL, "test", 2 ) )
+        try ( ParallelRecoveryVisitor visitor = parallelRecoveryVisitor( storageEngine ) )
         {
             visitor.visit( tx( 2, commandsRelatedToNode( 99 ) ) );
             visitor.visit( tx( 3, commandsRelatedToNode( 99 ) ) );
@@ -179,7 +186,7 @@ class ParallelRecoveryVisitorTest
         };
 
         // when
-        try ( ParallelRecoveryVisitor visitor = new ParallelRecoveryVisitor( storageEngine, RECOVERY, PageCacheTracer.NULL, "test", 2 ) )
+        try ( ParallelRecoveryVisitor visitor = parallelRecoveryVisitor( storageEngine ) )
         {
             visitor.visit( tx( 2, commandsRelatedToNode( 99 ) ) );
             visitor.visit( tx( 3, commandsRelatedToNode( 999 ) ) );
@@ -210,7 +217,7 @@ class ParallelRecoveryVisitorTest
         };
 
         // when
-        try ( ParallelRecoveryVisitor visitor = new ParallelRecoveryVisitor( storageEngine, RECOVERY, PageCacheTracer.NULL, "test", 2 ) )
+        try ( ParallelRecoveryVisitor visitor = parallelRecoveryVisitor( storageEngine ) )
         {
             assertThatThrownBy( () ->
             {
@@ -243,18 +250,74 @@ class ParallelRecoveryVisitorTest
         };
 
         // when
-        ParallelRecoveryVisitor visitor = new ParallelRecoveryVisitor( storageEngine, RECOVERY, PageCacheTracer.NULL, "test", 2 );
+        ParallelRecoveryVisitor visitor = parallelRecoveryVisitor( storageEngine );
         visitor.visit( tx( 2, commandsRelatedToNode( 99 ) ) );
         assertThatThrownBy( visitor::close ).getCause().hasMessageContaining( failure );
     }
 
+    @Test
+    void shouldNotExceedInFlightMemoryLimit() throws Exception
+    {
+        // given
+        AtomicInteger applying = new AtomicInteger();
+        AtomicInteger maxApplying = new AtomicInteger();
+        RecoveryControllableStorageEngine storageEngine = new RecoveryControllableStorageEngine()
+        {
+            @Override
+            public void apply( CommandsToApply batch, TransactionApplicationMode mode ) throws Exception
+            {
+                maxApplying.accumulateAndGet( applying.incrementAndGet(), Math::max );
+                Thread.sleep( 5 );
+                super.apply( batch, mode );
+                applying.decrementAndGet();
+            }
+        };
+        LocalMemoryTracker memoryTracker = new LocalMemoryTracker();
+        AtomicReference<Double> applierUtilisation = new AtomicReference<>();
+        RecoveryMonitor monitor = new RecoveryMonitor()
+        {
+            @Override
+            public void recoveryThroughput( TransactionApplicationMode mode, long transactionsPerSecond, long bytesPerSecond, double utilisation )
+            {
+                applierUtilisation.set( utilisation );
+            }
+        };
+
+        // when transactions of 1000 bytes each in the log are recovered with room for only one of them in flight
+        try ( ParallelRecoveryVisitor visitor = new ParallelRecoveryVisitor( storageEngine, RECOVERY, PageCacheTracer.NULL, "test", memoryTracker,
+                1500, monitor, 4 ) )
+        {
+            for ( long txId = 2; txId < 22; txId++ )
+            {
+                visitor.visit( tx( txId, commandsRelatedToNode( txId ), 1000 ) );
+            }
+        }
+
+        // then
+        assertThat( maxApplying.get() ).isOne();
+        assertThat( memoryTracker.heapHighWaterMark() ).isBetween( 1000L, 1500L );
+        assertThat( memoryTracker.estimatedHeapMemory() ).isZero();
+        assertThat( storageEngine.applyOrder() ).hasSize( 20 );
+        assertThat( applierUtilisation.get() ).isBetween( 0.0, 1.0 );
+    }
+
+    private static ParallelRecoveryVisitor parallelRecoveryVisitor( StorageEngine storageEngine )
+    {
+        return new ParallelRecoveryVisitor( storageEngine, RECOVERY, PageCacheTracer.NULL, "test", INSTANCE, Long.MAX_VALUE, NO_MONITOR, 2 );
+    }
+
     private CommittedTransactionRepresentation tx( long txId, List<StorageCommand> commands )
+    {
+        return tx( txId, commands, CommittedTransactionRepresentation.UNKNOWN_SERIALIZED_SIZE );
+    }
+
+    private CommittedTransactionRepresentation tx( long txId, List<StorageCommand> commands, long serializedSize )
     {
         commands.forEach( cmd -> ((RecoveryTestBaseCommand) cmd).txId = txId );
         LogEntryStart startEntry = new LogEntryStart( 0, 0, 0, new byte[0], UNSPECIFIED );
         TransactionRepresentation txRepresentation = new PhysicalTransactionRepresentation( commands );
         LogEntryCommit commitEntry = new LogEntryCommit( txId, 0, 0 );
-        return new CommittedTransactionRepresentation( startEntry, txRepresentation, commitEntry );
+        return new CommittedTransactionRepresentation( startEntry, txRepresentation, commitEntry, serializedSize );
     }
 
     private List<StorageCommand> commandsRelatedToNode( long nodeId )
@@ -35,6 +35,7 @@ import org.neo4j.common.DependencyResolver;
 import org.neo4j.common.TokenNameLookup;
 import org.neo4j.configuration.Config;
 import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.dbms.database.DatabasePageCache;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
@@ -53,6 +54,8 @@ import org.neo4j.internal.schema.ConstraintDescriptor;
 import org.neo4j.internal.schema.IndexDescriptor;
 import org.neo4j.internal.schema.IndexProviderDescriptor;
 import org.neo4j.internal.schema.SchemaDescriptor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.monitoring.PageFileCounters;
 import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.api.exceptions.Status;
 import org.neo4j.kernel.api.procedure.SystemProcedure;
@@ -63,6 +66,7 @@ import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.procedure.Admin;
 import org.neo4j.procedure.Context;
 import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Internal;
 import org.neo4j.procedure.Mode;
 import org.neo4j.procedure.Name;
 import org.neo4j.procedure.Procedure;
@@ -405,6 +409,18 @@ public class BuiltInProcedures
                 .clearQueryCaches();
     }
 
+    @Admin
+    @Internal
+    @Description( "List the page cache statistics of every file of the database that is mapped by the page cache. " +
+            "Statistics are only collected when the page cache is configured to trace page files individually." )
+    @Procedure( name = "db.stats.pageCacheFiles", mode = READ )
+    public Stream<PageCacheFileResult> pageCacheFiles()
+    {
+        return resolver.resolveDependency( DatabasePageCache.class ).listExistingMappings().stream()
+                .map( PageCacheFileResult::new )
+                .sorted( Comparator.comparing( result -> result.file ) );
+    }
+
     @SystemProcedure
     @Procedure( name = "db.schema.nodeTypeProperties", mode = Mode.READ )
     @Description( "Show the derived property schema of the nodes in tabular form." )
@@ -578,6 +594,35 @@ public class BuiltInProcedures
         }
     }
 
+    public static class PageCacheFileResult
+    {
+        public final String file;
+        public final long pins;
+        public final long hits;
+        public final long faults;
+        public final long evictions;
+        public final long flushes;
+        public final long bytesRead;
+        public final long bytesWritten;
+        public final long residentPages;
+        public final double hitRatio;
+
+        private PageCacheFileResult( PagedFile pagedFile )
+        {
+            PageFileCounters counters = pagedFile.pageFileCounters();
+            this.file = pagedFile.path().toString();
+            this.pins = counters.pins();
+            this.hits = counters.hits();
+            this.faults = counters.faults();
+            this.evictions = counters.evictions();
+            this.flushes = counters.flushes();
+            this.bytesRead = counters.bytesRead();
+            this.bytesWritten = counters.bytesWritten();
+            this.residentPages = counters.residentPages();
+            this.hitRatio = counters.hitRatio();
+        }
+    }
+
     public static class RelationshipTypeResult
     {
         public final String relationshipType;
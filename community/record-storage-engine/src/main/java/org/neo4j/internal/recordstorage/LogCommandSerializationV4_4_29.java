@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.recordstorage;
+
+import org.neo4j.kernel.KernelVersion;
+
+/**
+ * The commands themselves are serialized as in 4.4. The version only adds compressed command entries to the transaction log around them.
+ */
+class LogCommandSerializationV4_4_29 extends LogCommandSerializationV4_4
+{
+    static final LogCommandSerializationV4_4_29 INSTANCE = new LogCommandSerializationV4_4_29();
+
+    @Override
+    KernelVersion version()
+    {
+        return KernelVersion.V4_4_29;
+    }
+}
@@ -42,6 +42,7 @@ import org.neo4j.storageengine.api.StorageNodeCursor;
 import org.neo4j.storageengine.api.StoragePropertyCursor;
 import org.neo4j.storageengine.api.StorageRelationshipTraversalCursor;
 import org.neo4j.storageengine.api.cursor.StoreCursors;
+import org.neo4j.storageengine.util.EagerDegrees;
 
 import static java.lang.Math.min;
 import static org.neo4j.internal.recordstorage.RelationshipReferenceEncoding.encodeDense;
@@ -66,6 +67,12 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
     private RecordRelationshipTraversalCursor relationshipCursor;
     private RecordRelationshipScanCursor relationshipScanCursor;
     private RecordLoadOverride loadMode;
+    /**
+     * Degrees of the sparse node this cursor is placed at, by type and direction, collected the first time they're asked for
+     * so that further degree or relationship type lookups on the same node don't need to traverse its relationship chain again.
+     */
+    private final EagerDegrees sparseDegrees = new EagerDegrees();
+    private boolean sparseDegreesLoaded;
 
     RecordNodeCursor( NodeStore read, RelationshipStore relationshipStore, RelationshipGroupStore groupStore, RelationshipGroupDegreesStore groupDegreesStore,
             CursorContext cursorContext, StoreCursors storeCursors )
@@ -216,12 +223,7 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
         MutableIntSet types = IntSets.mutable.empty();
         if ( !isDense() )
         {
-            ensureRelationshipTraversalCursorInitialized();
-            relationshipCursor.init( this, ALL_RELATIONSHIPS );
-            while ( relationshipCursor.next() )
-            {
-                types.add( relationshipCursor.type() );
-            }
+            types.addAll( loadSparseDegrees().types() );
         }
         else
         {
@@ -274,31 +276,14 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
 
         if ( !isDense() )
         {
-            ensureRelationshipTraversalCursorInitialized();
-            relationshipCursor.init( this, ALL_RELATIONSHIPS );
-            while ( relationshipCursor.next() )
+            EagerDegrees degrees = loadSparseDegrees();
+            for ( int type : degrees.types() )
             {
-                if ( selection.test( relationshipCursor.type() ) )
+                if ( selection.test( type ) )
                 {
-                    int outgoing = 0;
-                    int incoming = 0;
-                    int loop = 0;
-                    if ( relationshipCursor.sourceNodeReference() == entityReference() )
-                    {
-                        if ( relationshipCursor.targetNodeReference() == entityReference() )
-                        {
-                            loop++;
-                        }
-                        else if ( selection.test( RelationshipDirection.OUTGOING ) )
-                        {
-                            outgoing++;
-                        }
-                    }
-                    else if ( selection.test( RelationshipDirection.INCOMING ) )
-                    {
-                        incoming++;
-                    }
-                    if ( !mutator.add( relationshipCursor.type(), outgoing, incoming, loop ) )
+                    int outgoing = selection.test( RelationshipDirection.OUTGOING ) ? degrees.rawOutgoingDegree( type ) : 0;
+                    int incoming = selection.test( RelationshipDirection.INCOMING ) ? degrees.rawIncomingDegree( type ) : 0;
+                    if ( !mutator.add( type, outgoing, incoming, degrees.rawLoopDegree( type ) ) )
                     {
                         return;
                     }
@@ -315,9 +300,16 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
             int criteriaMet = 0;
             boolean typeLimited = selection.isTypeLimited();
             int numCriteria = selection.numberOfCriteria();
+            int highestType = typeLimited ? highestSelectedType( selection ) : Integer.MAX_VALUE;
             while ( groupCursor.next() )
             {
-                if ( selection.test( groupCursor.getType() ) )
+                int type = groupCursor.getType();
+                if ( type > highestType )
+                {
+                    // The groups are sorted by type in the chain, so none of the selected types can come after this one
+                    break;
+                }
+                if ( selection.test( type ) )
                 {
                     int outgoing = 0;
                     int incoming = 0;
@@ -330,7 +322,7 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
                     {
                         incoming = groupCursor.incomingCount();
                     }
-                    if ( !mutator.add( groupCursor.getType(), outgoing, incoming, loop ) )
+                    if ( !mutator.add( type, outgoing, incoming, loop ) )
                     {
                         return;
                     }
@@ -339,8 +331,58 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
                         break;
                     }
                 }
+                if ( type == highestType )
+                {
+                    // Same as above, no need to read the next group only to see that its type is higher
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Traverses the relationship chain of the sparse node this cursor is placed at, unless already done since it was placed there,
+     * and collects its degrees by type and direction.
+     */
+    private EagerDegrees loadSparseDegrees()
+    {
+        if ( !sparseDegreesLoaded )
+        {
+            sparseDegrees.clear();
+            ensureRelationshipTraversalCursorInitialized();
+            relationshipCursor.init( this, ALL_RELATIONSHIPS );
+            while ( relationshipCursor.next() )
+            {
+                int type = relationshipCursor.type();
+                if ( relationshipCursor.sourceNodeReference() == entityReference() )
+                {
+                    if ( relationshipCursor.targetNodeReference() == entityReference() )
+                    {
+                        sparseDegrees.addLoop( type, 1 );
+                    }
+                    else
+                    {
+                        sparseDegrees.addOutgoing( type, 1 );
+                    }
+                }
+                else
+                {
+                    sparseDegrees.addIncoming( type, 1 );
+                }
             }
+            sparseDegreesLoaded = true;
+        }
+        return sparseDegrees;
+    }
+
+    private static int highestSelectedType( RelationshipSelection selection )
+    {
+        int highestType = -1;
+        for ( int i = 0; i < selection.numberOfCriteria(); i++ )
+        {
+            highestType = Math.max( highestType, selection.criterion( i ).type() );
         }
+        return highestType;
     }
 
     @Override
@@ -374,6 +416,7 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
     @Override
     public boolean next()
     {
+        sparseDegreesLoaded = false;
         if ( next == NO_ID )
         {
             resetState();
@@ -435,6 +478,7 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
         next = NO_ID;
         setId( NO_ID );
         clear();
+        sparseDegreesLoaded = false;
         this.loadMode = RecordLoadOverride.none();
         if ( groupCursor != null )
         {
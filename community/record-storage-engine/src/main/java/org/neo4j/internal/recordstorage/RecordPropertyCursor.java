@@ -87,6 +87,8 @@ public class RecordPropertyCursor extends PropertyRecord implements StoragePrope
     private EntityType ownerEntityType;
     private RecordLoadOverride loadMode;
     private PropertySelection selection;
+    // Number of keys of a limited selection not yet found, so that the chain doesn't have to be read further once all of them have been
+    private int selectedKeysLeft;
     private int propertyKey;
 
     RecordPropertyCursor( PropertyStore propertyStore, CursorContext cursorContext, MemoryTracker memoryTracker )
@@ -142,11 +144,17 @@ public class RecordPropertyCursor extends PropertyRecord implements StoragePrope
         this.cycleDetection = null;
         this.open = true;
         this.selection = selection;
+        this.selectedKeysLeft = selection.isLimited() ? selection.numberOfKeys() : -1;
     }
 
     @Override
     public boolean next()
     {
+        if ( selectedKeysLeft == 0 )
+        {
+            // A property key occurs at most once in a chain and all selected keys have been found
+            return false;
+        }
         while ( true )
         {
             //Figure out number of blocks of record
@@ -178,6 +186,7 @@ public class RecordPropertyCursor extends PropertyRecord implements StoragePrope
                 propertyKey = PropertyBlock.keyIndexId( currentBlock() );
                 if ( selection.test( propertyKey ) )
                 {
+                    selectedKeysLeft--;
                     return true;
                 }
             }
@@ -23,6 +23,8 @@ import java.util.function.BooleanSupplier;
 
 import org.neo4j.common.TokenNameLookup;
 import org.neo4j.configuration.Config;
+import org.neo4j.internal.id.IdSequence;
+import org.neo4j.internal.id.ReservingIdSequence;
 import org.neo4j.io.pagecache.context.CursorContext;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.PropertyStore;
@@ -36,6 +38,7 @@ import org.neo4j.storageengine.api.CommandCreationContext;
 import org.neo4j.storageengine.api.cursor.StoreCursors;
 
 import static java.lang.Math.toIntExact;
+import static org.neo4j.configuration.GraphDatabaseInternalSettings.id_reservation_batch_size;
 
 /**
  * Holds commit data structures for creating records in a {@link NeoStores}.
@@ -53,6 +56,9 @@ class RecordStorageCommandCreationContext implements CommandCreationContext
     // kernel transaction object and so will be reused between transactions. The relaxed locking feature may change from tx to tx
     // and so it will need to be queried per tx commit.
     private final BooleanSupplier relaxedLockingForDenseNodes;
+    // Node and relationship ids are reserved in consecutive ranges if configured to, otherwise these are null
+    private final ReservingIdSequence nodeIds;
+    private final ReservingIdSequence relationshipIds;
 
     private PropertyCreator propertyCreator;
     private PropertyDeleter propertyDeleter;
@@ -72,6 +78,10 @@ class RecordStorageCommandCreationContext implements CommandCreationContext
         this.config = config;
         this.memoryTracker = memoryTracker;
         this.propertyStore = neoStores.getPropertyStore();
+        int idReservationBatchSize = config.get( id_reservation_batch_size );
+        this.nodeIds = idReservationBatchSize > 0 ? new ReservingIdSequence( neoStores.getNodeStore().getIdGenerator(), idReservationBatchSize ) : null;
+        this.relationshipIds =
+                idReservationBatchSize > 0 ? new ReservingIdSequence( neoStores.getRelationshipStore().getIdGenerator(), idReservationBatchSize ) : null;
     }
 
     @Override
@@ -95,16 +105,21 @@ class RecordStorageCommandCreationContext implements CommandCreationContext
         return neoStores.getRecordStore( storeType ).nextId( cursorContext );
     }
 
+    private long nextId( StoreType storeType, IdSequence reservedIds )
+    {
+        return reservedIds != null ? reservedIds.nextId( cursorContext ) : nextId( storeType );
+    }
+
     @Override
     public long reserveNode()
     {
-        return nextId( StoreType.NODE );
+        return nextId( StoreType.NODE, nodeIds );
     }
 
     @Override
     public long reserveRelationship( long sourceNode )
     {
-        return nextId( StoreType.RELATIONSHIP );
+        return nextId( StoreType.RELATIONSHIP, relationshipIds );
     }
 
     @Override
@@ -134,6 +149,11 @@ class RecordStorageCommandCreationContext implements CommandCreationContext
     @Override
     public void close()
     {
+        if ( nodeIds != null )
+        {
+            nodeIds.releaseUnused( cursorContext );
+            relationshipIds.releaseUnused( cursorContext );
+        }
     }
 
     TransactionRecordState createTransactionRecordState( IntegrityValidator integrityValidator, long lastTransactionIdWhenStarted,
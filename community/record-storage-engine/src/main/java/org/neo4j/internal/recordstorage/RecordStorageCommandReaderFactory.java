@@ -42,6 +42,8 @@ public class RecordStorageCommandReaderFactory implements CommandReaderFactory
             return LogCommandSerializationV4_3_D3.INSTANCE;
         case V4_4:
             return LogCommandSerializationV4_4.INSTANCE;
+        case V4_4_29:
+            return LogCommandSerializationV4_4_29.INSTANCE;
         default:
             throw new IllegalArgumentException( "Unsupported kernel version " + version );
         }
@@ -597,7 +597,7 @@ public class RecordStorageMigrator extends AbstractStoreMigrationParticipant
                 writable(), immutable.empty() );
     }
 
-    private static AdditionalInitialIds readAdditionalIds( final long lastTxId, final int lastTxChecksum, final long lastTxLogVersion,
+    static AdditionalInitialIds readAdditionalIds( final long lastTxId, final int lastTxChecksum, final long lastTxLogVersion,
             final long lastTxLogByteOffset, long lastCheckpointLogVersion )
     {
         return new AdditionalInitialIds()
@@ -1076,7 +1076,7 @@ public class RecordStorageMigrator extends AbstractStoreMigrationParticipant
         StoreCursors getSchemaStorageTokenCursors( StoreCursors srcCursors );
     }
 
-    private static class NodeRecordChunk extends StoreScanChunk<RecordNodeCursor>
+    static class NodeRecordChunk extends StoreScanChunk<RecordNodeCursor>
     {
         NodeRecordChunk( RecordStorageReader storageReader, boolean requiresPropertyMigration, CursorContext cursorContext, StoreCursors storeCursors,
                 MemoryTracker memoryTracker )
@@ -0,0 +1,685 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storemigration;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.common.EntityType;
+import org.neo4j.configuration.Config;
+import org.neo4j.internal.batchimport.BatchImporter;
+import org.neo4j.internal.batchimport.BatchImporterFactory;
+import org.neo4j.internal.batchimport.Configuration;
+import org.neo4j.internal.batchimport.ImportLogic;
+import org.neo4j.internal.batchimport.IndexConfig;
+import org.neo4j.internal.batchimport.IndexImporterFactory;
+import org.neo4j.internal.batchimport.InputIterable;
+import org.neo4j.internal.batchimport.InputIterator;
+import org.neo4j.internal.batchimport.input.Collector;
+import org.neo4j.internal.batchimport.input.IdType;
+import org.neo4j.internal.batchimport.input.Input;
+import org.neo4j.internal.batchimport.input.InputChunk;
+import org.neo4j.internal.batchimport.input.InputEntityVisitor;
+import org.neo4j.internal.batchimport.input.ReadableGroups;
+import org.neo4j.internal.batchimport.staging.ExecutionMonitor;
+import org.neo4j.internal.id.DefaultIdGeneratorFactory;
+import org.neo4j.internal.id.IdGeneratorFactory;
+import org.neo4j.internal.id.ScanOnOpenOverwritingIdGeneratorFactory;
+import org.neo4j.internal.id.ScanOnOpenReadOnlyIdGeneratorFactory;
+import org.neo4j.internal.recordstorage.RecordNodeCursor;
+import org.neo4j.internal.recordstorage.RecordStorageReader;
+import org.neo4j.internal.recordstorage.SchemaRuleAccess;
+import org.neo4j.internal.recordstorage.StoreTokens;
+import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.layout.CommonDatabaseFile;
+import org.neo4j.io.layout.DatabaseFile;
+import org.neo4j.io.layout.recordstorage.RecordDatabaseFile;
+import org.neo4j.io.layout.recordstorage.RecordDatabaseLayout;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.context.CursorContext;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.api.index.IndexDirectoryStructure;
+import org.neo4j.kernel.impl.store.CommonAbstractStore;
+import org.neo4j.kernel.impl.store.MetaDataStore;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.RelationshipGroupStore;
+import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.kernel.impl.store.StoreFactory;
+import org.neo4j.kernel.impl.store.StoreType;
+import org.neo4j.kernel.impl.store.cursor.CachedStoreCursors;
+import org.neo4j.kernel.impl.store.format.RecordFormats;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogFilesHelper;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.logging.internal.LogService;
+import org.neo4j.memory.MemoryTracker;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.LogFilesInitializer;
+import org.neo4j.storageengine.api.RelationshipSelection;
+import org.neo4j.storageengine.api.StorageRelationshipTraversalCursor;
+import org.neo4j.storageengine.api.StoreId;
+import org.neo4j.storageengine.api.cursor.StoreCursors;
+
+import static java.lang.Long.max;
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.eclipse.collections.impl.factory.Sets.immutable;
+import static org.neo4j.dbms.database.readonly.DatabaseReadOnlyChecker.readOnly;
+import static org.neo4j.dbms.database.readonly.DatabaseReadOnlyChecker.writable;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.immediate;
+import static org.neo4j.internal.batchimport.Configuration.defaultConfiguration;
+import static org.neo4j.kernel.impl.store.MetaDataStore.Position.CHECKPOINT_LOG_VERSION;
+import static org.neo4j.kernel.impl.store.MetaDataStore.Position.LAST_CLOSED_TRANSACTION_LOG_BYTE_OFFSET;
+import static org.neo4j.kernel.impl.store.MetaDataStore.Position.LAST_CLOSED_TRANSACTION_LOG_VERSION;
+import static org.neo4j.kernel.impl.store.MetaDataStore.Position.LAST_TRANSACTION_CHECKSUM;
+import static org.neo4j.kernel.impl.store.MetaDataStore.Position.LAST_TRANSACTION_ID;
+import static org.neo4j.kernel.impl.store.MetaDataStore.Position.RANDOM_NUMBER;
+import static org.neo4j.kernel.impl.store.MetaDataStore.Position.TIME;
+import static org.neo4j.kernel.impl.store.format.RecordFormatSelector.selectForStore;
+import static org.neo4j.kernel.impl.store.record.Record.isNull;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
+import static org.neo4j.kernel.impl.storemigration.FileOperation.COPY;
+import static org.neo4j.kernel.impl.storemigration.RecordStorageMigrator.readAdditionalIds;
+import static org.neo4j.kernel.impl.storemigration.StoreMigratorFileOperation.fileOperation;
+
+/**
+ * Rewrites the node, relationship, relationship group and property stores of a cleanly shut down database so that the records
+ * of each node end up close to each other, using the batch importer in the same way as {@link RecordStorageMigrator} does, only
+ * without changing the format.
+ * <p>
+ * Node ids are kept, so node indexes, the node label index and the dynamic label records stay valid as they are. Relationships are
+ * fed to the importer in node order, each relationship from its start node, which makes the outgoing relationships of a node get
+ * consecutive ids. The importer then lays out the relationship groups of each node next to each other and writes the property
+ * chains of nodes and relationships in the order they are read. Relationship ids are not kept, which is why the relationship type
+ * index is rebuilt by the importer and relationship property indexes are removed, to be re-populated on the next startup.
+ * <p>
+ * Since the transaction logs refer to relationships by their old ids they can't be applied to the rewritten stores. Like after an import,
+ * the database therefore gets a new store id and its transaction logs are replaced by a new log with only a checkpoint, keeping the
+ * last transaction id. Backups and cluster members of the database are not compatible with it afterwards.
+ * <p>
+ * Before and after rewriting, the locality of a sample of nodes is measured as the number of distinct store pages that have to be
+ * visited to read all records of a node, i.e. its relationship groups, relationships and properties.
+ */
+public class RecordStoreDefragmenter
+{
+    private static final String DEFRAGMENT_TAG = "storeDefragmentation";
+    private static final String RELATIONSHIP_CHUNK_DEFRAGMENT_TAG = "relationshipChunkDefragmentation";
+    private static final String NODE_CHUNK_DEFRAGMENT_TAG = "nodeChunkDefragmentation";
+    private static final String DEFRAGMENT_CHECKPOINT_REASON = "Store defragmentation";
+    /**
+     * Directory, inside the temporary directory, that the replaced files are kept in until the new ones are all in place.
+     */
+    static final String ORIGINALS_DIRECTORY = "original";
+    private static final String ORIGINAL_TRANSACTION_LOGS_DIRECTORY = "transactions";
+    static final int DEFAULT_LOCALITY_SAMPLE_SIZE = 10_000;
+
+    /**
+     * The stores that are rewritten by the importer and moved back into the database directory. The token stores, the schema store,
+     * the dynamic label store and the metadata store are left as they are.
+     */
+    private static final List<DatabaseFile> REWRITTEN_STORES = asList(
+            RecordDatabaseFile.NODE_STORE,
+            RecordDatabaseFile.RELATIONSHIP_STORE,
+            RecordDatabaseFile.RELATIONSHIP_GROUP_STORE,
+            RecordDatabaseFile.PROPERTY_STORE,
+            RecordDatabaseFile.PROPERTY_STRING_STORE,
+            RecordDatabaseFile.PROPERTY_ARRAY_STORE,
+            RecordDatabaseFile.COUNTS_STORE,
+            RecordDatabaseFile.RELATIONSHIP_GROUP_DEGREES_STORE );
+
+    /**
+     * The stores that the importer reads as they are and therefore need to be present in the directory it writes to.
+     */
+    private static final List<DatabaseFile> PRESERVED_STORES = asList(
+            RecordDatabaseFile.LABEL_TOKEN_STORE, RecordDatabaseFile.LABEL_TOKEN_NAMES_STORE,
+            RecordDatabaseFile.PROPERTY_KEY_TOKEN_STORE, RecordDatabaseFile.PROPERTY_KEY_TOKEN_NAMES_STORE,
+            RecordDatabaseFile.RELATIONSHIP_TYPE_TOKEN_STORE, RecordDatabaseFile.RELATIONSHIP_TYPE_TOKEN_NAMES_STORE,
+            RecordDatabaseFile.NODE_LABEL_STORE, RecordDatabaseFile.SCHEMA_STORE );
+
+    private final FileSystemAbstraction fileSystem;
+    private final PageCache pageCache;
+    private final Config config;
+    private final LogService logService;
+    private final JobScheduler jobScheduler;
+    private final PageCacheTracer cacheTracer;
+    private final MemoryTracker memoryTracker;
+
+    public RecordStoreDefragmenter( FileSystemAbstraction fileSystem, PageCache pageCache, Config config, LogService logService, JobScheduler jobScheduler,
+            PageCacheTracer cacheTracer, MemoryTracker memoryTracker )
+    {
+        this.fileSystem = fileSystem;
+        this.pageCache = pageCache;
+        this.config = config;
+        this.logService = logService;
+        this.jobScheduler = jobScheduler;
+        this.cacheTracer = cacheTracer;
+        this.memoryTracker = memoryTracker;
+    }
+
+    /**
+     * Rewrites the stores of the database in {@code layout}, using {@code tempLayout} as working directory. The database must not be in use
+     * and must not require recovery.
+     * <p>
+     * The files that are replaced are kept in the temporary directory until all new files are in place and are moved back if replacing them
+     * fails, so that the database is either left as it was or completely defragmented. If even moving them back fails they are left in the
+     * temporary directory, which this method then refuses to use until they have been moved back by hand.
+     *
+     * @param layout the database to defragment.
+     * @param tempLayout directory to write the new stores into before they are moved into {@code layout}, must be outside the database and
+     * transaction logs directories and should be on the same file system partition as {@code layout}. Any existing contents of this directory
+     * are deleted.
+     * @param executionMonitor monitor of the import.
+     * @param indexImporterFactory used for rebuilding the relationship type index.
+     * @param logFilesInitializer used for creating the new transaction log of the database.
+     * @return the locality of the stores before and after rewriting them.
+     * @throws IOException on I/O error.
+     */
+    public Result defragment( RecordDatabaseLayout layout, RecordDatabaseLayout tempLayout, ExecutionMonitor executionMonitor,
+            IndexImporterFactory indexImporterFactory, LogFilesInitializer logFilesInitializer ) throws IOException
+    {
+        RecordFormats format = selectForStore( layout, fileSystem, pageCache, NullLogProvider.getInstance(), cacheTracer );
+        if ( format == null )
+        {
+            throw new IllegalArgumentException( "No record storage database found in " + layout.databaseDirectory() );
+        }
+        Path tempDirectory = tempLayout.databaseDirectory().toAbsolutePath().normalize();
+        if ( tempDirectory.startsWith( layout.databaseDirectory().toAbsolutePath().normalize() ) ||
+             tempDirectory.startsWith( layout.getTransactionLogsDirectory().toAbsolutePath().normalize() ) )
+        {
+            throw new IllegalArgumentException( format( "Temporary directory %s must be outside of the database directory %s and the transaction logs " +
+                    "directory %s", tempDirectory, layout.databaseDirectory(), layout.getTransactionLogsDirectory() ) );
+        }
+        RecordDatabaseLayout originalsLayout = RecordDatabaseLayout.ofFlat( tempLayout.databaseDirectory().resolve( ORIGINALS_DIRECTORY ) );
+        if ( fileSystem.fileExists( originalsLayout.databaseDirectory() ) )
+        {
+            throw new IllegalStateException( format( "Directory %s contains files of database '%s' which an earlier defragmentation failed to move back " +
+                    "into %s and %s. Move them back before defragmenting the database again.", originalsLayout.databaseDirectory(),
+                    layout.getDatabaseName(), layout.databaseDirectory(), layout.getTransactionLogsDirectory() ) );
+        }
+
+        Locality before = measureLocality( layout, format, DEFAULT_LOCALITY_SAMPLE_SIZE );
+        List<IndexDescriptor> relationshipIndexes = relationshipPropertyIndexes( layout, format );
+        boolean hasRelationshipTypeIndex = fileSystem.fileExists( layout.relationshipTypeScanStore() );
+
+        fileSystem.deleteRecursively( tempLayout.databaseDirectory() );
+        fileSystem.mkdirs( tempLayout.databaseDirectory() );
+        prepareTempStore( layout, tempLayout, format );
+        rewriteStores( layout, tempLayout, format, executionMonitor, indexImporterFactory, hasRelationshipTypeIndex );
+
+        List<DatabaseFile> filesToMove = new ArrayList<>( REWRITTEN_STORES );
+        if ( hasRelationshipTypeIndex )
+        {
+            filesToMove.add( CommonDatabaseFile.RELATIONSHIP_TYPE_SCAN_STORE );
+        }
+        replaceStores( layout, tempLayout, originalsLayout, filesToMove, format, logFilesInitializer );
+
+        // Relationship ids have changed so the entries in relationship property indexes are no longer valid. Without their files
+        // these indexes will be re-populated when the database is started.
+        IndexDirectoryStructure.Factory indexDirectories = IndexDirectoryStructure.directoriesByProvider( layout.databaseDirectory() );
+        for ( IndexDescriptor index : relationshipIndexes )
+        {
+            Path indexDirectory = indexDirectories.forProvider( index.getIndexProvider() ).directoryForIndex( index.getId() );
+            fileSystem.deleteRecursively( indexDirectory );
+        }
+        fileSystem.deleteRecursively( tempLayout.databaseDirectory() );
+
+        Locality after = measureLocality( layout, format, DEFAULT_LOCALITY_SAMPLE_SIZE );
+        return new Result( before, after, relationshipIndexes.size() );
+    }
+
+    private void prepareTempStore( RecordDatabaseLayout layout, RecordDatabaseLayout tempLayout, RecordFormats format ) throws IOException
+    {
+        IdGeneratorFactory idGeneratorFactory = new DefaultIdGeneratorFactory( fileSystem, immediate(), tempLayout.getDatabaseName() );
+        createStoreFactory( tempLayout, format, idGeneratorFactory ).openAllNeoStores( true ).close();
+
+        // The importer keeps the token ids and the dynamic label records of the nodes as they are, so it needs those stores.
+        // The schema store is needed for it to find the existing token indexes instead of creating new ones.
+        fileOperation( COPY, fileSystem, layout, tempLayout, PRESERVED_STORES, true, true, ExistingTargetStrategy.OVERWRITE );
+        createStoreFactory( tempLayout, format, new ScanOnOpenOverwritingIdGeneratorFactory( fileSystem, tempLayout.getDatabaseName() ) )
+                .openAllNeoStores().close();
+    }
+
+    /**
+     * Moves the rewritten stores from {@code tempLayout} into {@code layout}, gives the database a new store id and replaces its transaction logs
+     * with a new log. The files that are replaced are first moved, or in the case of the metadata store copied, to {@code originalsLayout}
+     * and are moved back if anything fails.
+     */
+    private void replaceStores( RecordDatabaseLayout layout, RecordDatabaseLayout tempLayout, RecordDatabaseLayout originalsLayout,
+            List<DatabaseFile> files, RecordFormats format, LogFilesInitializer logFilesInitializer ) throws IOException
+    {
+        Path originalLogsDirectory = originalsLayout.databaseDirectory().resolve( ORIGINAL_TRANSACTION_LOGS_DIRECTORY );
+        fileSystem.mkdirs( originalLogsDirectory );
+        List<Path> copiedOriginals = new ArrayList<>();
+        List<Path> movedOriginals = new ArrayList<>();
+        List<Path> movedOriginalLogs = new ArrayList<>();
+        List<Path> replacements = new ArrayList<>();
+        try
+        {
+            for ( Path file : layout.allFiles( CommonDatabaseFile.METADATA_STORE ).collect( toList() ) )
+            {
+                if ( fileSystem.fileExists( file ) )
+                {
+                    fileSystem.copyFile( file, originalsLayout.file( file.getFileName().toString() ) );
+                    copiedOriginals.add( file );
+                }
+            }
+            for ( Path logFile : transactionLogFiles( layout ) )
+            {
+                fileSystem.renameFile( logFile, originalLogsDirectory.resolve( logFile.getFileName() ) );
+                movedOriginalLogs.add( logFile );
+            }
+            for ( DatabaseFile databaseFile : files )
+            {
+                for ( Path file : layout.allFiles( databaseFile ).collect( toList() ) )
+                {
+                    if ( fileSystem.fileExists( file ) )
+                    {
+                        fileSystem.renameFile( file, originalsLayout.file( file.getFileName().toString() ) );
+                        movedOriginals.add( file );
+                    }
+                }
+            }
+            for ( DatabaseFile databaseFile : files )
+            {
+                for ( Path file : tempLayout.allFiles( databaseFile ).collect( toList() ) )
+                {
+                    if ( fileSystem.fileExists( file ) )
+                    {
+                        Path target = layout.file( file.getFileName().toString() );
+                        fileSystem.renameFile( file, target );
+                        replacements.add( target );
+                    }
+                }
+            }
+            resetStoreIdAndTransactionLogs( layout, format, logFilesInitializer );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            try
+            {
+                for ( Path file : replacements )
+                {
+                    fileSystem.deleteFile( file );
+                }
+                for ( Path logFile : transactionLogFiles( layout ) )
+                {
+                    fileSystem.deleteFile( logFile );
+                }
+                for ( Path file : movedOriginals )
+                {
+                    fileSystem.renameFile( originalsLayout.file( file.getFileName().toString() ), file );
+                }
+                for ( Path logFile : movedOriginalLogs )
+                {
+                    fileSystem.renameFile( originalLogsDirectory.resolve( logFile.getFileName() ), logFile );
+                }
+                for ( Path file : copiedOriginals )
+                {
+                    fileSystem.copyFile( originalsLayout.file( file.getFileName().toString() ), file, REPLACE_EXISTING );
+                }
+                fileSystem.deleteRecursively( originalsLayout.databaseDirectory() );
+            }
+            catch ( IOException | RuntimeException restoreFailure )
+            {
+                e.addSuppressed( restoreFailure );
+                throw new IOException( format( "Failed to replace the files of database '%s' and to move the original files back from %s. " +
+                        "They have to be moved back by hand.", layout.getDatabaseName(), originalsLayout.databaseDirectory() ), e );
+            }
+            throw e;
+        }
+    }
+
+    private void resetStoreIdAndTransactionLogs( RecordDatabaseLayout layout, RecordFormats format, LogFilesInitializer logFilesInitializer )
+            throws IOException
+    {
+        try ( var cursorContext = new CursorContext( cacheTracer.createPageCursorTracer( DEFRAGMENT_TAG ) ) )
+        {
+            Path metadataStore = layout.metadataStore();
+            String databaseName = layout.getDatabaseName();
+            StoreId storeId = new StoreId( MetaDataStore.getStoreId( pageCache, metadataStore, databaseName, cursorContext ).getStoreVersion() );
+            MetaDataStore.setRecord( pageCache, metadataStore, TIME, storeId.getCreationTime(), databaseName, cursorContext );
+            MetaDataStore.setRecord( pageCache, metadataStore, RANDOM_NUMBER, storeId.getRandomId(), databaseName, cursorContext );
+        }
+        IdGeneratorFactory idGeneratorFactory = new DefaultIdGeneratorFactory( fileSystem, immediate(), layout.getDatabaseName() );
+        try ( NeoStores stores = createStoreFactory( layout, format, idGeneratorFactory ).openNeoStores( StoreType.META_DATA ) )
+        {
+            logFilesInitializer.initializeLogFiles( layout, stores.getMetaDataStore(), fileSystem, DEFRAGMENT_CHECKPOINT_REASON );
+        }
+    }
+
+    private Path[] transactionLogFiles( RecordDatabaseLayout layout ) throws IOException
+    {
+        return new TransactionLogFilesHelper( fileSystem, layout.getTransactionLogsDirectory() ).getMatchedFiles();
+    }
+
+    private void rewriteStores( RecordDatabaseLayout layout, RecordDatabaseLayout tempLayout, RecordFormats format, ExecutionMonitor executionMonitor,
+            IndexImporterFactory indexImporterFactory, boolean rebuildRelationshipTypeIndex ) throws IOException
+    {
+        try ( NeoStores stores = openReadOnly( layout, format );
+              var storeCursors = new CachedStoreCursors( stores, CursorContext.NULL ) )
+        {
+            try ( var cursorContext = new CursorContext( cacheTracer.createPageCursorTracer( DEFRAGMENT_TAG ) ) )
+            {
+                Path metadataStore = layout.metadataStore();
+                String databaseName = layout.getDatabaseName();
+                var additionalInitialIds = readAdditionalIds(
+                        MetaDataStore.getRecord( pageCache, metadataStore, LAST_TRANSACTION_ID, databaseName, cursorContext ),
+                        (int) MetaDataStore.getRecord( pageCache, metadataStore, LAST_TRANSACTION_CHECKSUM, databaseName, cursorContext ),
+                        MetaDataStore.getRecord( pageCache, metadataStore, LAST_CLOSED_TRANSACTION_LOG_VERSION, databaseName, cursorContext ),
+                        MetaDataStore.getRecord( pageCache, metadataStore, LAST_CLOSED_TRANSACTION_LOG_BYTE_OFFSET, databaseName, cursorContext ),
+                        MetaDataStore.getRecord( pageCache, metadataStore, CHECKPOINT_LOG_VERSION, databaseName, cursorContext ) );
+
+                Configuration importConfig = new Configuration.Overridden( defaultConfiguration( layout.databaseDirectory() ), config )
+                {
+                    @Override
+                    public IndexConfig indexConfig()
+                    {
+                        // The existing relationship type index is found in the copied schema store and written anew
+                        return rebuildRelationshipTypeIndex ? IndexConfig.create().withRelationshipTypeIndex() : IndexConfig.DEFAULT;
+                    }
+                };
+                BatchImporter importer = BatchImporterFactory.withHighestPriority().instantiate( tempLayout, fileSystem, cacheTracer, importConfig,
+                        logService, executionMonitor, additionalInitialIds, config, format, ImportLogic.NO_MONITOR, jobScheduler, Collector.STRICT,
+                        LogFilesInitializer.NULL, indexImporterFactory, memoryTracker );
+                InputIterable nodes = () -> nodesAsInput( stores, storeCursors );
+                InputIterable relationships = () -> relationshipsInNodeOrderAsInput( stores, storeCursors );
+                PropertyStore propertyStore = stores.getPropertyStore();
+                long propertyStoreSize = storeSize( propertyStore ) + storeSize( propertyStore.getStringStore() ) + storeSize( propertyStore.getArrayStore() );
+                Input.Estimates estimates = Input.knownEstimates( stores.getNodeStore().getNumberOfIdsInUse(),
+                        stores.getRelationshipStore().getNumberOfIdsInUse(), propertyStore.getNumberOfIdsInUse(), propertyStore.getNumberOfIdsInUse(),
+                        propertyStoreSize / 2, propertyStoreSize / 2, 0 );
+                importer.doImport( Input.input( nodes, relationships, IdType.ACTUAL, estimates, ReadableGroups.EMPTY ) );
+            }
+        }
+    }
+
+    private List<IndexDescriptor> relationshipPropertyIndexes( RecordDatabaseLayout layout, RecordFormats format )
+    {
+        List<IndexDescriptor> indexes = new ArrayList<>();
+        try ( NeoStores stores = openReadOnly( layout, format );
+              var storeCursors = new CachedStoreCursors( stores, CursorContext.NULL ) )
+        {
+            var schemaRuleAccess = SchemaRuleAccess.getSchemaRuleAccess( stores.getSchemaStore(), StoreTokens.readOnlyTokenHolders( stores, storeCursors ),
+                    stores.getMetaDataStore() );
+            schemaRuleAccess.indexesGetAll( storeCursors ).forEachRemaining( index ->
+            {
+                if ( index.schema().entityType() == EntityType.RELATIONSHIP && !index.isTokenIndex() )
+                {
+                    indexes.add( index );
+                }
+            } );
+        }
+        return indexes;
+    }
+
+    /**
+     * Measures the average number of distinct store pages that have to be visited to read the relationship groups, relationships
+     * and properties of a node, over nodes sampled at even intervals over the node id range.
+     */
+    Locality measureLocality( RecordDatabaseLayout layout, RecordFormats format, int sampleSize )
+    {
+        try ( NeoStores stores = openReadOnly( layout, format );
+              var cursorContext = new CursorContext( cacheTracer.createPageCursorTracer( DEFRAGMENT_TAG ) ) )
+        {
+            NodeStore nodeStore = stores.getNodeStore();
+            RelationshipStore relationshipStore = stores.getRelationshipStore();
+            RelationshipGroupStore groupStore = stores.getRelationshipGroupStore();
+            PropertyStore propertyStore = stores.getPropertyStore();
+            NodeRecord node = nodeStore.newRecord();
+            RelationshipRecord relationship = relationshipStore.newRecord();
+            RelationshipGroupRecord group = groupStore.newRecord();
+            PropertyRecord property = propertyStore.newRecord();
+            MutableLongSet pages = new LongHashSet();
+            long highId = nodeStore.getHighId();
+            long step = max( 1, highId / sampleSize );
+            long sampledNodes = 0;
+            long visitedPages = 0;
+            try ( PageCursor nodeCursor = nodeStore.openPageCursorForReading( 0, cursorContext );
+                  PageCursor relationshipCursor = relationshipStore.openPageCursorForReading( 0, cursorContext );
+                  PageCursor groupCursor = groupStore.openPageCursorForReading( 0, cursorContext );
+                  PageCursor propertyCursor = propertyStore.openPageCursorForReading( 0, cursorContext ) )
+            {
+                for ( long nodeId = 0; nodeId < highId; nodeId += step )
+                {
+                    nodeStore.getRecordByCursor( nodeId, node, CHECK, nodeCursor );
+                    if ( !node.inUse() )
+                    {
+                        continue;
+                    }
+                    pages.clear();
+                    if ( node.isDense() )
+                    {
+                        for ( long groupId = node.getNextRel(); !isNull( groupId ); groupId = group.getNext() )
+                        {
+                            groupStore.getRecordByCursor( groupId, group, CHECK, groupCursor );
+                            if ( !group.inUse() )
+                            {
+                                break;
+                            }
+                            pages.add( pageKey( groupId, groupStore.getRecordsPerPage(), 0 ) );
+                            visitRelationshipChain( nodeId, group.getFirstOut(), relationshipStore, relationship, relationshipCursor, pages );
+                            visitRelationshipChain( nodeId, group.getFirstIn(), relationshipStore, relationship, relationshipCursor, pages );
+                            visitRelationshipChain( nodeId, group.getFirstLoop(), relationshipStore, relationship, relationshipCursor, pages );
+                        }
+                    }
+                    else
+                    {
+                        visitRelationshipChain( nodeId, node.getNextRel(), relationshipStore, relationship, relationshipCursor, pages );
+                    }
+                    for ( long propertyId = node.getNextProp(); !isNull( propertyId ); propertyId = property.getNextProp() )
+                    {
+                        propertyStore.getRecordByCursor( propertyId, property, CHECK, propertyCursor );
+                        if ( !property.inUse() )
+                        {
+                            break;
+                        }
+                        pages.add( pageKey( propertyId, propertyStore.getRecordsPerPage(), 2 ) );
+                    }
+                    sampledNodes++;
+                    visitedPages += pages.size();
+                }
+            }
+            return new Locality( sampledNodes, visitedPages );
+        }
+    }
+
+    private static void visitRelationshipChain( long nodeId, long firstRelationshipId, RelationshipStore store, RelationshipRecord relationship,
+            PageCursor cursor, MutableLongSet pages )
+    {
+        for ( long relationshipId = firstRelationshipId; !isNull( relationshipId ); relationshipId = relationship.getNextRel( nodeId ) )
+        {
+            store.getRecordByCursor( relationshipId, relationship, CHECK, cursor );
+            if ( !relationship.inUse() )
+            {
+                break;
+            }
+            pages.add( pageKey( relationshipId, store.getRecordsPerPage(), 1 ) );
+        }
+    }
+
+    /**
+     * Key of the page of a record, distinct between the node's relationship groups ({@code 0}), relationships ({@code 1}) and properties ({@code 2}).
+     */
+    private static long pageKey( long id, int recordsPerPage, int store )
+    {
+        return (id / recordsPerPage) * 3 + store;
+    }
+
+    private static long storeSize( CommonAbstractStore<?,?> store )
+    {
+        return store.getNumberOfIdsInUse() * store.getRecordSize();
+    }
+
+    private InputIterator nodesAsInput( NeoStores stores, StoreCursors storeCursors )
+    {
+        return new StoreScanAsInputIterator<>( stores.getNodeStore() )
+        {
+            @Override
+            public InputChunk newChunk()
+            {
+                var cursorContext = new CursorContext( cacheTracer.createPageCursorTracer( NODE_CHUNK_DEFRAGMENT_TAG ) );
+                return new RecordStorageMigrator.NodeRecordChunk( new RecordStorageReader( stores ), true, cursorContext, storeCursors, memoryTracker );
+            }
+        };
+    }
+
+    private InputIterator relationshipsInNodeOrderAsInput( NeoStores stores, StoreCursors storeCursors )
+    {
+        return new StoreScanAsInputIterator<>( stores.getNodeStore() )
+        {
+            @Override
+            public InputChunk newChunk()
+            {
+                var cursorContext = new CursorContext( cacheTracer.createPageCursorTracer( RELATIONSHIP_CHUNK_DEFRAGMENT_TAG ) );
+                return new NodeOrderedRelationshipChunk( new RecordStorageReader( stores ), cursorContext, storeCursors, memoryTracker );
+            }
+        };
+    }
+
+    private NeoStores openReadOnly( RecordDatabaseLayout layout, RecordFormats format )
+    {
+        return new StoreFactory( layout, config, new ScanOnOpenReadOnlyIdGeneratorFactory(), pageCache, fileSystem, format, NullLogProvider.getInstance(),
+                cacheTracer, readOnly(), immutable.empty() ).openAllNeoStores();
+    }
+
+    private StoreFactory createStoreFactory( RecordDatabaseLayout layout, RecordFormats format, IdGeneratorFactory idGeneratorFactory )
+    {
+        return new StoreFactory( layout, config, idGeneratorFactory, pageCache, fileSystem, format, NullLogProvider.getInstance(), cacheTracer,
+                writable(), immutable.empty() );
+    }
+
+    /**
+     * Reads the relationships of the nodes in a range of node ids, node by node, where each relationship is read from its start node.
+     */
+    private static class NodeOrderedRelationshipChunk extends StoreScanChunk<StorageRelationshipTraversalCursor>
+    {
+        private final RecordNodeCursor nodeCursor;
+
+        NodeOrderedRelationshipChunk( RecordStorageReader storageReader, CursorContext cursorContext, StoreCursors storeCursors,
+                MemoryTracker memoryTracker )
+        {
+            super( storageReader.allocateRelationshipTraversalCursor( cursorContext, storeCursors ), storageReader, true, cursorContext, storeCursors,
+                    memoryTracker );
+            this.nodeCursor = storageReader.allocateNodeCursor( cursorContext, storeCursors );
+        }
+
+        @Override
+        protected void read( StorageRelationshipTraversalCursor cursor, long id )
+        {
+            nodeCursor.single( id );
+            if ( nodeCursor.next() )
+            {
+                nodeCursor.relationships( cursor, RelationshipSelection.selection( OUTGOING ) );
+            }
+            else
+            {
+                cursor.reset();
+            }
+        }
+
+        @Override
+        void visitRecord( StorageRelationshipTraversalCursor record, InputEntityVisitor visitor )
+        {
+            visitor.startId( record.sourceNodeReference() );
+            visitor.endId( record.targetNodeReference() );
+            visitor.type( record.type() );
+            visitProperties( record, visitor );
+        }
+
+        @Override
+        public void close()
+        {
+            nodeCursor.close();
+            super.close();
+        }
+    }
+
+    /**
+     * Average number of distinct store pages visited when reading all records of a node.
+     */
+    public static class Locality
+    {
+        private final long sampledNodes;
+        private final long visitedPages;
+
+        Locality( long sampledNodes, long visitedPages )
+        {
+            this.sampledNodes = sampledNodes;
+            this.visitedPages = visitedPages;
+        }
+
+        public long sampledNodes()
+        {
+            return sampledNodes;
+        }
+
+        public double pagesPerNode()
+        {
+            return sampledNodes == 0 ? 0 : (double) visitedPages / sampledNodes;
+        }
+    }
+
+    public static class Result
+    {
+        private final Locality before;
+        private final Locality after;
+        private final int droppedRelationshipIndexes;
+
+        Result( Locality before, Locality after, int droppedRelationshipIndexes )
+        {
+            this.before = before;
+            this.after = after;
+            this.droppedRelationshipIndexes = droppedRelationshipIndexes;
+        }
+
+        public Locality before()
+        {
+            return before;
+        }
+
+        public Locality after()
+        {
+            return after;
+        }
+
+        /**
+         * @return number of relationship property indexes that will be re-populated when the database is started.
+         */
+        public int droppedRelationshipIndexes()
+        {
+            return droppedRelationshipIndexes;
+        }
+    }
+}
@@ -82,7 +82,7 @@ abstract class StoreScanChunk<T extends StorageEntityCursor> implements InputChu
         if ( id < endId )
         {
             read( cursor, id );
-            if ( cursor.next() )
+            while ( cursor.next() )
             {
                 visitRecord( cursor, visitor );
                 visitor.endOfEntity();
@@ -21,12 +21,15 @@ package org.neo4j.internal.recordstorage;
 
 import org.junit.jupiter.api.Test;
 
+import org.neo4j.graphdb.Direction;
 import org.neo4j.internal.counts.RelationshipGroupDegreesStore;
 import org.neo4j.kernel.impl.store.NodeStore;
 import org.neo4j.kernel.impl.store.RelationshipGroupStore;
 import org.neo4j.kernel.impl.store.RelationshipStore;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.storageengine.api.RelationshipDirection;
 import org.neo4j.storageengine.api.RelationshipSelection;
 import org.neo4j.storageengine.api.cursor.StoreCursors;
 import org.neo4j.storageengine.util.SingleDegree;
@@ -41,12 +44,14 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.neo4j.io.pagecache.context.CursorContext.NULL;
 import static org.neo4j.kernel.impl.store.record.Record.NO_LABELS_FIELD;
 import static org.neo4j.kernel.impl.store.record.Record.NULL_REFERENCE;
+import static org.neo4j.storageengine.api.RelationshipSelection.selection;
 
 class RecordNodeCursorTest
 {
@@ -126,4 +131,121 @@ class RecordNodeCursorTest
         verify( relationshipStore ).getRecordByCursor( eq( relationshipId ), any(), any(), any() );
         verify( relationshipStore, never() ).getRecordByCursor( eq( nextRelationshipId ), any(), any(), any() );
     }
+
+    @Test
+    void shouldTraverseSparseRelationshipChainOnceForRepeatedDegreeLookups()
+    {
+        // given a sparse node with one outgoing relationship of type 1 and one incoming relationship of type 2
+        NodeStore nodeStore = mock( NodeStore.class );
+        long nodeId = 5;
+        long firstRelationshipId = 99;
+        long secondRelationshipId = 100;
+        when( nodeStore.getHighestPossibleIdInUse( NULL ) ).thenReturn( nodeId + 1 );
+        doAnswer( invocationOnMock ->
+        {
+            long id = invocationOnMock.getArgument( 0 );
+            NodeRecord record = invocationOnMock.getArgument( 1 );
+            record.setId( id );
+            record.initialize( true, NULL_REFERENCE.longValue(), false, firstRelationshipId, NO_LABELS_FIELD.longValue() );
+            return null;
+        } ).when( nodeStore ).getRecordByCursor( eq( nodeId ), any(), any(), any() );
+        RelationshipStore relationshipStore = mock( RelationshipStore.class );
+        doAnswer( invocationOnMock ->
+        {
+            long id = invocationOnMock.getArgument( 0 );
+            RelationshipRecord record = invocationOnMock.getArgument( 1 );
+            record.setId( id );
+            record.initialize( true, NULL_REFERENCE.longValue(), nodeId, nodeId + 10, 1, 2, secondRelationshipId, 1, NULL_REFERENCE.longValue(),
+                    true, true );
+            return null;
+        } ).when( relationshipStore ).getRecordByCursor( eq( firstRelationshipId ), any(), any(), any() );
+        doAnswer( invocationOnMock ->
+        {
+            long id = invocationOnMock.getArgument( 0 );
+            RelationshipRecord record = invocationOnMock.getArgument( 1 );
+            record.setId( id );
+            record.initialize( true, NULL_REFERENCE.longValue(), nodeId + 20, nodeId, 2, 1, NULL_REFERENCE.longValue(), firstRelationshipId,
+                    NULL_REFERENCE.longValue(), true, false );
+            return null;
+        } ).when( relationshipStore ).getRecordByCursor( eq( secondRelationshipId ), any(), any(), any() );
+        RelationshipGroupStore groupStore = mock( RelationshipGroupStore.class );
+        RecordNodeCursor nodeCursor =
+                new RecordNodeCursor( nodeStore, relationshipStore, groupStore, mock( RelationshipGroupDegreesStore.class ), NULL, StoreCursors.NULL );
+
+        // when
+        nodeCursor.single( nodeId );
+        assertThat( nodeCursor.next() ).isTrue();
+
+        // then
+        assertThat( degree( nodeCursor, selection( 1, Direction.OUTGOING ) ) ).isEqualTo( 1 );
+        assertThat( degree( nodeCursor, selection( 1, Direction.INCOMING ) ) ).isEqualTo( 0 );
+        assertThat( degree( nodeCursor, selection( 2, Direction.BOTH ) ) ).isEqualTo( 1 );
+        assertThat( degree( nodeCursor, selection( Direction.INCOMING ) ) ).isEqualTo( 1 );
+        assertThat( nodeCursor.relationshipTypes() ).containsExactlyInAnyOrder( 1, 2 );
+        verify( relationshipStore, times( 1 ) ).getRecordByCursor( eq( firstRelationshipId ), any(), any(), any() );
+        verify( relationshipStore, times( 1 ) ).getRecordByCursor( eq( secondRelationshipId ), any(), any(), any() );
+        verifyNoInteractions( groupStore );
+    }
+
+    @Test
+    void shouldStopReadingDenseGroupChainAfterHighestSelectedType()
+    {
+        // given a dense node with groups of the types 1, 3, 5 and 8, sorted in the chain like they're kept by the store,
+        // with outgoing degree 10 * type and incoming degree type
+        NodeStore nodeStore = mock( NodeStore.class );
+        long nodeId = 5;
+        long firstGroupId = 10;
+        int[] groupTypes = {1, 3, 5, 8};
+        when( nodeStore.getHighestPossibleIdInUse( NULL ) ).thenReturn( nodeId + 1 );
+        doAnswer( invocationOnMock ->
+        {
+            long id = invocationOnMock.getArgument( 0 );
+            NodeRecord record = invocationOnMock.getArgument( 1 );
+            record.setId( id );
+            record.initialize( true, NULL_REFERENCE.longValue(), true, firstGroupId, NO_LABELS_FIELD.longValue() );
+            return null;
+        } ).when( nodeStore ).getRecordByCursor( eq( nodeId ), any(), any(), any() );
+        RelationshipGroupStore groupStore = mock( RelationshipGroupStore.class );
+        RelationshipGroupDegreesStore groupDegreesStore = mock( RelationshipGroupDegreesStore.class );
+        for ( int i = 0; i < groupTypes.length; i++ )
+        {
+            long groupId = firstGroupId + i;
+            int type = groupTypes[i];
+            long nextGroupId = i + 1 < groupTypes.length ? groupId + 1 : NULL_REFERENCE.longValue();
+            doAnswer( invocationOnMock ->
+            {
+                RelationshipGroupRecord record = invocationOnMock.getArgument( 1 );
+                record.setId( groupId );
+                record.initialize( true, type, 100 + groupId, 200 + groupId, NULL_REFERENCE.longValue(), nodeId, nextGroupId );
+                record.setHasExternalDegreesOut( true );
+                record.setHasExternalDegreesIn( true );
+                return null;
+            } ).when( groupStore ).getRecordByCursor( eq( groupId ), any(), any(), any() );
+            when( groupDegreesStore.degree( eq( groupId ), eq( RelationshipDirection.OUTGOING ), any() ) ).thenReturn( 10L * type );
+            when( groupDegreesStore.degree( eq( groupId ), eq( RelationshipDirection.INCOMING ), any() ) ).thenReturn( (long) type );
+        }
+        RecordNodeCursor nodeCursor =
+                new RecordNodeCursor( nodeStore, mock( RelationshipStore.class ), groupStore, groupDegreesStore, NULL, StoreCursors.NULL );
+        nodeCursor.single( nodeId );
+        assertThat( nodeCursor.next() ).isTrue();
+
+        // when/then selecting interleaved, unsorted types, also types the node doesn't have
+        assertThat( degree( nodeCursor, selection( new int[]{5, 1, 3}, Direction.BOTH ) ) ).isEqualTo( 55 + 11 + 33 );
+        assertThat( degree( nodeCursor, selection( new int[]{4, 1}, Direction.OUTGOING ) ) ).isEqualTo( 10 );
+        assertThat( degree( nodeCursor, selection( new int[]{2, 5, 0}, Direction.INCOMING ) ) ).isEqualTo( 5 );
+        assertThat( degree( nodeCursor, selection( 3, Direction.BOTH ) ) ).isEqualTo( 33 );
+        verify( groupStore, never() ).getRecordByCursor( eq( firstGroupId + 3 ), any(), any(), any() );
+
+        // and when selecting the highest type, or types above it
+        assertThat( degree( nodeCursor, selection( new int[]{8, 3}, Direction.OUTGOING ) ) ).isEqualTo( 80 + 30 );
+        assertThat( degree( nodeCursor, selection( new int[]{9, 1}, Direction.BOTH ) ) ).isEqualTo( 11 );
+        assertThat( degree( nodeCursor, selection( Direction.BOTH ) ) ).isEqualTo( 11 + 33 + 55 + 88 );
+    }
+
+    private static int degree( RecordNodeCursor nodeCursor, RelationshipSelection selection )
+    {
+        SingleDegree mutator = new SingleDegree();
+        nodeCursor.degrees( selection, mutator );
+        return mutator.getTotal();
+    }
 }
@@ -264,6 +264,44 @@ public class RecordPropertyCursorTest
         assertThat( valueMapping.isEmpty() ).isTrue();
     }
 
+    @Test
+    void shouldStopReadingChainWhenAllSelectedPropertiesHaveBeenFound()
+    {
+        // given
+        Value[] values = createValues( 20, 20 ); // many enough to create multiple records in the chain
+        long firstProp = storeValuesAsPropertyChain( creator, owner, values );
+
+        // and a cycle on the second record, which would be detected if the chain was read past the first record
+        PropertyStore store = neoStores.getPropertyStore();
+        PropertyRecord firstRecord = getRecord( store, firstProp, NORMAL );
+        PropertyRecord secondRecord = getRecord( store, firstRecord.getNextProp(), NORMAL );
+        secondRecord.setNextProp( firstProp );
+        try ( var cursor = storeCursors.writeCursor( PROPERTY_CURSOR ) )
+        {
+            store.updateRecord( secondRecord, cursor, NULL, storeCursors );
+        }
+        MutableIntObjectMap<Value> valueMapping = IntObjectMaps.mutable.empty();
+        for ( PropertyBlock block : firstRecord )
+        {
+            if ( valueMapping.size() < 2 )
+            {
+                valueMapping.put( block.getKeyIndexId(), values[block.getKeyIndexId()] );
+            }
+        }
+
+        // when
+        RecordPropertyCursor cursor = createCursor();
+        cursor.initNodeProperties( longReference( firstProp ), PropertySelection.selection( valueMapping.keySet().toArray() ) );
+        while ( cursor.next() )
+        {
+            assertThat( cursor.propertyValue() ).isEqualTo( valueMapping.remove( cursor.propertyKey() ) );
+        }
+
+        // then
+        assertThat( valueMapping.isEmpty() ).isTrue();
+        assertThat( cursor.next() ).isFalse();
+    }
+
     protected RecordPropertyCursor createCursor()
     {
         return new RecordPropertyCursor( neoStores.getPropertyStore(), NULL, INSTANCE );
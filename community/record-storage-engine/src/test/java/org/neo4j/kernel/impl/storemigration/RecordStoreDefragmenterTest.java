@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storemigration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.CopyOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.internal.batchimport.AdditionalInitialIds;
+import org.neo4j.internal.batchimport.BatchImporterFactory;
+import org.neo4j.internal.batchimport.Configuration;
+import org.neo4j.internal.batchimport.GeneratingInputIterator;
+import org.neo4j.internal.batchimport.ImportLogic;
+import org.neo4j.internal.batchimport.IndexImporterFactory;
+import org.neo4j.internal.batchimport.input.Collector;
+import org.neo4j.internal.batchimport.input.IdType;
+import org.neo4j.internal.batchimport.input.Input;
+import org.neo4j.internal.batchimport.input.ReadableGroups;
+import org.neo4j.internal.batchimport.staging.ExecutionMonitor;
+import org.neo4j.internal.id.ScanOnOpenReadOnlyIdGeneratorFactory;
+import org.neo4j.internal.recordstorage.RecordNodeCursor;
+import org.neo4j.internal.recordstorage.RecordStorageReader;
+import org.neo4j.io.fs.DelegatingFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.layout.recordstorage.RecordDatabaseLayout;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.context.CursorContext;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.impl.store.MetaDataStore;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.StoreFactory;
+import org.neo4j.kernel.impl.store.cursor.CachedStoreCursors;
+import org.neo4j.kernel.impl.store.format.standard.Standard;
+import org.neo4j.kernel.impl.transaction.log.files.TransactionLogFilesHelper;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.logging.internal.NullLogService;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.LogFilesInitializer;
+import org.neo4j.storageengine.api.StoragePropertyCursor;
+import org.neo4j.storageengine.api.StorageRelationshipTraversalCursor;
+import org.neo4j.storageengine.api.StoreId;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.PageCacheExtension;
+import org.neo4j.test.scheduler.ThreadPoolJobScheduler;
+import org.neo4j.test.utils.TestDirectory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.eclipse.collections.api.factory.Sets.immutable;
+import static org.neo4j.dbms.database.readonly.DatabaseReadOnlyChecker.readOnly;
+import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
+import static org.neo4j.storageengine.api.PropertySelection.ALL_PROPERTIES;
+import static org.neo4j.storageengine.api.RelationshipSelection.ALL_RELATIONSHIPS;
+
+@PageCacheExtension
+class RecordStoreDefragmenterTest
+{
+    private static final int NODES = 1_000;
+    private static final int RELATIONSHIPS = 20_000;
+    private static final long HUB_NODE = 0;
+
+    @Inject
+    private FileSystemAbstraction fs;
+    @Inject
+    private PageCache pageCache;
+    @Inject
+    private TestDirectory directory;
+
+    private JobScheduler jobScheduler;
+    private RecordDatabaseLayout layout;
+    private Path tempDirectory;
+    private Path transactionLog;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        jobScheduler = new ThreadPoolJobScheduler();
+        layout = RecordDatabaseLayout.ofFlat( directory.directory( "db" ) );
+        tempDirectory = directory.file( "temp" );
+        importScatteredRelationships( layout );
+        // The importer doesn't write any transaction log, this one stands in for the log of the database
+        transactionLog = layout.getTransactionLogsDirectory().resolve( TransactionLogFilesHelper.DEFAULT_NAME + ".0" );
+        fs.write( transactionLog ).close();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception
+    {
+        jobScheduler.close();
+    }
+
+    @Test
+    void shouldKeepRelationshipsAndPropertiesOfNodesAndImproveLocality() throws IOException
+    {
+        // given a store where the relationships of each node are spread out over the relationship store
+        List<List<String>> contentsBefore = contentsPerNode( layout );
+        StoreId storeIdBefore = storeId( layout );
+        AtomicInteger initializedLogs = new AtomicInteger();
+
+        // when
+        RecordStoreDefragmenter.Result result = defragmenter( fs ).defragment( layout, RecordDatabaseLayout.ofFlat( tempDirectory ),
+                ExecutionMonitor.INVISIBLE, IndexImporterFactory.EMPTY, ( databaseLayout, store, fileSystem, reason ) -> initializedLogs.incrementAndGet() );
+
+        // then
+        assertThat( contentsPerNode( layout ) ).isEqualTo( contentsBefore );
+        assertThat( contentsBefore.get( (int) HUB_NODE ) ).contains( "dense" );
+        assertThat( result.before().sampledNodes() ).isEqualTo( NODES );
+        assertThat( result.after().sampledNodes() ).isEqualTo( NODES );
+        assertThat( result.after().pagesPerNode() ).isLessThan( result.before().pagesPerNode() );
+        assertThat( fs.fileExists( tempDirectory ) ).isFalse();
+
+        StoreId storeIdAfter = storeId( layout );
+        assertThat( storeIdAfter.getStoreVersion() ).isEqualTo( storeIdBefore.getStoreVersion() );
+        assertThat( storeIdAfter.getRandomId() ).isNotEqualTo( storeIdBefore.getRandomId() );
+        assertThat( fs.fileExists( transactionLog ) ).isFalse();
+        assertThat( initializedLogs.get() ).isEqualTo( 1 );
+    }
+
+    @Test
+    void shouldMoveOriginalFilesBackIfReplacingThemFails() throws IOException
+    {
+        // given
+        List<List<String>> contentsBefore = contentsPerNode( layout );
+        StoreId storeIdBefore = storeId( layout );
+        Path failingTarget = layout.relationshipStore();
+        AtomicBoolean failed = new AtomicBoolean();
+        FileSystemAbstraction failingFs = new DelegatingFileSystemAbstraction( fs )
+        {
+            @Override
+            public void renameFile( Path from, Path to, CopyOption... copyOptions ) throws IOException
+            {
+                if ( to.equals( failingTarget ) && failed.compareAndSet( false, true ) )
+                {
+                    throw new IOException( "Simulated failure" );
+                }
+                super.renameFile( from, to, copyOptions );
+            }
+        };
+
+        // when
+        assertThatThrownBy( () -> defragmenter( failingFs ).defragment( layout, RecordDatabaseLayout.ofFlat( tempDirectory ), ExecutionMonitor.INVISIBLE,
+                IndexImporterFactory.EMPTY, LogFilesInitializer.NULL ) ).isInstanceOf( IOException.class ).hasMessage( "Simulated failure" );
+
+        // then
+        assertOriginalDatabase( contentsBefore, storeIdBefore );
+
+        // and when the cause of the failure is gone
+        defragmenter( fs ).defragment( layout, RecordDatabaseLayout.ofFlat( tempDirectory ), ExecutionMonitor.INVISIBLE, IndexImporterFactory.EMPTY,
+                LogFilesInitializer.NULL );
+
+        // then
+        assertThat( contentsPerNode( layout ) ).isEqualTo( contentsBefore );
+        assertThat( storeId( layout ).getRandomId() ).isNotEqualTo( storeIdBefore.getRandomId() );
+    }
+
+    @Test
+    void shouldMoveOriginalFilesBackIfInitializingTransactionLogFails() throws IOException
+    {
+        // given
+        List<List<String>> contentsBefore = contentsPerNode( layout );
+        StoreId storeIdBefore = storeId( layout );
+        LogFilesInitializer failingInitializer = ( databaseLayout, store, fileSystem, reason ) ->
+        {
+            throw new IllegalStateException( "Simulated failure" );
+        };
+
+        // when
+        assertThatThrownBy( () -> defragmenter( fs ).defragment( layout, RecordDatabaseLayout.ofFlat( tempDirectory ), ExecutionMonitor.INVISIBLE,
+                IndexImporterFactory.EMPTY, failingInitializer ) ).isInstanceOf( IllegalStateException.class ).hasMessage( "Simulated failure" );
+
+        // then
+        assertOriginalDatabase( contentsBefore, storeIdBefore );
+    }
+
+    @Test
+    void shouldNotUseTemporaryDirectoryInsideDatabaseDirectory()
+    {
+        RecordDatabaseLayout tempLayout = RecordDatabaseLayout.ofFlat( layout.databaseDirectory().resolve( "temp" ) );
+
+        assertThatThrownBy( () -> defragmenter( fs ).defragment( layout, tempLayout, ExecutionMonitor.INVISIBLE, IndexImporterFactory.EMPTY,
+                LogFilesInitializer.NULL ) ).isInstanceOf( IllegalArgumentException.class ).hasMessageContaining( "must be outside of the database directory" );
+    }
+
+    @Test
+    void shouldNotOverwriteOriginalFilesLeftByEarlierFailure() throws IOException
+    {
+        // given
+        Path leftover = tempDirectory.resolve( RecordStoreDefragmenter.ORIGINALS_DIRECTORY ).resolve( layout.nodeStore().getFileName() );
+        fs.mkdirs( leftover.getParent() );
+        fs.write( leftover ).close();
+
+        // when
+        assertThatThrownBy( () -> defragmenter( fs ).defragment( layout, RecordDatabaseLayout.ofFlat( tempDirectory ), ExecutionMonitor.INVISIBLE,
+                IndexImporterFactory.EMPTY, LogFilesInitializer.NULL ) ).isInstanceOf( IllegalStateException.class ).hasMessageContaining( "Move them back" );
+
+        // then
+        assertThat( fs.fileExists( leftover ) ).isTrue();
+    }
+
+    private RecordStoreDefragmenter defragmenter( FileSystemAbstraction fileSystem )
+    {
+        return new RecordStoreDefragmenter( fileSystem, pageCache, Config.defaults(), NullLogService.getInstance(), jobScheduler, PageCacheTracer.NULL,
+                INSTANCE );
+    }
+
+    private void assertOriginalDatabase( List<List<String>> contentsBefore, StoreId storeIdBefore ) throws IOException
+    {
+        assertThat( contentsPerNode( layout ) ).isEqualTo( contentsBefore );
+        assertThat( storeId( layout ) ).isEqualTo( storeIdBefore );
+        assertThat( fs.fileExists( transactionLog ) ).isTrue();
+        assertThat( fs.fileExists( tempDirectory.resolve( RecordStoreDefragmenter.ORIGINALS_DIRECTORY ) ) ).isFalse();
+    }
+
+    private StoreId storeId( RecordDatabaseLayout layout ) throws IOException
+    {
+        return MetaDataStore.getStoreId( pageCache, layout.metadataStore(), layout.getDatabaseName(), CursorContext.NULL );
+    }
+
+    private void importScatteredRelationships( RecordDatabaseLayout layout ) throws IOException
+    {
+        var importer = BatchImporterFactory.withHighestPriority().instantiate( layout, fs, PageCacheTracer.NULL, Configuration.DEFAULT,
+                NullLogService.getInstance(), ExecutionMonitor.INVISIBLE, AdditionalInitialIds.EMPTY, Config.defaults(), Standard.LATEST_RECORD_FORMATS,
+                ImportLogic.NO_MONITOR, jobScheduler, Collector.EMPTY, LogFilesInitializer.NULL, IndexImporterFactory.EMPTY, INSTANCE );
+        var nodes = new GeneratingInputIterator<Void>( NODES, 100, batch -> null, ( state, visitor, id ) ->
+        {
+            visitor.id( id );
+            visitor.labels( new String[]{"Label"} );
+            visitor.property( "name", "node-" + id );
+            // Long enough to need dynamic string and array records
+            visitor.property( "description", "description of node " + id + " ".repeat( 100 ) + id );
+            visitor.property( "scores", new long[]{id, id * 2, id * 3, Long.MAX_VALUE - id, Long.MIN_VALUE + id, id * 5, id * 7, id * 11} );
+        }, 0 );
+        // Relationships are imported in the order of their ids, which are unrelated to the nodes they connect. Every tenth one
+        // starts at the hub node, which makes it dense.
+        var relationships = new GeneratingInputIterator<Void>( RELATIONSHIPS, 100, batch -> null, ( state, visitor, id ) ->
+        {
+            SplittableRandom random = new SplittableRandom( id );
+            visitor.startId( id % 10 == 0 ? HUB_NODE : random.nextInt( NODES ) );
+            visitor.endId( random.nextInt( NODES ) );
+            visitor.type( id % 3 == 0 ? "KNOWS" : id % 3 == 1 ? "LIKES" : "FOLLOWS" );
+            visitor.property( "weight", id );
+            if ( id % 7 == 0 )
+            {
+                visitor.property( "note", "note on relationship " + id + " ".repeat( 100 ) + id );
+            }
+        }, 0 );
+        importer.doImport( Input.input( () -> nodes, () -> relationships, IdType.ACTUAL, Input.knownEstimates( NODES, RELATIONSHIPS, NODES * 3,
+                RELATIONSHIPS * 2, NODES * 300, RELATIONSHIPS * 50, NODES ), ReadableGroups.EMPTY ) );
+    }
+
+    /**
+     * The properties, the relationships with their properties and, for dense nodes, the relationship types of the groups of each node,
+     * without relationship ids since those are not kept.
+     */
+    private List<List<String>> contentsPerNode( RecordDatabaseLayout layout )
+    {
+        List<List<String>> contentsPerNode = new ArrayList<>();
+        try ( NeoStores stores = new StoreFactory( layout, Config.defaults(), new ScanOnOpenReadOnlyIdGeneratorFactory(), pageCache, fs,
+                Standard.LATEST_RECORD_FORMATS, NullLogProvider.getInstance(), PageCacheTracer.NULL, readOnly(), immutable.empty() ).openAllNeoStores();
+              var storeCursors = new CachedStoreCursors( stores, CursorContext.NULL ) )
+        {
+            RecordStorageReader reader = new RecordStorageReader( stores );
+            try ( RecordNodeCursor nodeCursor = reader.allocateNodeCursor( CursorContext.NULL, storeCursors );
+                  StorageRelationshipTraversalCursor relationshipCursor = reader.allocateRelationshipTraversalCursor( CursorContext.NULL, storeCursors );
+                  StoragePropertyCursor propertyCursor = reader.allocatePropertyCursor( CursorContext.NULL, storeCursors, INSTANCE ) )
+            {
+                for ( long nodeId = 0; nodeId < NODES; nodeId++ )
+                {
+                    List<String> contents = new ArrayList<>();
+                    nodeCursor.single( nodeId );
+                    assertThat( nodeCursor.next() ).isTrue();
+                    nodeCursor.properties( propertyCursor, ALL_PROPERTIES );
+                    contents.add( properties( propertyCursor ) );
+                    if ( nodeCursor.isDense() )
+                    {
+                        contents.add( "dense" );
+                        contents.add( "groups " + Arrays.toString( nodeCursor.relationshipTypes() ) );
+                    }
+                    nodeCursor.relationships( relationshipCursor, ALL_RELATIONSHIPS );
+                    while ( relationshipCursor.next() )
+                    {
+                        relationshipCursor.properties( propertyCursor, ALL_PROPERTIES );
+                        contents.add( relationshipCursor.sourceNodeReference() + "-" + relationshipCursor.type() + "->" +
+                                relationshipCursor.targetNodeReference() + " " + properties( propertyCursor ) );
+                    }
+                    contents.sort( String::compareTo );
+                    contentsPerNode.add( contents );
+                }
+            }
+        }
+        return contentsPerNode;
+    }
+
+    private static String properties( StoragePropertyCursor propertyCursor )
+    {
+        List<String> properties = new ArrayList<>();
+        while ( propertyCursor.next() )
+        {
+            properties.add( propertyCursor.propertyKey() + "=" + propertyCursor.propertyValue().prettyPrint() );
+        }
+        properties.sort( String::compareTo );
+        assertThat( properties ).isNotEmpty();
+        return properties.toString();
+    }
+}
@@ -19,35 +19,53 @@
  */
 package org.neo4j.internal.counts;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Function;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToLongFunction;
+
+import org.neo4j.internal.counts.GBPTreeGenericCountsStore.CountVisitor;
 import org.neo4j.util.Preconditions;
 
 /**
- * Changes to counts, kept as {@link AtomicLong} to allow for concurrent threads incrementing/decrementing.
+ * Changes to counts, kept as absolute counts in primitive cells to allow for concurrent threads incrementing/decrementing.
  * As part of checkpoint a new instance is created and the old (now immutable) instance accessible to read from while those counts are written to
  * the backing tree.
+ * <p>
+ * The changes are split into stripes, by hash of the key, where every stripe is an open-addressing hash table of primitive keys, i.e. the
+ * {@link CountsKey#type}, {@link CountsKey#first} and {@link CountsKey#second} of a key, pointing to a cell holding its count.
+ * Looking up a key and changing its count is lock-free and allocation-free, only inserting a key not seen before in this instance
+ * synchronizes on its stripe. Cells never move, even when a stripe grows, so that a count change can't be lost by a concurrent insert.
  */
 class CountsChanges
 {
     static final long ABSENT = -1;
 
-    private final ConcurrentHashMap<CountsKey,AtomicLong> changes = new ConcurrentHashMap<>();
-    private volatile ConcurrentHashMap<CountsKey,AtomicLong> previousChanges;
+    private static final int NUMBER_OF_STRIPES = 64;
+    private static final int STRIPE_MASK = NUMBER_OF_STRIPES - 1;
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+    private static final int CELL_CHUNK_SHIFT = 8;
+    private static final int CELL_CHUNK_SIZE = 1 << CELL_CHUNK_SHIFT;
+    private static final int CELL_CHUNK_MASK = CELL_CHUNK_SIZE - 1;
+
+    private final Stripe[] stripes = new Stripe[NUMBER_OF_STRIPES];
+    private volatile CountsChanges previousChanges;
     private volatile boolean frozen;
 
     CountsChanges()
     {
+        for ( int i = 0; i < NUMBER_OF_STRIPES; i++ )
+        {
+            stripes[i] = new Stripe();
+        }
     }
 
-    private CountsChanges( ConcurrentHashMap<CountsKey,AtomicLong> previousChanges )
+    private CountsChanges( CountsChanges previousChanges )
     {
+        this();
         this.previousChanges = previousChanges;
     }
 
@@ -59,7 +77,7 @@ class CountsChanges
     CountsChanges freezeAndFork()
     {
         frozen = true;
-        return new CountsChanges( changes );
+        return new CountsChanges( this );
     }
 
     /**
@@ -77,32 +95,64 @@ class CountsChanges
      * @param delta the delta for the count, can be positive or negative.
      * @param defaultToStoredCount where to read the absolute count if it isn't already loaded into this instance (or the "old" instance).
      */
-    void add( CountsKey key, long delta, Function<CountsKey,AtomicLong> defaultToStoredCount )
+    void add( CountsKey key, long delta, ToLongFunction<CountsKey> defaultToStoredCount )
     {
         Preconditions.checkState( !frozen, "Can't make changes in a frozen state" );
-        getCounter( key, defaultToStoredCount ).addAndGet( delta );
+        int hash = hash( key );
+        Stripe stripe = stripes[hash & STRIPE_MASK];
+        int cell = stripe.find( key, hash );
+        if ( cell == -1 )
+        {
+            // The count can be loaded outside of the stripe lock: neither the "old" instance nor the backing tree change while changes are made
+            cell = stripe.insert( key, hash, storedCount( key, defaultToStoredCount ) );
+        }
+        stripe.addToCell( cell, delta );
     }
 
-    private AtomicLong getCounter( CountsKey key, Function<CountsKey,AtomicLong> defaultToStoredCount )
+    private long storedCount( CountsKey key, ToLongFunction<CountsKey> defaultToStoredCount )
     {
-        ConcurrentHashMap<CountsKey,AtomicLong> prev = previousChanges;
-        Function<CountsKey,AtomicLong> defaultFunction = prev == null ? defaultToStoredCount : k ->
+        CountsChanges prev = previousChanges;
+        if ( prev != null )
         {
-            AtomicLong prevCount = prev.get( k );
-            if ( prevCount != null )
+            long prevCount = prev.getLocal( key );
+            if ( prevCount != ABSENT )
             {
-                return new AtomicLong( prevCount.get() );
+                return prevCount;
             }
-            return defaultToStoredCount.apply( k );
-        };
-        return changes.computeIfAbsent( key, defaultFunction );
+        }
+        return defaultToStoredCount.applyAsLong( key );
     }
 
-    Iterable<Map.Entry<CountsKey,AtomicLong>> sortedChanges( Comparator<CountsKey> comparator )
+    /**
+     * Visits all changes in the order of {@link CountsLayout}, i.e. the order of the backing tree. Rather than copying and sorting all changes
+     * as a whole, the keys of every stripe are sorted on their own and the stripes merged as the changes are visited.
+     * The {@link CountsKey} instance passed to the visitor is reused between calls.
+     *
+     * @param visitor receives every key and its absolute count.
+     */
+    void visitSortedChanges( CountVisitor visitor )
     {
-        List<Map.Entry<CountsKey,AtomicLong>> sortedChanges = new ArrayList<>( changes.entrySet() );
-        sortedChanges.sort( ( e1, e2 ) -> comparator.compare( e1.getKey(), e2.getKey() ) );
-        return sortedChanges;
+        PriorityQueue<SortedStripe> queue = new PriorityQueue<>( NUMBER_OF_STRIPES, SortedStripe::compareTo );
+        for ( Stripe stripe : stripes )
+        {
+            SortedStripe sortedStripe = stripe.sorted();
+            if ( sortedStripe.next() )
+            {
+                queue.add( sortedStripe );
+            }
+        }
+
+        CountsKey key = new CountsKey();
+        while ( !queue.isEmpty() )
+        {
+            SortedStripe sortedStripe = queue.poll();
+            sortedStripe.key( key );
+            visitor.visit( key, sortedStripe.count() );
+            if ( sortedStripe.next() )
+            {
+                queue.add( sortedStripe );
+            }
+        }
     }
 
     /**
@@ -111,12 +161,18 @@ class CountsChanges
      */
     boolean containsChange( CountsKey key )
     {
-        if ( changes.containsKey( key ) )
+        if ( contains( key ) )
         {
             return true;
         }
-        ConcurrentHashMap<CountsKey,AtomicLong> prev = previousChanges;
-        return prev != null && prev.containsKey( key );
+        CountsChanges prev = previousChanges;
+        return prev != null && prev.contains( key );
+    }
+
+    private boolean contains( CountsKey key )
+    {
+        int hash = hash( key );
+        return stripes[hash & STRIPE_MASK].find( key, hash ) != -1;
     }
 
     /**
@@ -126,25 +182,257 @@ class CountsChanges
      */
     long get( CountsKey key )
     {
-        AtomicLong count = changes.get( key );
-        if ( count != null )
+        long count = getLocal( key );
+        if ( count != ABSENT )
         {
-            return count.get();
+            return count;
         }
-        ConcurrentHashMap<CountsKey,AtomicLong> prev = previousChanges;
-        if ( prev != null )
+        CountsChanges prev = previousChanges;
+        return prev != null ? prev.getLocal( key ) : ABSENT;
+    }
+
+    private long getLocal( CountsKey key )
+    {
+        int hash = hash( key );
+        Stripe stripe = stripes[hash & STRIPE_MASK];
+        int cell = stripe.find( key, hash );
+        return cell != -1 ? stripe.cellCount( cell ) : ABSENT;
+    }
+
+    int size()
+    {
+        int size = 0;
+        for ( Stripe stripe : stripes )
+        {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    private static int hash( CountsKey key )
+    {
+        return hash( key.type, key.first, key.second );
+    }
+
+    private static int hash( byte type, long first, int second )
+    {
+        long hash = first * 0x9E3779B97F4A7C15L + (((long) second << Byte.SIZE) | (type & 0xFF));
+        hash *= 0xC2B2AE3D27D4EB4FL;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static int compare( byte type1, long first1, int second1, byte type2, long first2, int second2 )
+    {
+        // Same order as CountsLayout
+        int typeCompare = Byte.compare( type1, type2 );
+        if ( typeCompare != 0 )
+        {
+            return typeCompare;
+        }
+        int firstCompare = Long.compare( first1, first2 );
+        return firstCompare != 0 ? firstCompare : Integer.compare( second1, second2 );
+    }
+
+    /**
+     * Open-addressing hash table of the keys of one stripe and the cells of their counts.
+     */
+    private static class Stripe
+    {
+        private volatile Slots slots = new Slots( INITIAL_STRIPE_CAPACITY );
+        private volatile AtomicLongArray[] cellChunks = new AtomicLongArray[0];
+        // Written when inserting, under the stripe lock
+        private volatile int size;
+
+        /**
+         * @return cell of the given key, or -1 if it isn't in this stripe.
+         */
+        int find( CountsKey key, int hash )
+        {
+            return slots.find( key.type, key.first, key.second, hash );
+        }
+
+        synchronized int insert( CountsKey key, int hash, long initialCount )
+        {
+            Slots current = slots;
+            int cell = current.find( key.type, key.first, key.second, hash );
+            if ( cell != -1 )
+            {
+                // Someone else inserted it, between looking it up and acquiring the lock
+                return cell;
+            }
+
+            cell = size;
+            AtomicLongArray[] chunks = cellChunks;
+            if ( cell >>> CELL_CHUNK_SHIFT == chunks.length )
+            {
+                chunks = Arrays.copyOf( chunks, chunks.length + 1 );
+                chunks[chunks.length - 1] = new AtomicLongArray( CELL_CHUNK_SIZE );
+                cellChunks = chunks;
+            }
+            chunks[cell >>> CELL_CHUNK_SHIFT].set( cell & CELL_CHUNK_MASK, initialCount );
+
+            if ( (cell + 1) * 2 > current.capacity() )
+            {
+                // Readers may still be looking in the old slots, which are left as they are, only copied
+                current = current.grow();
+            }
+            current.insert( key.type, key.first, key.second, hash, cell );
+            slots = current;
+            size = cell + 1;
+            return cell;
+        }
+
+        void addToCell( int cell, long delta )
         {
-            AtomicLong prevCount = prev.get( key );
-            if ( prevCount != null )
+            cellChunks[cell >>> CELL_CHUNK_SHIFT].addAndGet( cell & CELL_CHUNK_MASK, delta );
+        }
+
+        long cellCount( int cell )
+        {
+            return cellChunks[cell >>> CELL_CHUNK_SHIFT].get( cell & CELL_CHUNK_MASK );
+        }
+
+        SortedStripe sorted()
+        {
+            Slots current = slots;
+            IntArrayList sortedSlots = new IntArrayList( size );
+            for ( int slot = 0; slot < current.capacity(); slot++ )
             {
-                return prevCount.get();
+                if ( current.cellRefs.get( slot ) != 0 )
+                {
+                    sortedSlots.add( slot );
+                }
             }
+            sortedSlots.sortThis( ( slot1, slot2 ) -> compare(
+                    current.types[slot1], current.firsts[slot1], current.seconds[slot1],
+                    current.types[slot2], current.firsts[slot2], current.seconds[slot2] ) );
+            return new SortedStripe( this, current, sortedSlots );
         }
-        return ABSENT;
     }
 
-    int size()
+    /**
+     * Keys of a stripe. A slot is taken when its cell reference, i.e. cell + 1, is non-zero. The cell reference is written after the key,
+     * which makes the key visible to lock-free readers seeing the cell reference.
+     */
+    private static class Slots
+    {
+        private final byte[] types;
+        private final long[] firsts;
+        private final int[] seconds;
+        private final AtomicIntegerArray cellRefs;
+        private final int mask;
+
+        Slots( int capacity )
+        {
+            types = new byte[capacity];
+            firsts = new long[capacity];
+            seconds = new int[capacity];
+            cellRefs = new AtomicIntegerArray( capacity );
+            mask = capacity - 1;
+        }
+
+        int capacity()
+        {
+            return types.length;
+        }
+
+        int find( byte type, long first, int second, int hash )
+        {
+            for ( int slot = startSlot( hash ); ; slot = (slot + 1) & mask )
+            {
+                int cellRef = cellRefs.get( slot );
+                if ( cellRef == 0 )
+                {
+                    return -1;
+                }
+                if ( firsts[slot] == first && seconds[slot] == second && types[slot] == type )
+                {
+                    return cellRef - 1;
+                }
+            }
+        }
+
+        void insert( byte type, long first, int second, int hash, int cell )
+        {
+            int slot = startSlot( hash );
+            while ( cellRefs.get( slot ) != 0 )
+            {
+                slot = (slot + 1) & mask;
+            }
+            types[slot] = type;
+            firsts[slot] = first;
+            seconds[slot] = second;
+            cellRefs.set( slot, cell + 1 );
+        }
+
+        Slots grow()
+        {
+            Slots grown = new Slots( capacity() * 2 );
+            for ( int slot = 0; slot < capacity(); slot++ )
+            {
+                int cellRef = cellRefs.get( slot );
+                if ( cellRef != 0 )
+                {
+                    byte type = types[slot];
+                    long first = firsts[slot];
+                    int second = seconds[slot];
+                    grown.insert( type, first, second, hash( type, first, second ), cellRef - 1 );
+                }
+            }
+            return grown;
+        }
+
+        private int startSlot( int hash )
+        {
+            // The lowest bits select the stripe, so use the other bits for the slot
+            return (hash >>> Integer.numberOfTrailingZeros( NUMBER_OF_STRIPES )) & mask;
+        }
+
+    }
+
+    /**
+     * Cursor over the keys of a stripe, in sorted order.
+     */
+    private static class SortedStripe implements Comparable<SortedStripe>
     {
-        return changes.size();
+        private final Stripe stripe;
+        private final Slots slots;
+        private final IntArrayList sortedSlots;
+        private int index = -1;
+        private int slot;
+
+        SortedStripe( Stripe stripe, Slots slots, IntArrayList sortedSlots )
+        {
+            this.stripe = stripe;
+            this.slots = slots;
+            this.sortedSlots = sortedSlots;
+        }
+
+        boolean next()
+        {
+            if ( ++index < sortedSlots.size() )
+            {
+                slot = sortedSlots.get( index );
+                return true;
+            }
+            return false;
+        }
+
+        void key( CountsKey into )
+        {
+            into.initialize( slots.types[slot], slots.firsts[slot], slots.seconds[slot] );
+        }
+
+        long count()
+        {
+            return stripe.cellCount( slots.cellRefs.get( slot ) - 1 );
+        }
+
+        @Override
+        public int compareTo( SortedStripe other )
+        {
+            return compare( slots.types[slot], slots.firsts[slot], slots.seconds[slot],
+                    other.slots.types[other.slot], other.slots.firsts[other.slot], other.slots.seconds[other.slot] );
+        }
     }
 }
@@ -21,9 +21,6 @@ package org.neo4j.internal.counts;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.util.Comparator;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Function;
 import java.util.function.ToLongFunction;
 
 import org.neo4j.function.ThrowingSupplier;
@@ -38,19 +35,17 @@ import org.neo4j.logging.LogProvider;
 class DeltaTreeWriter implements CountUpdater.CountWriter
 {
     private final ThrowingSupplier<Writer<CountsKey,CountsValue>,IOException> treeWriter;
-    private final Function<CountsKey,AtomicLong> defaultToStoredCount;
-    private final Comparator<CountsKey> comparator;
+    private final ToLongFunction<CountsKey> defaultToStoredCount;
     private final int maxCacheSize;
     private final LogProvider userLogProvider;
     private CountsChanges changes = new CountsChanges();
     private int changeCounter;
 
     DeltaTreeWriter( ThrowingSupplier<Writer<CountsKey,CountsValue>,IOException> treeWriter, ToLongFunction<CountsKey> lookup,
-            Comparator<CountsKey> comparator, int maxCacheSize, LogProvider userLogProvider )
+            int maxCacheSize, LogProvider userLogProvider )
     {
         this.treeWriter = treeWriter;
-        this.defaultToStoredCount = k -> new AtomicLong( lookup.applyAsLong( k ) );
-        this.comparator = comparator;
+        this.defaultToStoredCount = lookup;
         this.maxCacheSize = maxCacheSize;
         this.userLogProvider = userLogProvider;
     }
@@ -74,7 +69,7 @@ class DeltaTreeWriter implements CountUpdater.CountWriter
     {
         try ( TreeWriter writer = new TreeWriter( treeWriter.get(), userLogProvider ) )
         {
-            changes.sortedChanges( comparator ).forEach( entry -> writer.write( entry.getKey(), entry.getValue().get() ) );
+            changes.visitSortedChanges( writer::write );
         }
         catch ( IOException e )
         {
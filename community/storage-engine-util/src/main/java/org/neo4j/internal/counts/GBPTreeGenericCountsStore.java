@@ -27,8 +27,6 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -256,7 +254,7 @@ public class GBPTreeGenericCountsStore implements CountsStorage
         try
         {
             CountUpdater.CountWriter writer = applyDeltas
-                    ? new DeltaTreeWriter( () -> tree.writer( cursorContext ), key -> readCountFromTree( key, cursorContext ), layout, maxCacheSize,
+                    ? new DeltaTreeWriter( () -> tree.writer( cursorContext ), key -> readCountFromTree( key, cursorContext ), maxCacheSize,
                     userLogProvider )
                     : new TreeWriter( tree.writer( cursorContext ), userLogProvider );
             CountUpdater updater = new CountUpdater( writer, lock );
@@ -346,7 +344,7 @@ public class GBPTreeGenericCountsStore implements CountsStorage
         try ( TreeWriter writer = new TreeWriter( tree.unsafeWriter( cursorContext ), userLogProvider ) )
         {
             // Sort the entries in the natural tree order to get more performance in the writer
-            changes.sortedChanges( layout ).forEach( entry -> writer.write( entry.getKey(), entry.getValue().get() ) );
+            changes.visitSortedChanges( writer::write );
         }
     }
 
@@ -392,14 +390,14 @@ public class GBPTreeGenericCountsStore implements CountsStorage
     public void visitAllCounts( CountVisitor visitor, CursorContext cursorContext )
     {
         // First visit the changes that we haven't check-pointed yet
-        for ( Map.Entry<CountsKey,AtomicLong> changedEntry : changes.sortedChanges( layout ) )
+        changes.visitSortedChanges( ( key, count ) ->
         {
             // Our simplistic approach to the changes map makes it contain 0 counts at times, we don't remove entries from it
-            if ( changedEntry.getValue().get() != 0 )
+            if ( count != 0 )
             {
-                visitor.visit( changedEntry.getKey(), changedEntry.getValue().get() );
+                visitor.visit( key, count );
             }
-        }
+        } );
 
         // Then visit the remaining stored changes from the last check-point
         try ( Seeker<CountsKey,CountsValue> seek = tree.seek( CountsKey.MIN_COUNT, CountsKey.MAX_COUNT, cursorContext ) )
@@ -424,7 +422,7 @@ public class GBPTreeGenericCountsStore implements CountsStorage
      * (where changes are written to the tree) can only be done if the write-lock is acquired. For plain unmodified reads this is read from the tree
      * without a lock, which is fine and follows general transaction isolation guarantees.
      * @param key count value to read from the tree.
-     * @return AtomicLong with the read count, or initialized to 0 if the count didn't exist in the tree.
+     * @return the read count, or 0 if the count didn't exist in the tree.
      */
     private long readCountFromTree( CountsKey key, CursorContext cursorContext )
     {
@@ -26,15 +26,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 import org.neo4j.test.Race;
 import org.neo4j.test.RandomSupport;
@@ -53,7 +51,7 @@ class CountsChangesTest
     @Inject
     private RandomSupport random;
 
-    private static final Function<CountsKey,AtomicLong> NOT_STORED = key -> new AtomicLong();
+    private static final ToLongFunction<CountsKey> NOT_STORED = key -> 0;
 
     @Test
     void shouldReturnAbsentIfNoCountAndNotStored()
@@ -288,7 +286,7 @@ class CountsChangesTest
         for ( int i = 0; i < 100; i++ )
         {
             CountsKey key = randomKey( random.random() );
-            changes.add( key, 1, k -> new AtomicLong() );
+            changes.add( key, 1, NOT_STORED );
             expectedChangesSet.add( key );
         }
         CountsLayout comparator = new CountsLayout();
@@ -296,17 +294,57 @@ class CountsChangesTest
         expectedChanges.sort( comparator );
 
         // when
-        Iterable<Map.Entry<CountsKey,AtomicLong>> sortedChanges = changes.sortedChanges( comparator );
+        List<CountsKey> sortedChanges = new ArrayList<>();
+        changes.visitSortedChanges( ( key, count ) -> sortedChanges.add( comparator.copyKey( key, new CountsKey() ) ) );
 
         // then
-        Iterator<CountsKey> expectedChangesIterator = expectedChanges.iterator();
-        for ( Map.Entry<CountsKey,AtomicLong> change : sortedChanges )
+        assertThat( sortedChanges ).hasSameSizeAs( expectedChanges );
+        for ( int i = 0; i < expectedChanges.size(); i++ )
         {
-            CountsKey expectedChange = expectedChangesIterator.next();
-            assertThat( comparator.compare( expectedChange, change.getKey() ) ).isEqualTo( 0 );
+            assertThat( comparator.compare( expectedChanges.get( i ), sortedChanges.get( i ) ) ).isEqualTo( 0 );
         }
     }
 
+    @Test
+    void shouldUpdateConcurrentlyWhileInsertingManyKeys()
+    {
+        // given
+        CountsChanges changes = new CountsChanges();
+        int numberOfKeys = 20_000;
+        int numberOfThreads = 4;
+
+        // when every thread adds to every key, all of them inserting keys concurrently
+        Race race = new Race();
+        race.addContestants( numberOfThreads, t -> () ->
+        {
+            for ( int i = 0; i < numberOfKeys; i++ )
+            {
+                int token = (i + t * numberOfKeys / numberOfThreads) % numberOfKeys;
+                changes.add( relationshipKey( token, token % 7, token % 13 ), 1, key -> 10 );
+            }
+        } );
+        race.goUnchecked();
+
+        // then
+        assertThat( changes.size() ).isEqualTo( numberOfKeys );
+        for ( int token = 0; token < numberOfKeys; token++ )
+        {
+            assertThat( changes.get( relationshipKey( token, token % 7, token % 13 ) ) ).isEqualTo( 10 + numberOfThreads );
+        }
+        CountsLayout layout = new CountsLayout();
+        CountsKey previousKey = new CountsKey();
+        layout.initializeAsLowest( previousKey );
+        int[] visited = new int[1];
+        changes.visitSortedChanges( ( key, count ) ->
+        {
+            assertThat( layout.compare( previousKey, key ) ).isLessThan( 0 );
+            layout.copyKey( key, previousKey );
+            assertThat( count ).isEqualTo( 10 + numberOfThreads );
+            visited[0]++;
+        } );
+        assertThat( visited[0] ).isEqualTo( numberOfKeys );
+    }
+
     private static CountsKey randomKey( Random random )
     {
         return random.nextBoolean() ? nodeKey( randomToken( random ) ) : relationshipKey( randomToken( random ), randomToken( random ), randomToken( random ) );
@@ -317,12 +355,12 @@ class CountsChangesTest
         return random.nextInt( 20 );
     }
 
-    private static Function<CountsKey,AtomicLong> stored( long count )
+    private static ToLongFunction<CountsKey> stored( long count )
     {
-        return key -> new AtomicLong( count );
+        return key -> count;
     }
 
-    private static class InMemoryCountsStore implements Function<CountsKey,AtomicLong>
+    private static class InMemoryCountsStore implements ToLongFunction<CountsKey>
     {
         private final ConcurrentHashMap<CountsKey,Long> counts = new ConcurrentHashMap<>();
 
@@ -332,9 +370,9 @@ class CountsChangesTest
         }
 
         @Override
-        public AtomicLong apply( CountsKey countsKey )
+        public long applyAsLong( CountsKey countsKey )
         {
-            return new AtomicLong( counts.getOrDefault( countsKey, 0L ) );
+            return counts.getOrDefault( countsKey, 0L );
         }
     }
 }
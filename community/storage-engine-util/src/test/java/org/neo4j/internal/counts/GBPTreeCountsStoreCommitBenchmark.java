@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.counts;
+
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.counts.CountsAccessor;
+import org.neo4j.io.fs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.storageengine.api.cursor.StoreCursors;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.dbms.database.readonly.DatabaseReadOnlyChecker.writable;
+import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.immediate;
+import static org.neo4j.internal.counts.GBPTreeCountsStore.NO_MONITOR;
+import static org.neo4j.io.pagecache.context.CursorContext.NULL;
+import static org.neo4j.memory.EmptyMemoryTracker.INSTANCE;
+import static org.neo4j.test.utils.PageCacheConfig.config;
+import static org.neo4j.token.api.TokenConstants.ANY_LABEL;
+
+/**
+ * Measures commit throughput of a {@link GBPTreeCountsStore} under a write-heavy workload: a number of threads applying transactions,
+ * each creating a couple of nodes and relationships and so changing a handful of counts, some of them (the "any label" counts) changed
+ * by every transaction, while another thread checkpoints regularly.
+ * <p>
+ * Arguments, all optional: number of threads (default: number of processors), duration in seconds (default: 10),
+ * number of labels and relationship types (default: 100), checkpoint interval in milliseconds (default: 1 000).
+ */
+public class GBPTreeCountsStoreCommitBenchmark
+{
+    private GBPTreeCountsStoreCommitBenchmark()
+    {
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+        int threads = args.length > 0 ? Integer.parseInt( args[0] ) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt( args[1] ) : 10;
+        int tokens = args.length > 2 ? Integer.parseInt( args[2] ) : 100;
+        long checkpointInterval = args.length > 3 ? Long.parseLong( args[3] ) : 1_000;
+        try ( EphemeralFileSystemAbstraction fs = new EphemeralFileSystemAbstraction();
+              PageCache pageCache = PageCacheSupportExtension.getPageCache( fs, config() );
+              GBPTreeCountsStore countsStore = new GBPTreeCountsStore( pageCache, Path.of( "counts" ), fs, immediate(), CountsBuilder.EMPTY, writable(),
+                      PageCacheTracer.NULL, NO_MONITOR, DEFAULT_DATABASE_NAME, 1_000_000, NullLogProvider.getInstance() ) )
+        {
+            countsStore.start( NULL, StoreCursors.NULL, INSTANCE );
+            AtomicLong nextTxId = new AtomicLong( countsStore.txId() );
+            AtomicLong checkpoints = new AtomicLong();
+            AtomicBoolean end = new AtomicBoolean();
+            Thread[] committers = new Thread[threads];
+            for ( int i = 0; i < threads; i++ )
+            {
+                committers[i] = new Thread( () -> commit( countsStore, nextTxId, tokens, end ) );
+                committers[i].start();
+            }
+            Thread checkpointer = new Thread( () -> checkpoint( countsStore, checkpointInterval, checkpoints, end ) );
+            checkpointer.start();
+
+            long startTxId = nextTxId.get();
+            long startTime = System.nanoTime();
+            Thread.sleep( SECONDS.toMillis( seconds ) );
+            end.set( true );
+            for ( Thread committer : committers )
+            {
+                committer.join();
+            }
+            checkpointer.join();
+            long duration = System.nanoTime() - startTime;
+            long commits = nextTxId.get() - startTxId;
+
+            System.out.printf( "%d threads: %d commits in %d ms, %.0f commits/s, %d checkpoints%n", threads, commits, duration / 1_000_000,
+                    commits / (duration / 1e9), checkpoints.get() );
+        }
+    }
+
+    private static void commit( GBPTreeCountsStore countsStore, AtomicLong nextTxId, int tokens, AtomicBoolean end )
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while ( !end.get() )
+        {
+            try ( CountsAccessor.Updater updater = countsStore.apply( nextTxId.incrementAndGet(), NULL ) )
+            {
+                for ( int i = 0; i < 2; i++ )
+                {
+                    int startLabel = random.nextInt( tokens );
+                    int endLabel = random.nextInt( tokens );
+                    int type = random.nextInt( tokens );
+                    updater.incrementNodeCount( ANY_LABEL, 2 );
+                    updater.incrementNodeCount( startLabel, 1 );
+                    updater.incrementNodeCount( endLabel, 1 );
+                    updater.incrementRelationshipCount( ANY_LABEL, type, ANY_LABEL, 1 );
+                    updater.incrementRelationshipCount( startLabel, type, ANY_LABEL, 1 );
+                    updater.incrementRelationshipCount( ANY_LABEL, type, endLabel, 1 );
+                }
+            }
+        }
+    }
+
+    private static void checkpoint( GBPTreeCountsStore countsStore, long checkpointInterval, AtomicLong checkpoints, AtomicBoolean end )
+    {
+        try
+        {
+            while ( !end.get() )
+            {
+                MILLISECONDS.sleep( checkpointInterval );
+                countsStore.checkpoint( NULL );
+                checkpoints.incrementAndGet();
+            }
+        }
+        catch ( Exception e )
+        {
+            throw new RuntimeException( e );
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.neo4j.io.fs.InputStreamReadableChannel;
+import org.neo4j.io.fs.ReadableChannel;
+import org.neo4j.io.fs.ReadableChecksumChannel;
+import org.neo4j.kernel.KernelVersion;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.storageengine.api.CommandReader;
+import org.neo4j.storageengine.api.CommandReaderFactory;
+import org.neo4j.storageengine.api.StorageCommand;
+
+/**
+ * Parses a batch of command entries that were compressed together. The layout of the entry is:
+ * <pre>
+ *     [VERSION][TYPE][CODEC][COMMAND_COUNT][UNCOMPRESSED_LENGTH][COMPRESSED_LENGTH][COMPRESSED_DATA]
+ *     CODEC: 1B compression codec of the data, see {@link #DEFLATE_CODEC}
+ *     COMMAND_COUNT, UNCOMPRESSED_LENGTH, COMPRESSED_LENGTH: 4B each
+ *     COMPRESSED_DATA: the command entries, [VERSION][TYPE][COMMAND_DATA] each, exactly as they would have been written uncompressed
+ * </pre>
+ * The checksum of the transaction covers the compressed data, like it covers any other entry data.
+ * <p>
+ * The lengths and the command count are checked before anything is allocated from them, so that a corrupt entry fails like any other entry with
+ * bad data. The compressed data is read in chunks, so that a compressed length pointing past the end of a torn log fails on reading, which ends
+ * the log, rather than on allocating memory for data that is not there.
+ */
+class CompressedCommandsLogEntryParser extends LogEntryParser
+{
+    public static final byte DEFLATE_CODEC = 1;
+    /**
+     * The largest batch of command entries that is compressed, larger batches are written as plain command entries.
+     */
+    static final int MAX_UNCOMPRESSED_LENGTH = 16 << 20;
+    private static final int READ_CHUNK_SIZE = 64 << 10;
+    // A command entry is at least its version and type
+    private static final int MIN_COMMAND_ENTRY_SIZE = 2;
+
+    CompressedCommandsLogEntryParser()
+    {
+        super( LogEntryTypeCodes.COMPRESSED_COMMANDS );
+    }
+
+    @Override
+    LogEntry parse( KernelVersion version, ReadableChecksumChannel channel, LogPositionMarker marker, CommandReaderFactory commandReaderFactory )
+            throws IOException
+    {
+        byte codec = channel.get();
+        int commandCount = channel.getInt();
+        int uncompressedLength = channel.getInt();
+        int compressedLength = channel.getInt();
+        if ( codec != DEFLATE_CODEC )
+        {
+            throw new IOException( "Unknown compression codec " + codec + " of compressed commands" );
+        }
+        // Batches are only written compressed if that makes them smaller
+        if ( uncompressedLength <= 0 || uncompressedLength > MAX_UNCOMPRESSED_LENGTH || compressedLength <= 0 || compressedLength >= uncompressedLength ||
+                commandCount <= 0 || commandCount > uncompressedLength / MIN_COMMAND_ENTRY_SIZE )
+        {
+            throw new IOException( "Invalid compressed commands with " + commandCount + " commands, uncompressed length " + uncompressedLength +
+                    " and compressed length " + compressedLength );
+        }
+
+        ReadableChannel commandChannel =
+                new InputStreamReadableChannel( new ByteArrayInputStream( inflate( channel, compressedLength, uncompressedLength ) ) );
+        CommandReader commandReader = commandReaderFactory.get( version );
+        List<LogEntryCommand> commands = new ArrayList<>( commandCount );
+        for ( int i = 0; i < commandCount; i++ )
+        {
+            byte commandVersion = commandChannel.get();
+            byte type = commandChannel.get();
+            if ( commandVersion != version.version() || type != LogEntryTypeCodes.COMMAND )
+            {
+                throw new IOException( "Unexpected entry of version " + commandVersion + " and type " + type + " in compressed commands" );
+            }
+            StorageCommand command = commandReader.read( commandChannel );
+            if ( command == null )
+            {
+                throw new IOException( "Incomplete compressed commands, read " + i + " of " + commandCount + " commands" );
+            }
+            commands.add( new LogEntryCommand( version, command ) );
+        }
+        return new LogEntryCompressedCommands( version, commands );
+    }
+
+    private static byte[] inflate( ReadableChannel channel, int compressedLength, int uncompressedLength ) throws IOException
+    {
+        Inflater inflater = new Inflater();
+        try
+        {
+            byte[] chunk = new byte[Math.min( compressedLength, READ_CHUNK_SIZE )];
+            byte[] uncompressed = null;
+            int length = 0;
+            int remaining = compressedLength;
+            while ( remaining > 0 )
+            {
+                // All the compressed data is read, even if it inflates to more than expected, to leave the channel at the end of the entry
+                int chunkLength = Math.min( remaining, chunk.length );
+                channel.get( chunk, chunkLength );
+                remaining -= chunkLength;
+                if ( uncompressed == null )
+                {
+                    uncompressed = new byte[uncompressedLength];
+                }
+                inflater.setInput( chunk, 0, chunkLength );
+                int inflated;
+                do
+                {
+                    inflated = inflater.inflate( uncompressed, length, uncompressedLength - length );
+                    length += inflated;
+                }
+                while ( inflated > 0 );
+            }
+            if ( length != uncompressedLength || !inflater.finished() )
+            {
+                throw new IOException( "Corrupt compressed commands, expected " + uncompressedLength + " bytes but inflated " + length );
+            }
+            return uncompressed;
+        }
+        catch ( DataFormatException e )
+        {
+            throw new IOException( "Corrupt compressed commands", e );
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+}
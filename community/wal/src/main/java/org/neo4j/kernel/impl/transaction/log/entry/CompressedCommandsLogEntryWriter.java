@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) "Neo4j"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+import org.neo4j.io.fs.OutputStreamWritableChannel;
+import org.neo4j.io.fs.WritableChannel;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.neo4j.kernel.impl.transaction.log.entry.CompressedCommandsLogEntryParser.DEFLATE_CODEC;
+import static org.neo4j.kernel.impl.transaction.log.entry.CompressedCommandsLogEntryParser.MAX_UNCOMPRESSED_LENGTH;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryTypeCodes.COMMAND;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryTypeCodes.COMPRESSED_COMMANDS;
+
+/**
+ * Writes the commands of a transaction as batches of compressed command entries, see {@link CompressedCommandsLogEntryParser} for the layout.
+ * <p>
+ * The command entries are collected in memory and written when the transaction ends, or when the batch grows past {@link #MAX_BATCH_SIZE}.
+ * A batch that is too small to be worth compressing, larger than {@link CompressedCommandsLogEntryParser#MAX_UNCOMPRESSED_LENGTH} because of
+ * a single large command, or that does not get any smaller when compressed, is written as the plain command entries it consists of, exactly as
+ * they would have been written without compression.
+ * <p>
+ * The writer keeps its buffers and native compression state between transactions, and must only be used by one thread at a time.
+ * It must be closed to release the native memory of the compression state.
+ */
+public class CompressedCommandsLogEntryWriter implements AutoCloseable
+{
+    static final int MIN_COMPRESSED_SIZE = 256;
+    static final int MAX_BATCH_SIZE = 1 << 20;
+
+    private final Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+    private final BatchBuffer batch = new BatchBuffer();
+    private final WritableChannel batchChannel = new OutputStreamWritableChannel( batch );
+    private byte[] compressed = new byte[MIN_COMPRESSED_SIZE];
+    private WritableChannel channel;
+    private byte version;
+    private int batchCommands;
+
+    /**
+     * Starts writing the commands of a transaction.
+     *
+     * @param version the log entry version to write the commands with.
+     * @param channel the channel to write the entries to.
+     */
+    public void begin( byte version, WritableChannel channel )
+    {
+        this.version = version;
+        this.channel = channel;
+        batch.reset();
+        batchCommands = 0;
+    }
+
+    public void writeCommand( StorageCommand command ) throws IOException
+    {
+        batchChannel.put( version ).put( COMMAND );
+        command.serialize( batchChannel );
+        batchCommands++;
+        if ( batch.size() >= MAX_BATCH_SIZE )
+        {
+            writeBatch();
+        }
+    }
+
+    /**
+     * Writes whatever is left of the commands of the transaction.
+     */
+    public void end() throws IOException
+    {
+        writeBatch();
+        channel = null;
+    }
+
+    private void writeBatch() throws IOException
+    {
+        int length = batch.size();
+        if ( length == 0 )
+        {
+            return;
+        }
+        int compressedLength = length >= MIN_COMPRESSED_SIZE && length <= MAX_UNCOMPRESSED_LENGTH ? compress( batch.bytes(), length ) : -1;
+        if ( compressedLength < 0 )
+        {
+            channel.put( batch.bytes(), length );
+        }
+        else
+        {
+            channel.put( version ).put( COMPRESSED_COMMANDS ).put( DEFLATE_CODEC )
+                   .putInt( batchCommands )
+                   .putInt( length )
+                   .putInt( compressedLength )
+                   .put( compressed, compressedLength );
+        }
+        batch.reset();
+        batchCommands = 0;
+    }
+
+    /**
+     * @return the length of the compressed data, or -1 if it would not save anything over writing the data as is.
+     */
+    private int compress( byte[] data, int length )
+    {
+        // The compressed data, with the codec and the three lengths in front of it, must be smaller than the data itself to be worth it.
+        int limit = length - 13;
+        if ( compressed.length < limit )
+        {
+            compressed = new byte[Math.max( limit, compressed.length * 2 )];
+        }
+        deflater.reset();
+        deflater.setInput( data, 0, length );
+        deflater.finish();
+        int compressedLength = 0;
+        while ( !deflater.finished() && compressedLength < limit )
+        {
+            compressedLength += deflater.deflate( compressed, compressedLength, limit - compressedLength );
+        }
+        return deflater.finished() && compressedLength < limit ? compressedLength : -1;
+    }
+
+    @Override
+    public void close()
+    {
+        deflater.end();
+    }
+
+    private static class BatchBuffer extends ByteArrayOutputStream
+    {
+        BatchBuffer()
+        {
+            super( MIN_COMPRESSED_SIZE );
+        }
+
+        byte[] bytes()
+        {
+            return buf;
+        }
+    }
+}
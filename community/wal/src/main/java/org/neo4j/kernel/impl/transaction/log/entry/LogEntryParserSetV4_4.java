@@ -25,6 +25,11 @@ public class LogEntryParserSetV4_4 extends LogEntryParserSetV4_3
 {
     LogEntryParserSetV4_4()
     {
-        super( KernelVersion.V4_4 );
+        this( KernelVersion.V4_4 );
+    }
+
+    LogEntryParserSetV4_4( KernelVersion version )
+    {
+        super( version );
     }
 }
@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.transaction.log.entry;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 
 import org.neo4j.io.fs.PositionableChannel;
 import org.neo4j.io.fs.ReadPastEndException;
@@ -43,6 +44,9 @@ public class VersionAwareLogEntryReader implements LogEntryReader
     private final CommandReaderFactory commandReaderFactory;
     private final LogPositionMarker positionMarker;
     private final boolean verifyChecksumChain;
+    private final ArrayDeque<LogEntryCommand> pendingCommands = new ArrayDeque<>();
+    private final LogPositionMarker pendingCommandsEnd = new LogPositionMarker();
+    private final LogPositionMarker currentPosition = new LogPositionMarker();
     private LogEntryParserSet parserSet;
     private int lastTxChecksum = BASE_TX_CHECKSUM;
 
@@ -61,6 +65,18 @@ public class VersionAwareLogEntryReader implements LogEntryReader
     @Override
     public LogEntry readLogEntry( ReadableClosablePositionAwareChecksumChannel channel ) throws IOException
     {
+        if ( !pendingCommands.isEmpty() )
+        {
+            // Commands of a compressed batch are handed out one by one, as if they had been written uncompressed,
+            // unless the reader has been moved to some other position in the meantime.
+            channel.getCurrentPosition( currentPosition );
+            if ( currentPosition.getLogVersion() == pendingCommandsEnd.getLogVersion() &&
+                    currentPosition.getByteOffset() == pendingCommandsEnd.getByteOffset() )
+            {
+                return pendingCommands.poll();
+            }
+            pendingCommands.clear();
+        }
         try
         {
             while ( true )
@@ -128,6 +144,12 @@ public class VersionAwareLogEntryReader implements LogEntryReader
                     throw new IOException( e );
                 }
 
+                if ( entry instanceof LogEntryCompressedCommands )
+                {
+                    pendingCommands.addAll( ((LogEntryCompressedCommands) entry).getCommands() );
+                    channel.getCurrentPosition( pendingCommandsEnd );
+                    entry = pendingCommands.poll();
+                }
                 verifyChecksumChain( entry );
                 return entry;
             }